@@ -0,0 +1,57 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.Constants;
+import frc.robot.subsystems.Arm;
+import frc.robot.subsystems.Claw;
+import frc.robot.util.Util;
+
+/**
+ * Small per-loop helpers from the OI and subsystems. The subsystems can't be
+ * built without hardware, so these call the static logic the subsystems use
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControlsBenchmark {
+    private static final Claw.TargetMode[] kTargetModes = Claw.TargetMode.values();
+    private static final Claw.SpinMode[] kSpinModes = Claw.SpinMode.values();
+
+    private final StickInputs mInputs = new StickInputs();
+    private Constants.TargetHeight mHeight = Constants.TargetHeight.GROUND;
+    private int mMode = 0;
+
+    @Benchmark
+    public double utilLimit() {
+        mInputs.next();
+        return Util.limit(mInputs.throttle * 2, 1.0);
+    }
+
+    @Benchmark
+    public double clawIntakeSpeed() {
+        mMode = (mMode + 1) % (kTargetModes.length * kSpinModes.length);
+        return Claw.getIntakeSpeed(kTargetModes[mMode % kTargetModes.length],
+                kSpinModes[mMode / kTargetModes.length], (mMode & 1) == 0);
+    }
+
+    @Benchmark
+    public Constants.TargetHeight armNextTargetHeight() {
+        mInputs.next();
+        mHeight = Arm.nextTargetHeight(mHeight, mInputs.throttle > 0);
+        return mHeight;
+    }
+
+    @Benchmark
+    public double armClampPosition() {
+        mInputs.next();
+        return Arm.clampPosition(mInputs.throttle * 2 * Constants.Arm.kMaxPosition);
+    }
+}
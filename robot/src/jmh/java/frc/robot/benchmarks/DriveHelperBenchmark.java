@@ -0,0 +1,63 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.util.DriveHelper;
+
+/**
+ * DriveHelper runs every loop (or every 5ms with high rate control), so both
+ * its time and whether it allocates matter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DriveHelperBenchmark {
+    private final DriveHelper mHelper = new DriveHelper();
+    private final DriveHelper.SpeedControl mOut = new DriveHelper.SpeedControl();
+
+    // Varied so the quick stop accumulator and deadband branches all get used
+    private final StickInputs mInputs = new StickInputs();
+
+    @Benchmark
+    public DriveHelper.SpeedControl arcadeDrive() {
+        mInputs.next();
+        return mHelper.arcadeDrive(mInputs.throttle, mInputs.wheel, mInputs.button, false);
+    }
+
+    @Benchmark
+    public DriveHelper.SpeedControl arcadeDriveInto() {
+        mInputs.next();
+        return mHelper.arcadeDrive(mInputs.throttle, mInputs.wheel, mInputs.button, false, mOut);
+    }
+
+    @Benchmark
+    public DriveHelper.SpeedControl autoDrive() {
+        mInputs.next();
+        return mHelper.autoDrive(mInputs.throttle, mInputs.wheel);
+    }
+
+    @Benchmark
+    public DriveHelper.SpeedControl autoDriveInto() {
+        mInputs.next();
+        return mHelper.autoDrive(mInputs.throttle, mInputs.wheel, mOut);
+    }
+
+    @Benchmark
+    public DriveHelper.SpeedControl curvatureDriveInto() {
+        mInputs.next();
+        return mHelper.curvatureDrive(mInputs.throttle, mInputs.wheel, mInputs.button, mOut);
+    }
+
+    @Benchmark
+    public DriveHelper.SpeedControl tankDriveInto() {
+        mInputs.next();
+        return mHelper.tankDrive(mInputs.throttle, mInputs.wheel, true, mOut);
+    }
+}
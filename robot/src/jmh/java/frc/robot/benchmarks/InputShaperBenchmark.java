@@ -0,0 +1,78 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.DriverProfile;
+import frc.robot.util.InputShaper;
+
+/**
+ * Stick shaping runs for three axes every loop. Each profile's curves are
+ * tables, so they should all cost about the same, and none should allocate
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InputShaperBenchmark {
+    private static final double kPeriodSec = 0.02;
+
+    private final InputShaper mStandard = new InputShaper(DriverProfile.STANDARD.drive, kPeriodSec);
+    private final InputShaper mSmooth = new InputShaper(DriverProfile.SMOOTH.drive, kPeriodSec);
+    private final InputShaper mPrecise = new InputShaper(DriverProfile.PRECISE.drive, kPeriodSec);
+
+    private final StickInputs mInputs = new StickInputs();
+
+    // What the table replaces: the curve worked out directly every call
+    private static double shapeDirect(double raw) {
+        double magnitude = Math.abs(raw);
+        if (magnitude <= 0.1) {
+            return 0;
+        }
+        double scaled = (magnitude - 0.1) / 0.9;
+        double shaped = 0.6 * Math.expm1(3 * scaled) / Math.expm1(3);
+        return raw > 0 ? shaped : -shaped;
+    }
+
+    @Benchmark
+    public double standardDrive() {
+        mInputs.next();
+        return mStandard.update(mInputs.throttle);
+    }
+
+    @Benchmark
+    public double smoothDrive() {
+        mInputs.next();
+        return mSmooth.update(mInputs.throttle);
+    }
+
+    @Benchmark
+    public double preciseDrive() {
+        mInputs.next();
+        return mPrecise.update(mInputs.throttle);
+    }
+
+    // The precise curve alone, from the table and worked out directly
+    @Benchmark
+    public double preciseTable() {
+        mInputs.next();
+        return DriverProfile.PRECISE.drive.shape(mInputs.throttle);
+    }
+
+    @Benchmark
+    public double preciseDirect() {
+        mInputs.next();
+        return shapeDirect(mInputs.throttle);
+    }
+
+    @Benchmark
+    public double allAxes() {
+        mInputs.next();
+        return mSmooth.update(mInputs.throttle) + mPrecise.update(mInputs.wheel) + mStandard.update(mInputs.throttle);
+    }
+}
@@ -0,0 +1,46 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.util.drivers.Limelight;
+
+/**
+ * Turning Limelight NetworkTables values into a Values snapshot, and handing
+ * snapshots between threads
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimelightBenchmark {
+    private final Limelight.Values mSource = new Limelight.Values();
+    private final Limelight.Values mDestination = new Limelight.Values();
+    private final double[] mCamtran = { 1, 2, 3, 4, 5, 6 };
+    private int mPipeline = 0;
+
+    @Benchmark
+    public Limelight.Pipeline pipelineFromValue() {
+        mPipeline = (mPipeline + 1) % 12;
+        return Limelight.Pipeline.fromValue(mPipeline - 1);
+    }
+
+    @Benchmark
+    public Limelight.Values setCameraTransform() {
+        mCamtran[0] += 1;
+        mDestination.setCameraTransform(mCamtran);
+        return mDestination;
+    }
+
+    @Benchmark
+    public Limelight.Values copyValues() {
+        mSource.horizontalOffset += 1;
+        mDestination.copyFrom(mSource);
+        return mDestination;
+    }
+}
@@ -0,0 +1,32 @@
+package frc.robot.benchmarks;
+
+/**
+ * A repeating sweep of stick positions, so benchmarks see realistic, varying
+ * inputs without calling into a random number generator
+ */
+class StickInputs {
+    private static final int kSteps = 256;
+
+    private static final double[] kThrottle = new double[kSteps];
+    private static final double[] kWheel = new double[kSteps];
+
+    static {
+        for (int i = 0; i < kSteps; i++) {
+            double t = 2 * Math.PI * i / kSteps;
+            kThrottle[i] = Math.sin(t);
+            kWheel[i] = Math.cos(3 * t);
+        }
+    }
+
+    private int mIndex = 0;
+
+    double throttle, wheel;
+    boolean button;
+
+    void next() {
+        mIndex = (mIndex + 1) % kSteps;
+        throttle = kThrottle[mIndex];
+        wheel = kWheel[mIndex];
+        button = mIndex < kSteps / 4;
+    }
+}
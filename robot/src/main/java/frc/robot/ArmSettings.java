@@ -0,0 +1,213 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.Constants.TargetHeight;
+import frc.robot.util.Clock;
+
+/**
+ * Arm presets and gains, from arm.properties in the deploy directory
+ *
+ * The file is loaded when the arm is built, and then checked for changes
+ * every kSettingsCheckPeriodSec from a Notifier. A new file is only used if
+ * every value in it is there and makes sense; otherwise the error goes to the
+ * driver station and the arm keeps what it had. The presets are swapped into
+ * Constants' table as a whole, so a loop never sees half of an update, and
+ * anyone who registered with onReload() is told about the new values, on the
+ * Notifier thread.
+ *
+ * The loop never touches the file. When it isn't running in real time
+ * (replay and lock-step simulation), the file is only read once.
+ */
+public class ArmSettings {
+
+    public static final String kFileName = "arm.properties";
+
+    private static final String kPresetPrefix = "preset.";
+
+    private static final TargetHeight[] kHeights = TargetHeight.values();
+
+    /**
+     * One complete set of settings
+     */
+    public static class Values {
+        // Indexed by TargetHeight ordinal
+        private final int[] mPresetHeights;
+        private final double mKp, mKi, mKd, mKf;
+
+        private Values(int[] presetHeights, double kP, double kI, double kD, double kF) {
+            mPresetHeights = presetHeights;
+            mKp = kP;
+            mKi = kI;
+            mKd = kD;
+            mKf = kF;
+        }
+
+        public int getPresetHeight(TargetHeight preset) {
+            return mPresetHeights[preset.ordinal()];
+        }
+
+        public double getKp() {
+            return mKp;
+        }
+
+        public double getKi() {
+            return mKi;
+        }
+
+        public double getKd() {
+            return mKd;
+        }
+
+        public double getKf() {
+            return mKf;
+        }
+    }
+
+    private static ArmSettings sInstance;
+
+    public static ArmSettings getInstance() {
+        if (sInstance == null) {
+            sInstance = new ArmSettings();
+        }
+        return sInstance;
+    }
+
+    private final Path mPath = Filesystem.getDeployDirectory().toPath().resolve(kFileName);
+    private final List<Consumer<Values>> mListeners = new CopyOnWriteArrayList<>();
+    private volatile Values mValues = new Values(Constants.getDefaultPresetHeights(), Constants.Arm.PID.P,
+            Constants.Arm.PID.I, Constants.Arm.PID.D, Constants.Arm.PID.F);
+
+    private Notifier mNotifier;
+
+    // Only touched by the Notifier, after the constructor
+    private FileTime mLastModified;
+
+    private ArmSettings() {
+        if (!Files.exists(mPath)) {
+            DriverStation.reportWarning("No arm settings at " + mPath + ", using the defaults", false);
+        } else {
+            check();
+        }
+
+        if (Clock.isRealTime()) {
+            mNotifier = new Notifier(this::check);
+            mNotifier.startPeriodic(Constants.Arm.kSettingsCheckPeriodSec);
+        }
+    }
+
+    /**
+     * @return The settings in use
+     */
+    public Values getValues() {
+        return mValues;
+    }
+
+    /**
+     * @param listener Called on the Notifier thread each time a changed file
+     *                 is loaded
+     */
+    public void onReload(Consumer<Values> listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Load the file if it's changed since last time
+     */
+    private void check() {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(mPath);
+        } catch (IOException e) {
+            // Missing, or being replaced. Keep what we have
+            return;
+        }
+        if (modified.equals(mLastModified)) {
+            return;
+        }
+        mLastModified = modified;
+
+        Values values;
+        try (Reader reader = Files.newBufferedReader(mPath)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            values = parse(properties);
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportError("Could not load arm settings from " + mPath + ": " + e.getMessage(), false);
+            return;
+        }
+
+        mValues = values;
+        Constants.setPresetHeights(values.mPresetHeights);
+        for (Consumer<Values> listener : mListeners) {
+            listener.accept(values);
+        }
+        DriverStation.reportWarning("Loaded arm settings from " + mPath, false);
+    }
+
+    /**
+     * @throws IllegalArgumentException If anything is missing, unknown or out
+     *                                  of range
+     */
+    static Values parse(Properties properties) {
+        Set<String> unused = new HashSet<>(properties.stringPropertyNames());
+
+        int[] heights = new int[kHeights.length];
+        for (TargetHeight height : kHeights) {
+            String key = kPresetPrefix + height.name();
+            String value = require(properties, key);
+            unused.remove(key);
+            try {
+                heights[height.ordinal()] = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " isn't a whole number of ticks: " + value);
+            }
+            if (heights[height.ordinal()] < Constants.Arm.kMinPosition
+                    || heights[height.ordinal()] > Constants.Arm.kMaxPosition) {
+                throw new IllegalArgumentException(key + " is outside the arm's travel: " + value);
+            }
+        }
+
+        double[] gains = new double[4];
+        String[] gainKeys = { "kP", "kI", "kD", "kF" };
+        for (int i = 0; i < gains.length; i++) {
+            String value = require(properties, gainKeys[i]);
+            unused.remove(gainKeys[i]);
+            try {
+                gains[i] = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(gainKeys[i] + " isn't a number: " + value);
+            }
+            if (!Double.isFinite(gains[i]) || gains[i] < 0) {
+                throw new IllegalArgumentException(gainKeys[i] + " has to be a number, 0 or more: " + value);
+            }
+        }
+
+        // Most likely a typo, which would otherwise be silently ignored
+        if (!unused.isEmpty()) {
+            throw new IllegalArgumentException("unknown settings " + unused);
+        }
+        return new Values(heights, gains[0], gains[1], gains[2], gains[3]);
+    }
+
+    private static String require(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + key);
+        }
+        return value.trim();
+    }
+}
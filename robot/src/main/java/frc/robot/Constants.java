@@ -7,8 +7,6 @@
 
 package frc.robot;
 
-import java.util.EnumMap;
-
 /**
  * Constants for the robot
  * 
@@ -28,6 +26,60 @@ public class Constants {
         public static final int kLeftFollowerId = 2;
         public static final int kRightLeaderId = 3;
         public static final int kRightFollowerId = 4;
+
+        // Distance between the left and right wheels, for working out heading
+        // from the encoders
+        public static final double kTrackWidthInches = 25.0;
+
+        // Motor turns per wheel turn, and the wheel size, for converting the
+        // SPARK MAX encoders to inches. Everything measured in inches
+        // (odometry, trajectories, docking, the simulation) is scaled by these.
+        // PLACEHOLDERS: neither has been checked against the gearbox or a
+        // measured wheel yet. Replace them with the real reduction and the
+        // wheel's diameter as worn (roll the robot a known distance)
+        public static final double kGearReduction = 14.0; // PLACEHOLDER
+        public static final double kWheelDiameterInches = 6.0; // PLACEHOLDER
+        public static final double kInchesPerMotorRotation = Math.PI * kWheelDiameterInches / kGearReduction;
+
+        // A NEO's free speed, and the wheel speed that gives through the
+        // gearing above
+        public static final double kNeoFreeSpeedRpm = 5676;
+        public static final double kFreeSpeedInchesPerSec = kNeoFreeSpeedRpm / 60 * kInchesPerMotorRotation;
+
+        // The leaders send their position (status 2) this often, instead of
+        // the default 50ms, and odometry samples at the same rate so every
+        // sample is a new position. How many samples are kept: 256 covers
+        // the last 1.28s
+        public static final int kPositionFramePeriodMs = 5;
+        public static final double kOdometryPeriodSec = kPositionFramePeriodMs / 1000.0;
+        public static final int kMotionHistorySize = 256;
+
+        // Run the drive math and write the motors from a fast loop of its
+        // own, instead of from the scheduler (see Drivetrain.setHighRateControl)
+        public static final boolean kHighRateControl = false;
+        public static final double kControlPeriodSec = 0.005;
+
+        // The fast loop stops the motors if it doesn't get a new setpoint
+        // for this long
+        public static final double kSetpointTimeoutSec = 0.1;
+
+        // Loop period and jitter are published once per this many loops
+        public static final int kControlStatsWindow = 200;
+    }
+
+    // --- Trajectory following, see FollowTrajectory ---
+    public static class Trajectory {
+        // Open loop output per side: kS to get moving, kV per in/s and kA
+        // per in/s^2. kV is worked out from the drive's free speed, so it
+        // follows the gearing; a loaded drivetrain is a little slower, so
+        // all three are starting points until the drive is characterized
+        public static final double kS = 0.05;
+        public static final double kV = 1.0 / Drivetrain.kFreeSpeedInchesPerSec;
+        public static final double kA = 0.002;
+
+        // Output per radian of heading error, and per inch of distance error
+        public static final double kHeadingP = 0.8;
+        public static final double kDistanceP = 0.02;
     }
 
     public static class Claw {
@@ -70,9 +122,57 @@ public class Constants {
         public static final int kMotionVelocityDown = 100;
         public static final int kMotionAccelerationDown = 100;
 
+        // Highest cruise velocity or acceleration that can be set from the
+        // dashboard
+        public static final int kMaxTunedMotionLimit = 2000;
+
         public static final int kMinPosition = 0;
         public static final int kMaxPosition = 1200;
 
+        // How often the deployed arm settings file is checked for changes,
+        // see ArmSettings
+        public static final double kSettingsCheckPeriodSec = 1.0;
+
+        // Stream motion profiles to the Talon instead of using Motion Magic,
+        // see Arm.ControlStrategy
+        public static final boolean kUseMotionProfile = false;
+
+        // Each profile point lasts this long; the Talon interpolates between
+        // them. Points are topped up twice per point, and the profile only
+        // starts once a few are buffered
+        public static final int kProfilePointMs = 10;
+        public static final double kProfileStreamPeriodSec = 0.005;
+        public static final int kProfileMinBufferedPoints = 5;
+        public static final int kProfileMaxPoints = 512;
+
+        // Goal changes smaller than this don't start a new profile
+        public static final int kProfileReplanThreshold = 10;
+
+        // Where the arm is level, and the encoder resolution, for the
+        // gravity term of the feedforward
+        public static final int kLevelPosition = 620;
+        public static final double kTicksPerDegree = 4096.0 / 360.0;
+
+        // Drive the arm with ArmFeedforward on top of the PID. Off until
+        // CharacterizeArm has been run on the robot and its gains copied into
+        // Feedforward below. Turning it on also voltage compensates the arm,
+        // which changes what the PID gains do, so retune them at the same time
+        public static final boolean kUseFeedforward = false;
+
+        // Feedforward is worked out in volts, so with it on the output is
+        // voltage compensated to this
+        public static final double kVoltageCompSaturation = 12.0;
+
+        // Quasistatic sweep used by CharacterizeArm. The ramp stops this far
+        // from either end of travel, and samples slower than the minimum
+        // velocity (ticks per 100ms) aren't used in the fit
+        public static final double kCharacterizationRampVoltsPerSec = 0.25;
+        public static final double kCharacterizationMaxVolts = 6.0;
+        public static final int kCharacterizationMargin = 100;
+        public static final double kCharacterizationMinVelocity = 5;
+        public static final int kCharacterizationMaxSamples = 5000;
+
+        // Compiled in gains, used if the arm settings file can't be loaded
         public static class PID {
             public static final double F = 0;
             public static final double P = 2;
@@ -80,6 +180,162 @@ public class Constants {
             public static final double D = 10;
             public static final int IZ = 0;
         }
+
+        // Arm feedforward gains, see ArmFeedforward. PLACEHOLDER guesses,
+        // only used with kUseFeedforward. Measure with CharacterizeArm and
+        // copy the results here
+        public static class Feedforward {
+            public static final double kS = 0.5;
+            public static final double kG = 1.2;
+            public static final double kV = 0.012;
+        }
+    }
+
+    public static class Limelight {
+        // Time from the image being captured to the pipeline starting, on
+        // top of the pipeline latency the camera reports in tl
+        public static final double kImageCaptureLatencyMs = 11;
+
+        // Camera and vision target geometry, for working out range from ty
+        public static final double kCameraHeightInches = 40.0;
+        public static final double kCameraPitchDegrees = -20.0;
+        public static final double kTargetHeightInches = 28.5;
+
+        // Camera updates further apart than this are different frames. A
+        // frame's values arrive together, and frames are at least 11ms apart
+        // at 90fps
+        public static final double kFrameGapMs = 4;
+
+        // Frames older than this, including camera latency, aren't acted on
+        public static final double kStaleThresholdMs = 100;
+
+        // Weight of each new frame in the frame rate and jitter averages
+        public static final double kFrameStatsSmoothing = 0.1;
+
+        // AutoDock steering and approach gains, on tx and ty in degrees
+        public static final double kSteering = 0.03;
+        public static final double kDistance = 0.05;
+        public static final double kMinTurningCommand = 0.05;
+
+        // Least AutoDock drives forward at while the arm hides the target.
+        // The ty term slows down through the eclipse, and would crawl until
+        // kMaxEclipseSec gave up
+        public static final double kMinEclipseDriveCommand = 0.2;
+
+        // Weight of each sighting in AutoDock's target estimate, and how long
+        // it will dead-reckon before giving up on the target reappearing
+        public static final double kEstimatorFilterGain = 0.3;
+        public static final double kMaxEclipseSec = 2.0;
+    }
+
+    public static class LoopProfiler {
+        public static final double kDefaultPeriodSec = 0.02;
+
+        // 50us buckets covering 0-50ms. Anything longer is counted as overflow
+        public static final double kBucketWidthMs = 0.05;
+        public static final int kBucketCount = 1000;
+    }
+
+    public static class RuntimeMonitor {
+        // Rolling window for allocation and GC rates, 5s at 50Hz
+        public static final int kWindowCycles = 250;
+    }
+
+    public static class SignalLogger {
+        // Logs go on the USB stick if there is one, otherwise the roboRIO
+        public static final String kUsbDirectory = "/u";
+        public static final String kRioDirectory = "/home/lvuser/logs";
+
+        // Each log is preallocated to this size. ~40 signals at 50Hz is
+        // about 8KB/s, so this is well over an hour
+        public static final long kFileBytes = 32 * 1024 * 1024;
+
+        // Older logs are deleted before a new one is started, so there are at
+        // most this many, taking no more than the directory's budget,
+        // counting the new one. The roboRIO's flash is shared with everything
+        // else on it, so it gets a lot less than a USB stick
+        public static final int kMaxFiles = 20;
+        public static final long kUsbBudgetBytes = kMaxFiles * kFileBytes;
+        public static final long kRioBudgetBytes = 4 * kFileBytes;
+
+        // Space left free on the disk after the new log, or there's no log
+        public static final long kMinFreeBytes = 64 * 1024 * 1024;
+
+        public static final double kFlushPeriodSec = 1.0;
+    }
+
+    // --- Desktop physics simulation, see frc.robot.util.sim ---
+    public static class Simulation {
+        // Physics is stepped this often, like the Talon's 1ms control loop
+        public static final double kPhysicsStepSec = 0.001;
+        public static final double kBatteryVoltage = 12.0;
+
+        // Running in real time, the steps are done in batches this often
+        public static final double kRealTimePeriodSec = 0.005;
+
+        // Drivetrain: two NEOs a side, through Drivetrain's gear reduction
+        // and wheels
+        public static final int kDriveMotorsPerSide = 2;
+        public static final double kRobotMassKg = 60.0;
+        public static final double kRobotMomentOfInertia = 6.0;
+
+        // Arm: a 775pro on each of the Talon and the Victor, the encoder on
+        // the arm shaft. The arm is modelled as a uniform rod pivoting at one
+        // end, and can't be driven past the hard stops (in encoder ticks)
+        public static final int kArmMotors = 2;
+        public static final double kArmGearing = 200.0;
+        public static final double kArmMassKg = 7.5;
+        public static final double kArmLengthMeters = 0.75;
+        public static final int kArmLowerStop = Arm.kMinPosition;
+        public static final int kArmUpperStop = Arm.kMaxPosition + 100;
+
+        // How long the claw has to spin a game piece in, or out, before the
+        // sensors see it arrive or leave. Slower speeds than this don't move it
+        public static final double kPieceIntakeSec = 0.3;
+        public static final double kPieceExhaustSec = 0.2;
+        public static final double kPieceMinSpeed = 0.2;
+    }
+
+    public static class Telemetry {
+        // How often the background thread writes to the dashboard
+        public static final double kPublishPeriodSec = 0.1;
+
+        // Snapshot dashboard values once every this many loops
+        public static final int kCaptureDecimation = 5;
+    }
+
+    public static class CAN {
+        // Timeout for each config read or write at boot
+        public static final int kConfigTimeoutMs = 10;
+
+        // Give up waiting on device configuration after this long
+        public static final double kConfigureAllTimeoutSec = 10;
+
+        // Signal freshness for values read every loop, and for values only
+        // shown on the dashboard
+        public static final int kLoopFreshnessMs = 20;
+        public static final int kTelemetryFreshnessMs = 100;
+
+        // CTRE status frame period limits. Frames nobody reads are sent at
+        // the slowest period
+        public static final int kMinFramePeriodMs = 1;
+        public static final int kUnusedFramePeriodMs = 255;
+        public static final int kCtreControlFramePeriodMs = 10;
+
+        // An extended frame with 8 data bytes is 131 bits, plus bit stuffing
+        public static final double kBitsPerFrame = 145;
+        public static final double kBitRate = 1e6;
+
+        // Rough traffic from devices we don't plan frames for
+        // SPARK MAX: status 0/1/2 at 10/20/50ms, plus a setpoint every loop
+        public static final double kSparkMaxFramesPerSec = 220;
+        // A drive leader, with status 2 at Drivetrain.kPositionFramePeriodMs
+        public static final double kDriveLeaderFramesPerSec = kSparkMaxFramesPerSec - 1000.0 / 50
+                + 1000.0 / Drivetrain.kPositionFramePeriodMs;
+        // CANifier: general status at 10ms, PWM inputs at 100ms, plus control
+        public static final double kCanifierFramesPerSec = 240;
+        public static final double kPcmFramesPerSec = 100;
+        public static final double kPdpFramesPerSec = 120;
     }
 
     // --- Gamepad Constants ---
@@ -99,21 +355,44 @@ public class Constants {
     }
 
 
-    private static String[] heightNames;
-    private static EnumMap<TargetHeight, Integer> targetHeightMap = new EnumMap<TargetHeight, Integer>(TargetHeight.class);
+    // Encoder ticks for each preset, indexed by TargetHeight ordinal. The
+    // whole table is swapped when the arm settings file changes, see
+    // ArmSettings
+    private static volatile int[] sPresetHeights = getDefaultPresetHeights();
 
+    /**
+     * @return Compiled in preset heights, used if the arm settings file can't
+     *         be loaded
+     */
+    static int[] getDefaultPresetHeights() {
+        int[] heights = new int[TargetHeight.values().length];
+        heights[TargetHeight.GROUND.ordinal()] = Arm.kMinPosition;
+        heights[TargetHeight.COLLECT.ordinal()] = 130;
+        heights[TargetHeight.LOW.ordinal()] = 380;
+        heights[TargetHeight.R1_CARGO_SCORE.ordinal()] = 618;
+        heights[TargetHeight.CS_CARGO_SCORE.ordinal()] = 915;
+        heights[TargetHeight.CARGO_LOAD.ordinal()] = 955;
+        heights[TargetHeight.R2_HATCH.ordinal()] = 1085;
+        heights[TargetHeight.R2_CARGO_SCORE.ordinal()] = 1190;
+        return heights;
+    }
+
+    /**
+     * Load the preset heights from the arm settings file, if it hasn't been
+     * already
+     */
     public static void initTargetHeights() {
-        targetHeightMap.put(TargetHeight.GROUND, Arm.kMinPosition);
-        targetHeightMap.put(TargetHeight.COLLECT, 130);
-        targetHeightMap.put(TargetHeight.LOW, 380);
-        targetHeightMap.put(TargetHeight.R1_CARGO_SCORE, 618);
-        targetHeightMap.put(TargetHeight.CS_CARGO_SCORE, 915);
-        targetHeightMap.put(TargetHeight.CARGO_LOAD, 955);
-        targetHeightMap.put(TargetHeight.R2_HATCH, 1085);
-        targetHeightMap.put(TargetHeight.R2_CARGO_SCORE, 1190);
+        ArmSettings.getInstance();
+    }
+
+    /**
+     * @param heights Replaces the whole table. Not modified afterwards
+     */
+    static void setPresetHeights(int[] heights) {
+        sPresetHeights = heights;
     }
 
     public static int getPresetHeight(TargetHeight preset) {
-        return targetHeightMap.get(preset);
+        return sPresetHeights[preset.ordinal()];
     }
 }
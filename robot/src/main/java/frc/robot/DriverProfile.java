@@ -0,0 +1,45 @@
+package frc.robot;
+
+import frc.robot.util.InputShaper;
+
+/**
+ * How each driver likes the sticks shaped, picked on the dashboard
+ *
+ * Each profile has a Config for the drive throttle, the turn stick and the
+ * operator's manual arm stick, see InputShaper.
+ */
+public enum DriverProfile {
+    // The sticks as they were before profiles. The throttle is squared, and
+    // anything under kDriveControllerDeadband after squaring is dropped, which
+    // is a hard deadband at its square root. Turning is raw. The arm has a
+    // hard deadband that lets 0.2 itself through, as the old check did. The
+    // one change: the old throttle lost its sign when squared, so it couldn't
+    // reverse; this keeps it
+    STANDARD("Standard",
+            new InputShaper.Config(Math.sqrt(Constants.kDriveControllerDeadband), false, InputShaper.power(2), 0),
+            new InputShaper.Config(0, InputShaper.linear(), 0),
+            new InputShaper.Config(Math.nextDown(0.2), false, InputShaper.linear(), 0)),
+
+    // Softer around center, and the throttle can't be slammed from full
+    // forward to full reverse in one loop
+    SMOOTH("Smooth",
+            new InputShaper.Config(0.1, InputShaper.cubic(0.6), 3.0),
+            new InputShaper.Config(0.1, InputShaper.cubic(0.4), 6.0),
+            new InputShaper.Config(0.15, InputShaper.cubic(0.5), 0)),
+
+    // For lining up: gentle everywhere, and capped at 60% speed
+    PRECISE("Precise",
+            new InputShaper.Config(0.1, InputShaper.exponential(3).andThen(x -> 0.6 * x), 2.0),
+            new InputShaper.Config(0.1, InputShaper.power(3).andThen(x -> 0.5 * x), 4.0),
+            new InputShaper.Config(0.15, InputShaper.cubic(1.0), 0));
+
+    public final String label;
+    public final InputShaper.Config drive, turn, arm;
+
+    private DriverProfile(String label, InputShaper.Config drive, InputShaper.Config turn, InputShaper.Config arm) {
+        this.label = label;
+        this.drive = drive;
+        this.turn = turn;
+        this.arm = arm;
+    }
+}
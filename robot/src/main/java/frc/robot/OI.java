@@ -7,18 +7,27 @@
 
 package frc.robot;
 
+import java.nio.ByteBuffer;
+
 import frc.robot.controllers.XboxController;
 import frc.robot.subsystems.Claw;
-import frc.robot.util.DriveHelper;
+import frc.robot.util.InputShaper;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.Tunables;
+import frc.robot.util.replay.LoggableInputs;
+import frc.robot.util.replay.Replay;
 import frc.robot.commands.SetClawTargetMode;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants.TargetHeight;
+import frc.robot.commands.CharacterizeArm;
 import frc.robot.commands.IncrementArmTargetHeight;
 import frc.robot.commands.IntakeSpin;
 import frc.robot.commands.SetArmFromDashboard;
 import frc.robot.commands.SetArmTargetHeight;
 import frc.robot.commands.SetClawSpinMode;
+import frc.robot.commands.auto.AutoDock;
 
 /**
  * This class is the glue that binds the controls on the physical operator
@@ -32,27 +41,120 @@ public class OI {
 
     private SendableChooser<TargetHeight> targetHeightChooser;
 
+    // Operator settings from the dashboard, sampled once per loop
+    private static class DashboardInputs implements LoggableInputs {
+        private static final TargetHeight[] kHeights = TargetHeight.values();
+
+        private static final DriverProfile[] kProfiles = DriverProfile.values();
+
+        boolean useStickMotionMagic;
+        boolean openLoopArm;
+        double desiredMotionMagicPosition;
+        TargetHeight selectedHeight;
+        DriverProfile profile = DriverProfile.STANDARD;
+
+        @Override
+        public int getLogSize() {
+            return 1 + 8 + 1 + 1;
+        }
+
+        @Override
+        public void toLog(ByteBuffer buffer) {
+            buffer.put((byte) ((useStickMotionMagic ? 1 : 0) | (openLoopArm ? 2 : 0)));
+            buffer.putDouble(desiredMotionMagicPosition);
+            buffer.put((byte) (selectedHeight != null ? selectedHeight.ordinal() : -1));
+            buffer.put((byte) profile.ordinal());
+        }
+
+        @Override
+        public void fromLog(ByteBuffer buffer) {
+            int bits = buffer.get();
+            useStickMotionMagic = (bits & 1) != 0;
+            openLoopArm = (bits & 2) != 0;
+            desiredMotionMagicPosition = buffer.getDouble();
+            int height = buffer.get();
+            selectedHeight = height >= 0 ? kHeights[height] : null;
+            profile = kProfiles[buffer.get()];
+        }
+    }
+
+    private final DashboardInputs mDashboard = new DashboardInputs();
+
+    private SendableChooser<DriverProfile> mProfileChooser;
+
+    // Arm settings, kept up to date by NetworkTables listeners
+    private final Tunables.BooleanTunable mUseStickMotionMagic = Tunables.getInstance()
+            .addBoolean("Use Stick Motion Magic", false);
+    private final Tunables.BooleanTunable mOpenLoopArm = Tunables.getInstance().addBoolean("Open Loop Arm", false);
+    private final Tunables.NumberTunable mDesiredMotionMagicPosition = Tunables.getInstance()
+            .addNumber("Desired Motion Magic Position", 0);
+
+    // Stick commands, shaped once per loop with the selected driver profile
+    private final InputShaper mDriveShaper = new InputShaper(DriverProfile.STANDARD.drive, TimedRobot.kDefaultPeriod);
+    private final InputShaper mTurnShaper = new InputShaper(DriverProfile.STANDARD.turn, TimedRobot.kDefaultPeriod);
+    private final InputShaper mArmShaper = new InputShaper(DriverProfile.STANDARD.arm, TimedRobot.kDefaultPeriod);
+
+    /**
+     * Sample the controllers and the dashboard settings. Called once at the
+     * start of every loop. When replaying, these are loaded from the log
+     * instead
+     */
+    public void readPeriodicInputs() {
+        mDriveController.readPeriodicInputs();
+        mOperatorControoler.readPeriodicInputs();
+        if (!Replay.isActive()) {
+            readDashboard();
+        }
+        shapeInputs();
+    }
+
+    private void readDashboard() {
+        mDashboard.useStickMotionMagic = mUseStickMotionMagic.get();
+        mDashboard.openLoopArm = mOpenLoopArm.get();
+        mDashboard.desiredMotionMagicPosition = mDesiredMotionMagicPosition.get();
+        mDashboard.selectedHeight = targetHeightChooser.getSelected();
+        DriverProfile profile = mProfileChooser.getSelected();
+        mDashboard.profile = profile != null ? profile : DriverProfile.STANDARD;
+    }
+
+    /**
+     * Shape this loop's stick values. Runs after the controllers and the
+     * dashboard have been sampled, whether they were read or replayed
+     */
+    private void shapeInputs() {
+        DriverProfile profile = mDashboard.profile;
+        if (mDriveShaper.getConfig() != profile.drive) {
+            mDriveShaper.setConfig(profile.drive);
+            mTurnShaper.setConfig(profile.turn);
+            mArmShaper.setConfig(profile.arm);
+        }
+
+        double invert = Constants.LogitechController.kInvertMoveSpeed ? -1 : 1;
+        mDriveShaper.update(invert * mDriveController.getLeftStickY());
+        mTurnShaper.update(mDriveController.getRightStickX());
+        mArmShaper.update(invert * mOperatorControoler.getLeftStickY());
+    }
+
     /**
      * Get requested X-axis movement speed from the controller Based on a Constants
      * value, we may negate this to ensure it gives a positive value when we want to
      * go forward
      * 
-     * @return requested speed
+     * @return requested speed, shaped by the driver profile
      */
     public double getDriveSpeed() {
         // left stick, Y axis
-        double raw = (Constants.LogitechController.kInvertMoveSpeed ? -1 : 1) * mDriveController.getLeftStickY();
-        return DriveHelper.handleDeadband(Math.pow(raw, 2), Constants.kDriveControllerDeadband);
+        return mDriveShaper.get();
     }
 
     /**
      * Get requested Z-axis rotation speed from the controller
      * 
-     * @return requested rotation speed
+     * @return requested rotation speed, shaped by the driver profile
      */
     public double getTurnSpeed() {
         // right stick, x axis
-        return mDriveController.getRightStickX();
+        return mTurnShaper.get();
     }
 
     /**
@@ -66,34 +168,41 @@ public class OI {
     }
 
     public double getManualArmSpeed() {
-
-        double raw = (Constants.LogitechController.kInvertMoveSpeed ? -1 : 1) * mOperatorControoler.getLeftStickY();
-        if (Math.abs(raw) < .2) {
-            return 0;
-        }
-        return raw;
+        // Operator's left stick, Y axis
+        return mArmShaper.get();
     }
 
     public boolean useControllerMM() {
-        return SmartDashboard.getBoolean("Use Stick Motion Magic", false);
+        return mDashboard.useStickMotionMagic;
     }
 
     public double getSDDesiredMotionMagicPosition(double defaultValue) {
-        return SmartDashboard.getNumber("Desired Motion Magic Position", defaultValue);
+        return mDashboard.desiredMotionMagicPosition;
     }
 
     public boolean isOpenLoopArm() {
-        return SmartDashboard.getBoolean("Open Loop Arm", false);
+        return mDashboard.openLoopArm;
     }
 
     public TargetHeight getSelectedDashboardHeight() {
-        return targetHeightChooser.getSelected();
+        return mDashboard.selectedHeight;
     }
 
     public void changeSelectedDashboardHeight() {
         
     }
 
+    /**
+     * The controllers, for a lock-step simulation to press buttons on
+     */
+    public XboxController getDriverController() {
+        return mDriveController;
+    }
+
+    public XboxController getOperatorController() {
+        return mOperatorControoler;
+    }
+
     public OI() {
         this.mOperatorControoler.buttonX.whenPressed(new SetClawTargetMode(Claw.TargetMode.CARGO));
         this.mOperatorControoler.buttonB.whenPressed(new SetClawTargetMode(Claw.TargetMode.HATCH));
@@ -109,9 +218,8 @@ public class OI {
 
         this.mOperatorControoler.buttonStart.whileHeld(new IntakeSpin(true));
 
-        createSmartDashboardBoolean("Use Stick Motion Magic", false);
-        createSmartDashboardBoolean("Open Loop Arm", false);
-        createSmartDashboardNumber("Desired Motion Magic Position", 0);
+        // Drive up to the vision target while held
+        this.mDriveController.buttonA.whileHeld(new AutoDock());
 
         targetHeightChooser = new SendableChooser<TargetHeight>();
         targetHeightChooser.setDefaultOption("Ground", TargetHeight.GROUND);
@@ -122,6 +230,26 @@ public class OI {
         targetHeightChooser.addOption("R1 Cargo", TargetHeight.R1_CARGO_SCORE);
         targetHeightChooser.addOption("R2 Cargo", TargetHeight.R2_CARGO_SCORE);
         SmartDashboard.putData("Arm Height", targetHeightChooser);
+
+        mProfileChooser = new SendableChooser<DriverProfile>();
+        mProfileChooser.setDefaultOption(DriverProfile.STANDARD.label, DriverProfile.STANDARD);
+        for (DriverProfile profile : DriverProfile.values()) {
+            if (profile != DriverProfile.STANDARD) {
+                mProfileChooser.addOption(profile.label, profile);
+            }
+        }
+        SmartDashboard.putData("Driver Profile", mProfileChooser);
+        SmartDashboard.putData("Characterize Arm", new CharacterizeArm());
+
+        SignalLogger logger = SignalLogger.getInstance();
+        logger.register("OI Drive Speed", this::getDriveSpeed);
+        logger.register("OI Turn Speed", this::getTurnSpeed);
+        logger.register("OI Quick Turn", () -> getQuickTurn() ? 1 : 0);
+        logger.register("OI Manual Arm Speed", this::getManualArmSpeed);
+        logger.register("OI Driver Profile", () -> mDashboard.profile.ordinal());
+        logger.registerInputs("Driver Controller", mDriveController);
+        logger.registerInputs("Operator Controller", mOperatorControoler);
+        logger.registerInputs("OI Dashboard", mDashboard);
     }
 
     /**
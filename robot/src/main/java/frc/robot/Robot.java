@@ -8,16 +8,35 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.Compressor;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.command.Scheduler;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.commands.SetArmTargetHeight;
+import frc.robot.commands.auto.FollowTrajectory;
 import frc.robot.subsystems.Arm;
 import frc.robot.subsystems.Claw;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.SubsystemRegistry;
+import frc.robot.util.Clock;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.RuntimeMonitor;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.StartupTimeline;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.drivers.CanBusPlanner;
 import frc.robot.util.drivers.Limelight;
 import frc.robot.util.drivers.Limelight.StreamingMode;
+import frc.robot.util.replay.CycleInputs;
+import frc.robot.util.replay.Replay;
+import frc.robot.util.sim.PhysicsSim;
+import frc.robot.util.trajectory.Trajectory;
+import frc.robot.util.trajectory.TrajectoryFormat;
+import frc.robot.util.trajectory.TrajectoryLibrary;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -28,31 +47,110 @@ import frc.robot.util.drivers.Limelight.StreamingMode;
  */
 public class Robot extends TimedRobot {
 
+  static {
+    StartupTimeline.getInstance().mark("Robot class loaded");
+  }
+
   // The Drivetrain subsystem contains all of the hardware APIs and
-  // methods to easily control and manage the robot's chassis motors & wheels
-  public static Drivetrain m_drivetrain = Drivetrain.getInstance();
-  public static Arm arm = Arm.getInstance();
+  // methods to easily control and manage the robot's chassis motors & wheels.
+  // All subsystems are built in robotInit(), see SubsystemRegistry
+  public static Drivetrain m_drivetrain;
+  public static Arm arm;
 
   // The Operator Interface (OI) is a class where the robot maps
   // controllers, buttons, and joysticks to different methods and events. 
   public static OI m_oi;
 
   // Immediately pull up to the collect height
-  SetArmTargetHeight m_autonomousCommand = new SetArmTargetHeight(Constants.TargetHeight.COLLECT);
+  SetArmTargetHeight m_autonomousCommand;
+
+  // Path to drive in autonomous, picked from the dashboard. The trajectories
+  // are generated at build time and deployed to the roboRIO
+  private TrajectoryLibrary m_trajectories;
+  private SendableChooser<Command> m_pathChooser = new SendableChooser<>();
+  private Command m_pathCommand;
 
   private Compressor compressor;
 
+  // Timing of each phase of the loop, see LoopProfiler
+  private LoopProfiler mProfiler = LoopProfiler.getInstance();
+  private LoopProfiler.Section mInputsSection = mProfiler.register("Inputs");
+  private LoopProfiler.Section mSchedulerSection = mProfiler.register("Scheduler");
+  private LoopProfiler.Section mDashboardSection = mProfiler.register("Dashboard");
+  private LoopProfiler.Section mLogSection = mProfiler.register("Signal Log");
+
+  // Every registered signal is recorded to a file each cycle, along with
+  // the inputs needed to replay it
+  private SignalLogger mSignalLogger = SignalLogger.getInstance();
+  private CycleInputs mCycle = Replay.getCycle();
+
+  // GC and allocation, sampled every cycle
+  private RuntimeMonitor mRuntimeMonitor = RuntimeMonitor.getInstance();
+
+  // Dashboard values are written out from a background thread
+  private TelemetryPublisher mTelemetry = TelemetryPublisher.getInstance();
+
   /**
    * This function is run when the robot is first started up and should be
    * used for any initialization code.
    */
   @Override
   public void robotInit() {
-    m_oi = new OI();
+    StartupTimeline timeline = StartupTimeline.getInstance();
+    timeline.mark("robotInit");
+    timeline.watchNetworkTables();
+    mSignalLogger.registerInputs("Cycle", mCycle);
+
+    // Everything is built and configured before robotInit() returns, so
+    // nothing gets constructed mid-match
+    SubsystemRegistry.boot();
+    m_drivetrain = Drivetrain.getInstance();
+    arm = Arm.getInstance();
+
+    // On a laptop the subsystems drive physics models. In lock step, whoever
+    // is running the robot steps them instead
+    if (RobotBase.isSimulation() && Clock.isRealTime()) {
+      PhysicsSim.getInstance().startRealTime();
+    }
+
+    // Vision targets are projected forward using where the drivetrain has been
+    m_drivetrain.startOdometry();
+    Limelight.getInstance().setMotionHistory(m_drivetrain.getMotionHistory());
+
+    timeline.time("Operator interface", () -> {
+      m_oi = new OI();
+      m_autonomousCommand = new SetArmTargetHeight(Constants.TargetHeight.COLLECT);
+    });
+
+    timeline.time("Load trajectories", () -> {
+      m_trajectories = TrajectoryLibrary.load(
+          Filesystem.getDeployDirectory().toPath().resolve(TrajectoryFormat.kFileName));
+      m_pathChooser.setDefaultOption("None", null);
+      for (Trajectory trajectory : m_trajectories.getAll()) {
+        m_pathChooser.addOption(trajectory.getName(), new FollowTrajectory(trajectory));
+      }
+      SmartDashboard.putData("Auto Path", m_pathChooser);
+    });
+
     compressor = new Compressor();
     compressor.start();
+
+    mProfiler.setPeriod(getPeriod());
   
     Limelight.getInstance().setStreamingMode(StreamingMode.PIP_SECONDARY);
+
+    mTelemetry.register(Drivetrain.getInstance());
+    mTelemetry.register(Claw.getInstance());
+    mTelemetry.register(Arm.getInstance());
+    mTelemetry.register(Limelight.getInstance());
+    mTelemetry.register(CanBusPlanner.getInstance());
+    mTelemetry.register(mRuntimeMonitor);
+    mTelemetry.start();
+
+    // The subsystems and OI register their signals as they're built
+    timeline.time("Signal log", mSignalLogger::start);
+
+    timeline.report();
   }
 
   /**
@@ -65,9 +163,17 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
-    Claw.getInstance().updateDashboard();
-    Arm.getInstance().updateDashboard();
-    // Intake.getInstance().updateDashboard();
+    mDashboardSection.start();
+    mTelemetry.capture();
+    mDashboardSection.stop();
+
+    mLogSection.start();
+    mSignalLogger.log();
+    mLogSection.stop();
+
+    // robotPeriodic() is the last thing in each loop, see runScheduler()
+    mProfiler.endCycle();
+    mRuntimeMonitor.sample();
   }
 
   /**
@@ -77,11 +183,14 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void disabledInit() {
+    // Publish the timing collected while enabled
+    mProfiler.outputToDashboard();
+    mRuntimeMonitor.dumpSummary();
   }
 
   @Override
   public void disabledPeriodic() {
-    Scheduler.getInstance().run();
+    runScheduler(CycleInputs.Mode.DISABLED);
   }
 
   /**
@@ -101,6 +210,11 @@ public class Robot extends TimedRobot {
     if (m_autonomousCommand != null) {
       m_autonomousCommand.start();
     }
+
+    m_pathCommand = m_pathChooser.getSelected();
+    if (m_pathCommand != null) {
+      m_pathCommand.start();
+    }
   }
 
   /**
@@ -108,7 +222,7 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void autonomousPeriodic() {
-    Scheduler.getInstance().run();
+    runScheduler(CycleInputs.Mode.AUTONOMOUS);
   }
 
   @Override
@@ -122,6 +236,9 @@ public class Robot extends TimedRobot {
     if (m_autonomousCommand != null) {
       m_autonomousCommand.cancel();
     }
+    if (m_pathCommand != null) {
+      m_pathCommand.cancel();
+    }
   }
 
   /**
@@ -129,7 +246,7 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void teleopPeriodic() {
-    Scheduler.getInstance().run();
+    runScheduler(CycleInputs.Mode.TELEOP);
   }
 
   /**
@@ -137,5 +254,40 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void testPeriodic() {
+    mProfiler.startCycle();
+    readInputs(CycleInputs.Mode.TEST);
+  }
+
+  /**
+   * Sample every subsystem's sensors. Commands and subsystems read from these
+   * snapshots for the rest of the loop instead of going to the CAN bus.
+   * When replaying, the snapshots have already been loaded from the log, and
+   * only what's worked out from them is updated.
+   */
+  private void readInputs(CycleInputs.Mode mode) {
+    mInputsSection.start();
+    if (!Replay.isActive()) {
+      mCycle.timestamp = Clock.getTime();
+      mCycle.mode = mode;
+    }
+    m_oi.readPeriodicInputs();
+    m_drivetrain.readPeriodicInputs();
+    arm.readPeriodicInputs();
+    Claw.getInstance().readPeriodicInputs();
+    Limelight.getInstance().readPeriodicInputs();
+    mInputsSection.stop();
+  }
+
+  /**
+   * Run the command scheduler. The mode specific periodic functions are the
+   * first thing called in each loop, so this also marks the start of a cycle
+   * and samples the inputs for it.
+   */
+  private void runScheduler(CycleInputs.Mode mode) {
+    mProfiler.startCycle();
+    readInputs(mode);
+    mSchedulerSection.start();
+    Scheduler.getInstance().run();
+    mSchedulerSection.stop();
   }
 }
@@ -12,9 +12,11 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants;
 import frc.robot.Robot;
 import frc.robot.subsystems.Arm;
+import frc.robot.util.LoopProfiler;
 
 public class ArmDefaultCommand extends Command {
     private Arm arm;
+    private LoopProfiler.Section mExecuteSection = LoopProfiler.getInstance().register("ArmDefaultCommand");
 
     public ArmDefaultCommand() {
         arm = Arm.getInstance();
@@ -29,6 +31,7 @@ public class ArmDefaultCommand extends Command {
     // Called repeatedly when this Command is scheduled to run
     @Override
     protected void execute() {
+        mExecuteSection.start();
         if (Robot.m_oi.isOpenLoopArm()) {
             double speed = Robot.m_oi.getManualArmSpeed();
             arm.setOpenLoop(speed, speed > 0);
@@ -43,6 +46,7 @@ public class ArmDefaultCommand extends Command {
 
             arm.setMotorsToCurrentPosition();
         }
+        mExecuteSection.stop();
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -0,0 +1,196 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.commands;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+import frc.robot.subsystems.Arm;
+import frc.robot.util.ArmFeedforward;
+import frc.robot.util.Clock;
+
+/**
+ * Measure the arm's feedforward gains
+ *
+ * Slowly ramps the voltage up until the arm nears the top of its travel, then
+ * back down until it nears the bottom. The arm moves slowly enough that
+ * acceleration can be ignored, so every sample is
+ *
+ *   V = kS * sign(velocity) + kG * cos(angle) + kV * velocity
+ *
+ * and the gains are a least squares fit over the samples where the arm was
+ * moving. The fit is applied to the arm straight away, shown on the
+ * dashboard, and the raw samples are written to arm_characterization.csv.
+ * Copy the gains into Constants.Arm.Feedforward to keep them. The arm only
+ * uses them with Constants.Arm.kUseFeedforward on.
+ */
+public class CharacterizeArm extends Command {
+    private final Arm mArm;
+
+    private final double[] mVolts = new double[Constants.Arm.kCharacterizationMaxSamples];
+    private final double[] mPositions = new double[Constants.Arm.kCharacterizationMaxSamples];
+    private final double[] mVelocities = new double[Constants.Arm.kCharacterizationMaxSamples];
+    private int mSamples;
+
+    private boolean mGoingUp;
+    private double mCommandVolts;
+    private double mLastTime;
+
+    public CharacterizeArm() {
+        mArm = Arm.getInstance();
+        requires(mArm);
+    }
+
+    // Called just before this Command runs the first time
+    @Override
+    protected void initialize() {
+        mSamples = 0;
+        mGoingUp = true;
+        mCommandVolts = 0;
+        mLastTime = Clock.getTime();
+    }
+
+    // Called repeatedly when this Command is scheduled to run
+    @Override
+    protected void execute() {
+        double now = Clock.getTime();
+        double dt = now - mLastTime;
+        mLastTime = now;
+
+        if (mSamples < mVolts.length) {
+            mVolts[mSamples] = mArm.getOutputVoltage();
+            mPositions[mSamples] = mArm.getPosition();
+            mVelocities[mSamples] = mArm.getVelocity();
+            mSamples++;
+        }
+
+        if (mGoingUp && mArm.getPosition() > Constants.Arm.kMaxPosition - Constants.Arm.kCharacterizationMargin) {
+            mGoingUp = false;
+        }
+
+        double ramp = Constants.Arm.kCharacterizationRampVoltsPerSec * dt;
+        mCommandVolts += mGoingUp ? ramp : -ramp;
+        mCommandVolts = Math.max(-Constants.Arm.kCharacterizationMaxVolts,
+                Math.min(Constants.Arm.kCharacterizationMaxVolts, mCommandVolts));
+        mArm.setVoltage(mCommandVolts);
+    }
+
+    // Make this return true when this Command no longer needs to run execute()
+    @Override
+    protected boolean isFinished() {
+        boolean atBottom = !mGoingUp
+                && mArm.getPosition() < Constants.Arm.kMinPosition + Constants.Arm.kCharacterizationMargin;
+        return atBottom || mSamples == mVolts.length;
+    }
+
+    // Called once after isFinished returns true
+    @Override
+    protected void end() {
+        mArm.setVoltage(0);
+        mArm.setMotionMagicPosition(mArm.getPosition());
+
+        writeSamples();
+
+        ArmFeedforward.Gains gains = fit();
+        if (gains == null) {
+            DriverStation.reportWarning("Arm characterization: not enough movement to fit", false);
+            return;
+        }
+        mArm.getFeedforward().setGains(gains);
+        SmartDashboard.putNumber("Arm kS", gains.kS);
+        SmartDashboard.putNumber("Arm kG", gains.kG);
+        SmartDashboard.putNumber("Arm kV", gains.kV);
+        System.out.println("Arm characterization: " + gains + " from " + mSamples + " samples");
+    }
+
+    // Called when another command which requires one or more of the same
+    // subsystems is scheduled to run
+    @Override
+    protected void interrupted() {
+        mArm.setVoltage(0);
+        mArm.setMotionMagicPosition(mArm.getPosition());
+    }
+
+    /**
+     * Least squares fit of the samples where the arm was moving, through the
+     * normal equations
+     * @return The gains, or null if there isn't enough data
+     */
+    private ArmFeedforward.Gains fit() {
+        ArmFeedforward feedforward = mArm.getFeedforward();
+        double[][] a = new double[3][4];
+        int used = 0;
+
+        for (int i = 0; i < mSamples; i++) {
+            if (Math.abs(mVelocities[i]) < Constants.Arm.kCharacterizationMinVelocity) {
+                continue;
+            }
+            double[] x = {
+                Math.signum(mVelocities[i]),
+                feedforward.getGravityFactor(mPositions[i]),
+                mVelocities[i],
+            };
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    a[row][col] += x[row] * x[col];
+                }
+                a[row][3] += x[row] * mVolts[i];
+            }
+            used++;
+        }
+        if (used < 3) {
+            return null;
+        }
+
+        // Gaussian elimination with partial pivoting
+        for (int pivot = 0; pivot < 3; pivot++) {
+            int best = pivot;
+            for (int row = pivot + 1; row < 3; row++) {
+                if (Math.abs(a[row][pivot]) > Math.abs(a[best][pivot])) {
+                    best = row;
+                }
+            }
+            double[] swap = a[pivot];
+            a[pivot] = a[best];
+            a[best] = swap;
+
+            if (Math.abs(a[pivot][pivot]) < 1e-12) {
+                return null;
+            }
+            for (int row = 0; row < 3; row++) {
+                if (row == pivot) {
+                    continue;
+                }
+                double factor = a[row][pivot] / a[pivot][pivot];
+                for (int col = pivot; col < 4; col++) {
+                    a[row][col] -= factor * a[pivot][col];
+                }
+            }
+        }
+        return new ArmFeedforward.Gains(a[0][3] / a[0][0], a[1][3] / a[1][1], a[2][3] / a[2][2]);
+    }
+
+    private void writeSamples() {
+        Path path = Filesystem.getOperatingDirectory().toPath().resolve("arm_characterization.csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("volts,position,velocity");
+            for (int i = 0; i < mSamples; i++) {
+                writer.println(mVolts[i] + "," + mPositions[i] + "," + mVelocities[i]);
+            }
+        } catch (IOException e) {
+            DriverStation.reportError("Could not write arm characterization samples: " + e, false);
+        }
+    }
+}
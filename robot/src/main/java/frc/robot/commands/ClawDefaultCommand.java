@@ -12,9 +12,11 @@ import frc.robot.subsystems.Claw;
 import frc.robot.subsystems.Claw.ControlMode;
 import frc.robot.subsystems.Claw.SpinMode;
 import frc.robot.subsystems.Claw.TargetMode;
+import frc.robot.util.LoopProfiler;
 
 public class ClawDefaultCommand extends Command {
     private Claw mClaw;
+    private LoopProfiler.Section mExecuteSection = LoopProfiler.getInstance().register("ClawDefaultCommand");
 
     public ClawDefaultCommand() {
         mClaw = Claw.getInstance();
@@ -31,6 +33,7 @@ public class ClawDefaultCommand extends Command {
     // Called repeatedly when this Command is scheduled to run
     @Override
     protected void execute() {
+        mExecuteSection.start();
         if (mClaw.getTargetMode() == TargetMode.CARGO) {
             // If the claw is in automatic mode (i.e. no input), determine the speeds
             if (mClaw.getControlMode() == ControlMode.AUTO) {
@@ -60,6 +63,7 @@ public class ClawDefaultCommand extends Command {
 
         // Make the appropriate adjustments
         mClaw.ensureMode();
+        mExecuteSection.stop();
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -10,6 +10,7 @@ package frc.robot.commands;
 import edu.wpi.first.wpilibj.command.Command;
 import frc.robot.Robot;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.util.LoopProfiler;
 
 /**
  * Manually control the drivetrain using control inputs
@@ -18,6 +19,7 @@ public class DrivetrainTeleop extends Command {
     
     // Keep an instance of the drivetrain around
     private Drivetrain mDrivetrain;
+    private LoopProfiler.Section mExecuteSection = LoopProfiler.getInstance().register("DrivetrainTeleop");
 
     public DrivetrainTeleop() {
         mDrivetrain = Drivetrain.getInstance();
@@ -37,12 +39,14 @@ public class DrivetrainTeleop extends Command {
     // Called repeatedly when this Command is scheduled to run
     @Override
     protected void execute() {
+        mExecuteSection.start();
         double moveSpeed = Robot.m_oi.getDriveSpeed();
         double turnRate = Robot.m_oi.getTurnSpeed();
         boolean quickturn = Robot.m_oi.getQuickTurn();
 
         // Perform curvature drive using gamepad input
         mDrivetrain.curvatureDrive(moveSpeed, turnRate, quickturn);
+        mExecuteSection.stop();
     }
 
     // Make this return true when this Command no longer needs to run execute()
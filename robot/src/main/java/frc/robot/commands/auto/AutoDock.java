@@ -0,0 +1,86 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.commands.auto;
+
+import java.util.logging.Logger;
+
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.util.Clock;
+import frc.robot.util.DriveHelper.SpeedControl;
+import frc.robot.util.drivers.Limelight;
+import frc.robot.util.drivers.Limelight.LedMode;
+import frc.robot.util.drivers.Limelight.Pipeline;
+
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Drive up to the vision target, through the zone where the arm hides it
+ *
+ * See DockController for how the approach works. This feeds it the
+ * Limelight's latency compensated values and the drivetrain's readings, and
+ * drives the motors with what it works out.
+ */
+public class AutoDock extends Command {
+    private static final Logger sLogger = Logger.getLogger("AutoDock");
+
+    // Hardware
+    private Drivetrain mDrivetrain;
+    private Limelight mLimelight;
+
+    private DockController mController;
+
+    public AutoDock() {
+        mDrivetrain = Drivetrain.getInstance();
+        mLimelight = Limelight.getInstance();
+        requires(mDrivetrain);
+    }
+
+    // Called just before this Command runs the first time
+    @Override
+    protected void initialize() {
+        mLimelight.setLeds(LedMode.PIPELINE);
+        mLimelight.setActivePipeline(Pipeline.DRIVE_TO_TARGET);
+
+        mController = new DockController();
+        mController.start(Clock.getTime(), mDrivetrain.getDistance(), mDrivetrain.getHeading(),
+                mLimelight.getCompensatedValues(), mLimelight.isStale());
+    }
+
+    // Called repeatedly when this Command is scheduled to run
+    @Override
+    protected void execute() {
+        SpeedControl speeds = mController.update(Clock.getTime(), mDrivetrain.getDistance(),
+                mDrivetrain.getHeading(), mLimelight.getCompensatedValues(), mLimelight.isStale(),
+                mLimelight.hasNewFrame());
+        mDrivetrain.setOpenLoopSpeed(speeds.left, speeds.right);
+    }
+
+    // Make this return true when this Command no longer needs to run execute()
+    @Override
+    protected boolean isFinished() {
+        boolean terminate = mController.shouldTerminate();
+        if (terminate) {
+            sLogger.info("TERMINATING");
+        }
+        return terminate;
+    }
+
+    // Called once after isFinished returns true
+    @Override
+    protected void end() {
+        mDrivetrain.setOpenLoopSpeed(0, 0);
+    }
+
+    // Called when another command which requires one or more of the same
+    // subsystems is scheduled to run
+    @Override
+    protected void interrupted() {
+        sLogger.info("INTEERUPT");
+        end();
+    }
+}
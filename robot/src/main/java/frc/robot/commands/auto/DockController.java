@@ -0,0 +1,240 @@
+package frc.robot.commands.auto;
+
+import java.util.logging.Logger;
+
+import frc.robot.Constants;
+import frc.robot.util.DriveHelper;
+import frc.robot.util.DriveHelper.SpeedControl;
+import frc.robot.util.TargetEstimator;
+import frc.robot.util.drivers.Limelight.Values;
+
+/**
+ * AutoDock's phase machine and controller, with no hardware
+ *
+ * Theory of operation
+ *
+ * The DRIVE_TO_TARGET pipeline will have a target crosshair centered
+ * on the target when the robot is right up against the hatch area
+ *
+ * Note that due to how the camera is mounted on the robot, that there
+ * is a region where the cargo intake arm will occlude the target. However
+ * if we keep driving forward on last heading, we should be in a good
+ * place to re-acquire the target.
+ *
+ *
+ * This diagram shows the various points at which the target appears
+ * as the robot moves towards it
+ *  -------------------------------
+ * |                               |
+ * |                               |
+ * |                               |
+ * |                               |
+ * |    X <-- kPreEclipseThresh    |
+ * |                               |
+ * |                               |
+ * |                               |
+ * |    X <-- kPostEclipseThresh   |
+ * |                               |
+ * |    X <-- Target Y value       |
+ *  -------------------------------
+ *
+ * kPreEclipseThresh represents the point JUST BEFORE the target disappears
+ * from view (this includes points in which the targeting is unstable)
+ *
+ * kPostEclipseThresh represents the point JUST AFTER the target reappears
+ * into view
+ *
+ * Each of these points represent `ty` values away from the target Y value
+ *
+ * While in the eclipse zone, a TargetEstimator dead-reckons where the
+ * target is from the drivetrain encoders, and the camera values it
+ * predicts are fed to the same controller used when the target is in
+ * sight. That lets us keep approach speed through the eclipse instead of
+ * driving blind.
+ *
+ * Everything comes in as arguments, camera values and drivetrain readings
+ * alike, so the whole approach can be run offline against scripted data.
+ */
+public class DockController {
+    private static final Logger sLogger = Logger.getLogger("AutoDock");
+
+    private static final double kPreEclipseThresh = 13.0;
+    private static final double kPostEclipseThresh = 3.0;
+    private static final double kDockedThresh = 1.0;
+
+    public static enum Phase {
+        PRE_ECLIPSE,
+        IN_ECLIPSE,
+        POST_ECLIPSE,
+        DONE
+    }
+
+    // Where the target is while we can't see it
+    private final TargetEstimator mEstimator = new TargetEstimator(Constants.Limelight.kEstimatorFilterGain);
+    private final Values mPredictedValues = new Values();
+
+    private final DriveHelper mDriveHelper = new DriveHelper();
+    private final SpeedControl mDriveSpeeds = new SpeedControl();
+
+    private Phase mCurrentPhase = Phase.PRE_ECLIPSE;
+    private boolean mShouldTerminate = false;
+    private double mStartTime;
+    private double mEclipseStartTime;
+    private double mDockTime = Double.NaN;
+
+    /**
+     * Start an approach
+     * @param time     Seconds
+     * @param distance Drivetrain distance, in inches
+     * @param heading  Drivetrain heading, in radians
+     * @param values   Latest camera values
+     * @param stale    Whether the camera values are too old to use
+     * @return false if there's no target to dock with
+     */
+    public boolean start(double time, double distance, double heading, Values values, boolean stale) {
+        mStartTime = time;
+        mDockTime = Double.NaN;
+        mEstimator.reset(distance, heading);
+
+        if (!values.targetInSight || stale) {
+            // Bail out if we don't have a target
+            mShouldTerminate = true;
+            sLogger.info("No valid target. Terminating tracking");
+        }
+        else {
+            mEstimator.addObservation(values.horizontalOffset, values.verticalOffset);
+
+            if (values.verticalOffset > kPreEclipseThresh) {
+                mShouldTerminate = false;
+                mCurrentPhase = Phase.PRE_ECLIPSE;
+                sLogger.info("Starting Phase: PRE_ECLIPSE");
+            }
+            else if (values.verticalOffset < kPostEclipseThresh) {
+                mShouldTerminate = false;
+                mCurrentPhase = Phase.POST_ECLIPSE;
+                sLogger.info("Starting Phase: POST_ECLIPSE");
+            }
+            else {
+                // we should bail out
+                mShouldTerminate = true;
+                sLogger.info("Target lies in eclipse zone. Cannot guarantee lock. Terminating tracking");
+            }
+        }
+        return !mShouldTerminate;
+    }
+
+    /**
+     * Run one loop of the approach
+     * @param newFrame Whether the camera values are from a frame not seen
+     *                 before
+     * @return Left and right output, forward positive. Reused every call
+     */
+    public SpeedControl update(double time, double distance, double heading, Values values, boolean stale,
+            boolean newFrame) {
+        mEstimator.updateOdometry(distance, heading);
+
+        boolean targetVisible = values.targetInSight && !stale;
+        if (targetVisible && newFrame && mCurrentPhase != Phase.IN_ECLIPSE) {
+            mEstimator.addObservation(values.horizontalOffset, values.verticalOffset);
+        }
+
+        switch (mCurrentPhase) {
+            case PRE_ECLIPSE:
+                mShouldTerminate = false;
+                driveTowards(targetVisible ? values : predictTarget(), 0);
+
+                if (targetVisible && values.verticalOffset < kPreEclipseThresh) {
+                    sLogger.info("Crossing Eclipse threshold. Transitioning to ECLIPSE");
+                    mEclipseStartTime = time;
+                    mCurrentPhase = Phase.IN_ECLIPSE;
+                }
+                break;
+            case IN_ECLIPSE:
+                mShouldTerminate = false;
+                // The camera can't be trusted in here, so only the estimate
+                // is used, and sightings aren't blended into it. Keep up
+                // enough speed to come out the other side
+                driveTowards(predictTarget(), Constants.Limelight.kMinEclipseDriveCommand);
+
+                if (targetVisible && values.verticalOffset < kPostEclipseThresh) {
+                    sLogger.info("Crossing out of eclipse threshold. Transitioning to POST_ECLIPSE");
+                    mCurrentPhase = Phase.POST_ECLIPSE;
+                }
+                else if (time - mEclipseStartTime > Constants.Limelight.kMaxEclipseSec) {
+                    sLogger.info("Target never reappeared. Terminating tracking");
+                    mShouldTerminate = true;
+                }
+                break;
+            case POST_ECLIPSE:
+                mShouldTerminate = false;
+                driveTowards(targetVisible ? values : predictTarget(), 0);
+
+                if (targetVisible && values.verticalOffset < kDockedThresh) {
+                    mDockTime = time - mStartTime;
+                    sLogger.info(String.format("Close to target. Transitioning to DONE. Docked in %.2fs", mDockTime));
+                    mCurrentPhase = Phase.DONE;
+                }
+                break;
+            case DONE:
+                mDriveSpeeds.set(0, 0);
+        }
+        return mDriveSpeeds;
+    }
+
+    private Values predictTarget() {
+        mEstimator.predict(mPredictedValues);
+        return mPredictedValues;
+    }
+
+    /**
+     * @param minThrottle Least forward output, whatever the distance
+     */
+    private void driveTowards(Values vals, double minThrottle) {
+        if (!vals.targetInSight) {
+            mDriveSpeeds.set(0, 0);
+            return;
+        }
+        calculateSpeeds(vals, minThrottle);
+    }
+
+    private SpeedControl calculateSpeeds(Values vals, double minThrottle) {
+        // The camera looks out over the front of the robot, past the cargo
+        // intake arm, and docking drives forward into the target (see the
+        // theory of operation). So throttle is positive, in proportion to ty,
+        // which falls to 0 as we close in and passes kDockedThresh on the
+        // way. tx is positive to the right, and DriveHelper.autoDrive() turns
+        // left for a positive angle (the right side gets more), so steer
+        // against tx
+        double headingError = -vals.horizontalOffset;
+        double distanceError = vals.verticalOffset;
+        double steeringAdjust = 0.0;
+
+        if (vals.horizontalOffset > 1.0) {
+            steeringAdjust = Constants.Limelight.kSteering * headingError - Constants.Limelight.kMinTurningCommand;
+        }
+        else if (vals.horizontalOffset < -1.0) {
+            steeringAdjust = Constants.Limelight.kSteering * headingError + Constants.Limelight.kMinTurningCommand;
+        }
+
+        double distanceAdjust = Math.max(Constants.Limelight.kDistance * distanceError * 0.5, minThrottle);
+        return mDriveHelper.autoDrive(distanceAdjust, steeringAdjust, mDriveSpeeds);
+    }
+
+    public Phase getPhase() {
+        return mCurrentPhase;
+    }
+
+    /**
+     * @return Whether the approach gave up
+     */
+    public boolean shouldTerminate() {
+        return mShouldTerminate;
+    }
+
+    /**
+     * @return Seconds from start() to docking, or NaN if not docked yet
+     */
+    public double getDockTime() {
+        return mDockTime;
+    }
+}
@@ -0,0 +1,100 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.commands.auto;
+
+import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.Constants;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.util.Clock;
+import frc.robot.util.MotionHistory;
+import frc.robot.util.trajectory.Trajectory;
+
+/**
+ * Drive along a pre-generated Trajectory
+ *
+ * Each side is driven open loop from the velocity and acceleration the
+ * trajectory asks for, with small corrections for heading and distance
+ * error measured against the odometry pose. The trajectory is relative to
+ * wherever the robot is when the command starts.
+ *
+ * Trajectories are in inches and radians, counter-clockwise positive, and so
+ * is the pose, as long as the drive encoders report inches, forward positive
+ * (see DriveIO.Inputs).
+ */
+public class FollowTrajectory extends Command {
+    private final Drivetrain mDrivetrain;
+    private final Trajectory mTrajectory;
+
+    private final MotionHistory.Pose mStartPose = new MotionHistory.Pose();
+    private final MotionHistory.Pose mPose = new MotionHistory.Pose();
+    private double mStartTime;
+
+    public FollowTrajectory(Trajectory trajectory) {
+        super("FollowTrajectory " + trajectory.getName());
+        mDrivetrain = Drivetrain.getInstance();
+        mTrajectory = trajectory;
+        requires(mDrivetrain);
+    }
+
+    // Called just before this Command runs the first time
+    @Override
+    protected void initialize() {
+        mDrivetrain.getPose(mStartPose);
+        mStartTime = Clock.getTime();
+    }
+
+    // Called repeatedly when this Command is scheduled to run
+    @Override
+    protected void execute() {
+        int index = mTrajectory.getIndex(Clock.getTime() - mStartTime);
+
+        // Where we are, relative to where we started
+        mDrivetrain.getPose(mPose);
+        double heading = mPose.headingRad - mStartPose.headingRad;
+        double distance = mPose.distance - mStartPose.distance;
+
+        double headingError = mTrajectory.getHeading(index) - heading;
+        headingError = Math.atan2(Math.sin(headingError), Math.cos(headingError));
+        double distanceError = mTrajectory.getDistance(index) - distance;
+
+        double acceleration = mTrajectory.getAcceleration(index);
+        double turnRatio = mTrajectory.getCurvature(index) * Constants.Drivetrain.kTrackWidthInches / 2.0;
+        double correction = Constants.Trajectory.kDistanceP * distanceError;
+        double turnCorrection = Constants.Trajectory.kHeadingP * headingError;
+
+        double left = feedforward(mTrajectory.getLeftVelocity(index), acceleration * (1 - turnRatio))
+                + correction - turnCorrection;
+        double right = feedforward(mTrajectory.getRightVelocity(index), acceleration * (1 + turnRatio))
+                + correction + turnCorrection;
+        mDrivetrain.setOpenLoopSpeed(left, right);
+    }
+
+    private static double feedforward(double velocity, double acceleration) {
+        return Constants.Trajectory.kS * Math.signum(velocity) + Constants.Trajectory.kV * velocity
+                + Constants.Trajectory.kA * acceleration;
+    }
+
+    // Make this return true when this Command no longer needs to run execute()
+    @Override
+    protected boolean isFinished() {
+        return Clock.getTime() - mStartTime >= mTrajectory.getDuration();
+    }
+
+    // Called once after isFinished returns true
+    @Override
+    protected void end() {
+        mDrivetrain.setOpenLoopSpeed(0, 0);
+    }
+
+    // Called when another command which requires one or more of the same
+    // subsystems is scheduled to run
+    @Override
+    protected void interrupted() {
+        end();
+    }
+}
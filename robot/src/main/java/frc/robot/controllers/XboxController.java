@@ -1,14 +1,32 @@
 package frc.robot.controllers;
 
+import java.nio.ByteBuffer;
+
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.buttons.Button;
 import edu.wpi.first.wpilibj.buttons.JoystickButton;
+import frc.robot.util.replay.LoggableInputs;
+import frc.robot.util.replay.Replay;
+import frc.robot.util.sim.Simulation;
 
 /**
  * Xbox controller with all of the buttons mapped out. This can be reused if the
  * controller is used.
+ *
+ * The axes, buttons and POV are sampled once per loop by readPeriodicInputs(),
+ * and everything reads that snapshot, so the buttons and sticks can't change
+ * part way through a loop. The snapshot is logged, and loaded back in from
+ * the log when replaying. A lock-step simulation sets it directly.
  */
-public class XboxController extends Joystick {
+public class XboxController extends Joystick implements LoggableInputs {
+
+    private static final int kAxisCount = 6;
+    private static final int kButtonCount = 10;
+
+    // Sampled once per loop. Bit n-1 of the buttons is button n
+    private final double[] mAxes = new double[kAxisCount];
+    private int mButtons;
+    private int mPOV = -1;
 
     // Buttons all around the controller
     public Button buttonA, buttonB, buttonX, buttonY, buttonSelect, buttonStart, leftStickPress, rightStickPress;
@@ -121,6 +139,85 @@ public class XboxController extends Joystick {
         };
     }
 
+    /**
+     * Sample the controller from the driver station. Called once at the start
+     * of every loop. When replaying or simulating in lock step, the last
+     * values loaded from the log, or set, are kept instead
+     */
+    public void readPeriodicInputs() {
+        if (Replay.isActive() || Simulation.isLockStep()) {
+            return;
+        }
+        for (int i = 0; i < kAxisCount; i++) {
+            mAxes[i] = super.getRawAxis(i);
+        }
+        int buttons = 0;
+        for (int i = 0; i < kButtonCount; i++) {
+            if (super.getRawButton(i + 1)) {
+                buttons |= 1 << i;
+            }
+        }
+        mButtons = buttons;
+        mPOV = super.getPOV(0);
+    }
+
+    /**
+     * Set the snapshot, for a lock-step simulation
+     */
+    public void setRawAxis(int axis, double value) {
+        mAxes[axis] = value;
+    }
+
+    public void setRawButton(int button, boolean pressed) {
+        if (pressed) {
+            mButtons |= 1 << (button - 1);
+        } else {
+            mButtons &= ~(1 << (button - 1));
+        }
+    }
+
+    public void setPOV(int pov) {
+        mPOV = pov;
+    }
+
+    @Override
+    public double getRawAxis(int axis) {
+        return axis >= 0 && axis < kAxisCount ? mAxes[axis] : 0;
+    }
+
+    @Override
+    public boolean getRawButton(int button) {
+        return button >= 1 && button <= kButtonCount && (mButtons & (1 << (button - 1))) != 0;
+    }
+
+    @Override
+    public int getPOV(int pov) {
+        return pov == 0 ? mPOV : -1;
+    }
+
+    @Override
+    public int getLogSize() {
+        return kAxisCount * 8 + 2 + 2;
+    }
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+        for (int i = 0; i < kAxisCount; i++) {
+            buffer.putDouble(mAxes[i]);
+        }
+        buffer.putShort((short) mButtons);
+        buffer.putShort((short) mPOV);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+        for (int i = 0; i < kAxisCount; i++) {
+            mAxes[i] = buffer.getDouble();
+        }
+        mButtons = buffer.getShort() & 0xFFFF;
+        mPOV = buffer.getShort();
+    }
+
     /**
      * Gets the current position of the left trigger, where pushed in all the way is
      * a 1.0
@@ -7,24 +7,37 @@
 
 package frc.robot.subsystems;
 
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motion.TrajectoryPoint;
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.FeedbackDevice;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 
-import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.ArmSettings;
 import frc.robot.Constants;
 import frc.robot.commands.ArmDefaultCommand;
-import frc.robot.util.drivers.SlaveVictor;
-import frc.robot.util.drivers.TalonSRXFactory;
+import frc.robot.subsystems.io.ArmIO;
+import frc.robot.subsystems.io.ArmIOSim;
+import frc.robot.subsystems.io.ArmIOTalonSRX;
+import frc.robot.util.ArmFeedforward;
+import frc.robot.util.Clock;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.TrapezoidProfile;
+import frc.robot.util.TripleBuffer;
+import frc.robot.util.Tunables;
+import frc.robot.util.drivers.DeviceConfigurator;
+import frc.robot.util.drivers.MotionProfileStreamer;
+import frc.robot.util.drivers.WriteCounter;
+import frc.robot.util.replay.Replay;
 
 /**
  * Add your docs here.
  */
-public class Arm extends Subsystem {
+public class Arm extends Subsystem implements TelemetryPublisher.Source {
 
   private static Arm singleton;
 
@@ -36,57 +49,160 @@ public class Arm extends Subsystem {
     return singleton;
   }
 
-  // Hardware values
-  private TalonSRX mElevatorMaster;
-  private SlaveVictor mElevatorSlave;
+  /**
+   * How the arm gets to its goal
+   *  MOTION_MAGIC:   the Talon plans each move itself. Cruise velocity and
+   *                  acceleration are rewritten, off the main loop, whenever
+   *                  the direction changes
+   *  MOTION_PROFILE: each move is planned here, with the feedforward on every
+   *                  point, and streamed to the Talon's trajectory buffer
+   */
+  public enum ControlStrategy {
+    MOTION_MAGIC,
+    MOTION_PROFILE,
+  }
+
+  // Hardware values. The streamer is null if the IO can't stream profiles
+  private final ArmIO mIO;
+  private final MotionProfileStreamer mStreamer;
+  private final WriteCounter mWrites;
 
   // Logical values
   private double goalPosition = 0;
   private Constants.TargetHeight goalHeight = Constants.TargetHeight.COLLECT;
+  private ControlStrategy mStrategy = ControlStrategy.MOTION_MAGIC;
+
+  // Holds the arm up against gravity, so the PID only has to fix small errors
+  private final ArmFeedforward mFeedforward = new ArmFeedforward(
+      new ArmFeedforward.Gains(Constants.Arm.Feedforward.kS, Constants.Arm.Feedforward.kG,
+          Constants.Arm.Feedforward.kV),
+      Constants.Arm.kLevelPosition, Constants.Arm.kTicksPerDegree);
+
+  // Tunable from the dashboard. The loop only reads the cached values, and
+  // new gains are sent to the Talon from the NetworkTables thread
+  private final Tunables.NumberTunable mKp, mKi, mKd, mKf;
+  private final Tunables.NumberTunable mVelocityUp, mAccelerationUp, mVelocityDown, mAccelerationDown;
+
+  // The settings file the gains were last taken from
+  private ArmSettings.Values mFileSettings;
+
+  // Which way Motion Magic is going, set by the loop. The Talon's limits
+  // are changed to match from mLimitsNotifier, so the loop never waits on
+  // the config writes. Nothing is written until the Talon is configured
+  private volatile boolean mMovingUp = false;
+  private volatile boolean mConfigured = false;
+  private final Notifier mLimitsNotifier;
+
+  // The move being streamed, when using MOTION_PROFILE
+  private final TrapezoidProfile mTrapezoid = new TrapezoidProfile();
+  private boolean mProfileActive = false;
+  private double mProfileGoal = 0;
+
+  // Sensor values, sampled once per loop by readPeriodicInputs()
+  private final ArmIO.Inputs mInputs = new ArmIO.Inputs();
+  private int mPosition;
+  private int mAbsPosition;
+  private int mVelocity;
+  private int mTrajectoryVelocity;
+  private double mOutputVoltage;
+  private double mOutputPercent;
+
+  // What the arm was last told to do, for the signal log
+  private ControlMode mDemandMode = ControlMode.Disabled;
+  private double mDemand;
+  private double mDemandFeedforward;
+
+  // Dashboard values, handed off to the TelemetryPublisher thread
+  private static class Telemetry {
+    double position;
+    double absPosition;
+    double goalPosition;
+    Constants.TargetHeight goalHeight;
+    double voltage;
+    double percent;
+    long writesSent;
+    long writesElided;
+    ControlStrategy strategy;
+    int profileUnderruns;
+  }
 
-  public Arm() {
-    mElevatorMaster = TalonSRXFactory.createDefaultTalonSRX(Constants.Arm.kMasterId);
-    mElevatorMaster.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, Constants.Arm.kPIDLoopIdx,
-        Constants.Arm.kTimeout);
-    mElevatorMaster.setInverted(Constants.Arm.kInvertArmMotor);
-    mElevatorMaster.setNeutralMode(Constants.Arm.kMotorBrakeModeOn ? NeutralMode.Brake : NeutralMode.Coast);
+  private final TripleBuffer<Telemetry> mTelemetry = new TripleBuffer<>(Telemetry::new);
+  private final NetworkTableEntry mEncoderEntry = SmartDashboard.getEntry("Arm Encoder");
+  private final NetworkTableEntry mGoalNameEntry = SmartDashboard.getEntry("Arm Goal Name");
+  private final NetworkTableEntry mGoalPositionEntry = SmartDashboard.getEntry("Arm Goal Position");
+  private final NetworkTableEntry mAbsPositionEntry = SmartDashboard.getEntry("Arm Abs Position");
+  private final NetworkTableEntry mVoltageEntry = SmartDashboard.getEntry("Arm Voltage");
+  private final NetworkTableEntry mPercentEntry = SmartDashboard.getEntry("Arm Percent");
+  private final NetworkTableEntry mWritesSentEntry = SmartDashboard.getEntry("Arm CAN Writes Sent");
+  private final NetworkTableEntry mWritesElidedEntry = SmartDashboard.getEntry("Arm CAN Writes Elided");
+  private final NetworkTableEntry mStrategyEntry = SmartDashboard.getEntry("Arm Control Strategy");
+  private final NetworkTableEntry mUnderrunsEntry = SmartDashboard.getEntry("Arm Profile Underruns");
 
-    boolean sensorPresent = mElevatorMaster.getSensorCollection().getPulseWidthRiseToRiseUs() != 0;
-    if (!sensorPresent) {
-      DriverStation.reportError("Could not detect elevator encoder", false);
+  public Arm() {
+    // When replaying, the inputs come from the log and nothing is driven.
+    // On a laptop, the Talon and the arm are simulated
+    if (Replay.isActive()) {
+      mIO = new ArmIO() {};
+    } else if (RobotBase.isSimulation()) {
+      mIO = new ArmIOSim();
+    } else {
+      mIO = new ArmIOTalonSRX();
     }
+    mStreamer = mIO.getProfileStreamer();
+    mWrites = mIO.getWriteCounter();
+    setControlStrategy(Constants.Arm.kUseMotionProfile ? ControlStrategy.MOTION_PROFILE : ControlStrategy.MOTION_MAGIC);
 
-    // https://github.com/CrossTheRoadElec/Phoenix-Examples-Languages/blob/master/Java/MotionMagic/src/main/java/frc/robot/Robot.java
-
-    mElevatorMaster.setSensorPhase(Constants.Arm.kInvertSensorPhase);
-    mElevatorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 10, Constants.Arm.kTimeout);
-    mElevatorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 10, Constants.Arm.kTimeout);
-
-    mElevatorMaster.configNominalOutputForward(0, Constants.Arm.kTimeout);
-    mElevatorMaster.configNominalOutputReverse(0, Constants.Arm.kTimeout);
-    mElevatorMaster.configPeakOutputForward(1, Constants.Arm.kTimeout);
-    mElevatorMaster.configPeakOutputReverse(-1, Constants.Arm.kTimeout);
-
-    /* Set Motion Magic gains in slot0 - see documentation */
-    mElevatorMaster.selectProfileSlot(Constants.Arm.kRaiseSlotIdx, Constants.Arm.kPIDLoopIdx);
-    mElevatorMaster.config_kF(Constants.Arm.kRaiseSlotIdx, Constants.Arm.PID.F, Constants.Arm.kTimeout);
-    mElevatorMaster.config_kP(Constants.Arm.kRaiseSlotIdx, Constants.Arm.PID.P, Constants.Arm.kTimeout);
-    mElevatorMaster.config_kI(Constants.Arm.kRaiseSlotIdx, Constants.Arm.PID.I, Constants.Arm.kTimeout);
-    mElevatorMaster.config_IntegralZone(Constants.Arm.kRaiseSlotIdx, Constants.Arm.PID.IZ, Constants.Arm.kTimeout);
-    mElevatorMaster.config_kD(Constants.Arm.kRaiseSlotIdx, Constants.Arm.PID.D, Constants.Arm.kTimeout);
-
-    /* Set acceleration and vcruise velocity - see documentation */
-    mElevatorMaster.configMotionCruiseVelocity(Constants.Arm.kMotionVelocityDown, Constants.Arm.kTimeout);
-    mElevatorMaster.configMotionAcceleration(Constants.Arm.kMotionAccelerationDown, Constants.Arm.kTimeout);
-
-    mElevatorMaster
-        .setSelectedSensorPosition(mElevatorMaster.getSensorCollection().getPulseWidthPosition() - Constants.Arm.kBasePulseWidth);
-
-    mElevatorSlave = new SlaveVictor(Constants.Arm.kSlaveId, Constants.Arm.kInvertArmMotor);
-    mElevatorSlave.setMaster(mElevatorMaster, Constants.Arm.kMotorBrakeModeOn, null);
-
+    // Presets and gains come from the deployed settings file
     Constants.initTargetHeights();
-    updateDashboard();
+    ArmSettings.Values settings = ArmSettings.getInstance().getValues();
+    mFileSettings = settings;
+
+    Tunables tunables = Tunables.getInstance();
+    mKp = tunables.addNumber("Arm kP", settings.getKp(), 0, Double.POSITIVE_INFINITY);
+    mKi = tunables.addNumber("Arm kI", settings.getKi(), 0, Double.POSITIVE_INFINITY);
+    mKd = tunables.addNumber("Arm kD", settings.getKd(), 0, Double.POSITIVE_INFINITY);
+    mKf = tunables.addNumber("Arm kF", settings.getKf(), 0, Double.POSITIVE_INFINITY);
+    mVelocityUp = tunables.addNumber("Arm Cruise Velocity Up", Constants.Arm.kMotionVelocityUp, 1,
+        Constants.Arm.kMaxTunedMotionLimit);
+    mAccelerationUp = tunables.addNumber("Arm Acceleration Up", Constants.Arm.kMotionAccelerationUp, 1,
+        Constants.Arm.kMaxTunedMotionLimit);
+    mVelocityDown = tunables.addNumber("Arm Cruise Velocity Down", Constants.Arm.kMotionVelocityDown, 1,
+        Constants.Arm.kMaxTunedMotionLimit);
+    mAccelerationDown = tunables.addNumber("Arm Acceleration Down", Constants.Arm.kMotionAccelerationDown, 1,
+        Constants.Arm.kMaxTunedMotionLimit);
+
+    // Lock-step simulation and replay apply limits right away instead, so
+    // runs are repeatable
+    mLimitsNotifier = Clock.isRealTime() ? new Notifier(this::applyMotionMagicLimits) : null;
+
+    // A settings file changed before the Talon is configured only updates
+    // the tunables, which are sent along with the rest below
+    ArmSettings.getInstance().onReload(this::reloadGains);
+
+    // The Talon is configured with the gains from Constants, so once that's
+    // done, catch up with the settings file and anything already changed on
+    // the dashboard, and then follow further changes to either
+    DeviceConfigurator.getInstance().afterConfigure("Arm gains", () -> {
+      mConfigured = true;
+      applyGains();
+      applyMotionMagicLimits();
+      Tunables.onChange(this::applyGains, mKp, mKi, mKd, mKf);
+      Tunables.onChange(this::applyMotionMagicLimits, mVelocityUp, mAccelerationUp, mVelocityDown,
+          mAccelerationDown);
+    });
+
+    // Pick up the homed position before anything runs
+    DeviceConfigurator.getInstance().afterConfigure("Arm inputs", this::readPeriodicInputs);
+
+    SignalLogger logger = SignalLogger.getInstance();
+    logger.register("Arm Position", () -> mPosition);
+    logger.register("Arm Velocity", this::getVelocity);
+    logger.register("Arm Goal", this::getGoalPosition);
+    logger.register("Arm Voltage", this::getOutputVoltage);
+    logger.register("Arm Demand Mode", () -> mDemandMode.value);
+    logger.register("Arm Demand", () -> mDemand);
+    logger.register("Arm Demand Feedforward", () -> mDemandFeedforward);
+    logger.registerInputs("Arm", mInputs);
   }
 
   @Override
@@ -95,11 +211,78 @@ public class Arm extends Subsystem {
     setDefaultCommand(new ArmDefaultCommand());
   }
 
+  /**
+   * Sample all of the arm sensors. Called once at the start of every loop, so
+   * everything else in the loop sees the same values without going back to
+   * the CAN bus.
+   */
+  public void readPeriodicInputs() {
+    mIO.updateInputs(mInputs);
+    mPosition = mInputs.position;
+    mAbsPosition = mInputs.absPosition;
+    mVelocity = mInputs.velocity;
+    mTrajectoryVelocity = mInputs.trajectoryVelocity;
+    mOutputVoltage = mInputs.outputVoltage;
+    mOutputPercent = mInputs.outputPercent;
+  }
+
+  private void setOutput(ControlMode mode, double demand, double feedforward) {
+    mDemandMode = mode;
+    mDemand = demand;
+    mDemandFeedforward = feedforward;
+    mIO.set(mode, demand, feedforward);
+  }
+
+  private synchronized void applyGains() {
+    mIO.setGains(mKp.get(), mKi.get(), mKd.get(), mKf.get());
+  }
+
+  /**
+   * Send the limits for the direction the arm is going. Runs on the
+   * Notifier or NetworkTables thread, and the lazy Talon skips writes that
+   * don't change anything
+   */
+  private synchronized void applyMotionMagicLimits() {
+    if (!mConfigured) {
+      return;
+    }
+    if (mMovingUp) {
+      mIO.setMotionMagicLimits((int) mVelocityUp.get(), (int) mAccelerationUp.get());
+    } else {
+      mIO.setMotionMagicLimits((int) mVelocityDown.get(), (int) mAccelerationDown.get());
+    }
+  }
+
+  /**
+   * The settings file changed. Gains that are different in the new file
+   * replace whatever was on the dashboard, and go to the Talon together
+   * once it's configured. Gains that weren't touched in the file keep any
+   * dashboard tuning
+   */
+  private synchronized void reloadGains(ArmSettings.Values settings) {
+    if (settings.getKp() != mFileSettings.getKp()) {
+      mKp.set(settings.getKp());
+    }
+    if (settings.getKi() != mFileSettings.getKi()) {
+      mKi.set(settings.getKi());
+    }
+    if (settings.getKd() != mFileSettings.getKd()) {
+      mKd.set(settings.getKd());
+    }
+    if (settings.getKf() != mFileSettings.getKf()) {
+      mKf.set(settings.getKf());
+    }
+    mFileSettings = settings;
+    if (mConfigured) {
+      applyGains();
+    }
+  }
+
   public void setOpenLoop(double speed, boolean up) {
     speed = Math.abs(speed);
-    if (mElevatorMaster.getSelectedSensorPosition() > Constants.Arm.kMaxPosition && up) {
+    if (mPosition > Constants.Arm.kMaxPosition && up) {
       speed = 0;
-    } else if (mElevatorMaster.getSelectedSensorPosition() < Constants.Arm.kMinPosition && !up) {
+    } else if (mPosition < Constants.Arm.kMinPosition && !up) {
       speed = 0;
     }
 
@@ -107,7 +290,23 @@ public class Arm extends Subsystem {
       speed /= 3;
     }
 
-    mElevatorMaster.set(ControlMode.PercentOutput, (up ? 1 : -1) * speed);
+    stopProfile();
+    setOutput(ControlMode.PercentOutput, (up ? 1 : -1) * speed, 0);
+  }
+
+  /**
+   * Apply a voltage directly, for characterization. Stops at either end of
+   * travel, like setOpenLoop(). Without voltage compensation (see
+   * Constants.Arm.kUseFeedforward) this is only the voltage on a 12 V
+   * battery, but CharacterizeArm fits against the measured output voltage
+   */
+  public void setVoltage(double volts) {
+    if ((mPosition > Constants.Arm.kMaxPosition && volts > 0) || (mPosition < Constants.Arm.kMinPosition && volts < 0)) {
+      volts = 0;
+    }
+
+    stopProfile();
+    setOutput(ControlMode.PercentOutput, volts / Constants.Arm.kVoltageCompSaturation, 0);
   }
 
   public void setPresetHeight(Constants.TargetHeight preset) {
@@ -123,19 +322,137 @@ public class Arm extends Subsystem {
     this.goalPosition = ensurePositionInRange(position);
   }
 
+  public void setControlStrategy(ControlStrategy strategy) {
+    if (mStreamer == null) {
+      strategy = ControlStrategy.MOTION_MAGIC;
+    }
+    if (strategy == ControlStrategy.MOTION_PROFILE) {
+      mStreamer.start(Constants.Arm.kProfileStreamPeriodSec);
+    } else {
+      stopProfile();
+    }
+    mStrategy = strategy;
+  }
+
+  public ControlStrategy getControlStrategy() {
+    return mStrategy;
+  }
+
   public void setMotorsToCurrentPosition() {
     this.goalPosition = ensurePositionInRange(this.goalPosition);
 
-    // Slow down the velocities if lower
-    if (mElevatorMaster.getSelectedSensorPosition() < this.goalPosition) {
-      mElevatorMaster.configMotionCruiseVelocity(Constants.Arm.kMotionVelocityUp, Constants.Arm.kTimeout);
-      mElevatorMaster.configMotionAcceleration(Constants.Arm.kMotionAccelerationUp, Constants.Arm.kTimeout);
-    } else {
-      mElevatorMaster.configMotionCruiseVelocity(Constants.Arm.kMotionVelocityDown, Constants.Arm.kTimeout);
-      mElevatorMaster.configMotionAcceleration(Constants.Arm.kMotionAccelerationDown, Constants.Arm.kTimeout);
+    if (mStrategy == ControlStrategy.MOTION_PROFILE) {
+      followProfile();
+      return;
+    }
+
+    // Slow down the velocities if lower. Only the direction is decided here
+    boolean up = mPosition < this.goalPosition;
+    if (up != mMovingUp) {
+      mMovingUp = up;
+      if (mLimitsNotifier != null) {
+        mLimitsNotifier.startSingle(0);
+      } else {
+        applyMotionMagicLimits();
+      }
+    }
+
+    // Feed forward from where the arm is now, and where Motion Magic wants
+    // it to be going
+    setOutput(ControlMode.MotionMagic, this.goalPosition, getFeedforwardOutput(mPosition, mTrajectoryVelocity));
+  }
+
+  /**
+   * Stream a new profile whenever the goal moves, and tell the Talon whether
+   * to run it. Small goal changes (e.g. nudging the arm with the stick) are
+   * ignored until they add up, so we aren't re-planning every loop.
+   */
+  private void followProfile() {
+    if (!mProfileActive || Math.abs(goalPosition - mProfileGoal) >= Constants.Arm.kProfileReplanThreshold) {
+      planProfile(mPosition, mVelocity, goalPosition);
+      mProfileGoal = goalPosition;
+      mProfileActive = true;
+    }
+
+    // Until the first points are buffered, keep doing whatever we were doing
+    SetValueMotionProfile output = mStreamer.getOutput();
+    if (output != SetValueMotionProfile.Disable) {
+      setOutput(ControlMode.MotionProfile, output.value, 0);
+    }
+  }
+
+  /**
+   * Plan a move from where the arm is to the goal, with the same limits as
+   * Motion Magic (slower going down), and hand it to the streamer
+   * @param start         Position in encoder ticks
+   * @param startVelocity Velocity in encoder ticks per 100ms
+   * @param goal          Position in encoder ticks
+   */
+  private void planProfile(double start, double startVelocity, double goal) {
+    boolean up = goal > start;
+    // Motion Magic limits are per 100ms. Plan in ticks and seconds
+    double velocity = 10 * (up ? mVelocityUp.get() : mVelocityDown.get());
+    double acceleration = 10 * (up ? mAccelerationUp.get() : mAccelerationDown.get());
+    mTrapezoid.plan(start, 10 * startVelocity, goal, velocity, acceleration);
+
+    double duration = mTrapezoid.getDuration();
+    double pointSec = Constants.Arm.kProfilePointMs / 1000.0;
+    MotionProfileStreamer.Profile profile = mStreamer.getWriteBuffer();
+    for (int i = 0; !profile.isFull(); i++) {
+      double t = Math.min(i * pointSec, duration);
+      TrajectoryPoint point = profile.add();
+      point.position = mTrapezoid.getPosition(t);
+      point.velocity = mTrapezoid.getVelocity(t) / 10;
+      point.arbFeedFwd = getFeedforwardOutput(point.position, point.velocity);
+      point.profileSlotSelect0 = Constants.Arm.kRaiseSlotIdx;
+      if (t >= duration) {
+        break;
+      }
+    }
+    mStreamer.publish();
+  }
+
+  private void stopProfile() {
+    if (mProfileActive && mStreamer != null) {
+      mStreamer.stop();
+      mProfileActive = false;
+    }
+  }
+
+  /**
+   * @return arm position in encoder ticks, as of the start of this loop
+   */
+  public int getPosition() {
+    return mPosition;
+  }
+
+  /**
+   * @return arm velocity in encoder ticks per 100ms, as of the start of this loop
+   */
+  public int getVelocity() {
+    return mVelocity;
+  }
+
+  /**
+   * @return Output voltage, as of the start of this loop
+   */
+  public double getOutputVoltage() {
+    return mOutputVoltage;
+  }
+
+  /**
+   * @return Output to add to the PID, as a fraction of the compensation
+   *         voltage, or 0 if the feedforward isn't in use
+   */
+  private double getFeedforwardOutput(double position, double velocity) {
+    if (!Constants.Arm.kUseFeedforward) {
+      return 0;
     }
+    return mFeedforward.calculate(position, velocity) / Constants.Arm.kVoltageCompSaturation;
+  }
 
-    this.mElevatorMaster.set(ControlMode.MotionMagic, this.goalPosition);
+  public ArmFeedforward getFeedforward() {
+    return mFeedforward;
   }
 
   public double getGoalPosition() {
@@ -147,31 +464,69 @@ public class Arm extends Subsystem {
   }
 
   public void incrementTargetHeight(boolean increment) {
-    int size = Constants.TargetHeight.values().length;
-    int nextSize = (increment ? 1 : -1) + goalHeight.ordinal();
+    goalHeight = nextTargetHeight(goalHeight, increment);
+  }
+
+  // values() copies the array every call
+  private static final Constants.TargetHeight[] kTargetHeights = Constants.TargetHeight.values();
+
+  /**
+   * @return The preset above or below the given one, wrapping around
+   */
+  public static Constants.TargetHeight nextTargetHeight(Constants.TargetHeight height, boolean increment) {
+    int size = kTargetHeights.length;
+    int nextSize = (increment ? 1 : -1) + height.ordinal();
 
     if (nextSize < 0) {
       nextSize = size - 1;
     } else if (nextSize >= size) {
       nextSize = 0;
     }
-    goalHeight = Constants.TargetHeight.values()[nextSize];
+    return kTargetHeights[nextSize];
+  }
+
+  @Override
+  public void captureTelemetry() {
+    Telemetry telemetry = mTelemetry.getWriteBuffer();
+    telemetry.position = mPosition;
+    telemetry.absPosition = mAbsPosition;
+    telemetry.goalPosition = goalPosition;
+    telemetry.goalHeight = goalHeight;
+    telemetry.voltage = mOutputVoltage;
+    telemetry.percent = mOutputPercent;
+    telemetry.writesSent = mWrites.getSent();
+    telemetry.writesElided = mWrites.getElided();
+    telemetry.strategy = mStrategy;
+    telemetry.profileUnderruns = mStreamer != null ? mStreamer.getUnderruns() : 0;
+    mTelemetry.publish();
   }
 
-  public void updateDashboard() {
-    double position = mElevatorMaster.getSelectedSensorPosition();
-    SmartDashboard.putNumber("Arm Encoder", position);
-    SmartDashboard.putString("Arm Goal Name", goalHeight.name());
-    SmartDashboard.putNumber("Arm Goal Position", goalPosition);
-    SmartDashboard.putNumber("Arm Abs Position", mElevatorMaster.getSensorCollection().getPulseWidthPosition());
+  @Override
+  public void publishTelemetry() {
+    if (!mTelemetry.update()) {
+      return;
+    }
+    Telemetry telemetry = mTelemetry.getReadBuffer();
+    mEncoderEntry.setDouble(telemetry.position);
+    mGoalNameEntry.setString(telemetry.goalHeight.name());
+    mGoalPositionEntry.setDouble(telemetry.goalPosition);
+    mAbsPositionEntry.setDouble(telemetry.absPosition);
     // SmartDashboard.putNumber("Arm Goal Degrees",
     // convertToDegrees(mGoalPosition));
     // SmartDashboard.putNumber("Arm Degrees", convertToDegrees(position));
-    SmartDashboard.putNumber("Arm Voltage", mElevatorMaster.getMotorOutputVoltage());
-    SmartDashboard.putNumber("Arm Percent", mElevatorMaster.getMotorOutputPercent());
+    mVoltageEntry.setDouble(telemetry.voltage);
+    mPercentEntry.setDouble(telemetry.percent);
+    mWritesSentEntry.setDouble(telemetry.writesSent);
+    mWritesElidedEntry.setDouble(telemetry.writesElided);
+    mStrategyEntry.setString(telemetry.strategy.name());
+    mUnderrunsEntry.setDouble(telemetry.profileUnderruns);
   }
 
   public double ensurePositionInRange(double desiredPosition) {
+    return clampPosition(desiredPosition);
+  }
+
+  public static double clampPosition(double desiredPosition) {
     return Math.min(Math.max(Constants.Arm.kMinPosition, desiredPosition), Constants.Arm.kMaxPosition);
   }
 }
@@ -7,18 +7,20 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.CANifier;
-import com.ctre.phoenix.CANifier.GeneralPin;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.Solenoid;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants;
 import frc.robot.Robot;
 import frc.robot.commands.ClawDefaultCommand;
+import frc.robot.subsystems.io.ClawIO;
+import frc.robot.subsystems.io.ClawIOHardware;
+import frc.robot.subsystems.io.ClawIOSim;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.TripleBuffer;
+import frc.robot.util.replay.Replay;
 
 /**
  * The Claw represents the subsystem responsible for collecting, holding, and 
@@ -28,7 +30,7 @@ import frc.robot.commands.ClawDefaultCommand;
  * The subsystem contains a single Spark Max for the intake/exhaust, and a single
  * pneumatic piston controlled by a solenoid
  */
-public class Claw extends Subsystem {
+public class Claw extends Subsystem implements TelemetryPublisher.Source {
 
     // Generally, return a singleton instance of the subsystem
     private static Claw sInstance;
@@ -66,13 +68,15 @@ public class Claw extends Subsystem {
         MANUAL
     }
 
-    // Motor controller declarations
-    private CANSparkMax mIntakeControl;
+    // Intake motor, piston, and the sensors on the CANifier
+    private final ClawIO mIO;
 
-    // CANifier for the onboard sensors
-    private CANifier mSensors;
+    // Sampled once per loop by readPeriodicInputs()
+    private final ClawIO.Inputs mInputs = new ClawIO.Inputs();
+    private boolean mSolenoidOn;
 
-    private Solenoid mClawSolenoid;
+    // Last speed the intake was set to, for the signal log
+    private double mIntakeSpeed;
 
     // Start in the open position
     private TargetMode mTargetMode = TargetMode.CARGO;
@@ -82,12 +86,48 @@ public class Claw extends Subsystem {
 
     private ControlMode mControlMode = ControlMode.AUTO;
 
+    // Dashboard values, handed off to the TelemetryPublisher thread
+    private static class Telemetry {
+        ControlMode controlMode;
+        TargetMode targetMode;
+        SpinMode spinMode;
+        boolean hatchLeft, hatchRight, cargoLeft, cargoRight;
+    }
+
+    private final TripleBuffer<Telemetry> mTelemetry = new TripleBuffer<>(Telemetry::new);
+    private final NetworkTableEntry mControlModeEntry = SmartDashboard.getEntry("Claw Control Mode");
+    private final NetworkTableEntry mTargetModeEntry = SmartDashboard.getEntry("Claw Target Mode");
+    private final NetworkTableEntry mSpinModeEntry = SmartDashboard.getEntry("Claw Spin Mode");
+    private final NetworkTableEntry mHatchLeftEntry = SmartDashboard.getEntry("Claw Left Hatch Sensor");
+    private final NetworkTableEntry mHatchRightEntry = SmartDashboard.getEntry("Claw Right Hatch Sensor");
+    private final NetworkTableEntry mCargoLeftEntry = SmartDashboard.getEntry("Claw Left Cargo Sensor");
+    private final NetworkTableEntry mCargoRightEntry = SmartDashboard.getEntry("Claw Right Cargo Sensor");
+
     private Claw() {
-        mIntakeControl = new CANSparkMax(Constants.Claw.kIntakeId, MotorType.kBrushless);
-        mIntakeControl.setIdleMode(IdleMode.kBrake);
-        mSensors = new CANifier(0);
-        mClawSolenoid = new Solenoid(Constants.Claw.kClawSolenoidId);
+        // When replaying, the inputs come from the log and nothing is driven.
+        // On a laptop, the game piece sensors are simulated
+        if (Replay.isActive()) {
+            mIO = new ClawIO() {};
+        } else if (RobotBase.isSimulation()) {
+            mIO = new ClawIOSim();
+        } else {
+            mIO = new ClawIOHardware();
+        }
 
+        // Modes are logged as their ordinal, sensors as 0 or 1
+        SignalLogger logger = SignalLogger.getInstance();
+        logger.register("Claw Target Mode", () -> mTargetMode.ordinal());
+        logger.register("Claw Spin Mode", () -> mSpinMode.ordinal());
+        logger.register("Claw Control Mode", () -> mControlMode.ordinal());
+        logger.register("Claw Output", () -> mIntakeSpeed);
+        logger.register("Claw Solenoid", () -> mSolenoidOn ? 1 : 0);
+        logger.register("Claw Left Hatch Sensor", () -> hatchLeftPresent() ? 1 : 0);
+        logger.register("Claw Right Hatch Sensor", () -> hatchRightPresent() ? 1 : 0);
+        logger.register("Claw Left Cargo Sensor", () -> cargoLeftPresent() ? 1 : 0);
+        logger.register("Claw Right Cargo Sensor", () -> cargoRightPresent() ? 1 : 0);
+        logger.registerInputs("Claw", mInputs);
+
+        this.readPeriodicInputs();
         this.ensureMode();
     }
 
@@ -96,6 +136,16 @@ public class Claw extends Subsystem {
         setDefaultCommand(new ClawDefaultCommand());
     }
 
+    /**
+     * Sample the game piece sensors and solenoid state. Called once at the start
+     * of every loop, so everything else in the loop sees the same values
+     * without going back to the CAN bus.
+     */
+    public void readPeriodicInputs() {
+        mIO.updateInputs(mInputs);
+        mSolenoidOn = mInputs.solenoidOn;
+    }
+
     /**
      * Reset the built in encoders on the SPARK Max-s
      * 
@@ -105,7 +155,7 @@ public class Claw extends Subsystem {
      */
     public void resetEncoders() {
         // To reset the encoders, we just set their current positions to 0
-        mIntakeControl.getEncoder().setPosition(0.0);
+        mIO.resetIntakeEncoder();
     }
 
     /**
@@ -115,7 +165,8 @@ public class Claw extends Subsystem {
      * @param speed the speed to set the motors at
      */
     public void setRawIntakeSpeed(double speed) {
-        mIntakeControl.set(speed);
+        mIntakeSpeed = speed;
+        mIO.setIntakeSpeed(speed);
     }
 
     /**
@@ -148,9 +199,31 @@ public class Claw extends Subsystem {
      * one of the modes.
      */
     public void ensureMode() {
+        // Only ask the OI when it matters, it isn't there during construction
+        boolean quickHold = mTargetMode == TargetMode.HATCH && mSpinMode == SpinMode.HOLD
+                && Robot.m_oi.getQuickTurn();
+        this.setRawIntakeSpeed(getIntakeSpeed(mTargetMode, mSpinMode, quickHold));
+
+        // Handle the solenoid
+        if (mTargetMode == TargetMode.HATCH && !mSolenoidOn) {
+            mIO.setSolenoid(true);
+            mSolenoidOn = true;
+        }
+        else if (mTargetMode == TargetMode.CARGO && mSolenoidOn) {
+            mIO.setSolenoid(false);
+            mSolenoidOn = false;
+        }
+    }
+
+    /**
+     * Pick the collection wheel speed for the target and spin modes
+     * @param quickHold Hold a hatch harder, e.g. while quick turning
+     * @return Speed to set the intake motor to
+     */
+    public static double getIntakeSpeed(TargetMode targetMode, SpinMode spinMode, boolean quickHold) {
         double speed = 0;
-        if (mTargetMode == TargetMode.CARGO) {
-            switch (mSpinMode) {
+        if (targetMode == TargetMode.CARGO) {
+            switch (spinMode) {
                 case INTAKE:
                     speed = Constants.Claw.kCargoIntakeSpeed;
                     break;
@@ -164,8 +237,8 @@ public class Claw extends Subsystem {
                     speed = 0;
             }
             
-        } else if (mTargetMode == TargetMode.HATCH) {
-            switch (mSpinMode) {
+        } else if (targetMode == TargetMode.HATCH) {
+            switch (spinMode) {
                 case INTAKE:
                     speed = Constants.Claw.kHatchIntakeSpeed;
                     break;
@@ -173,7 +246,7 @@ public class Claw extends Subsystem {
                     speed = Constants.Claw.kHatchExhaustSpeed;
                     break;
                 case HOLD:
-                    speed = Robot.m_oi.getQuickTurn() ? Constants.Claw.kHatchQuickHoldSpeed : Constants.Claw.kHatchHoldSpeed;
+                    speed = quickHold ? Constants.Claw.kHatchQuickHoldSpeed : Constants.Claw.kHatchHoldSpeed;
                     break;
                 default: 
                     speed = 0;
@@ -182,19 +255,10 @@ public class Claw extends Subsystem {
             System.out.println("Invalid mode");
         }
 
-        if (mSpinMode == SpinMode.STOP) {
+        if (spinMode == SpinMode.STOP) {
             speed = 0;
         }
-        
-        this.setRawIntakeSpeed(speed);
-
-        // Handle the solenoid
-        if (mTargetMode == TargetMode.HATCH && !mClawSolenoid.get()) {
-            mClawSolenoid.set(true);
-        }
-        else if (mTargetMode == TargetMode.CARGO && mClawSolenoid.get()) {
-            mClawSolenoid.set(false);
-        }
+        return speed;
     }
 
     /**
@@ -218,11 +282,11 @@ public class Claw extends Subsystem {
     }
 
     public boolean hatchLeftPresent() {
-        return mSensors.getGeneralInput(GeneralPin.LIMF);
+        return mInputs.hatchLeft;
     }
 
     public boolean hatchRightPresent() {
-        return mSensors.getGeneralInput(GeneralPin.LIMR);
+        return mInputs.hatchRight;
     }
 
     public boolean isHatch() {
@@ -235,22 +299,41 @@ public class Claw extends Subsystem {
 
     public boolean cargoLeftPresent() {
         // Flipped because the distance sensor is HIGH normally
-        return !mSensors.getGeneralInput(GeneralPin.QUAD_A);
+        return !mInputs.cargoLeft;
     }
 
     public boolean cargoRightPresent() {
-        return !mSensors.getGeneralInput(GeneralPin.QUAD_B);
+        return !mInputs.cargoRight;
     }
 
-    public void updateDashboard() {
-        SmartDashboard.putString("Claw Control Mode", getControlMode().toString());
-        SmartDashboard.putString("Claw Target Mode", getTargetMode().toString());
-        SmartDashboard.putString("Claw Spin Mode", getSpinMode().toString());
+    @Override
+    public void captureTelemetry() {
+        Telemetry telemetry = mTelemetry.getWriteBuffer();
+        telemetry.controlMode = getControlMode();
+        telemetry.targetMode = getTargetMode();
+        telemetry.spinMode = getSpinMode();
+
+        telemetry.hatchLeft = hatchLeftPresent();
+        telemetry.hatchRight = hatchRightPresent();
+        telemetry.cargoLeft = cargoLeftPresent();
+        telemetry.cargoRight = cargoRightPresent();
+        mTelemetry.publish();
+    }
 
-        SmartDashboard.putBoolean("Claw Left Hatch Sensor", hatchLeftPresent());
-        SmartDashboard.putBoolean("Claw Right Hatch Sensor", hatchRightPresent());
-        SmartDashboard.putBoolean("Claw Left Cargo Sensor", cargoLeftPresent());
-        SmartDashboard.putBoolean("Claw Right Cargo Sensor", cargoRightPresent());
+    @Override
+    public void publishTelemetry() {
+        if (!mTelemetry.update()) {
+            return;
+        }
+        Telemetry telemetry = mTelemetry.getReadBuffer();
+        mControlModeEntry.setString(telemetry.controlMode.toString());
+        mTargetModeEntry.setString(telemetry.targetMode.toString());
+        mSpinModeEntry.setString(telemetry.spinMode.toString());
+
+        mHatchLeftEntry.setBoolean(telemetry.hatchLeft);
+        mHatchRightEntry.setBoolean(telemetry.hatchRight);
+        mCargoLeftEntry.setBoolean(telemetry.cargoLeft);
+        mCargoRightEntry.setBoolean(telemetry.cargoRight);
     }
 }
 
@@ -7,21 +7,34 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.SpeedControllerGroup;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants;
 import frc.robot.commands.DrivetrainTeleop;
+import frc.robot.subsystems.io.DriveIO;
+import frc.robot.subsystems.io.DriveIOSim;
+import frc.robot.subsystems.io.DriveIOSparkMax;
+import frc.robot.util.Clock;
+import frc.robot.util.DriveHelper;
+import frc.robot.util.Histogram;
+import frc.robot.util.MotionHistory;
+import frc.robot.util.Odometry;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.TripleBuffer;
+import frc.robot.util.replay.Replay;
 
 /**
  * The drivetrain is compromised of the chassis, including the
  * different wheels and motors that actually allow the robot 
  * to drive, including any Encoders that let it track its position.
  */
-public class Drivetrain extends Subsystem {
+public class Drivetrain extends Subsystem implements TelemetryPublisher.Source {
 
     // Generally, return a singleton instance of the subsystem
     private static Drivetrain sInstance;
@@ -35,31 +48,101 @@ public class Drivetrain extends Subsystem {
         return sInstance;
     }
     
-    // Motor controller declarations
-    private CANSparkMax mLeftLeader, mLeftFollower, mRightLeader, mRightFollower;
+    // Motors and encoders
+    private final DriveIO mIO;
+    private final SpeedController mLeftLeader, mRightLeader;
 
     // Helper class for drivetrain control
     private DifferentialDrive mDiffDrive;
 
+    // Encoder values, sampled once per loop by readPeriodicInputs()
+    private final DriveIO.Inputs mInputs = new DriveIO.Inputs();
+    private double mLeftDistance, mRightDistance;
+    private double mLeftVelocity, mRightVelocity;
+
+    // Raw encoder positions as of the last resetEncoders()
+    private double mLeftZero, mRightZero;
+
+    // Pose, integrated from the encoders on its own thread
+    private final MotionHistory mMotionHistory = new MotionHistory(Constants.Drivetrain.kMotionHistorySize);
+    private final Odometry mOdometry;
+
+    // With high rate control on, the drive methods below don't touch the
+    // motors. They publish a Setpoint, and a Notifier runs the drive math and
+    // writes the motors every kControlPeriodSec, see runControlLoop()
+    private enum DriveMode {
+        CURVATURE,
+        ARCADE,
+        TANK,
+    }
+
+    private static class Setpoint {
+        DriveMode mode = DriveMode.TANK;
+        double xSpeed, zRotation;
+        double leftSpeed, rightSpeed;
+        boolean quickTurn, squareInputs;
+        double timestamp;
+    }
+
+    // Control loop timing, handed off to the TelemetryPublisher thread
+    private static class ControlStats {
+        double meanPeriodMs, maxPeriodMs;
+        double p99JitterMs, maxJitterMs;
+    }
+
+    private volatile boolean mHighRateControl = false;
+    private final TripleBuffer<Setpoint> mSetpoints = new TripleBuffer<>(Setpoint::new);
+    private final Notifier mControlNotifier = new Notifier(this::runControlLoop);
+    private boolean mControlLoopStarted = false;
+
+    // Only touched by the control loop thread
+    private final DriveHelper mDriveHelper = new DriveHelper();
+    private final DriveHelper.SpeedControl mSpeeds = new DriveHelper.SpeedControl();
+
+    // Curvature drive when high rate control is off. Only touched by the
+    // main thread
+    private final DriveHelper mMainDriveHelper = new DriveHelper();
+    private final DriveHelper.SpeedControl mMainSpeeds = new DriveHelper.SpeedControl();
+    private final long mControlPeriodNs = (long) (Constants.Drivetrain.kControlPeriodSec * 1e9);
+    private final Histogram mPeriodHistogram = new Histogram(Constants.LoopProfiler.kBucketWidthMs,
+            Constants.LoopProfiler.kBucketCount);
+    private final Histogram mJitterHistogram = new Histogram(Constants.LoopProfiler.kBucketWidthMs,
+            Constants.LoopProfiler.kBucketCount);
+    private long mLastControlNs = 0;
+
+    private final TripleBuffer<ControlStats> mControlStats = new TripleBuffer<>(ControlStats::new);
+    private final NetworkTableEntry mMeanPeriodEntry = SmartDashboard.getEntry("Drive Loop Mean Period ms");
+    private final NetworkTableEntry mMaxPeriodEntry = SmartDashboard.getEntry("Drive Loop Max Period ms");
+    private final NetworkTableEntry mP99JitterEntry = SmartDashboard.getEntry("Drive Loop p99 Jitter ms");
+    private final NetworkTableEntry mMaxJitterEntry = SmartDashboard.getEntry("Drive Loop Max Jitter ms");
+
     /**
      * Constructor to instantiate all of our hardware-wrapping APIs
      */
     private Drivetrain() {
-        // Instantiate the motor controllers using the defined CAN IDs
-        mLeftLeader = new CANSparkMax(Constants.Drivetrain.kLeftLeaderId, MotorType.kBrushless);
-        mLeftFollower = new CANSparkMax(Constants.Drivetrain.kLeftFollowerId, MotorType.kBrushless);
-        mRightLeader = new CANSparkMax(Constants.Drivetrain.kRightLeaderId, MotorType.kBrushless);
-        mRightFollower = new CANSparkMax(Constants.Drivetrain.kRightFollowerId, MotorType.kBrushless);
-
-        setRampRate(.3);
-
-        // We need one motor controller per motor, and we have two motors powering each side
-        // of the drivetrain. We *could* send each speed controller per side the same command,
-        // or make use of the CAN network, and slave one controller to another. This allows us
-        // to manipulate a single controller, and any followers will automatically synchronize
-        // their outputs to match
-        mLeftFollower.follow(mLeftLeader);
-        mRightFollower.follow(mRightLeader);
+        // When replaying, the inputs come from the log and the motors are
+        // stand-ins. On a laptop, the motors drive a physics model
+        if (Replay.isActive()) {
+            mIO = new DriveIO() {};
+        } else if (RobotBase.isSimulation()) {
+            mIO = new DriveIOSim();
+        } else {
+            mIO = new DriveIOSparkMax();
+        }
+        mLeftLeader = mIO.createLeftController();
+        mRightLeader = mIO.createRightController();
+
+        // The odometry thread reads the raw encoder positions, so it isn't
+        // affected by resetEncoders(). When replaying or simulating in lock
+        // step, it's stepped once per loop from the inputs instead, see
+        // readPeriodicInputs()
+        if (!Clock.isRealTime()) {
+            mOdometry = new Odometry(() -> mInputs.leftPosition, () -> mInputs.rightPosition, null,
+                    Constants.Drivetrain.kTrackWidthInches, mMotionHistory);
+        } else {
+            mOdometry = new Odometry(mIO::getLeftPosition, mIO::getRightPosition, null,
+                    Constants.Drivetrain.kTrackWidthInches, mMotionHistory);
+        }
 
         // All CANSparkMax-s implement the SpeedController interface, and can thus be used in 
         // the DifferentialDrive helper.
@@ -67,6 +150,24 @@ public class Drivetrain extends Subsystem {
         // abstracting direct motor control away from the user, and instead providing an API
         // that allow users to pass in values from -1..1 in order to adjust speed and turning rate.
         mDiffDrive = new DifferentialDrive(mLeftLeader, mRightLeader);
+        if (!Clock.isRealTime()) {
+            // Motor safety times out on the wall clock, not the replay or simulation clock
+            mDiffDrive.setSafetyEnabled(false);
+        }
+
+        // The OI has already deadbanded the sticks, see InputShaper
+        mDriveHelper.setThrottleDeadband(0);
+        mDriveHelper.setWheelDeadband(0);
+        setHighRateControl(Constants.Drivetrain.kHighRateControl);
+
+        SignalLogger logger = SignalLogger.getInstance();
+        logger.register("Drive Left Output", mLeftLeader::get);
+        logger.register("Drive Right Output", mRightLeader::get);
+        logger.register("Drive Left Distance", this::getLeftDistance);
+        logger.register("Drive Right Distance", this::getRightDistance);
+        logger.register("Drive Left Velocity", this::getLeftVelocity);
+        logger.register("Drive Right Velocity", this::getRightVelocity);
+        logger.registerInputs("Drivetrain", mInputs);
     }
 
     @Override
@@ -76,61 +177,239 @@ public class Drivetrain extends Subsystem {
         setDefaultCommand(new DrivetrainTeleop());
     }
 
+    /**
+     * Sample the drivetrain encoders. Called once at the start of every loop, so
+     * everything else in the loop sees the same values without going back to
+     * the CAN bus.
+     */
+    public void readPeriodicInputs() {
+        mIO.updateInputs(mInputs);
+        mLeftDistance = mInputs.leftPosition - mLeftZero;
+        mRightDistance = mInputs.rightPosition - mRightZero;
+        mLeftVelocity = mInputs.leftVelocity;
+        mRightVelocity = mInputs.rightVelocity;
+
+        if (!Clock.isRealTime()) {
+            mOdometry.update();
+        }
+    }
+
+    /**
+     * Start integrating the pose at a high rate, see Odometry
+     */
+    public void startOdometry() {
+        if (!Clock.isRealTime()) {
+            return;
+        }
+        mOdometry.start(Constants.Drivetrain.kOdometryPeriodSec);
+    }
+
+    /**
+     * Switch between driving the motors straight from the drive methods, and
+     * from the high rate control loop
+     */
+    public synchronized void setHighRateControl(boolean enabled) {
+        // When replaying or simulating in lock step, the control loop runs on
+        // the main thread after each new setpoint instead, so it's
+        // deterministic
+        if (enabled && !mControlLoopStarted && Clock.isRealTime()) {
+            mControlNotifier.startPeriodic(Constants.Drivetrain.kControlPeriodSec);
+            mControlLoopStarted = true;
+        }
+        // Whichever way we're switching, start from a stop
+        if (enabled != mHighRateControl) {
+            publishTankSetpoint(0, 0, false);
+        }
+        mHighRateControl = enabled;
+    }
+
+    public boolean isHighRateControl() {
+        return mHighRateControl;
+    }
+
+    private void publishTankSetpoint(double leftSpeed, double rightSpeed, boolean squareInputs) {
+        Setpoint setpoint = mSetpoints.getWriteBuffer();
+        setpoint.mode = DriveMode.TANK;
+        setpoint.leftSpeed = leftSpeed;
+        setpoint.rightSpeed = rightSpeed;
+        setpoint.squareInputs = squareInputs;
+        setpoint.timestamp = Clock.getTime();
+        mSetpoints.publish();
+        if (!Clock.isRealTime()) {
+            runControlLoop();
+        }
+    }
+
+    private void publishSetpoint(DriveMode mode, double xSpeed, double zRotation, boolean quickTurn,
+            boolean squareInputs) {
+        Setpoint setpoint = mSetpoints.getWriteBuffer();
+        setpoint.mode = mode;
+        setpoint.xSpeed = xSpeed;
+        setpoint.zRotation = zRotation;
+        setpoint.quickTurn = quickTurn;
+        setpoint.squareInputs = squareInputs;
+        setpoint.timestamp = Clock.getTime();
+        mSetpoints.publish();
+        if (!Clock.isRealTime()) {
+            runControlLoop();
+        }
+    }
+
+    /**
+     * Run the drive math for the latest setpoint and write the motors. Runs
+     * on the control Notifier's thread
+     */
+    private void runControlLoop() {
+        long now = System.nanoTime();
+        if (mLastControlNs != 0) {
+            long period = now - mLastControlNs;
+            mPeriodHistogram.record(period);
+            mJitterHistogram.record(Math.abs(period - mControlPeriodNs));
+        }
+        mLastControlNs = now;
+
+        if (!mHighRateControl) {
+            return;
+        }
+
+        mSetpoints.update();
+        Setpoint setpoint = mSetpoints.getReadBuffer();
+
+        if (Clock.getTime() - setpoint.timestamp > Constants.Drivetrain.kSetpointTimeoutSec) {
+            // Nobody is driving (e.g. we're disabled). Don't carry on with
+            // an old setpoint
+            mDiffDrive.tankDrive(0, 0, false);
+        } else if (setpoint.mode == DriveMode.CURVATURE) {
+            setRampRate(setpoint.quickTurn ? .1 : .3);
+            mDriveHelper.curvatureDrive(setpoint.xSpeed, setpoint.zRotation, setpoint.quickTurn, mSpeeds);
+            setCurvatureOutput(mSpeeds);
+        } else if (setpoint.mode == DriveMode.ARCADE) {
+            mDiffDrive.arcadeDrive(setpoint.xSpeed, setpoint.zRotation, setpoint.squareInputs);
+        } else {
+            mDiffDrive.tankDrive(setpoint.leftSpeed, setpoint.rightSpeed, setpoint.squareInputs);
+        }
+
+        if (mPeriodHistogram.getCount() >= Constants.Drivetrain.kControlStatsWindow) {
+            ControlStats stats = mControlStats.getWriteBuffer();
+            stats.meanPeriodMs = mPeriodHistogram.getMeanMs();
+            stats.maxPeriodMs = mPeriodHistogram.getMaxMs();
+            stats.p99JitterMs = mJitterHistogram.getPercentileMs(0.99);
+            stats.maxJitterMs = mJitterHistogram.getMaxMs();
+            mControlStats.publish();
+            mPeriodHistogram.reset();
+            mJitterHistogram.reset();
+        }
+    }
+
+    @Override
+    public void captureTelemetry() {
+        // Control loop stats are published by the control loop thread
+    }
+
+    @Override
+    public void publishTelemetry() {
+        if (!mControlStats.update()) {
+            return;
+        }
+        ControlStats stats = mControlStats.getReadBuffer();
+        mMeanPeriodEntry.setDouble(stats.meanPeriodMs);
+        mMaxPeriodEntry.setDouble(stats.maxPeriodMs);
+        mP99JitterEntry.setDouble(stats.p99JitterMs);
+        mMaxJitterEntry.setDouble(stats.maxJitterMs);
+    }
+
     public void setRampRate(double ramp) {
-        this.mLeftLeader.setClosedLoopRampRate(ramp);
-        this.mRightLeader.setClosedLoopRampRate(ramp);
+        mIO.setRampRate(ramp);
     }
 
     /**
-     * Reset the built in encoders on the SPARK Max-s
+     * Reset the built in encoders on the SPARK Max-s, and the pose
      * 
      * Resetting the encoders is useful when you're about to perform an autonomous driving
      * routine, as errors could have built up between now and the last time you reset them.
      */
     public void resetEncoders() {
-        // To reset the encoders, we just set their current positions to 0
-        mLeftLeader.getEncoder().setPosition(0.0);
-        mRightLeader.getEncoder().setPosition(0.0);
+        // To reset the encoders, we remember their current positions as 0. Writing
+        // 0 to the SPARK MAX-s takes effect some time later, which would show up as
+        // a jump in the odometry
+        mLeftZero = mInputs.leftPosition;
+        mRightZero = mInputs.rightPosition;
+        mLeftDistance = 0.0;
+        mRightDistance = 0.0;
+        mOdometry.reset();
     }
 
     /**
      * Get the distance traveled by the left side of the drivetrain since initialization or last reset
      * 
-     * NOTE: This requires that an appropriate scale factor be set using CANEncoder.setPositionConversionFactor()
-     * @return distance traveled in inches
+     * DriveIOSparkMax sets the encoder conversion factors, and makes forward positive
+     * @return distance traveled in inches, as of the start of this loop
      */
     public double getLeftDistance() {
-        return mLeftLeader.getEncoder().getPosition();
+        return mLeftDistance;
     }
 
     /**
      * Get the distance traveled by the right side of the drivetrain since initialization or last reset
      * 
-     * NOTE: This requires that an appropriate scale factor be set using CANEncoder.setPositionConversionFactor()
-     * @return distance traveled in inches
+     * DriveIOSparkMax sets the encoder conversion factors, and makes forward positive
+     * @return distance traveled in inches, as of the start of this loop
      */
     public double getRightDistance() {
-        return mRightLeader.getEncoder().getPosition();
+        return mRightDistance;
+    }
+
+    /**
+     * Get the distance traveled by the center of the robot since initialization or last reset
+     * @return distance traveled in inches, as of the start of this loop
+     */
+    public double getDistance() {
+        return (mLeftDistance + mRightDistance) / 2.0;
+    }
+
+    /**
+     * Get the heading of the robot, worked out from how much further one side
+     * has driven than the other since initialization or last reset
+     * @return heading in radians, counter-clockwise positive, as of the start of this loop
+     */
+    public double getHeading() {
+        return (mRightDistance - mLeftDistance) / Constants.Drivetrain.kTrackWidthInches;
+    }
+
+    /**
+     * @return recent poses, recorded by the odometry thread
+     */
+    public MotionHistory getMotionHistory() {
+        return mMotionHistory;
+    }
+
+    /**
+     * Read the latest pose from the odometry thread
+     * @param pose Overwritten with the pose
+     * @return false if the odometry hasn't produced a pose yet
+     */
+    public boolean getPose(MotionHistory.Pose pose) {
+        return mMotionHistory.getLatest(pose);
     }
 
     /**
      * Get the current velocity of the left side of the drivetrain since initialization or last reset
      * 
-     * NOTE: This requires that an appropriate scale factor be set using CANEncoder.setVelocityConversionFactor()
-     * @return speed in inches per second
+     * DriveIOSparkMax sets the encoder conversion factors, and makes forward positive
+     * @return speed in inches per second, as of the start of this loop
      */
     public double getLeftVelocity() {
-        return mLeftLeader.getEncoder().getVelocity();
+        return mLeftVelocity;
     }
 
     /**
      * Get the current velocity of the right side of the drivetrain since initialization or last reset
      * 
-     * NOTE: This requires that an appropriate scale factor be set using CANEncoder.setVelocityConversionFactor()
-     * @return speed in inches per second
+     * DriveIOSparkMax sets the encoder conversion factors, and makes forward positive
+     * @return speed in inches per second, as of the start of this loop
      */
     public double getRightVelocity() {
-        return mRightLeader.getEncoder().getVelocity();
+        return mRightVelocity;
     }
 
 
@@ -150,6 +429,10 @@ public class Drivetrain extends Subsystem {
      * @param squareInputs If set, decreases input sensitivity at low speeds
      */
     public void arcadeDrive(double xSpeed, double zRotation, boolean squareInputs) {
+        if (mHighRateControl) {
+            publishSetpoint(DriveMode.ARCADE, xSpeed, zRotation, false, squareInputs);
+            return;
+        }
         mDiffDrive.arcadeDrive(xSpeed, zRotation, squareInputs);
     }
 
@@ -167,6 +450,10 @@ public class Drivetrain extends Subsystem {
     /**
      * Curvature drive method for differential drive platform
      * 
+     * Either way this goes through DriveHelper.curvatureDrive(), which has
+     * the same math as DifferentialDrive.curvatureDrive(). With high rate
+     * control on, it runs on the control loop thread instead
+     * 
      * The rotation argument controls the *curvature* of the robot's path rather than its rate
      * of heading change. This makes the robot more controllable at high speeds. 
      * 
@@ -176,6 +463,10 @@ public class Drivetrain extends Subsystem {
      * @param isQuickTurn If set, overrides constant curvature turning (turns zRotation into rotation rate instead of curvature radius)
      */
     public void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        if (mHighRateControl) {
+            publishSetpoint(DriveMode.CURVATURE, xSpeed, zRotation, isQuickTurn, false);
+            return;
+        }
 
         if (isQuickTurn) {
             setRampRate(.1);
@@ -183,7 +474,19 @@ public class Drivetrain extends Subsystem {
             setRampRate(.3);
         }
 
-        mDiffDrive.curvatureDrive(xSpeed, zRotation, isQuickTurn);
+        mMainDriveHelper.curvatureDrive(xSpeed, zRotation, isQuickTurn, mMainSpeeds);
+        setCurvatureOutput(mMainSpeeds);
+    }
+
+    /**
+     * Write curvature drive's output to the motors the way
+     * DifferentialDrive.curvatureDrive() does. Going through tankDrive()
+     * would deadband the output a second time
+     */
+    private void setCurvatureOutput(DriveHelper.SpeedControl speeds) {
+        mLeftLeader.set(speeds.left);
+        mRightLeader.set(speeds.right);
+        mDiffDrive.feed();
     }
 
     /**
@@ -193,9 +496,22 @@ public class Drivetrain extends Subsystem {
      * @param squareInputs If set, decreases sensitivity at low speeds
      */
     public void tankDrive(double leftSpeed, double rightSpeed, boolean squareInputs) {
+        if (mHighRateControl) {
+            publishTankSetpoint(leftSpeed, rightSpeed, squareInputs);
+            return;
+        }
         mDiffDrive.tankDrive(leftSpeed, rightSpeed, squareInputs);
     }
 
+    /**
+     * Set the raw output of each side of the drivetrain, with no input shaping
+     * @param leftSpeed Left side output [-1.0..1.0]. Forward is positive
+     * @param rightSpeed Right side output [-1.0..1.0]. Forward is positive
+     */
+    public void setOpenLoopSpeed(double leftSpeed, double rightSpeed) {
+        this.tankDrive(leftSpeed, rightSpeed, false);
+    }
+
     /**
      * Independently control each side of the drivetrain
      * 
@@ -7,12 +7,15 @@
 
 package frc.robot.subsystems;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.can.VictorSPX;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants;
 import frc.robot.commands.DefaultIntakeCommand;
+import frc.robot.subsystems.io.IntakeIO;
+import frc.robot.subsystems.io.IntakeIOVictorSPX;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.replay.Replay;
 
 /*
  * Originally there was supposed to be a climbing arm to reach hab2 or hab3. However
@@ -39,10 +42,17 @@ public class Intake extends Subsystem {
         return sInstance;
     }
 
-    private VictorSPX mIntakeMotor; // A Victor on Channel 2
+    private final IntakeIO mIO;
+
+    // Last speed the wheels were set to, for the signal log
+    private double mSpeed;
 
     private Intake() {
-        mIntakeMotor = new VictorSPX(Constants.Intake.kIntakeMotorId);
+        // When replaying or simulating, nothing is driven. The intake doesn't
+        // affect anything else in the simulation
+        mIO = Replay.isActive() || RobotBase.isSimulation() ? new IntakeIO() {} : new IntakeIOVictorSPX();
+
+        SignalLogger.getInstance().register("Intake Output", () -> mSpeed);
     }
 
     public void resetToDefault() {
@@ -51,16 +61,21 @@ public class Intake extends Subsystem {
 
     /* Turn on or off the spinning of the arm wheels */
     public void spinWheels(boolean intake) {
-        mIntakeMotor.set(ControlMode.PercentOutput, (intake ? 1 : -1) * Constants.Intake.kSpinSpeed);
+        setSpeed((intake ? 1 : -1) * Constants.Intake.kSpinSpeed);
     }
 
     /* Return true if the arm wheels are spinning, false otherwise */
     public boolean areWheelsSpinning() {
-        return Math.abs((int) (100 * mIntakeMotor.getMotorOutputPercent()))  >= .0f;
+        return Math.abs((int) (100 * mIO.getOutputPercent()))  >= .0f;
     }
 
     public void stop() {
-        mIntakeMotor.set(ControlMode.PercentOutput, 0);
+        setSpeed(0);
+    }
+
+    private void setSpeed(double speed) {
+        mSpeed = speed;
+        mIO.setSpeed(speed);
     }
 
     /**
@@ -0,0 +1,49 @@
+package frc.robot.subsystems;
+
+import frc.robot.Constants;
+import frc.robot.util.StartupTimeline;
+import frc.robot.util.drivers.CanBusPlanner;
+import frc.robot.util.drivers.DeviceConfigurator;
+import frc.robot.util.drivers.Limelight;
+
+/**
+ * Every subsystem on the robot, and the order they're brought up in
+ *
+ * Subsystems used to be built the first time something asked for them,
+ * which could be a button press in the middle of a match. Instead, boot()
+ * builds all of them up front, in stages:
+ *  1. Construct each subsystem. This only creates objects and registers
+ *     devices, and must happen on the main thread since the Scheduler isn't
+ *     thread safe
+ *  2. Configure every device, in parallel (see DeviceConfigurator). This is
+ *     where nearly all of the time goes
+ *  3. After-configure steps, such as homing the arm
+ *
+ * Anything added to the robot should be added to build() here, so it's ready
+ * before robotInit() returns.
+ */
+public class SubsystemRegistry {
+
+    private SubsystemRegistry() {}
+
+    /**
+     * Build and configure every subsystem, recording each stage on the
+     * StartupTimeline
+     */
+    public static void boot() {
+        StartupTimeline timeline = StartupTimeline.getInstance();
+        timeline.time("Construct subsystems", () -> build(timeline));
+
+        // The PDP is always on the bus, even though nothing talks to it
+        CanBusPlanner.getInstance().addFixedLoad("PDP", Constants.CAN.kPdpFramesPerSec);
+        timeline.time("Configure devices", DeviceConfigurator.getInstance()::configureAll);
+    }
+
+    private static void build(StartupTimeline timeline) {
+        timeline.time("  Drivetrain", Drivetrain::getInstance);
+        timeline.time("  Arm", Arm::getInstance);
+        timeline.time("  Claw", Claw::getInstance);
+        timeline.time("  Intake", Intake::getInstance);
+        timeline.time("  Limelight", Limelight::getInstance);
+    }
+}
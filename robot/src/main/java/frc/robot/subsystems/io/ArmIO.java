@@ -0,0 +1,94 @@
+package frc.robot.subsystems.io;
+
+import java.nio.ByteBuffer;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+import frc.robot.util.drivers.MotionProfileStreamer;
+import frc.robot.util.drivers.WriteCounter;
+import frc.robot.util.replay.LoggableInputs;
+
+/**
+ * The arm's motors and sensors
+ *
+ * ArmIOTalonSRX is the real arm, and ArmIOSim simulates it. The defaults
+ * here do nothing, which is what the arm uses when replaying a log, since
+ * its inputs come from the log.
+ */
+public interface ArmIO {
+
+    /**
+     * Everything read from the arm each loop
+     */
+    public static class Inputs implements LoggableInputs {
+        // Encoder ticks, and ticks per 100ms
+        public int position;
+        public int absPosition;
+        public int velocity;
+        public int trajectoryVelocity;
+        public double outputVoltage;
+        public double outputPercent;
+
+        @Override
+        public int getLogSize() {
+            return 4 * 4 + 2 * 8;
+        }
+
+        @Override
+        public void toLog(ByteBuffer buffer) {
+            buffer.putInt(position);
+            buffer.putInt(absPosition);
+            buffer.putInt(velocity);
+            buffer.putInt(trajectoryVelocity);
+            buffer.putDouble(outputVoltage);
+            buffer.putDouble(outputPercent);
+        }
+
+        @Override
+        public void fromLog(ByteBuffer buffer) {
+            position = buffer.getInt();
+            absPosition = buffer.getInt();
+            velocity = buffer.getInt();
+            trajectoryVelocity = buffer.getInt();
+            outputVoltage = buffer.getDouble();
+            outputPercent = buffer.getDouble();
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /**
+     * @param mode           PercentOutput, MotionMagic or MotionProfile
+     * @param demand         Output, position or profile output, for the mode
+     * @param arbFeedForward Added to the output, as a fraction of the voltage
+     *                       compensation saturation
+     */
+    default void set(ControlMode mode, double demand, double arbFeedForward) {}
+
+    /**
+     * Change Motion Magic's limits. These are blocking config writes, so
+     * this is called off the main loop
+     * @param cruiseVelocity Ticks per 100ms
+     * @param acceleration   Ticks per 100ms per second
+     */
+    default void setMotionMagicLimits(int cruiseVelocity, int acceleration) {}
+
+    /**
+     * Change the closed loop gains. Called off the main loop, and only when
+     * one of them has changed
+     */
+    default void setGains(double kP, double kI, double kD, double kF) {}
+
+    /**
+     * @return Streams motion profiles to the motor controller, or null if
+     *         profiles aren't supported, in which case the arm only uses
+     *         Motion Magic
+     */
+    default MotionProfileStreamer getProfileStreamer() {
+        return null;
+    }
+
+    default WriteCounter getWriteCounter() {
+        return new WriteCounter();
+    }
+}
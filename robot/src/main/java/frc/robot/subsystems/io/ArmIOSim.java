@@ -0,0 +1,74 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+import frc.robot.Constants;
+import frc.robot.util.sim.ArmModel;
+import frc.robot.util.sim.DCMotor;
+import frc.robot.util.sim.PhysicsSim;
+import frc.robot.util.sim.TalonSRXModel;
+
+/**
+ * The arm, simulated on a laptop
+ *
+ * The Talon's Motion Magic is emulated from the same gains the real one is
+ * configured with, and drives a model of the arm. Motion profiles aren't
+ * simulated, so the arm uses Motion Magic.
+ */
+public class ArmIOSim implements ArmIO, PhysicsSim.Model {
+
+    private final TalonSRXModel mTalon = new TalonSRXModel(Constants.Arm.PID.P, Constants.Arm.PID.I,
+            Constants.Arm.PID.D, Constants.Arm.PID.F, Constants.Arm.PID.IZ);
+
+    private final ArmModel mArm = new ArmModel(DCMotor.getVex775Pro(Constants.Simulation.kArmMotors),
+            Constants.Simulation.kArmGearing, Constants.Simulation.kArmMassKg, Constants.Simulation.kArmLengthMeters,
+            toAngle(Constants.Simulation.kArmLowerStop), toAngle(Constants.Simulation.kArmUpperStop));
+
+    public ArmIOSim() {
+        mTalon.setMotionMagicLimits(Constants.Arm.kMotionVelocityDown, Constants.Arm.kMotionAccelerationDown);
+        PhysicsSim.getInstance().register(this);
+    }
+
+    private static double toAngle(double ticks) {
+        return Math.toRadians((ticks - Constants.Arm.kLevelPosition) / Constants.Arm.kTicksPerDegree);
+    }
+
+    private double getPosition() {
+        return Constants.Arm.kLevelPosition + Math.toDegrees(mArm.getAngle()) * Constants.Arm.kTicksPerDegree;
+    }
+
+    private double getVelocity() {
+        return Math.toDegrees(mArm.getVelocity()) * Constants.Arm.kTicksPerDegree / 10;
+    }
+
+    @Override
+    public synchronized void step(double dt, boolean enabled) {
+        double output = mTalon.update(dt, enabled, getPosition(), getVelocity());
+        mArm.step(dt, output * Constants.Arm.kVoltageCompSaturation);
+    }
+
+    @Override
+    public synchronized void updateInputs(Inputs inputs) {
+        inputs.position = (int) Math.round(getPosition());
+        inputs.absPosition = inputs.position + Constants.Arm.kBasePulseWidth;
+        inputs.velocity = (int) Math.round(getVelocity());
+        inputs.trajectoryVelocity = mTalon.getActiveTrajectoryVelocity();
+        inputs.outputPercent = mTalon.getOutput();
+        inputs.outputVoltage = inputs.outputPercent * Constants.Arm.kVoltageCompSaturation;
+    }
+
+    @Override
+    public synchronized void set(ControlMode mode, double demand, double arbFeedForward) {
+        mTalon.set(mode, demand, arbFeedForward);
+    }
+
+    @Override
+    public synchronized void setMotionMagicLimits(int cruiseVelocity, int acceleration) {
+        mTalon.setMotionMagicLimits(cruiseVelocity, acceleration);
+    }
+
+    @Override
+    public synchronized void setGains(double kP, double kI, double kD, double kF) {
+        mTalon.setGains(kP, kI, kD, kF);
+    }
+}
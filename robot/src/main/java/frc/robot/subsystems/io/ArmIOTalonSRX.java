@@ -0,0 +1,145 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+import frc.robot.util.drivers.CanBusPlanner;
+import frc.robot.util.drivers.DeviceConfigurator;
+import frc.robot.util.drivers.LazyTalonSRX;
+import frc.robot.util.drivers.MotionProfileStreamer;
+import frc.robot.util.drivers.SlaveVictor;
+import frc.robot.util.drivers.TalonSRXFactory;
+import frc.robot.util.drivers.WriteCounter;
+
+/**
+ * The arm's Talon SRX, with the Victor SPX following it
+ */
+public class ArmIOTalonSRX implements ArmIO {
+
+    private final LazyTalonSRX mMaster;
+    private final SlaveVictor mSlave;
+    private final MotionProfileStreamer mStreamer;
+
+    // https://github.com/CrossTheRoadElec/Phoenix-Examples-Languages/blob/master/Java/MotionMagic/src/main/java/frc/robot/Robot.java
+    private static final TalonSRXFactory.Configuration kMasterConfig = new TalonSRXFactory.Configuration();
+
+    static {
+        kMasterConfig.mFeedbackDevice = FeedbackDevice.CTRE_MagEncoder_Relative;
+        kMasterConfig.mInverted = Constants.Arm.kInvertArmMotor;
+        kMasterConfig.mEnableBrake = Constants.Arm.kMotorBrakeModeOn;
+        kMasterConfig.mSensorPhase = Constants.Arm.kInvertSensorPhase;
+
+        // The feedforward is in volts, so a percent output has to mean the same
+        // voltage whatever the battery is doing. The PID gains were tuned
+        // without compensation, so it's only on along with the feedforward
+        kMasterConfig.mEnableVoltageCompensation = Constants.Arm.kUseFeedforward;
+        kMasterConfig.mVoltageCompSaturation = Constants.Arm.kVoltageCompSaturation;
+
+        // Read every loop by updateInputs(). The absolute position is only
+        // for the dashboard
+        kMasterConfig.mSignalFreshnessMs.put(CanBusPlanner.Signal.GENERAL, Constants.CAN.kLoopFreshnessMs);
+        kMasterConfig.mSignalFreshnessMs.put(CanBusPlanner.Signal.SELECTED_SENSOR, Constants.CAN.kLoopFreshnessMs);
+        kMasterConfig.mSignalFreshnessMs.put(CanBusPlanner.Signal.PULSE_WIDTH, Constants.CAN.kTelemetryFreshnessMs);
+
+        // Motion Magic's target velocity feeds the feedforward every loop
+        kMasterConfig.mSignalFreshnessMs.put(CanBusPlanner.Signal.MOTION_MAGIC, Constants.CAN.kLoopFreshnessMs);
+
+        // The profile streamer checks the trajectory buffer every point, and
+        // sends points twice as fast as they're used. Without profiles there
+        // is no streamer, so the buffer frames are left at their slowest
+        if (Constants.Arm.kUseMotionProfile) {
+            kMasterConfig.mSignalFreshnessMs.put(CanBusPlanner.Signal.MOTION_PROFILE_BUFFER, Constants.Arm.kProfilePointMs);
+            kMasterConfig.mMotionControlFramePeriodMs = Constants.Arm.kProfilePointMs / 2;
+        }
+
+        /* Set Motion Magic gains in slot0 - see documentation */
+        kMasterConfig.mProfileSlot = Constants.Arm.kRaiseSlotIdx;
+        kMasterConfig.mKf = Constants.Arm.PID.F;
+        kMasterConfig.mKp = Constants.Arm.PID.P;
+        kMasterConfig.mKi = Constants.Arm.PID.I;
+        kMasterConfig.mIntegralZone = Constants.Arm.PID.IZ;
+        kMasterConfig.mKd = Constants.Arm.PID.D;
+
+        /* Set acceleration and vcruise velocity - see documentation */
+        kMasterConfig.mMotionCruiseVelocity = Constants.Arm.kMotionVelocityDown;
+        kMasterConfig.mMotionAcceleration = Constants.Arm.kMotionAccelerationDown;
+    }
+
+    public ArmIOTalonSRX() {
+        mMaster = TalonSRXFactory.createTalonSRX(Constants.Arm.kMasterId, kMasterConfig);
+
+        mSlave = new SlaveVictor(Constants.Arm.kSlaveId, Constants.Arm.kInvertArmMotor);
+        mSlave.setMaster(mMaster, Constants.Arm.kMotorBrakeModeOn, null);
+
+        // The buffer frames are only fast enough to stream with when profiles
+        // are on. Without a streamer the arm sticks to Motion Magic
+        mStreamer = Constants.Arm.kUseMotionProfile
+                ? new MotionProfileStreamer(mMaster, Constants.Arm.kProfilePointMs,
+                        Constants.Arm.kProfileMaxPoints, Constants.Arm.kProfileMinBufferedPoints)
+                : null;
+
+        // The encoder can only be zeroed once the sensor is configured
+        DeviceConfigurator.getInstance().afterConfigure("Arm homing", this::zeroSensors);
+    }
+
+    /**
+     * Zero the relative encoder against the absolute position of the arm
+     */
+    private void zeroSensors() {
+        boolean sensorPresent = mMaster.getSensorCollection().getPulseWidthRiseToRiseUs() != 0;
+        if (!sensorPresent) {
+            DriverStation.reportError("Could not detect elevator encoder", false);
+        }
+
+        mMaster.setSelectedSensorPosition(
+                mMaster.getSensorCollection().getPulseWidthPosition() - Constants.Arm.kBasePulseWidth,
+                Constants.Arm.kPIDLoopIdx, Constants.Arm.kTimeout);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.position = mMaster.getSelectedSensorPosition();
+        inputs.absPosition = mMaster.getSensorCollection().getPulseWidthPosition();
+        inputs.velocity = mMaster.getSelectedSensorVelocity();
+        inputs.trajectoryVelocity = mMaster.getActiveTrajectoryVelocity();
+        inputs.outputVoltage = mMaster.getMotorOutputVoltage();
+        inputs.outputPercent = mMaster.getMotorOutputPercent();
+    }
+
+    @Override
+    public void set(ControlMode mode, double demand, double arbFeedForward) {
+        if (arbFeedForward == 0) {
+            mMaster.set(mode, demand);
+        } else {
+            mMaster.set(mode, demand, DemandType.ArbitraryFeedForward, arbFeedForward);
+        }
+    }
+
+    @Override
+    public void setMotionMagicLimits(int cruiseVelocity, int acceleration) {
+        mMaster.configMotionCruiseVelocity(cruiseVelocity, Constants.Arm.kTimeout);
+        mMaster.configMotionAcceleration(acceleration, Constants.Arm.kTimeout);
+    }
+
+    @Override
+    public void setGains(double kP, double kI, double kD, double kF) {
+        // The lazy Talon only sends the gains that are different
+        mMaster.config_kP(Constants.Arm.kRaiseSlotIdx, kP, Constants.Arm.kTimeout);
+        mMaster.config_kI(Constants.Arm.kRaiseSlotIdx, kI, Constants.Arm.kTimeout);
+        mMaster.config_kD(Constants.Arm.kRaiseSlotIdx, kD, Constants.Arm.kTimeout);
+        mMaster.config_kF(Constants.Arm.kRaiseSlotIdx, kF, Constants.Arm.kTimeout);
+    }
+
+    @Override
+    public MotionProfileStreamer getProfileStreamer() {
+        return mStreamer;
+    }
+
+    @Override
+    public WriteCounter getWriteCounter() {
+        return mMaster.getWriteCounter();
+    }
+}
@@ -0,0 +1,55 @@
+package frc.robot.subsystems.io;
+
+import java.nio.ByteBuffer;
+
+import frc.robot.util.replay.LoggableInputs;
+
+/**
+ * The claw's intake motor, piston and game piece sensors
+ *
+ * ClawIOHardware is the real claw, and ClawIOSim simulates it. The defaults
+ * here do nothing, which is what the claw uses when replaying a log.
+ */
+public interface ClawIO {
+
+    /**
+     * Everything read from the claw each loop. The sensors are as wired, so
+     * the cargo sensors are high when there's no cargo
+     */
+    public static class Inputs implements LoggableInputs {
+        public boolean hatchLeft;
+        public boolean hatchRight;
+        public boolean cargoLeft;
+        public boolean cargoRight;
+        public boolean solenoidOn;
+
+        @Override
+        public int getLogSize() {
+            return 1;
+        }
+
+        @Override
+        public void toLog(ByteBuffer buffer) {
+            buffer.put((byte) ((hatchLeft ? 1 : 0) | (hatchRight ? 2 : 0) | (cargoLeft ? 4 : 0)
+                    | (cargoRight ? 8 : 0) | (solenoidOn ? 16 : 0)));
+        }
+
+        @Override
+        public void fromLog(ByteBuffer buffer) {
+            int bits = buffer.get();
+            hatchLeft = (bits & 1) != 0;
+            hatchRight = (bits & 2) != 0;
+            cargoLeft = (bits & 4) != 0;
+            cargoRight = (bits & 8) != 0;
+            solenoidOn = (bits & 16) != 0;
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    default void setIntakeSpeed(double speed) {}
+
+    default void setSolenoid(boolean on) {}
+
+    default void resetIntakeEncoder() {}
+}
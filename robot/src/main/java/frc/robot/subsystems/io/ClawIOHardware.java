@@ -0,0 +1,62 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.CANifier;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import edu.wpi.first.wpilibj.Solenoid;
+import frc.robot.Constants;
+import frc.robot.util.drivers.CanBusPlanner;
+import frc.robot.util.drivers.DeviceConfigurator;
+import frc.robot.util.drivers.LazySparkMax;
+
+/**
+ * The claw's SPARK MAX, the CANifier its sensors are wired to, and the
+ * piston's solenoid
+ */
+public class ClawIOHardware implements ClawIO {
+
+    private final LazySparkMax mIntakeControl;
+    private final CANifier mSensors;
+    private final Solenoid mClawSolenoid;
+
+    // All of the CANifier pins, sampled together
+    private final CANifier.PinValues mPins = new CANifier.PinValues();
+
+    public ClawIOHardware() {
+        mIntakeControl = new LazySparkMax(Constants.Claw.kIntakeId, MotorType.kBrushless);
+        DeviceConfigurator.getInstance().register("Claw intake", () -> mIntakeControl.setIdleMode(IdleMode.kBrake));
+        mSensors = new CANifier(0);
+        mClawSolenoid = new Solenoid(Constants.Claw.kClawSolenoidId);
+
+        CanBusPlanner planner = CanBusPlanner.getInstance();
+        planner.addFixedLoad("Claw intake", Constants.CAN.kSparkMaxFramesPerSec);
+        planner.addFixedLoad("Claw CANifier", Constants.CAN.kCanifierFramesPerSec);
+        planner.addFixedLoad("PCM", Constants.CAN.kPcmFramesPerSec);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        mSensors.getGeneralInputs(mPins);
+        inputs.hatchLeft = mPins.LIMF;
+        inputs.hatchRight = mPins.LIMR;
+        inputs.cargoLeft = mPins.QUAD_A;
+        inputs.cargoRight = mPins.QUAD_B;
+        inputs.solenoidOn = mClawSolenoid.get();
+    }
+
+    @Override
+    public void setIntakeSpeed(double speed) {
+        mIntakeControl.set(speed);
+    }
+
+    @Override
+    public void setSolenoid(boolean on) {
+        mClawSolenoid.set(on);
+    }
+
+    @Override
+    public void resetIntakeEncoder() {
+        mIntakeControl.getEncoder().setPosition(0.0);
+    }
+}
@@ -0,0 +1,77 @@
+package frc.robot.subsystems.io;
+
+import frc.robot.Constants;
+import frc.robot.util.sim.PhysicsSim;
+
+/**
+ * The claw, simulated on a laptop
+ *
+ * There's always a game piece to pick up. Spinning the wheels inwards for
+ * long enough picks up a hatch if the claw is open (solenoid on), or cargo
+ * if it's closed, and spinning them outwards for long enough lets go of it.
+ * The sensors are wired the same as on the robot, so the cargo sensors go
+ * low when there's cargo.
+ */
+public class ClawIOSim implements ClawIO, PhysicsSim.Model {
+
+    private enum Piece {
+        NONE,
+        CARGO,
+        HATCH,
+    }
+
+    private Piece mPiece = Piece.NONE;
+    private double mIntakeSpeed;
+    private boolean mSolenoidOn;
+
+    // How long the wheels have been moving a piece in or out
+    private double mSpinTime = 0;
+
+    public ClawIOSim() {
+        PhysicsSim.getInstance().register(this);
+    }
+
+    @Override
+    public synchronized void step(double dt, boolean enabled) {
+        // Cargo comes in on a negative speed, hatches on a positive one
+        double inwards = mSolenoidOn ? mIntakeSpeed : -mIntakeSpeed;
+        if (!enabled) {
+            inwards = 0;
+        }
+
+        if (mPiece == Piece.NONE && inwards >= Constants.Simulation.kPieceMinSpeed) {
+            mSpinTime += dt;
+            if (mSpinTime >= Constants.Simulation.kPieceIntakeSec) {
+                mPiece = mSolenoidOn ? Piece.HATCH : Piece.CARGO;
+                mSpinTime = 0;
+            }
+        } else if (mPiece != Piece.NONE && inwards <= -Constants.Simulation.kPieceMinSpeed) {
+            mSpinTime += dt;
+            if (mSpinTime >= Constants.Simulation.kPieceExhaustSec) {
+                mPiece = Piece.NONE;
+                mSpinTime = 0;
+            }
+        } else {
+            mSpinTime = 0;
+        }
+    }
+
+    @Override
+    public synchronized void updateInputs(Inputs inputs) {
+        inputs.hatchLeft = mPiece == Piece.HATCH;
+        inputs.hatchRight = mPiece == Piece.HATCH;
+        inputs.cargoLeft = mPiece != Piece.CARGO;
+        inputs.cargoRight = mPiece != Piece.CARGO;
+        inputs.solenoidOn = mSolenoidOn;
+    }
+
+    @Override
+    public synchronized void setIntakeSpeed(double speed) {
+        mIntakeSpeed = speed;
+    }
+
+    @Override
+    public synchronized void setSolenoid(boolean on) {
+        mSolenoidOn = on;
+    }
+}
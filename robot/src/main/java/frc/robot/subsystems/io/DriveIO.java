@@ -0,0 +1,76 @@
+package frc.robot.subsystems.io;
+
+import java.nio.ByteBuffer;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.util.replay.LoggableInputs;
+import frc.robot.util.replay.RecordingSpeedController;
+
+/**
+ * The drivetrain's motors and encoders
+ *
+ * DriveIOSparkMax is the real drivetrain, and DriveIOSim simulates it. The
+ * defaults here drive stand-in motors that only remember what they were set
+ * to, which is what the drivetrain uses when replaying a log.
+ */
+public interface DriveIO {
+
+    /**
+     * Everything read from the drivetrain each loop. Positions are raw, in
+     * inches since the SPARK MAXes powered up, and velocities are in inches
+     * per second. Both sides are positive driving forward
+     */
+    public static class Inputs implements LoggableInputs {
+        public double leftPosition;
+        public double rightPosition;
+        public double leftVelocity;
+        public double rightVelocity;
+
+        @Override
+        public int getLogSize() {
+            return 4 * 8;
+        }
+
+        @Override
+        public void toLog(ByteBuffer buffer) {
+            buffer.putDouble(leftPosition);
+            buffer.putDouble(rightPosition);
+            buffer.putDouble(leftVelocity);
+            buffer.putDouble(rightVelocity);
+        }
+
+        @Override
+        public void fromLog(ByteBuffer buffer) {
+            leftPosition = buffer.getDouble();
+            rightPosition = buffer.getDouble();
+            leftVelocity = buffer.getDouble();
+            rightVelocity = buffer.getDouble();
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /**
+     * Raw positions, read live. Called from the odometry thread
+     */
+    default double getLeftPosition() {
+        return 0;
+    }
+
+    default double getRightPosition() {
+        return 0;
+    }
+
+    /**
+     * The leaders, for DifferentialDrive. Each is called once
+     */
+    default SpeedController createLeftController() {
+        return new RecordingSpeedController();
+    }
+
+    default SpeedController createRightController() {
+        return new RecordingSpeedController();
+    }
+
+    default void setRampRate(double ramp) {}
+}
@@ -0,0 +1,82 @@
+package frc.robot.subsystems.io;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.Constants;
+import frc.robot.util.replay.RecordingSpeedController;
+import frc.robot.util.sim.DCMotor;
+import frc.robot.util.sim.DifferentialDriveModel;
+import frc.robot.util.sim.PhysicsSim;
+
+/**
+ * The drivetrain, simulated on a laptop
+ *
+ * The leaders' outputs drive a model of the chassis on NEOs. DifferentialDrive
+ * inverts the right side, as the motors are mirrored, so the model flips it
+ * back. The drive runs open loop, and only a closed loop ramp is configured
+ * on the SPARK MAXes, so the outputs go to the motors unramped, as they do on
+ * the robot.
+ *
+ * The encoders read what the SPARK MAXes would, with the conversion factors
+ * DriveIOSparkMax sets: inches of wheel travel, with the mirrored right motor
+ * counting down going forward. Like DriveIOSparkMax, the right side is then
+ * negated, so both sides read forward as positive.
+ */
+public class DriveIOSim implements DriveIO, PhysicsSim.Model {
+
+    private final RecordingSpeedController mLeftLeader = new RecordingSpeedController();
+    private final RecordingSpeedController mRightLeader = new RecordingSpeedController();
+
+    private final DifferentialDriveModel mDrive = new DifferentialDriveModel(
+            DCMotor.getNEO(Constants.Simulation.kDriveMotorsPerSide), Constants.Drivetrain.kGearReduction,
+            Constants.Drivetrain.kWheelDiameterInches / 2, Constants.Drivetrain.kTrackWidthInches,
+            Constants.Simulation.kRobotMassKg, Constants.Simulation.kRobotMomentOfInertia);
+
+    public DriveIOSim() {
+        PhysicsSim.getInstance().register(this);
+    }
+
+    @Override
+    public synchronized void step(double dt, boolean enabled) {
+        double leftOutput = enabled ? mLeftLeader.get() : 0;
+        double rightOutput = enabled ? -mRightLeader.get() : 0;
+        mDrive.step(dt, leftOutput * Constants.Simulation.kBatteryVoltage,
+                rightOutput * Constants.Simulation.kBatteryVoltage);
+    }
+
+    @Override
+    public synchronized void updateInputs(Inputs inputs) {
+        inputs.leftPosition = mDrive.getLeftPosition();
+        inputs.rightPosition = -getRightEncoderPosition();
+        inputs.leftVelocity = mDrive.getLeftVelocity();
+        inputs.rightVelocity = -getRightEncoderVelocity();
+    }
+
+    @Override
+    public synchronized double getLeftPosition() {
+        return mDrive.getLeftPosition();
+    }
+
+    @Override
+    public synchronized double getRightPosition() {
+        return -getRightEncoderPosition();
+    }
+
+    // What the right SPARK MAX reports, its motor turning backwards
+    private double getRightEncoderPosition() {
+        return -mDrive.getRightPosition();
+    }
+
+    private double getRightEncoderVelocity() {
+        return -mDrive.getRightVelocity();
+    }
+
+    @Override
+    public SpeedController createLeftController() {
+        return mLeftLeader;
+    }
+
+    @Override
+    public SpeedController createRightController() {
+        return mRightLeader;
+    }
+}
@@ -0,0 +1,102 @@
+package frc.robot.subsystems.io;
+
+import com.revrobotics.CANEncoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.Constants;
+import frc.robot.util.drivers.CanBusPlanner;
+import frc.robot.util.drivers.DeviceConfigurator;
+import frc.robot.util.drivers.LazySparkMax;
+
+/**
+ * The drivetrain's four NEOs, on SPARK MAXes
+ *
+ * The leaders' encoders are scaled to inches and inches per second on the
+ * SPARK MAXes. The right side motors are mirrored, and DifferentialDrive
+ * inverts them, so the right encoder counts down going forward; it's negated
+ * here, so everything above this reads forward as positive on both sides.
+ */
+public class DriveIOSparkMax implements DriveIO {
+
+    // Motor controller declarations
+    private final LazySparkMax mLeftLeader, mLeftFollower, mRightLeader, mRightFollower;
+
+    // Encoders of the leaders, looked up once
+    private final CANEncoder mLeftEncoder, mRightEncoder;
+
+    public DriveIOSparkMax() {
+        // Instantiate the motor controllers using the defined CAN IDs
+        mLeftLeader = new LazySparkMax(Constants.Drivetrain.kLeftLeaderId, MotorType.kBrushless);
+        mLeftFollower = new LazySparkMax(Constants.Drivetrain.kLeftFollowerId, MotorType.kBrushless);
+        mRightLeader = new LazySparkMax(Constants.Drivetrain.kRightLeaderId, MotorType.kBrushless);
+        mRightFollower = new LazySparkMax(Constants.Drivetrain.kRightFollowerId, MotorType.kBrushless);
+        mLeftEncoder = mLeftLeader.getEncoder();
+        mRightEncoder = mRightLeader.getEncoder();
+
+        // Each SPARK MAX waits on its own CAN responses while being configured, so
+        // the DeviceConfigurator sets them up in parallel with everything else
+        DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+        CanBusPlanner planner = CanBusPlanner.getInstance();
+        planner.addFixedLoad("Drive left leader", Constants.CAN.kDriveLeaderFramesPerSec);
+        planner.addFixedLoad("Drive left follower", Constants.CAN.kSparkMaxFramesPerSec);
+        planner.addFixedLoad("Drive right leader", Constants.CAN.kDriveLeaderFramesPerSec);
+        planner.addFixedLoad("Drive right follower", Constants.CAN.kSparkMaxFramesPerSec);
+        configurator.register("Drive left leader", () -> configureLeader(mLeftLeader, mLeftEncoder));
+        configurator.register("Drive right leader", () -> configureLeader(mRightLeader, mRightEncoder));
+
+        // We need one motor controller per motor, and we have two motors powering each side
+        // of the drivetrain. We *could* send each speed controller per side the same command,
+        // or make use of the CAN network, and slave one controller to another. This allows us
+        // to manipulate a single controller, and any followers will automatically synchronize
+        // their outputs to match
+        configurator.register("Drive left follower", () -> mLeftFollower.follow(mLeftLeader));
+        configurator.register("Drive right follower", () -> mRightFollower.follow(mRightLeader));
+    }
+
+    private static void configureLeader(CANSparkMax leader, CANEncoder encoder) {
+        leader.setClosedLoopRampRate(.3);
+        // Odometry reads the position every sample, so it has to be sent as
+        // often, or most samples would see the same position
+        leader.setPeriodicFramePeriod(PeriodicFrame.kStatus2, Constants.Drivetrain.kPositionFramePeriodMs);
+        // Velocity is reported per minute
+        encoder.setPositionConversionFactor(Constants.Drivetrain.kInchesPerMotorRotation);
+        encoder.setVelocityConversionFactor(Constants.Drivetrain.kInchesPerMotorRotation / 60);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.leftPosition = mLeftEncoder.getPosition();
+        inputs.rightPosition = -mRightEncoder.getPosition();
+        inputs.leftVelocity = mLeftEncoder.getVelocity();
+        inputs.rightVelocity = -mRightEncoder.getVelocity();
+    }
+
+    @Override
+    public double getLeftPosition() {
+        return mLeftEncoder.getPosition();
+    }
+
+    @Override
+    public double getRightPosition() {
+        return -mRightEncoder.getPosition();
+    }
+
+    @Override
+    public SpeedController createLeftController() {
+        return mLeftLeader;
+    }
+
+    @Override
+    public SpeedController createRightController() {
+        return mRightLeader;
+    }
+
+    @Override
+    public void setRampRate(double ramp) {
+        mLeftLeader.setClosedLoopRampRate(ramp);
+        mRightLeader.setClosedLoopRampRate(ramp);
+    }
+}
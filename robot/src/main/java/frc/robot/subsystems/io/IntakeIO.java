@@ -0,0 +1,19 @@
+package frc.robot.subsystems.io;
+
+/**
+ * The intake arms' wheel motor
+ *
+ * IntakeIOVictorSPX is the real intake. The defaults here do nothing, which
+ * is what the intake uses when replaying a log.
+ */
+public interface IntakeIO {
+
+    default void setSpeed(double speed) {}
+
+    /**
+     * @return The motor's output, read from the motor controller
+     */
+    default double getOutputPercent() {
+        return 0;
+    }
+}
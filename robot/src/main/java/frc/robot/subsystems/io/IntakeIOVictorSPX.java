@@ -0,0 +1,28 @@
+package frc.robot.subsystems.io;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+import frc.robot.Constants;
+import frc.robot.util.drivers.LazyVictorSPX;
+
+/**
+ * The intake's Victor SPX
+ */
+public class IntakeIOVictorSPX implements IntakeIO {
+
+    private final LazyVictorSPX mIntakeMotor; // A Victor on Channel 2
+
+    public IntakeIOVictorSPX() {
+        mIntakeMotor = new LazyVictorSPX(Constants.Intake.kIntakeMotorId);
+    }
+
+    @Override
+    public void setSpeed(double speed) {
+        mIntakeMotor.set(ControlMode.PercentOutput, speed);
+    }
+
+    @Override
+    public double getOutputPercent() {
+        return mIntakeMotor.getMotorOutputPercent();
+    }
+}
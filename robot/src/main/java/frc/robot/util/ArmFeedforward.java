@@ -0,0 +1,75 @@
+package frc.robot.util;
+
+/**
+ * Voltage an arm needs to move at a given velocity, or hold still, at a
+ * given position
+ *
+ *   V = kS * sign(velocity) + kG * cos(angle) + kV * velocity
+ *
+ * kS overcomes friction, kG holds the arm up against gravity (largest when
+ * the arm is level), and kV is the back-EMF at speed. The gains can be
+ * measured with CharacterizeArm, and swapped in at runtime with setGains().
+ */
+public class ArmFeedforward {
+    private final double mLevelPosition;
+    private final double mTicksPerRadian;
+
+    private volatile Gains mGains;
+
+    public static class Gains {
+        public final double kS, kG, kV;
+
+        /**
+         * @param kS Volts to get moving
+         * @param kG Volts to hold the arm level
+         * @param kV Volts per encoder tick per 100ms
+         */
+        public Gains(double kS, double kG, double kV) {
+            this.kS = kS;
+            this.kG = kG;
+            this.kV = kV;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("kS %.4f kG %.4f kV %.6f", kS, kG, kV);
+        }
+    }
+
+    /**
+     * @param gains         Initial gains
+     * @param levelPosition Encoder position with the arm level
+     * @param ticksPerDegree Encoder ticks per degree of arm rotation
+     */
+    public ArmFeedforward(Gains gains, double levelPosition, double ticksPerDegree) {
+        mGains = gains;
+        mLevelPosition = levelPosition;
+        mTicksPerRadian = ticksPerDegree * 180.0 / Math.PI;
+    }
+
+    public void setGains(Gains gains) {
+        mGains = gains;
+    }
+
+    public Gains getGains() {
+        return mGains;
+    }
+
+    /**
+     * @param position Encoder position
+     * @return Cosine of the arm angle from level, the gravity term's input
+     */
+    public double getGravityFactor(double position) {
+        return Math.cos((position - mLevelPosition) / mTicksPerRadian);
+    }
+
+    /**
+     * @param position Encoder position
+     * @param velocity Encoder ticks per 100ms
+     * @return Volts to apply
+     */
+    public double calculate(double position, double velocity) {
+        Gains gains = mGains;
+        return gains.kS * Math.signum(velocity) + gains.kG * getGravityFactor(position) + gains.kV * velocity;
+    }
+}
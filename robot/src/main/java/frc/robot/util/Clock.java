@@ -0,0 +1,49 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Where the robot code gets the time from
+ *
+ * On the robot this is just the FPGA timestamp. Replaying a log runs the
+ * loop much faster than real time, so it swaps in the time each cycle was
+ * recorded at instead (see Replay). Anything that affects what the robot
+ * does, like command timing and frame ages, should read the time from here
+ * rather than from Timer.
+ *
+ * A lock-step simulation does the same (see frc.robot.util.sim.Simulation).
+ * Whenever the time isn't real, nothing that runs on its own thread off the
+ * wall clock will keep up with it, so those loops are stepped from the main
+ * loop instead.
+ */
+public final class Clock {
+
+    public interface Source {
+        double getTime();
+    }
+
+    private static volatile Source sSource = Timer::getFPGATimestamp;
+    private static volatile boolean sRealTime = true;
+
+    private Clock() {}
+
+    /**
+     * @return The time in seconds
+     */
+    public static double getTime() {
+        return sSource.getTime();
+    }
+
+    /**
+     * @return false if the time comes from a log or a simulation, rather than
+     *         the FPGA
+     */
+    public static boolean isRealTime() {
+        return sRealTime;
+    }
+
+    public static void setSource(Source source) {
+        sSource = source;
+        sRealTime = false;
+    }
+}
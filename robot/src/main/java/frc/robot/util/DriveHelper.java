@@ -1,5 +1,6 @@
 package frc.robot.util;
 
+import edu.wpi.first.wpilibj.drive.RobotDriveBase;
 import frc.robot.Constants;
 
 /**
@@ -10,6 +11,10 @@ import frc.robot.Constants;
  * robot's path rather than it's rate of heading change (like car steering).
  * This helps make the robot more controllable at high speeds.
  *
+ * Every method has a variant that writes into a SpeedControl passed in by
+ * the caller instead of returning a new one, so callers that run every loop
+ * (or faster) can reuse one SpeedControl and never allocate.
+ *
  */
 public class DriveHelper {
 
@@ -17,10 +22,19 @@ public class DriveHelper {
   public static class SpeedControl {
     public double left = 0, right = 0;
 
+    public SpeedControl() {
+    }
+
     public SpeedControl(double left, double right) {
       this.left = left;
       this.right = right;
     }
+
+    public SpeedControl set(double left, double right) {
+      this.left = left;
+      this.right = right;
+      return this;
+    }
   }
 
   private static final double kQuickStopDeadband = 0.2;
@@ -29,6 +43,14 @@ public class DriveHelper {
 
   private double mQuickStopAccumulator = 0.0;
 
+  // DifferentialDrive.curvatureDrive()'s constants. It keeps its own quick
+  // stop accumulator, separate from the one above
+  private static final double kCurvatureDeadband = RobotDriveBase.kDefaultDeadband;
+  private static final double kCurvatureQuickStopThreshold = 0.2;
+  private static final double kCurvatureQuickStopAlpha = 0.1;
+
+  private double mCurvatureQuickStopAccumulator = 0.0;
+
   private double mThrottleDeadband = Constants.kDriveControllerDeadband;
   private double mWheelDeadband = Constants.kDriveControllerDeadband;
 
@@ -44,6 +66,17 @@ public class DriveHelper {
    * @return DriveCommand to provide to Drive subsystem
    */
   public SpeedControl arcadeDrive(double throttle, double wheel, boolean isQuickTurn, boolean isHighGear) {
+    return arcadeDrive(throttle, wheel, isQuickTurn, isHighGear, new SpeedControl());
+  }
+
+  /**
+   * arcadeDrive(), writing the result into out instead of allocating
+   *
+   * @param out Overwritten with the left/right values
+   * @return out
+   */
+  public SpeedControl arcadeDrive(double throttle, double wheel, boolean isQuickTurn, boolean isHighGear,
+      SpeedControl out) {
     throttle = Util.limit(throttle, 1.0);
     throttle = DriveHelper.handleDeadband(throttle, mThrottleDeadband);
 
@@ -77,10 +110,116 @@ public class DriveHelper {
     double leftPwm = throttle - angularPower;
     double rightPwm = throttle + angularPower;
 
-    return new SpeedControl(leftPwm, rightPwm);
+    return out.set(leftPwm, rightPwm);
+  }
+
+  /**
+   * The same math as DifferentialDrive.curvatureDrive() with its default
+   * deadband and max output, but writing the left/right values into out
+   * instead of the motors, so it can run off the main loop without
+   * allocating
+   *
+   * @param xSpeed      Robot speed along the X-axis [-1, 1]. Forward is
+   *                    positive
+   * @param zRotation   Robot curvature around the Z-axis [-1, 1]. Clockwise is
+   *                    positive
+   * @param isQuickTurn If true, zRotation is a rotation rate instead of a
+   *                    curvature, to turn in place
+   * @param out         Overwritten with the left/right values
+   * @return out
+   */
+  public SpeedControl curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn, SpeedControl out) {
+    xSpeed = Util.limit(xSpeed, 1.0);
+    xSpeed = applyDeadband(xSpeed, kCurvatureDeadband);
+
+    zRotation = Util.limit(zRotation, 1.0);
+    zRotation = applyDeadband(zRotation, kCurvatureDeadband);
+
+    double angularPower;
+    boolean overPower;
+
+    if (isQuickTurn) {
+      if (Math.abs(xSpeed) < kCurvatureQuickStopThreshold) {
+        mCurvatureQuickStopAccumulator = (1 - kCurvatureQuickStopAlpha) * mCurvatureQuickStopAccumulator
+            + kCurvatureQuickStopAlpha * zRotation * 2;
+      }
+      overPower = true;
+      angularPower = zRotation;
+    } else {
+      overPower = false;
+      angularPower = Math.abs(xSpeed) * zRotation - mCurvatureQuickStopAccumulator;
+
+      if (mCurvatureQuickStopAccumulator > 1) {
+        mCurvatureQuickStopAccumulator -= 1;
+      } else if (mCurvatureQuickStopAccumulator < -1) {
+        mCurvatureQuickStopAccumulator += 1;
+      } else {
+        mCurvatureQuickStopAccumulator = 0.0;
+      }
+    }
+
+    double leftPwm = xSpeed + angularPower;
+    double rightPwm = xSpeed - angularPower;
+
+    // If rotation is overpowered, take the excess off the other side
+    if (overPower) {
+      if (leftPwm > 1.0) {
+        rightPwm -= leftPwm - 1.0;
+        leftPwm = 1.0;
+      } else if (rightPwm > 1.0) {
+        leftPwm -= rightPwm - 1.0;
+        rightPwm = 1.0;
+      } else if (leftPwm < -1.0) {
+        rightPwm -= leftPwm + 1.0;
+        leftPwm = -1.0;
+      } else if (rightPwm < -1.0) {
+        leftPwm -= rightPwm + 1.0;
+        rightPwm = -1.0;
+      }
+    }
+
+    double maxMagnitude = Math.max(Math.abs(leftPwm), Math.abs(rightPwm));
+    if (maxMagnitude > 1.0) {
+      leftPwm /= maxMagnitude;
+      rightPwm /= maxMagnitude;
+    }
+
+    return out.set(leftPwm, rightPwm);
+  }
+
+  /**
+   * Straight up tank drive
+   *
+   * @param left         Left side [-1, 1]
+   * @param right        Right side [-1, 1]
+   * @param squareInputs If true, square each side (keeping the sign) to
+   *                     decrease sensitivity at low speeds
+   * @param out          Overwritten with the left/right values
+   * @return out
+   */
+  public SpeedControl tankDrive(double left, double right, boolean squareInputs, SpeedControl out) {
+    left = Util.limit(left, 1.0);
+    right = Util.limit(right, 1.0);
+
+    if (squareInputs) {
+      left = Math.copySign(left * left, left);
+      right = Math.copySign(right * right, right);
+    }
+
+    return out.set(left, right);
   }
 
   public SpeedControl autoDrive(double distance, double angle) {
+    return autoDrive(distance, angle, new SpeedControl());
+  }
+
+  /**
+   * autoDrive(), writing the result into out instead of allocating
+   *
+   * @param out Overwritten with the left/right values
+   * @return out
+   */
+  public SpeedControl autoDrive(double distance, double angle, SpeedControl out) {
 
     distance = Util.limit(distance, 1.0);
     angle = Util.limit(angle, .4);
@@ -100,13 +239,29 @@ public class DriveHelper {
     double leftPwm = distance - angularPower;
     double rightPwm = distance + angularPower;
 
-    return new SpeedControl(leftPwm, rightPwm);
+    return out.set(leftPwm, rightPwm);
   }
 
   public static double handleDeadband(double val, double deadband) {
     return (Math.abs(val) > Math.abs(deadband)) ? val : 0.0;
   }
 
+  /**
+   * Deadband that rescales what's left to [-1, 1], like
+   * RobotDriveBase.applyDeadband()
+   */
+  private static double applyDeadband(double value, double deadband) {
+    if (Math.abs(value) > deadband) {
+      if (value > 0.0) {
+        return (value - deadband) / (1.0 - deadband);
+      } else {
+        return (value + deadband) / (1.0 - deadband);
+      }
+    } else {
+      return 0.0;
+    }
+  }
+
   public void setThrottleDeadband(double deadband) {
     mThrottleDeadband = deadband;
   }
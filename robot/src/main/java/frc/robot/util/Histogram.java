@@ -0,0 +1,106 @@
+package frc.robot.util;
+
+/**
+ * Fixed-bucket histogram of durations
+ * 
+ * All storage is allocated up front, so recording a sample never creates
+ * garbage. Samples are bucketed linearly; anything beyond the last bucket
+ * lands in an overflow bucket, but the exact maximum is always tracked.
+ */
+public class Histogram {
+    private final long mBucketWidthNs;
+    private final long[] mBuckets;
+
+    private long mCount = 0;
+    private long mOverflow = 0;
+    private long mMaxNs = 0;
+    private long mTotalNs = 0;
+
+    /**
+     * @param bucketWidthMs Width of each bucket in milliseconds
+     * @param bucketCount   Number of buckets. Samples longer than
+     *                      bucketWidthMs * bucketCount are counted as overflow
+     */
+    public Histogram(double bucketWidthMs, int bucketCount) {
+        mBucketWidthNs = Math.max(1, (long) (bucketWidthMs * 1e6));
+        mBuckets = new long[bucketCount];
+    }
+
+    /**
+     * Record a single sample
+     * @param durationNs Duration in nanoseconds
+     */
+    public void record(long durationNs) {
+        if (durationNs < 0) {
+            durationNs = 0;
+        }
+
+        long bucket = durationNs / mBucketWidthNs;
+        if (bucket < mBuckets.length) {
+            mBuckets[(int) bucket]++;
+        } else {
+            mOverflow++;
+        }
+
+        if (durationNs > mMaxNs) {
+            mMaxNs = durationNs;
+        }
+        mTotalNs += durationNs;
+        mCount++;
+    }
+
+    /**
+     * Get the value below which the given fraction of samples fall
+     * 
+     * The result is the upper edge of the bucket containing the percentile,
+     * so it is accurate to within one bucket width. If the percentile falls
+     * in the overflow bucket, the maximum is returned.
+     * @param fraction Fraction of samples [0.0..1.0], e.g. 0.99 for p99
+     * @return percentile value in milliseconds
+     */
+    public double getPercentileMs(double fraction) {
+        if (mCount == 0) {
+            return 0.0;
+        }
+
+        long target = (long) Math.ceil(Util.limit(fraction, 0.0, 1.0) * mCount);
+        if (target < 1) {
+            target = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < mBuckets.length; i++) {
+            seen += mBuckets[i];
+            if (seen >= target) {
+                return Math.min((i + 1) * mBucketWidthNs, mMaxNs) / 1e6;
+            }
+        }
+        return getMaxMs();
+    }
+
+    public double getMaxMs() {
+        return mMaxNs / 1e6;
+    }
+
+    public double getMeanMs() {
+        return mCount == 0 ? 0.0 : (mTotalNs / (double) mCount) / 1e6;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getOverflowCount() {
+        return mOverflow;
+    }
+
+    public void reset() {
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mOverflow = 0;
+        mMaxNs = 0;
+        mTotalNs = 0;
+    }
+}
@@ -0,0 +1,177 @@
+package frc.robot.util;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Turns a raw stick axis into a command, in three steps:
+ *
+ * 1. Deadband. Anything inside the deadband is 0. Normally the rest of the
+ *    stick's travel is stretched back out to [0, 1], so there's no jump at
+ *    the edge of the deadband; a hard deadband leaves it as it is.
+ * 2. Response curve, applied to the magnitude so the sign is kept. The curve
+ *    is sampled into a table when the Config is built, and interpolated, so
+ *    curves with pow() or exp() in them cost the same as a straight line.
+ * 3. Slew rate limit, so the command can't change faster than the Config
+ *    allows from one update to the next.
+ *
+ * update() is called once per loop, and allocates nothing. Configs are built
+ * up front (see frc.robot.DriverProfile) and can be swapped at any time; the
+ * slew limiter carries on from wherever the command was.
+ */
+public class InputShaper {
+
+    // Table entries cover [0, 1] in kTableSegments equal steps
+    private static final int kTableSegments = 256;
+
+    /**
+     * How one axis is shaped
+     */
+    public static class Config {
+        private final double mDeadband;
+        private final double mDeadbandOffset;
+        private final double mDeadbandScale;
+        private final double mSlewRate;
+        private final double[] mTable = new double[kTableSegments + 1];
+
+        /**
+         * @param deadband Stick travel either side of center that's ignored
+         * @param curve    Response curve, taking and returning a magnitude in
+         *                 [0, 1]. It should be 0 at 0
+         * @param slewRate Most the command can change per second, or 0 for no
+         *                 limit
+         */
+        public Config(double deadband, DoubleUnaryOperator curve, double slewRate) {
+            this(deadband, true, curve, slewRate);
+        }
+
+        /**
+         * @param scaleDeadband false for a hard deadband, where the stick
+         *                      jumps from 0 to the curve at the deadband's
+         *                      value
+         */
+        public Config(double deadband, boolean scaleDeadband, DoubleUnaryOperator curve, double slewRate) {
+            if (deadband < 0 || deadband >= 1) {
+                throw new IllegalArgumentException("Deadband must be in [0, 1), got " + deadband);
+            }
+            if (slewRate < 0) {
+                throw new IllegalArgumentException("Slew rate can't be negative, got " + slewRate);
+            }
+            mDeadband = deadband;
+            mDeadbandOffset = scaleDeadband ? deadband : 0;
+            mDeadbandScale = scaleDeadband ? 1 / (1 - deadband) : 1;
+            mSlewRate = slewRate;
+            for (int i = 0; i <= kTableSegments; i++) {
+                mTable[i] = Util.limit(curve.applyAsDouble((double) i / kTableSegments), 0, 1);
+            }
+        }
+
+        /**
+         * Steps 1 and 2, with no slew limit
+         * @param raw Stick value [-1, 1]
+         * @return Shaped value [-1, 1]
+         */
+        public double shape(double raw) {
+            double magnitude = Math.abs(raw);
+            if (magnitude <= mDeadband) {
+                return 0;
+            }
+            double scaled = (magnitude - mDeadbandOffset) * mDeadbandScale;
+            if (scaled >= 1) {
+                return raw > 0 ? mTable[kTableSegments] : -mTable[kTableSegments];
+            }
+
+            double position = scaled * kTableSegments;
+            int index = (int) position;
+            double shaped = mTable[index] + (mTable[index + 1] - mTable[index]) * (position - index);
+            return raw > 0 ? shaped : -shaped;
+        }
+
+        public double getSlewRate() {
+            return mSlewRate;
+        }
+    }
+
+    /**
+     * Straight through
+     */
+    public static DoubleUnaryOperator linear() {
+        return x -> x;
+    }
+
+    /**
+     * x^exponent. 2 is the classic squared inputs
+     */
+    public static DoubleUnaryOperator power(double exponent) {
+        return x -> Math.pow(x, exponent);
+    }
+
+    /**
+     * Blend of linear and cubic, as RC transmitters do expo
+     * @param expo 0 for linear, up to 1 for cubic
+     */
+    public static DoubleUnaryOperator cubic(double expo) {
+        return x -> (1 - expo) * x + expo * x * x * x;
+    }
+
+    /**
+     * Exponential curve, (e^(kx) - 1) / (e^k - 1)
+     * @param k How sharply it curves. Larger is softer around center
+     */
+    public static DoubleUnaryOperator exponential(double k) {
+        return x -> Math.expm1(k * x) / Math.expm1(k);
+    }
+
+    private final double mPeriodSec;
+    private Config mConfig;
+    private double mMaxStep;
+    private double mOutput = 0;
+
+    /**
+     * @param config    How to shape the axis
+     * @param periodSec Time between calls to update(), for the slew limit
+     */
+    public InputShaper(Config config, double periodSec) {
+        mPeriodSec = periodSec;
+        setConfig(config);
+    }
+
+    public void setConfig(Config config) {
+        mConfig = config;
+        mMaxStep = config.getSlewRate() > 0 ? config.getSlewRate() * mPeriodSec : Double.POSITIVE_INFINITY;
+    }
+
+    public Config getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * Shape the next stick sample. Call once per period
+     * @param raw Stick value [-1, 1]
+     * @return The command
+     */
+    public double update(double raw) {
+        double target = mConfig.shape(raw);
+        double step = target - mOutput;
+        if (step > mMaxStep) {
+            step = mMaxStep;
+        } else if (step < -mMaxStep) {
+            step = -mMaxStep;
+        }
+        mOutput += step;
+        return mOutput;
+    }
+
+    /**
+     * @return The last command from update()
+     */
+    public double get() {
+        return mOutput;
+    }
+
+    /**
+     * Drop the slew limiter's history, so the next command starts from 0
+     */
+    public void reset() {
+        mOutput = 0;
+    }
+}
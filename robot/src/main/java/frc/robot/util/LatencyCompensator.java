@@ -0,0 +1,85 @@
+package frc.robot.util;
+
+import frc.robot.Constants;
+import frc.robot.util.drivers.Limelight;
+
+/**
+ * Projects a delayed Limelight target measurement forward to the present
+ *
+ * A camera frame is already a few tens of milliseconds old by the time we
+ * read it. Using the MotionHistory, we find the heading and distance of the
+ * robot when the frame was captured, place the target relative to the robot
+ * at that moment, and then move it by however far the robot has driven and
+ * turned since. tx and ty are then recomputed from where the target is now.
+ *
+ * The camera is treated as sitting on the robot's center of rotation, and
+ * the robot as driving straight between samples, which holds well enough
+ * over the short time spans involved.
+ */
+public class LatencyCompensator {
+
+    private final MotionHistory mHistory;
+
+    public LatencyCompensator(MotionHistory history) {
+        mHistory = history;
+    }
+
+    /**
+     * Project a measurement to the present
+     * @param measured     Values as the camera saw them
+     * @param nowSec       FPGA time to project to, in seconds
+     * @param compensated  Overwritten with the projected values
+     */
+    public void compensate(Limelight.Values measured, double nowSec, Limelight.Values compensated) {
+        compensated.copyFrom(measured);
+        if (!measured.targetInSight || mHistory.isEmpty()) {
+            return;
+        }
+
+        double captureSec = measured.captureTimeSec;
+        double turnedRad = mHistory.getHeadingAt(nowSec) - mHistory.getHeadingAt(captureSec);
+        double drove = mHistory.getDistanceAt(nowSec) - mHistory.getDistanceAt(captureSec);
+
+        // Target relative to the robot at capture time. x is forward, y is
+        // left. tx is positive to the right.
+        double range = getRange(measured.verticalOffset);
+        if (!Double.isFinite(range) || range <= 0) {
+            // Can't place the target, so only correct for turning
+            compensated.horizontalOffset = measured.horizontalOffset + Math.toDegrees(turnedRad);
+            compensated.captureTimeSec = nowSec;
+            return;
+        }
+
+        double bearingRad = -Math.toRadians(measured.horizontalOffset);
+        double x = range * Math.cos(bearingRad) - drove;
+        double y = range * Math.sin(bearingRad);
+
+        // Rotate into the robot's current heading
+        double cos = Math.cos(turnedRad);
+        double sin = Math.sin(turnedRad);
+        double nowX = cos * x + sin * y;
+        double nowY = -sin * x + cos * y;
+
+        compensated.horizontalOffset = -Math.toDegrees(Math.atan2(nowY, nowX));
+        compensated.verticalOffset = getVerticalOffset(Math.hypot(nowX, nowY));
+        compensated.captureTimeSec = nowSec;
+    }
+
+    /**
+     * @param verticalOffset ty, in degrees
+     * @return Floor distance from the camera to the target
+     */
+    public static double getRange(double verticalOffset) {
+        double angle = Math.toRadians(Constants.Limelight.kCameraPitchDegrees + verticalOffset);
+        return (Constants.Limelight.kTargetHeightInches - Constants.Limelight.kCameraHeightInches) / Math.tan(angle);
+    }
+
+    /**
+     * @param range Floor distance from the camera to the target
+     * @return ty, in degrees
+     */
+    public static double getVerticalOffset(double range) {
+        double height = Constants.Limelight.kTargetHeightInches - Constants.Limelight.kCameraHeightInches;
+        return Math.toDegrees(Math.atan2(height, range)) - Constants.Limelight.kCameraPitchDegrees;
+    }
+}
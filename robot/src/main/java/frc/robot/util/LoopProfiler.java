@@ -0,0 +1,150 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+
+/**
+ * Records how the main loop spends its time
+ *
+ * Each interesting piece of the loop (a phase of Robot, or a command's
+ * execute()) registers a Section once, up front. Sections are then started
+ * and stopped every cycle, recording their duration into a preallocated
+ * Histogram, so profiling does not create any garbage while running.
+ *
+ * The whole cycle is timed as well, and counted as an overrun whenever it
+ * takes longer than the loop period.
+ *
+ * Results are only pushed to the dashboard on demand, through
+ * outputToDashboard(), so publishing doesn't add to the cost being measured.
+ */
+public class LoopProfiler {
+
+    private static LoopProfiler sInstance;
+
+    public static LoopProfiler getInstance() {
+        if (sInstance == null) {
+            sInstance = new LoopProfiler();
+        }
+        return sInstance;
+    }
+
+    /**
+     * A timed region of the loop. Must only be used from the main thread.
+     */
+    public static class Section {
+        private final String mName;
+        private final Histogram mHistogram;
+        private long mStartNs = -1;
+
+        private Section(String name) {
+            mName = name;
+            mHistogram = new Histogram(Constants.LoopProfiler.kBucketWidthMs, Constants.LoopProfiler.kBucketCount);
+        }
+
+        public void start() {
+            mStartNs = System.nanoTime();
+        }
+
+        public void stop() {
+            if (mStartNs < 0) {
+                return;
+            }
+            mHistogram.record(System.nanoTime() - mStartNs);
+            mStartNs = -1;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public Histogram getHistogram() {
+            return mHistogram;
+        }
+    }
+
+    private final List<Section> mSections = new ArrayList<>();
+    private final Section mCycle;
+
+    private long mPeriodNs = (long) (Constants.LoopProfiler.kDefaultPeriodSec * 1e9);
+    private long mOverruns = 0;
+
+    private LoopProfiler() {
+        mCycle = register("Cycle");
+    }
+
+    /**
+     * Create a new timed section. This allocates, so it should be done once
+     * (e.g. in a constructor) and the returned Section kept around.
+     * @param name Name used when publishing
+     * @return the new Section
+     */
+    public synchronized Section register(String name) {
+        Section section = new Section(name);
+        mSections.add(section);
+        return section;
+    }
+
+    /**
+     * Set the loop period that cycles are checked against
+     * @param periodSec Loop period in seconds
+     */
+    public void setPeriod(double periodSec) {
+        mPeriodNs = (long) (periodSec * 1e9);
+    }
+
+    /**
+     * Mark the start of a loop cycle
+     */
+    public void startCycle() {
+        mCycle.start();
+    }
+
+    /**
+     * Mark the end of a loop cycle, counting an overrun if it went over the
+     * loop period
+     */
+    public void endCycle() {
+        if (mCycle.mStartNs < 0) {
+            return;
+        }
+        long duration = System.nanoTime() - mCycle.mStartNs;
+        mCycle.mHistogram.record(duration);
+        mCycle.mStartNs = -1;
+
+        if (duration > mPeriodNs) {
+            mOverruns++;
+        }
+    }
+
+    public long getOverrunCount() {
+        return mOverruns;
+    }
+
+    /**
+     * Clear all recorded samples
+     */
+    public synchronized void reset() {
+        for (Section section : mSections) {
+            section.mHistogram.reset();
+        }
+        mOverruns = 0;
+    }
+
+    /**
+     * Publish p50/p99/max for every section to the SmartDashboard
+     */
+    public synchronized void outputToDashboard() {
+        SmartDashboard.putNumber("Loop Overruns", mOverruns);
+        for (Section section : mSections) {
+            Histogram histogram = section.mHistogram;
+            String prefix = "Loop " + section.mName + " ";
+            SmartDashboard.putNumber(prefix + "p50", histogram.getPercentileMs(0.50));
+            SmartDashboard.putNumber(prefix + "p99", histogram.getPercentileMs(0.99));
+            SmartDashboard.putNumber(prefix + "max", histogram.getMaxMs());
+            SmartDashboard.putNumber(prefix + "count", histogram.getCount());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package frc.robot.util;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamped ring buffer of robot poses
+ *
+ * Used to look up where the robot was when a delayed measurement (e.g. a
+ * camera frame) was taken, or just where it is now. All storage is
+ * allocated up front, and lookups interpolate between the two samples
+ * either side of the requested time.
+ *
+ * One thread adds samples (see Odometry) while any number of threads read
+ * them. Each slot carries a sequence number that is odd while the slot is
+ * being written, so a reader that catches a slot mid-write, or sees it
+ * change underneath it, just reads it again. Nobody ever blocks or sees a
+ * torn sample.
+ */
+public class MotionHistory {
+
+    /**
+     * A single sample of where the robot was
+     */
+    public static class Pose {
+        /**
+         * FPGA time of the sample, in seconds
+         */
+        public double timestampSec;
+
+        /**
+         * Position relative to where the pose was last reset, in inches.
+         * x is forward along the starting heading, y is to the left
+         */
+        public double x, y;
+
+        /**
+         * Heading in radians, counter-clockwise positive
+         */
+        public double headingRad;
+
+        /**
+         * Distance driven by the center of the robot
+         */
+        public double distance;
+
+        public void copyFrom(Pose other) {
+            timestampSec = other.timestampSec;
+            x = other.x;
+            y = other.y;
+            headingRad = other.headingRad;
+            distance = other.distance;
+        }
+    }
+
+    private final int mCapacity;
+    private final double[] mTimestamps;
+    private final double[] mX;
+    private final double[] mY;
+    private final double[] mHeadings;
+    private final double[] mDistances;
+    private final AtomicLongArray mSequences;
+
+    // Total samples ever written. Only the writer changes it
+    private volatile long mWriteCount = 0;
+
+    // Samples from before this write count are ignored, see clear()
+    private volatile long mClearedAt = 0;
+
+    // Scratch space for interpolation, one per thread
+    private final ThreadLocal<Pose[]> mScratch = ThreadLocal.withInitial(() -> new Pose[] { new Pose(), new Pose(), new Pose() });
+
+    /**
+     * @param capacity Number of samples to keep
+     */
+    public MotionHistory(int capacity) {
+        mCapacity = capacity;
+        mTimestamps = new double[capacity];
+        mX = new double[capacity];
+        mY = new double[capacity];
+        mHeadings = new double[capacity];
+        mDistances = new double[capacity];
+        mSequences = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Record a sample. Samples must be added in time order, from one thread.
+     */
+    public void add(double timestampSec, double x, double y, double headingRad, double distance) {
+        long count = mWriteCount;
+        int slot = (int) (count % mCapacity);
+
+        mSequences.set(slot, 2 * count + 1);
+        VarHandle.storeStoreFence();
+        mTimestamps[slot] = timestampSec;
+        mX[slot] = x;
+        mY[slot] = y;
+        mHeadings[slot] = headingRad;
+        mDistances[slot] = distance;
+        mSequences.set(slot, 2 * count + 2);
+
+        mWriteCount = count + 1;
+    }
+
+    /**
+     * Forget every sample, e.g. after the pose is reset
+     */
+    public void clear() {
+        mClearedAt = mWriteCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private int size() {
+        return (int) Math.min(mWriteCount - mClearedAt, mCapacity);
+    }
+
+    /**
+     * Read the newest sample
+     * @param pose Overwritten with the sample
+     * @return false if there are no samples
+     */
+    public boolean getLatest(Pose pose) {
+        while (true) {
+            long count = mWriteCount;
+            if (count - mClearedAt <= 0) {
+                return false;
+            }
+            if (read(count - 1, pose)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Work out the pose at the given time. Times before the oldest sample get
+     * the oldest sample, and times after the newest sample get the newest.
+     * @param pose Overwritten with the pose
+     * @return false if there are no samples
+     */
+    public boolean getPoseAt(double timestampSec, Pose pose) {
+        Pose[] scratch = mScratch.get();
+        Pose earlier = scratch[0];
+        Pose later = scratch[1];
+
+        retry:
+        while (true) {
+            long newest = mWriteCount - 1;
+            int size = size();
+            if (size == 0) {
+                return false;
+            }
+
+            if (!read(newest, later)) {
+                continue;
+            }
+            if (later.timestampSec <= timestampSec) {
+                pose.copyFrom(later);
+                return true;
+            }
+
+            for (long index = newest - 1; index > newest - size; index--) {
+                if (!read(index, earlier)) {
+                    // Overwritten while we were walking back, start over
+                    continue retry;
+                }
+                if (earlier.timestampSec <= timestampSec) {
+                    interpolate(earlier, later, timestampSec, pose);
+                    return true;
+                }
+                Pose swap = later;
+                later = earlier;
+                earlier = swap;
+            }
+
+            pose.copyFrom(later);
+            return true;
+        }
+    }
+
+    /**
+     * @return Heading at the given time, in radians
+     */
+    public double getHeadingAt(double timestampSec) {
+        Pose result = mScratch.get()[2];
+        return getPoseAt(timestampSec, result) ? result.headingRad : 0;
+    }
+
+    /**
+     * @return Distance driven as of the given time
+     */
+    public double getDistanceAt(double timestampSec) {
+        Pose result = mScratch.get()[2];
+        return getPoseAt(timestampSec, result) ? result.distance : 0;
+    }
+
+    /**
+     * Copy one sample out, checking that it wasn't changed while reading
+     * @param index Write count of the sample
+     * @return false if the sample was being written, or has been overwritten
+     */
+    private boolean read(long index, Pose pose) {
+        int slot = (int) (index % mCapacity);
+        long expected = 2 * index + 2;
+        if (mSequences.get(slot) != expected) {
+            return false;
+        }
+        pose.timestampSec = mTimestamps[slot];
+        pose.x = mX[slot];
+        pose.y = mY[slot];
+        pose.headingRad = mHeadings[slot];
+        pose.distance = mDistances[slot];
+        VarHandle.loadLoadFence();
+        return mSequences.get(slot) == expected;
+    }
+
+    private static void interpolate(Pose earlier, Pose later, double timestampSec, Pose pose) {
+        double span = later.timestampSec - earlier.timestampSec;
+        double fraction = span > 0 ? (timestampSec - earlier.timestampSec) / span : 0;
+        pose.timestampSec = timestampSec;
+        pose.x = earlier.x + fraction * (later.x - earlier.x);
+        pose.y = earlier.y + fraction * (later.y - earlier.y);
+        pose.headingRad = earlier.headingRad + fraction * (later.headingRad - earlier.headingRad);
+        pose.distance = earlier.distance + fraction * (later.distance - earlier.distance);
+    }
+}
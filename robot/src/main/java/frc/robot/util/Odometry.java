@@ -0,0 +1,129 @@
+package frc.robot.util;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+/**
+ * Integrates the robot's pose from the drive encoders on its own thread
+ *
+ * The main loop only runs every 20ms, which is too coarse to track the
+ * robot's position well while it's moving quickly. Instead, a Notifier
+ * samples the encoders (and a heading source, if there is one) at a much
+ * higher rate, and adds each pose to a MotionHistory. Anything that wants
+ * the pose reads it from there, without touching the CAN bus or waiting on
+ * this thread.
+ */
+public class Odometry {
+
+    private final DoubleSupplier mLeftDistance;
+    private final DoubleSupplier mRightDistance;
+    private final DoubleSupplier mHeading;
+    private final double mTrackWidth;
+    private final MotionHistory mHistory;
+    private final Notifier mNotifier;
+
+    // Only touched by the odometry thread
+    private double mX, mY, mHeadingRad, mDistance;
+    private double mLastLeft, mLastRight, mHeadingOffset;
+    private boolean mInitialized = false;
+
+    private volatile boolean mResetRequested = false;
+
+    /**
+     * Poses come out in the units going in, and MotionHistory and its users
+     * expect inches and radians. The distances have to grow as each side
+     * drives forward, or the heading worked out from them turns the wrong way
+     *
+     * @param leftDistance  Distance driven by the left side, in inches,
+     *                      forward positive
+     * @param rightDistance Distance driven by the right side, in inches,
+     *                      forward positive
+     * @param heading       Heading in radians, counter-clockwise positive, or
+     *                      null to work it out from the encoders
+     * @param trackWidth    Distance between the left and right wheels, in
+     *                      inches
+     * @param history       Where each pose is published
+     */
+    public Odometry(DoubleSupplier leftDistance, DoubleSupplier rightDistance, DoubleSupplier heading,
+            double trackWidth, MotionHistory history) {
+        mLeftDistance = leftDistance;
+        mRightDistance = rightDistance;
+        mHeading = heading;
+        mTrackWidth = trackWidth;
+        mHistory = history;
+        mNotifier = new Notifier(this::update);
+    }
+
+    /**
+     * Start sampling
+     * @param periodSec Time between samples, in seconds
+     */
+    public void start(double periodSec) {
+        mNotifier.startPeriodic(periodSec);
+    }
+
+    public void stop() {
+        mNotifier.stop();
+    }
+
+    /**
+     * Move the origin to wherever the robot is now, facing forward. Takes
+     * effect on the next sample.
+     */
+    public void reset() {
+        mResetRequested = true;
+    }
+
+    /**
+     * @return Where each pose is published
+     */
+    public MotionHistory getHistory() {
+        return mHistory;
+    }
+
+    /**
+     * Take one sample. Called by the Notifier, or by hand when replaying a
+     * log, where the encoders are only known once per loop
+     */
+    public void update() {
+        double left = mLeftDistance.getAsDouble();
+        double right = mRightDistance.getAsDouble();
+        double sensorHeading = mHeading != null ? mHeading.getAsDouble() : 0;
+
+        if (!mInitialized || mResetRequested) {
+            mResetRequested = false;
+            mInitialized = true;
+            mX = 0;
+            mY = 0;
+            mDistance = 0;
+            mHeadingRad = 0;
+            mHeadingOffset = sensorHeading;
+            mLastLeft = left;
+            mLastRight = right;
+            mHistory.clear();
+        }
+
+        double deltaLeft = left - mLastLeft;
+        double deltaRight = right - mLastRight;
+        mLastLeft = left;
+        mLastRight = right;
+
+        double heading;
+        if (mHeading != null) {
+            heading = sensorHeading - mHeadingOffset;
+        } else {
+            heading = mHeadingRad + (deltaRight - deltaLeft) / mTrackWidth;
+        }
+
+        // Assume we drove along the average of the old and new headings
+        double delta = (deltaLeft + deltaRight) / 2.0;
+        double midHeading = (mHeadingRad + heading) / 2.0;
+        mX += delta * Math.cos(midHeading);
+        mY += delta * Math.sin(midHeading);
+        mDistance += delta;
+        mHeadingRad = heading;
+
+        mHistory.add(Clock.getTime(), mX, mY, mHeadingRad, mDistance);
+    }
+}
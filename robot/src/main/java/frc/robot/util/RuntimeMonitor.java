@@ -0,0 +1,216 @@
+package frc.robot.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+
+/**
+ * Watches the JVM from the main loop: garbage collections, heap use, and how
+ * much the main thread allocates
+ *
+ * sample() is called once at the end of every cycle. It reads the GC and
+ * allocation counters, which are plain longs and don't allocate, and keeps
+ * the last kWindowCycles of them in ring buffers, so the dashboard shows
+ * rates over a rolling window rather than since boot. Every cycle is also
+ * sorted by whether a collection happened during it and whether it overran
+ * (see LoopProfiler), which shows whether GC is what's causing overruns.
+ *
+ * Values are published at the TelemetryPublisher's rate. dumpSummary()
+ * prints everything since boot, for when the robot is disabled.
+ */
+public class RuntimeMonitor implements TelemetryPublisher.Source {
+
+    private static RuntimeMonitor sInstance;
+
+    public static RuntimeMonitor getInstance() {
+        if (sInstance == null) {
+            sInstance = new RuntimeMonitor();
+        }
+        return sInstance;
+    }
+
+    private final GarbageCollectorMXBean[] mCollectors;
+    private final com.sun.management.ThreadMXBean mThreads;
+    private final Runtime mRuntime = Runtime.getRuntime();
+    private final LoopProfiler mProfiler = LoopProfiler.getInstance();
+
+    // The thread allocations are counted for, normally the main loop
+    private long mThreadId = -1;
+
+    // Counter values at the last sample
+    private long mLastGcCount, mLastGcTimeMs, mLastAllocatedBytes, mLastOverruns;
+    private long mLastSampleNs = 0;
+
+    // Rolling window, one slot per cycle
+    private final int mWindow = Constants.RuntimeMonitor.kWindowCycles;
+    private final long[] mAllocatedBytes = new long[mWindow];
+    private final long[] mGcCounts = new long[mWindow];
+    private final long[] mGcTimesMs = new long[mWindow];
+    private final long[] mCycleNs = new long[mWindow];
+    private int mNext = 0;
+    private int mFilled = 0;
+    private long mWindowAllocatedBytes, mWindowGcCount, mWindowGcTimeMs, mWindowNs;
+
+    // Since boot
+    private long mCycles, mMaxCycleAllocatedBytes, mHeapUsedBytes, mMaxHeapUsedBytes;
+    private long mCyclesWithGc, mOverrunsWithGc, mCyclesWithoutGc, mOverrunsWithoutGc;
+
+    // Dashboard values, handed off to the TelemetryPublisher thread
+    private static class Telemetry {
+        double allocationRateKBps, maxCycleAllocatedKB;
+        double gcPerSec, gcTimeMsPerSec;
+        double heapUsedMB, maxHeapUsedMB;
+        long overrunsWithGc, overrunsWithoutGc, cyclesWithGc;
+    }
+
+    private final TripleBuffer<Telemetry> mTelemetry = new TripleBuffer<>(Telemetry::new);
+    private final NetworkTableEntry mAllocationRateEntry = SmartDashboard.getEntry("JVM Alloc KB per sec");
+    private final NetworkTableEntry mMaxCycleAllocatedEntry = SmartDashboard.getEntry("JVM Max Alloc per Cycle KB");
+    private final NetworkTableEntry mGcRateEntry = SmartDashboard.getEntry("JVM GC per sec");
+    private final NetworkTableEntry mGcTimeEntry = SmartDashboard.getEntry("JVM GC ms per sec");
+    private final NetworkTableEntry mHeapUsedEntry = SmartDashboard.getEntry("JVM Heap Used MB");
+    private final NetworkTableEntry mMaxHeapUsedEntry = SmartDashboard.getEntry("JVM Max Heap Used MB");
+    private final NetworkTableEntry mOverrunsWithGcEntry = SmartDashboard.getEntry("JVM Overruns With GC");
+    private final NetworkTableEntry mOverrunsWithoutGcEntry = SmartDashboard.getEntry("JVM Overruns Without GC");
+    private final NetworkTableEntry mCyclesWithGcEntry = SmartDashboard.getEntry("JVM Cycles With GC");
+
+    private RuntimeMonitor() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        mCollectors = collectors.toArray(new GarbageCollectorMXBean[0]);
+
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            mThreads = (com.sun.management.ThreadMXBean) threads;
+            mThreads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            mThreads = null;
+        }
+    }
+
+    /**
+     * Record this cycle. Call once per cycle from the main thread, after
+     * LoopProfiler.endCycle()
+     */
+    public void sample() {
+        long now = System.nanoTime();
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean collector : mCollectors) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTimeMs += Math.max(0, collector.getCollectionTime());
+        }
+
+        if (mThreadId < 0) {
+            mThreadId = Thread.currentThread().getId();
+        }
+        long allocatedBytes = mThreads != null ? mThreads.getThreadAllocatedBytes(mThreadId) : 0;
+        long overruns = mProfiler.getOverrunCount();
+
+        if (mLastSampleNs != 0) {
+            record(now - mLastSampleNs, gcCount - mLastGcCount, gcTimeMs - mLastGcTimeMs,
+                    allocatedBytes - mLastAllocatedBytes, overruns > mLastOverruns);
+        }
+
+        mLastSampleNs = now;
+        mLastGcCount = gcCount;
+        mLastGcTimeMs = gcTimeMs;
+        mLastAllocatedBytes = allocatedBytes;
+        mLastOverruns = overruns;
+
+        mHeapUsedBytes = mRuntime.totalMemory() - mRuntime.freeMemory();
+        mMaxHeapUsedBytes = Math.max(mMaxHeapUsedBytes, mHeapUsedBytes);
+    }
+
+    private void record(long cycleNs, long gcCount, long gcTimeMs, long allocatedBytes, boolean overrun) {
+        mCycles++;
+        mMaxCycleAllocatedBytes = Math.max(mMaxCycleAllocatedBytes, allocatedBytes);
+        if (gcCount > 0) {
+            mCyclesWithGc++;
+            if (overrun) {
+                mOverrunsWithGc++;
+            }
+        } else {
+            mCyclesWithoutGc++;
+            if (overrun) {
+                mOverrunsWithoutGc++;
+            }
+        }
+
+        // Drop the oldest slot from the window sums, and add the new one
+        if (mFilled == mWindow) {
+            mWindowAllocatedBytes -= mAllocatedBytes[mNext];
+            mWindowGcCount -= mGcCounts[mNext];
+            mWindowGcTimeMs -= mGcTimesMs[mNext];
+            mWindowNs -= mCycleNs[mNext];
+        } else {
+            mFilled++;
+        }
+        mAllocatedBytes[mNext] = allocatedBytes;
+        mGcCounts[mNext] = gcCount;
+        mGcTimesMs[mNext] = gcTimeMs;
+        mCycleNs[mNext] = cycleNs;
+        mWindowAllocatedBytes += allocatedBytes;
+        mWindowGcCount += gcCount;
+        mWindowGcTimeMs += gcTimeMs;
+        mWindowNs += cycleNs;
+        mNext = (mNext + 1) % mWindow;
+    }
+
+    @Override
+    public void captureTelemetry() {
+        Telemetry telemetry = mTelemetry.getWriteBuffer();
+        double windowSec = Math.max(mWindowNs, 1) / 1e9;
+        telemetry.allocationRateKBps = mWindowAllocatedBytes / 1024.0 / windowSec;
+        telemetry.maxCycleAllocatedKB = mMaxCycleAllocatedBytes / 1024.0;
+        telemetry.gcPerSec = mWindowGcCount / windowSec;
+        telemetry.gcTimeMsPerSec = mWindowGcTimeMs / windowSec;
+        telemetry.heapUsedMB = mHeapUsedBytes / (1024.0 * 1024.0);
+        telemetry.maxHeapUsedMB = mMaxHeapUsedBytes / (1024.0 * 1024.0);
+        telemetry.overrunsWithGc = mOverrunsWithGc;
+        telemetry.overrunsWithoutGc = mOverrunsWithoutGc;
+        telemetry.cyclesWithGc = mCyclesWithGc;
+        mTelemetry.publish();
+    }
+
+    @Override
+    public void publishTelemetry() {
+        if (!mTelemetry.update()) {
+            return;
+        }
+        Telemetry telemetry = mTelemetry.getReadBuffer();
+        mAllocationRateEntry.setDouble(telemetry.allocationRateKBps);
+        mMaxCycleAllocatedEntry.setDouble(telemetry.maxCycleAllocatedKB);
+        mGcRateEntry.setDouble(telemetry.gcPerSec);
+        mGcTimeEntry.setDouble(telemetry.gcTimeMsPerSec);
+        mHeapUsedEntry.setDouble(telemetry.heapUsedMB);
+        mMaxHeapUsedEntry.setDouble(telemetry.maxHeapUsedMB);
+        mOverrunsWithGcEntry.setDouble(telemetry.overrunsWithGc);
+        mOverrunsWithoutGcEntry.setDouble(telemetry.overrunsWithoutGc);
+        mCyclesWithGcEntry.setDouble(telemetry.cyclesWithGc);
+    }
+
+    /**
+     * Print everything recorded since boot. Allocates, so only call this
+     * while disabled
+     */
+    public void dumpSummary() {
+        StringBuilder summary = new StringBuilder("JVM runtime summary\n");
+        summary.append(String.format("  Cycles %d, max allocated in one cycle %.1f KB%n", mCycles,
+                mMaxCycleAllocatedBytes / 1024.0));
+        summary.append(String.format("  Heap used %.1f MB, max %.1f MB, limit %.1f MB%n",
+                mHeapUsedBytes / (1024.0 * 1024.0), mMaxHeapUsedBytes / (1024.0 * 1024.0),
+                mRuntime.maxMemory() / (1024.0 * 1024.0)));
+        for (GarbageCollectorMXBean collector : mCollectors) {
+            summary.append(String.format("  %-24s %6d collections, %6d ms%n", collector.getName(),
+                    collector.getCollectionCount(), collector.getCollectionTime()));
+        }
+        summary.append(String.format("  Overruns: %d of %d cycles with a GC, %d of %d without%n", mOverrunsWithGc,
+                mCyclesWithGc, mOverrunsWithoutGc, mCyclesWithoutGc));
+        System.out.print(summary);
+    }
+}
@@ -0,0 +1,318 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+import frc.robot.util.replay.LoggableInputs;
+import frc.robot.util.replay.Replay;
+
+/**
+ * Records what the robot did, every loop, to a binary file
+ *
+ * Subsystems register the signals they want recorded while they're being
+ * built, along with the raw inputs they read from the hardware each loop,
+ * so the loop can be replayed later (see ReplayRunner). start() then opens a
+ * new, preallocated log file (on the USB stick if there is one) and maps it
+ * into memory. Each call to log() reads every signal and writes one
+ * fixed-width record straight into the mapping, which is just a memory copy,
+ * so the main thread never waits on the disk. A background thread flushes
+ * the mapping to disk every so often, so a brown out loses at most the last
+ * few records.
+ *
+ * File layout (little-endian):
+ *  Header:   magic, version, header size, signal count, input count, record
+ *            size (ints), record count (long, updated as records are
+ *            written), then each signal's name, then each input's name and
+ *            size (int). Names are a length (short) and UTF-8 bytes
+ *  Records:  from the end of the header, back to back: Clock time in seconds
+ *            (double), each signal's value (float), then each input's bytes,
+ *            all in registration order
+ *
+ * When the file is full, logging stops.
+ *
+ * Logs are numbered, and before a new one is created the oldest are deleted
+ * until there are fewer than kMaxFiles and the new one fits in the
+ * directory's budget. If that goes wrong, or the disk is still too full, the
+ * robot runs without a log rather than filling the disk.
+ */
+public class SignalLogger {
+
+    private static SignalLogger sInstance;
+
+    public static SignalLogger getInstance() {
+        if (sInstance == null) {
+            sInstance = new SignalLogger();
+        }
+        return sInstance;
+    }
+
+    public static final int kMagic = 0x4C474953; // "SIGL"
+    public static final int kVersion = 2;
+    public static final int kHeaderSizeOffset = 8;
+    public static final int kRecordCountOffset = 24;
+
+    private final List<String> mNames = new ArrayList<>();
+    private final List<DoubleSupplier> mSuppliers = new ArrayList<>();
+    private final List<String> mInputNames = new ArrayList<>();
+    private final List<LoggableInputs> mInputList = new ArrayList<>();
+
+    // Fixed by start()
+    private DoubleSupplier[] mSignals;
+    private LoggableInputs[] mInputs;
+    private MappedByteBuffer mBuffer;
+    private int mRecordBytes;
+    private int mPosition;
+    private long mRecords;
+    private boolean mFull = false;
+    private Path mPath;
+
+    private SignalLogger() {}
+
+    /**
+     * Add a signal to every record. Must be called before start()
+     * @param name     Name stored in the file header
+     * @param supplier Reads the signal's current value. Called from the main
+     *                 loop every cycle, so it should just return a field
+     */
+    public synchronized void register(String name, DoubleSupplier supplier) {
+        if (mSignals != null) {
+            DriverStation.reportWarning("Signal " + name + " registered after logging started", false);
+            return;
+        }
+        mNames.add(name);
+        mSuppliers.add(supplier);
+    }
+
+    /**
+     * Add a snapshot of hardware inputs to every record, for replay. Must be
+     * called before start()
+     * @param name   Name stored in the file header, which replay matches on
+     * @param inputs Written as it stands at the end of each cycle, and
+     *               overwritten from the log when replaying
+     */
+    public synchronized void registerInputs(String name, LoggableInputs inputs) {
+        if (mSignals != null) {
+            DriverStation.reportWarning("Inputs " + name + " registered after logging started", false);
+            return;
+        }
+        mInputNames.add(name);
+        mInputList.add(inputs);
+    }
+
+    /**
+     * Create the log file and start the flush thread. Call once, after all
+     * the signals are registered. When replaying, this only stops any more
+     * signals being registered
+     */
+    public synchronized void start() {
+        if (mSignals != null) {
+            return;
+        }
+        mSignals = mSuppliers.toArray(new DoubleSupplier[0]);
+        mInputs = mInputList.toArray(new LoggableInputs[0]);
+        mRecordBytes = 8 + 4 * mSignals.length;
+        for (LoggableInputs inputs : mInputs) {
+            mRecordBytes += inputs.getLogSize();
+        }
+
+        if (Replay.isActive()) {
+            return;
+        }
+
+        try {
+            mPath = nextLogFile();
+            try (FileChannel channel = FileChannel.open(mPath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Mapping past the end of the file grows it to the full size
+                // now, rather than a block at a time while we're running
+                mBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Constants.SignalLogger.kFileBytes);
+            }
+        } catch (IOException e) {
+            DriverStation.reportError("Could not create signal log: " + e, false);
+            mBuffer = null;
+            return;
+        }
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        writeHeader();
+        System.out.println("Logging " + mSignals.length + " signals to " + mPath);
+
+        Thread flusher = new Thread(this::runFlush, "SignalLogger");
+        flusher.setDaemon(true);
+        flusher.setPriority(Thread.MIN_PRIORITY);
+        flusher.start();
+    }
+
+    private void writeHeader() {
+        mBuffer.putInt(kMagic);
+        mBuffer.putInt(kVersion);
+        mBuffer.putInt(0);
+        mBuffer.putInt(mSignals.length);
+        mBuffer.putInt(mInputs.length);
+        mBuffer.putInt(mRecordBytes);
+        mBuffer.putLong(0);
+        for (String name : mNames) {
+            putName(name);
+        }
+        for (int i = 0; i < mInputs.length; i++) {
+            putName(mInputNames.get(i));
+            mBuffer.putInt(mInputs[i].getLogSize());
+        }
+        mPosition = mBuffer.position();
+        mBuffer.putInt(kHeaderSizeOffset, mPosition);
+    }
+
+    private void putName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        mBuffer.putShort((short) bytes.length);
+        mBuffer.put(bytes);
+    }
+
+    private static Path nextLogFile() throws IOException {
+        Path usb = Paths.get(Constants.SignalLogger.kUsbDirectory);
+        boolean onUsb = Files.isDirectory(usb) && Files.isWritable(usb);
+        Path directory = onUsb ? usb : Paths.get(Constants.SignalLogger.kRioDirectory);
+        Files.createDirectories(directory);
+
+        // The roboRIO's clock often isn't set at boot, so number the files.
+        // Numbers keep going up after older files are deleted
+        List<Path> logs = new ArrayList<>();
+        int next = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "signals-*.bin")) {
+            for (Path path : files) {
+                int number = getLogNumber(path);
+                if (number >= 0) {
+                    logs.add(path);
+                    next = Math.max(next, number + 1);
+                }
+            }
+        }
+        logs.sort(Comparator.comparingInt(SignalLogger::getLogNumber));
+
+        deleteOldLogs(logs, onUsb ? Constants.SignalLogger.kUsbBudgetBytes
+                : Constants.SignalLogger.kRioBudgetBytes);
+
+        long free = Files.getFileStore(directory).getUsableSpace();
+        if (free < Constants.SignalLogger.kFileBytes + Constants.SignalLogger.kMinFreeBytes) {
+            throw new IOException("only " + (free >> 20) + "MB free in " + directory);
+        }
+        return directory.resolve(String.format("signals-%04d.bin", next));
+    }
+
+    /**
+     * @return The number in a log's name, or -1 if it isn't one of ours
+     */
+    private static int getLogNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring("signals-".length(), name.length() - ".bin".length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Delete the oldest logs until a new one fits. A log that can't be
+     * deleted stops this, and is reported; it's not worth failing over
+     * @param logs Oldest first
+     */
+    private static void deleteOldLogs(List<Path> logs, long budgetBytes) {
+        long used = 0;
+        for (Path log : logs) {
+            try {
+                used += Files.size(log);
+            } catch (IOException e) {
+                // Gone since we listed it
+            }
+        }
+
+        for (int i = 0; i < logs.size(); i++) {
+            int remaining = logs.size() - i;
+            if (remaining < Constants.SignalLogger.kMaxFiles
+                    && used + Constants.SignalLogger.kFileBytes <= budgetBytes) {
+                return;
+            }
+            Path log = logs.get(i);
+            try {
+                long size = Files.size(log);
+                Files.delete(log);
+                used -= size;
+            } catch (IOException e) {
+                DriverStation.reportWarning("Could not delete old signal log " + log + ": " + e, false);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write one record with the current value of every signal and input. Call
+     * once per cycle from the main loop
+     */
+    public void log() {
+        if (mBuffer == null || mFull) {
+            return;
+        }
+        if (mPosition + mRecordBytes > mBuffer.capacity()) {
+            mFull = true;
+            DriverStation.reportWarning("Signal log " + mPath + " is full", false);
+            return;
+        }
+
+        mBuffer.position(mPosition);
+        mBuffer.putDouble(Clock.getTime());
+        for (DoubleSupplier signal : mSignals) {
+            mBuffer.putFloat((float) signal.getAsDouble());
+        }
+        for (LoggableInputs inputs : mInputs) {
+            inputs.toLog(mBuffer);
+        }
+        mPosition = mBuffer.position();
+        mRecords++;
+        mBuffer.putLong(kRecordCountOffset, mRecords);
+    }
+
+    private void runFlush() {
+        long periodMs = (long) (Constants.SignalLogger.kFlushPeriodSec * 1000);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(periodMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            mBuffer.force();
+        }
+    }
+
+    /**
+     * The registered signals and inputs, in registration order, for replay
+     */
+    public synchronized List<String> getSignalNames() {
+        return new ArrayList<>(mNames);
+    }
+
+    public synchronized List<DoubleSupplier> getSignals() {
+        return new ArrayList<>(mSuppliers);
+    }
+
+    public synchronized List<String> getInputNames() {
+        return new ArrayList<>(mInputNames);
+    }
+
+    public synchronized List<LoggableInputs> getInputs() {
+        return new ArrayList<>(mInputList);
+    }
+}
@@ -0,0 +1,127 @@
+package frc.robot.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Records how long the robot takes to get from JVM start to ready
+ *
+ * Each step of the boot sequence is either timed (time()) or marked as a
+ * point in time (mark()). Everything is measured from JVM start, so class
+ * loading before our code runs shows up too. report() prints the timeline
+ * once robotInit() is done; anything that happens after that (e.g. the
+ * driver station connecting to NetworkTables) is printed as it arrives.
+ */
+public class StartupTimeline {
+
+    private static StartupTimeline sInstance;
+
+    public static synchronized StartupTimeline getInstance() {
+        if (sInstance == null) {
+            sInstance = new StartupTimeline();
+        }
+        return sInstance;
+    }
+
+    private static class Event {
+        final String mName;
+        final double mAtMs;
+        final double mDurationMs;
+
+        Event(String name, double atMs, double durationMs) {
+            mName = name;
+            mAtMs = atMs;
+            mDurationMs = durationMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("  %9.1f ms  %8.1f ms  %s", mAtMs, mDurationMs, mName);
+        }
+    }
+
+    // Wall clock only has millisecond resolution, so it's only used to find
+    // where the JVM started relative to the monotonic clock
+    private final double mOriginMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final long mOriginNs = System.nanoTime();
+    private final List<Event> mEvents = new ArrayList<>();
+    private boolean mReported = false;
+    private int mNetworkTablesListener = 0;
+
+    private StartupTimeline() {}
+
+    /**
+     * @return milliseconds since the JVM started
+     */
+    public double now() {
+        return mOriginMs + (System.nanoTime() - mOriginNs) / 1e6;
+    }
+
+    /**
+     * Record that something happened just now
+     * @param name What happened
+     */
+    public void mark(String name) {
+        add(new Event(name, now(), 0));
+    }
+
+    /**
+     * Run and time one step of the boot sequence
+     * @param name Name of the step
+     * @param step The step to run
+     */
+    public void time(String name, Runnable step) {
+        double start = now();
+        step.run();
+        add(new Event(name, start, now() - start));
+    }
+
+    /**
+     * Mark the first time a NetworkTables client (the driver station or a
+     * dashboard) connects
+     */
+    public synchronized void watchNetworkTables() {
+        if (mNetworkTablesListener != 0) {
+            return;
+        }
+        NetworkTableInstance nt = NetworkTableInstance.getDefault();
+        mNetworkTablesListener = nt.addConnectionListener(notification -> {
+            if (notification.connected) {
+                mark("NetworkTables client connected (" + notification.conn.remote_id + ")");
+                nt.removeConnectionListener(mNetworkTablesListener);
+            }
+        }, true);
+    }
+
+    /**
+     * Print the timeline so far, and publish the time to ready
+     */
+    public synchronized void report() {
+        double readyMs = now();
+        mEvents.add(new Event("Ready", readyMs, 0));
+        mReported = true;
+
+        // Steps are recorded as they finish, so put enclosing steps back ahead
+        // of the steps inside them
+        mEvents.sort(Comparator.comparingDouble((Event event) -> event.mAtMs)
+                .thenComparingDouble(event -> -event.mDurationMs));
+
+        System.out.println("Startup timeline (since JVM start, duration, step)");
+        for (Event event : mEvents) {
+            System.out.println(event);
+        }
+        SmartDashboard.putNumber("Startup Ready ms", readyMs);
+    }
+
+    private synchronized void add(Event event) {
+        mEvents.add(event);
+        if (mReported) {
+            System.out.println("Startup timeline" + event);
+        }
+    }
+}
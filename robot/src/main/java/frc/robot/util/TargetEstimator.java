@@ -0,0 +1,109 @@
+package frc.robot.util;
+
+import frc.robot.util.drivers.Limelight;
+
+/**
+ * Dead-reckons the position of a vision target while it can't be seen
+ *
+ * The robot's position is integrated from the drivetrain's distance and
+ * heading. Each time the camera sees the target, its position is worked out
+ * from tx and ty, turned into field coordinates and blended into the
+ * estimate with a small low-pass filter to take the edge off camera noise.
+ * When the target is hidden, predict() turns the estimate back into the tx
+ * and ty the camera would be reporting, so the same controller keeps
+ * driving at it.
+ */
+public class TargetEstimator {
+    // Weight given to each new observation
+    private final double mFilterGain;
+
+    // Robot pose, relative to where reset() was called
+    private double mRobotX, mRobotY, mRobotHeading;
+    private double mLastDistance;
+
+    // Estimated target position in the same frame
+    private double mTargetX, mTargetY;
+    private boolean mHasTarget = false;
+
+    /**
+     * @param filterGain Weight of each new observation, from 0 (ignore it) to
+     *                   1 (replace the estimate with it)
+     */
+    public TargetEstimator(double filterGain) {
+        mFilterGain = filterGain;
+    }
+
+    /**
+     * Start again from the robot's current drivetrain readings, with no target
+     */
+    public void reset(double distance, double headingRad) {
+        mRobotX = 0;
+        mRobotY = 0;
+        mRobotHeading = headingRad;
+        mLastDistance = distance;
+        mHasTarget = false;
+    }
+
+    /**
+     * Move the robot by the change in drivetrain readings since the last call
+     */
+    public void updateOdometry(double distance, double headingRad) {
+        double delta = distance - mLastDistance;
+        double midHeading = (mRobotHeading + headingRad) / 2.0;
+        mRobotX += delta * Math.cos(midHeading);
+        mRobotY += delta * Math.sin(midHeading);
+        mRobotHeading = headingRad;
+        mLastDistance = distance;
+    }
+
+    /**
+     * Blend in a sighting of the target, taken at the robot's current pose
+     * @param horizontalOffset tx, in degrees
+     * @param verticalOffset   ty, in degrees
+     */
+    public void addObservation(double horizontalOffset, double verticalOffset) {
+        double range = LatencyCompensator.getRange(verticalOffset);
+        if (!Double.isFinite(range) || range <= 0) {
+            return;
+        }
+
+        // tx is positive to the right, heading is counter-clockwise positive
+        double angle = mRobotHeading - Math.toRadians(horizontalOffset);
+        double x = mRobotX + range * Math.cos(angle);
+        double y = mRobotY + range * Math.sin(angle);
+
+        if (!mHasTarget) {
+            mTargetX = x;
+            mTargetY = y;
+            mHasTarget = true;
+        } else {
+            mTargetX += mFilterGain * (x - mTargetX);
+            mTargetY += mFilterGain * (y - mTargetY);
+        }
+    }
+
+    public boolean hasEstimate() {
+        return mHasTarget;
+    }
+
+    /**
+     * @return Estimated floor distance from the robot to the target
+     */
+    public double getRange() {
+        return Math.hypot(mTargetX - mRobotX, mTargetY - mRobotY);
+    }
+
+    /**
+     * Fill in the values the camera would report if it could see the target
+     * @param predicted Overwritten with the predicted tx and ty
+     */
+    public void predict(Limelight.Values predicted) {
+        double dx = mTargetX - mRobotX;
+        double dy = mTargetY - mRobotY;
+        double bearing = Math.atan2(dy, dx) - mRobotHeading;
+
+        predicted.targetInSight = mHasTarget;
+        predicted.horizontalOffset = -Math.toDegrees(Math.atan2(Math.sin(bearing), Math.cos(bearing)));
+        predicted.verticalOffset = LatencyCompensator.getVerticalOffset(Math.hypot(dx, dy));
+    }
+}
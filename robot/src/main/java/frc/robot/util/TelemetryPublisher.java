@@ -0,0 +1,139 @@
+package frc.robot.util;
+
+import frc.robot.Constants;
+
+/**
+ * Publishes dashboard values from a low priority background thread
+ *
+ * Writing to the SmartDashboard is slow compared to the rest of the loop, so
+ * it is kept off the main thread. Each Source splits its dashboard output in
+ * two halves:
+ *  - captureTelemetry() runs on the main loop, and only copies the values
+ *    it wants to show into a snapshot (see TripleBuffer)
+ *  - publishTelemetry() runs on the publisher thread, and writes the latest
+ *    snapshot out to NetworkTables
+ *
+ * Capturing is decimated, so the main loop only pays for it every few cycles.
+ */
+public class TelemetryPublisher {
+
+    private static TelemetryPublisher sInstance;
+
+    public static TelemetryPublisher getInstance() {
+        if (sInstance == null) {
+            sInstance = new TelemetryPublisher();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Anything that wants to put values on the dashboard
+     */
+    public interface Source {
+        /**
+         * Called from the main loop. Copy the current values into a snapshot
+         * and hand it off. Must be cheap, and must not touch NetworkTables.
+         */
+        void captureTelemetry();
+
+        /**
+         * Called from the publisher thread. Write out the latest snapshot.
+         */
+        void publishTelemetry();
+    }
+
+    // Replaced (never modified) on registration, so the publisher thread can
+    // walk it without locking or allocating an iterator
+    private volatile Source[] mSources = new Source[0];
+
+    private volatile long mPublishPeriodMs = (long) (Constants.Telemetry.kPublishPeriodSec * 1000);
+    private volatile int mCaptureDecimation = Constants.Telemetry.kCaptureDecimation;
+    private int mCyclesSinceCapture = 0;
+
+    private Thread mThread;
+
+    private TelemetryPublisher() {}
+
+    public synchronized void register(Source source) {
+        Source[] sources = new Source[mSources.length + 1];
+        System.arraycopy(mSources, 0, sources, 0, mSources.length);
+        sources[mSources.length] = source;
+        mSources = sources;
+    }
+
+    /**
+     * Set how often the publisher thread writes to NetworkTables
+     * @param periodSec Publish period in seconds
+     */
+    public void setPublishPeriod(double periodSec) {
+        mPublishPeriodMs = Math.max(1, (long) (periodSec * 1000));
+    }
+
+    /**
+     * Set how many main loop cycles pass between snapshots
+     * @param cycles Capture once every this many calls to capture()
+     */
+    public void setCaptureDecimation(int cycles) {
+        mCaptureDecimation = Math.max(1, cycles);
+    }
+
+    /**
+     * Called from the main loop every cycle. Snapshots every Source once every
+     * N cycles, as set by setCaptureDecimation().
+     */
+    public void capture() {
+        if (++mCyclesSinceCapture < mCaptureDecimation) {
+            return;
+        }
+        mCyclesSinceCapture = 0;
+
+        Source[] sources = mSources;
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].captureTelemetry();
+        }
+    }
+
+    /**
+     * Start the publisher thread, if it isn't already running
+     */
+    public synchronized void start() {
+        if (mThread != null) {
+            return;
+        }
+        mThread = new Thread(this::run, "TelemetryPublisher");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MIN_PRIORITY);
+        mThread.start();
+    }
+
+    /**
+     * Stop the publisher thread
+     */
+    public synchronized void stop() {
+        if (mThread == null) {
+            return;
+        }
+        mThread.interrupt();
+        mThread = null;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Source[] sources = mSources;
+            for (int i = 0; i < sources.length; i++) {
+                try {
+                    sources[i].publishTelemetry();
+                } catch (RuntimeException e) {
+                    // A bad value on the dashboard should never take the robot down
+                    System.out.println("Telemetry publish failed: " + e);
+                }
+            }
+
+            try {
+                Thread.sleep(mPublishPeriodMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.util;
+
+/**
+ * Time-optimal move from one position to another, with limited velocity and
+ * acceleration
+ *
+ * The move accelerates, cruises, then decelerates to a stop at the goal.
+ * Short moves never reach the cruise velocity. The move can start while
+ * already moving towards the goal, but not away from it; a start velocity
+ * away from the goal is treated as zero, and one too fast to stop in time is
+ * cut down to the fastest that can.
+ *
+ * Nothing is allocated, so one instance can be re-planned as often as needed.
+ */
+public class TrapezoidProfile {
+    private double mStart, mDirection;
+    private double mStartVelocity, mCruiseVelocity, mAcceleration;
+    private double mAccelTime, mCruiseTime, mDecelTime;
+    private double mAccelDistance, mCruiseDistance;
+
+    /**
+     * Plan a move. Any units will do, as long as they agree
+     * @param start         Starting position
+     * @param startVelocity Velocity at the start, signed like the positions
+     * @param goal          Position to stop at
+     * @param maxVelocity   Cruise velocity
+     * @param acceleration  Acceleration and deceleration
+     */
+    public void plan(double start, double startVelocity, double goal, double maxVelocity, double acceleration) {
+        double distance = Math.abs(goal - start);
+        mStart = start;
+        mDirection = goal >= start ? 1 : -1;
+        mAcceleration = acceleration;
+
+        double v0 = Util.limit(startVelocity * mDirection, 0, maxVelocity);
+        v0 = Math.min(v0, Math.sqrt(2 * acceleration * distance));
+        mStartVelocity = v0;
+
+        // Accelerate from v0 to the peak, then decelerate from it to a stop,
+        // covering exactly the distance if we never reach cruise
+        mCruiseVelocity = Math.min(maxVelocity, Math.sqrt(acceleration * distance + v0 * v0 / 2));
+
+        mAccelTime = (mCruiseVelocity - v0) / acceleration;
+        mDecelTime = mCruiseVelocity / acceleration;
+        mAccelDistance = (mCruiseVelocity * mCruiseVelocity - v0 * v0) / (2 * acceleration);
+        double decelDistance = mCruiseVelocity * mCruiseVelocity / (2 * acceleration);
+        mCruiseDistance = Math.max(0, distance - mAccelDistance - decelDistance);
+        mCruiseTime = mCruiseVelocity > 0 ? mCruiseDistance / mCruiseVelocity : 0;
+    }
+
+    /**
+     * @return How long the move takes
+     */
+    public double getDuration() {
+        return mAccelTime + mCruiseTime + mDecelTime;
+    }
+
+    /**
+     * @param t Time since the start of the move
+     * @return Position at that time
+     */
+    public double getPosition(double t) {
+        double travelled;
+        if (t <= 0) {
+            travelled = 0;
+        } else if (t < mAccelTime) {
+            travelled = mStartVelocity * t + mAcceleration * t * t / 2;
+        } else if (t < mAccelTime + mCruiseTime) {
+            travelled = mAccelDistance + mCruiseVelocity * (t - mAccelTime);
+        } else {
+            double decel = Math.min(t - mAccelTime - mCruiseTime, mDecelTime);
+            travelled = mAccelDistance + mCruiseDistance + mCruiseVelocity * decel
+                    - mAcceleration * decel * decel / 2;
+        }
+        return mStart + mDirection * travelled;
+    }
+
+    /**
+     * @param t Time since the start of the move
+     * @return Velocity at that time, signed like the positions
+     */
+    public double getVelocity(double t) {
+        double speed;
+        if (t <= 0) {
+            speed = mStartVelocity;
+        } else if (t < mAccelTime) {
+            speed = mStartVelocity + mAcceleration * t;
+        } else if (t < mAccelTime + mCruiseTime) {
+            speed = mCruiseVelocity;
+        } else {
+            speed = Math.max(0, mCruiseVelocity - mAcceleration * (t - mAccelTime - mCruiseTime));
+        }
+        return mDirection * speed;
+    }
+}
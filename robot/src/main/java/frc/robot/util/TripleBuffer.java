@@ -0,0 +1,79 @@
+package frc.robot.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free hand-off of a snapshot from one writer thread to one reader thread
+ *
+ * Three instances of the snapshot are allocated up front. The writer always
+ * fills its own back buffer, the reader always reads its own front buffer,
+ * and the third sits in the middle holding the most recently published
+ * snapshot. Publishing and updating just swap indices with the middle
+ * buffer, so neither side ever blocks, allocates, or sees a half-written
+ * snapshot.
+ *
+ * @param <T> Snapshot type. Should be made of plain mutable fields that the
+ *            writer overwrites in place
+ */
+public class TripleBuffer<T> {
+    // The middle index lives in the low bits, and a flag marks that it holds
+    // a snapshot the reader hasn't picked up yet
+    private static final int kIndexMask = 0x3;
+    private static final int kDirtyFlag = 0x4;
+
+    private final Object[] mBuffers = new Object[3];
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+
+    // Only touched by the writer
+    private int mBack = 0;
+
+    // Only touched by the reader
+    private int mFront = 2;
+
+    /**
+     * @param factory Creates each of the three snapshot instances
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < mBuffers.length; i++) {
+            mBuffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * Writer side: the buffer to fill before calling publish()
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) mBuffers[mBack];
+    }
+
+    /**
+     * Writer side: make the write buffer visible to the reader, and get a
+     * fresh one to write into
+     */
+    public void publish() {
+        mBack = mMiddle.getAndSet(mBack | kDirtyFlag) & kIndexMask;
+    }
+
+    /**
+     * Reader side: pick up the most recently published snapshot, if there is
+     * one newer than what is already in the read buffer
+     * @return true if the read buffer changed
+     */
+    public boolean update() {
+        if ((mMiddle.get() & kDirtyFlag) == 0) {
+            return false;
+        }
+        mFront = mMiddle.getAndSet(mFront) & kIndexMask;
+        return true;
+    }
+
+    /**
+     * Reader side: the latest snapshot picked up by update()
+     */
+    @SuppressWarnings("unchecked")
+    public T getReadBuffer() {
+        return (T) mBuffers[mFront];
+    }
+}
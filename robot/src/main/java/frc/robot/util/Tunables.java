@@ -0,0 +1,220 @@
+package frc.robot.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Values that can be changed from the dashboard while the robot runs
+ *
+ * Each tunable looks up its SmartDashboard entry once, when it's added, and
+ * a NetworkTables listener copies every change into a volatile field. Reading
+ * a tunable in the loop is a field read, instead of a string keyed lookup.
+ *
+ * Code that has to act on a change, like writing new gains to a motor
+ * controller, registers a callback with onChange() instead of polling.
+ * Callbacks run on the NetworkTables listener thread, off the main loop, and
+ * only when the value actually changes.
+ */
+public class Tunables {
+
+    private static Tunables sInstance;
+
+    public static Tunables getInstance() {
+        if (sInstance == null) {
+            sInstance = new Tunables();
+        }
+        return sInstance;
+    }
+
+    // Local changes too, so values set from robot code or a test are picked up
+    private static final int kListenerFlags = EntryListenerFlags.kNew | EntryListenerFlags.kUpdate
+            | EntryListenerFlags.kLocal;
+
+    /**
+     * One value on the dashboard
+     */
+    public static abstract class Tunable {
+        private final String mKey;
+        protected final NetworkTableEntry mEntry;
+        private final List<Runnable> mCallbacks = new CopyOnWriteArrayList<>();
+
+        private Tunable(String key) {
+            mKey = key;
+            mEntry = SmartDashboard.getEntry(key);
+        }
+
+        protected void listen() {
+            mEntry.addListener(this::onUpdate, kListenerFlags);
+        }
+
+        /**
+         * @return Whether the value changed
+         */
+        protected abstract boolean update(EntryNotification notification);
+
+        private void onUpdate(EntryNotification notification) {
+            if (!update(notification)) {
+                return;
+            }
+            for (Runnable callback : mCallbacks) {
+                try {
+                    callback.run();
+                } catch (RuntimeException e) {
+                    DriverStation.reportError("Applying " + getKey() + " failed: " + e, true);
+                }
+            }
+        }
+
+        /**
+         * @param callback Run on the NetworkTables listener thread each time
+         *                 the value changes
+         */
+        public void onChange(Runnable callback) {
+            mCallbacks.add(callback);
+        }
+
+        public String getKey() {
+            return mKey;
+        }
+    }
+
+    /**
+     * A number, limited to a range. Values outside it are refused, and the
+     * dashboard is put back to the last good value
+     */
+    public static class NumberTunable extends Tunable {
+        private final double mMin, mMax;
+        private volatile double mValue;
+
+        private NumberTunable(String key, double defaultValue, double min, double max) {
+            super(key);
+            mMin = min;
+            mMax = max;
+            mEntry.setDefaultDouble(defaultValue);
+            double value = mEntry.getDouble(defaultValue);
+            mValue = isValid(value) ? value : defaultValue;
+            listen();
+        }
+
+        private boolean isValid(double value) {
+            return value >= mMin && value <= mMax;
+        }
+
+        @Override
+        protected boolean update(EntryNotification notification) {
+            if (!notification.value.isDouble()) {
+                return false;
+            }
+            double value = notification.value.getDouble();
+            if (!isValid(value)) {
+                DriverStation.reportWarning(getKey() + " must be in [" + mMin + ", " + mMax + "], got " + value,
+                        false);
+                mEntry.setDouble(mValue);
+                return false;
+            }
+            if (value == mValue) {
+                return false;
+            }
+            mValue = value;
+            return true;
+        }
+
+        public double get() {
+            return mValue;
+        }
+
+        /**
+         * Change the value from robot code, e.g. from a settings file. The
+         * dashboard follows, but callbacks aren't run; the caller applies the
+         * change itself
+         */
+        public void set(double value) {
+            if (!isValid(value)) {
+                throw new IllegalArgumentException(getKey() + " must be in [" + mMin + ", " + mMax + "], got " + value);
+            }
+            mValue = value;
+            mEntry.setDouble(value);
+        }
+    }
+
+    /**
+     * A switch
+     */
+    public static class BooleanTunable extends Tunable {
+        private volatile boolean mValue;
+
+        private BooleanTunable(String key, boolean defaultValue) {
+            super(key);
+            mEntry.setDefaultBoolean(defaultValue);
+            mValue = mEntry.getBoolean(defaultValue);
+            listen();
+        }
+
+        @Override
+        protected boolean update(EntryNotification notification) {
+            if (!notification.value.isBoolean() || notification.value.getBoolean() == mValue) {
+                return false;
+            }
+            mValue = notification.value.getBoolean();
+            return true;
+        }
+
+        public boolean get() {
+            return mValue;
+        }
+    }
+
+    /**
+     * Run a callback when any of a group of tunables changes, e.g. to write
+     * all of a set of gains at once
+     */
+    public static void onChange(Runnable callback, Tunable... tunables) {
+        for (Tunable tunable : tunables) {
+            tunable.onChange(callback);
+        }
+    }
+
+    private final Map<String, Tunable> mTunables = new HashMap<>();
+
+    private Tunables() {
+    }
+
+    /**
+     * Add a number, with no limits. A value already on the dashboard, e.g.
+     * from before a code restart, is kept
+     */
+    public NumberTunable addNumber(String key, double defaultValue) {
+        return addNumber(key, defaultValue, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Add a number that has to stay in [min, max]
+     */
+    public synchronized NumberTunable addNumber(String key, double defaultValue, double min, double max) {
+        checkUnused(key);
+        NumberTunable tunable = new NumberTunable(key, defaultValue, min, max);
+        mTunables.put(key, tunable);
+        return tunable;
+    }
+
+    public synchronized BooleanTunable addBoolean(String key, boolean defaultValue) {
+        checkUnused(key);
+        BooleanTunable tunable = new BooleanTunable(key, defaultValue);
+        mTunables.put(key, tunable);
+        return tunable;
+    }
+
+    private void checkUnused(String key) {
+        if (mTunables.containsKey(key)) {
+            throw new IllegalArgumentException("Tunable " + key + " was already added");
+        }
+    }
+}
@@ -5,6 +5,8 @@ package frc.robot.util;
  *
  */
 public class Util {
+    public static final double kEpsilon = 1e-6;
+
     public static double limit(double v, double maxMag) {
         return limit(v, -maxMag, maxMag);
     }
@@ -16,6 +18,10 @@ public class Util {
     public static boolean epsilonEquals(double a, double b, double epsilon) {
         return (a - epsilon <= b) && (a + epsilon >= b);
     }
+
+    public static boolean epsilonEquals(double a, double b) {
+        return epsilonEquals(a, b, kEpsilon);
+    }
     
     public static double gToInPerSecSquared(double g) {
         return g * 386.088;
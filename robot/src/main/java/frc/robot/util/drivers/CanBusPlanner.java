@@ -0,0 +1,220 @@
+package frc.robot.util.drivers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.drivers.TalonSRXFactory.Configuration;
+
+/**
+ * Picks CTRE status frame periods, and estimates how busy the CAN bus is
+ *
+ * Instead of setting frame periods directly, each Configuration declares how
+ * fresh it needs each Signal to be (see Configuration.mSignalFreshnessMs).
+ * plan() then gives every frame the slowest period that still meets the
+ * tightest need of the signals it carries, and sends frames nobody needs as
+ * slowly as the device allows.
+ *
+ * Devices we don't plan for (SPARK MAXes, the CANifier, the PCM, ...) are
+ * added as a fixed load, so the estimate covers the whole bus. The estimate
+ * is published next to the utilization the roboRIO measures.
+ */
+public class CanBusPlanner implements TelemetryPublisher.Source {
+
+    private static CanBusPlanner sInstance;
+
+    public static synchronized CanBusPlanner getInstance() {
+        if (sInstance == null) {
+            sInstance = new CanBusPlanner();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Values a CTRE motor controller reports, and the status frame each one
+     * arrives in
+     */
+    public enum Signal {
+        // Output, faults and limit switches
+        GENERAL(StatusFrameEnhanced.Status_1_General),
+        // Selected sensor position and velocity
+        SELECTED_SENSOR(StatusFrameEnhanced.Status_2_Feedback0),
+        QUADRATURE(StatusFrameEnhanced.Status_3_Quadrature),
+        // Analog input, temperature and bus voltage
+        ANALOG_TEMP_VBAT(StatusFrameEnhanced.Status_4_AinTempVbat),
+        PULSE_WIDTH(StatusFrameEnhanced.Status_8_PulseWidth),
+        MOTION_PROFILE_BUFFER(StatusFrameEnhanced.Status_9_MotProfBuffer),
+        MOTION_MAGIC(StatusFrameEnhanced.Status_10_MotionMagic),
+        AUX_SENSOR(StatusFrameEnhanced.Status_12_Feedback1),
+        // Closed loop error and target of the primary PID
+        CLOSED_LOOP(StatusFrameEnhanced.Status_13_Base_PIDF0),
+        AUX_CLOSED_LOOP(StatusFrameEnhanced.Status_14_Turn_PIDF1);
+
+        public final StatusFrameEnhanced frame;
+
+        Signal(StatusFrameEnhanced frame) {
+            this.frame = frame;
+        }
+    }
+
+    // Frames each kind of device sends, that we set the period of
+    private static final StatusFrameEnhanced[] kTalonFrames = {
+        StatusFrameEnhanced.Status_1_General,
+        StatusFrameEnhanced.Status_2_Feedback0,
+        StatusFrameEnhanced.Status_3_Quadrature,
+        StatusFrameEnhanced.Status_4_AinTempVbat,
+        StatusFrameEnhanced.Status_8_PulseWidth,
+        StatusFrameEnhanced.Status_9_MotProfBuffer,
+        StatusFrameEnhanced.Status_10_MotionMagic,
+        StatusFrameEnhanced.Status_12_Feedback1,
+        StatusFrameEnhanced.Status_13_Base_PIDF0,
+        StatusFrameEnhanced.Status_14_Turn_PIDF1,
+    };
+
+    private static final StatusFrameEnhanced[] kVictorFrames = {
+        StatusFrameEnhanced.Status_1_General,
+        StatusFrameEnhanced.Status_2_Feedback0,
+        StatusFrameEnhanced.Status_4_AinTempVbat,
+        StatusFrameEnhanced.Status_9_MotProfBuffer,
+        StatusFrameEnhanced.Status_10_MotionMagic,
+        StatusFrameEnhanced.Status_12_Feedback1,
+        StatusFrameEnhanced.Status_13_Base_PIDF0,
+        StatusFrameEnhanced.Status_14_Turn_PIDF1,
+    };
+
+    private static class Device {
+        final String mName;
+        final boolean mIsTalon;
+        final Configuration mConfig;
+
+        Device(String name, boolean isTalon, Configuration config) {
+            mName = name;
+            mIsTalon = isTalon;
+            mConfig = config;
+        }
+    }
+
+    private static class FixedLoad {
+        final String mName;
+        final double mFramesPerSec;
+
+        FixedLoad(String name, double framesPerSec) {
+            mName = name;
+            mFramesPerSec = framesPerSec;
+        }
+    }
+
+    private final List<Device> mDevices = new ArrayList<>();
+    private final List<FixedLoad> mFixedLoads = new ArrayList<>();
+    private volatile double mPredictedUtilization = 0;
+
+    private final NetworkTableEntry mPredictedEntry = SmartDashboard.getEntry("CAN Predicted Utilization");
+    private final NetworkTableEntry mMeasuredEntry = SmartDashboard.getEntry("CAN Measured Utilization");
+    private final NetworkTableEntry mTxFullEntry = SmartDashboard.getEntry("CAN Tx Full");
+    private final NetworkTableEntry mReceiveErrorEntry = SmartDashboard.getEntry("CAN Receive Errors");
+    private final NetworkTableEntry mTransmitErrorEntry = SmartDashboard.getEntry("CAN Transmit Errors");
+    private final NetworkTableEntry mBusOffEntry = SmartDashboard.getEntry("CAN Bus Off");
+
+    private CanBusPlanner() {}
+
+    /**
+     * Add a CTRE motor controller whose status frames should be planned
+     * @param name    Name used when reporting
+     * @param isTalon True for a Talon SRX, false for a Victor SPX
+     * @param config  Configuration to read signal needs from, and write frame
+     *                periods to
+     */
+    public synchronized void addDevice(String name, boolean isTalon, Configuration config) {
+        mDevices.add(new Device(name, isTalon, config));
+    }
+
+    /**
+     * Add traffic from a device we don't plan frames for
+     * @param name         Name used when reporting
+     * @param framesPerSec Frames per second the device puts on the bus
+     */
+    public synchronized void addFixedLoad(String name, double framesPerSec) {
+        mFixedLoads.add(new FixedLoad(name, framesPerSec));
+    }
+
+    /**
+     * Choose the status frame periods of every added device, and estimate the
+     * resulting bus load. Must run before the devices are configured.
+     */
+    public synchronized void plan() {
+        double framesPerSec = 0;
+
+        System.out.println("CAN bus plan (frames/sec)");
+        for (Device device : mDevices) {
+            double deviceFramesPerSec = planDevice(device);
+            framesPerSec += deviceFramesPerSec;
+            System.out.println(String.format("  %-24s %7.1f  %s", device.mName, deviceFramesPerSec,
+                    device.mConfig.mStatusFramePeriodsMs));
+        }
+        for (FixedLoad load : mFixedLoads) {
+            framesPerSec += load.mFramesPerSec;
+            System.out.println(String.format("  %-24s %7.1f", load.mName, load.mFramesPerSec));
+        }
+
+        mPredictedUtilization = framesPerSec * Constants.CAN.kBitsPerFrame / Constants.CAN.kBitRate;
+        System.out.println(String.format("  Predicted utilization %.1f%%", mPredictedUtilization * 100));
+    }
+
+    /**
+     * @return Bus utilization estimated by the last plan(), from 0 to 1
+     */
+    public double getPredictedUtilization() {
+        return mPredictedUtilization;
+    }
+
+    private static double planDevice(Device device) {
+        Map<StatusFrameEnhanced, Integer> periods = device.mConfig.mStatusFramePeriodsMs;
+        periods.clear();
+
+        for (StatusFrameEnhanced frame : device.mIsTalon ? kTalonFrames : kVictorFrames) {
+            periods.put(frame, Constants.CAN.kUnusedFramePeriodMs);
+        }
+
+        // Each frame goes as slowly as the most demanding signal it carries allows
+        for (Map.Entry<Signal, Integer> need : device.mConfig.mSignalFreshnessMs.entrySet()) {
+            StatusFrameEnhanced frame = need.getKey().frame;
+            Integer current = periods.get(frame);
+            if (current == null) {
+                continue;
+            }
+            int period = Math.max(Constants.CAN.kMinFramePeriodMs, Math.min(current, need.getValue()));
+            periods.put(frame, period);
+        }
+
+        // Every CTRE device is sent a control frame, even if it's only following
+        double framesPerSec = 1000.0 / Constants.CAN.kCtreControlFramePeriodMs;
+        for (int period : periods.values()) {
+            framesPerSec += 1000.0 / period;
+        }
+        return framesPerSec;
+    }
+
+    @Override
+    public void captureTelemetry() {
+        // Everything is read from the publisher thread
+    }
+
+    @Override
+    public void publishTelemetry() {
+        CANStatus status = RobotController.getCANStatus();
+        mPredictedEntry.setDouble(mPredictedUtilization);
+        mMeasuredEntry.setDouble(status.percentBusUtilization);
+        mTxFullEntry.setDouble(status.txFullCount);
+        mReceiveErrorEntry.setDouble(status.receiveErrorCount);
+        mTransmitErrorEntry.setDouble(status.transmitErrorCount);
+        mBusOffEntry.setDouble(status.busOffCount);
+    }
+}
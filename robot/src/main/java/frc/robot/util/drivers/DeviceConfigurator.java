@@ -0,0 +1,401 @@
+package frc.robot.util.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.ParamEnum;
+import com.ctre.phoenix.motorcontrol.LimitSwitchNormal;
+import com.ctre.phoenix.motorcontrol.LimitSwitchSource;
+import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+import frc.robot.util.drivers.TalonSRXFactory.Configuration;
+
+/**
+ * Applies device configuration at boot, as quickly as possible
+ *
+ * Devices register a declarative Configuration (or, for devices we can't read
+ * back, a plain task) while the subsystems are being built. configureAll()
+ * then:
+ *  - configures every device on its own thread, since the time is almost
+ *    all spent waiting on CAN responses
+ *  - reads each persistent setting back first, and only writes the ones that
+ *    differ. Talons keep their settings across power cycles, so a normal boot
+ *    writes very little
+ *  - reads back anything it wrote, and reports settings that didn't stick
+ *  - runs any after-configure steps (e.g. homing) once everything is done
+ *
+ * Settings that live only in RAM on the device (inversion, neutral mode, ...)
+ * can't be read back, but they also don't wait on the device, so they're
+ * always sent.
+ */
+public class DeviceConfigurator {
+
+    private static DeviceConfigurator sInstance;
+
+    public static synchronized DeviceConfigurator getInstance() {
+        if (sInstance == null) {
+            sInstance = new DeviceConfigurator();
+        }
+        return sInstance;
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        double read(BaseMotorController device, int timeoutMs);
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        ErrorCode write(BaseMotorController device, int timeoutMs);
+    }
+
+    /**
+     * A single setting that can be read back from the device
+     */
+    private static class Setting {
+        final String mName;
+        final double mValue;
+        final Reader mReader;
+        final Writer mWriter;
+
+        Setting(String name, double value, Reader reader, Writer writer) {
+            mName = name;
+            mValue = value;
+            mReader = reader;
+            mWriter = writer;
+        }
+    }
+
+    /**
+     * Everything we know about configuring one device
+     */
+    private static class Job {
+        final String mName;
+        final BaseMotorController mDevice;
+        final Configuration mConfig;
+        final Runnable mTask;
+
+        double mElapsedMs = 0;
+        int mChecked = 0;
+        int mWritten = 0;
+        final List<String> mMismatches = new ArrayList<>();
+
+        Job(String name, BaseMotorController device, Configuration config, Runnable task) {
+            mName = name;
+            mDevice = device;
+            mConfig = config;
+            mTask = task;
+        }
+    }
+
+    private final List<Job> mJobs = new ArrayList<>();
+    private final List<Job> mAfterConfigure = new ArrayList<>();
+    private boolean mConfigured = false;
+
+    private DeviceConfigurator() {}
+
+    /**
+     * Register a CTRE motor controller to be configured by configureAll()
+     * @param name   Name used when reporting
+     * @param device The device
+     * @param config Desired state of the device. May be changed up until
+     *               configureAll() runs
+     */
+    public synchronized void register(String name, BaseMotorController device, Configuration config) {
+        CanBusPlanner.getInstance().addDevice(name, device instanceof TalonSRX, config);
+        add(mJobs, new Job(name, device, config, null));
+    }
+
+    /**
+     * Register a configuration task for a device that can't be read back
+     * (e.g. a SPARK MAX). It will run in parallel with everything else.
+     * @param name Name used when reporting
+     * @param task Configures the device
+     */
+    public synchronized void register(String name, Runnable task) {
+        add(mJobs, new Job(name, null, null, task));
+    }
+
+    /**
+     * Register a step to run once all devices are configured
+     * @param name Name used when reporting
+     * @param task The step to run
+     */
+    public synchronized void afterConfigure(String name, Runnable task) {
+        add(mAfterConfigure, new Job(name, null, null, task));
+    }
+
+    /**
+     * Queue a job for configureAll(). Devices created after that has already
+     * run are configured right away, on the calling thread.
+     */
+    private void add(List<Job> queue, Job job) {
+        if (!mConfigured) {
+            queue.add(job);
+            return;
+        }
+        if (job.mDevice != null) {
+            CanBusPlanner.getInstance().plan();
+        }
+        run(job);
+        report(Collections.singletonList(job), Collections.emptyList(), job.mElapsedMs, job.mElapsedMs);
+    }
+
+    /**
+     * Configure every registered device, and report how long it took
+     */
+    public synchronized void configureAll() {
+        List<Job> jobs = new ArrayList<>(mJobs);
+        List<Job> afterConfigure = new ArrayList<>(mAfterConfigure);
+        mJobs.clear();
+        mAfterConfigure.clear();
+        mConfigured = true;
+
+        long start = System.nanoTime();
+
+        // Status frame periods come from the plan
+        CanBusPlanner.getInstance().plan();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, jobs.size()), runnable -> {
+            Thread thread = new Thread(runnable, "DeviceConfigurator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(executor.submit(() -> run(job)));
+            }
+
+            long deadline = System.nanoTime() + (long) (Constants.CAN.kConfigureAllTimeoutSec * 1e9);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    jobs.get(i).mMismatches.add("configuration failed: " + e.getCause());
+                } catch (TimeoutException e) {
+                    jobs.get(i).mMismatches.add("configuration timed out");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double configureMs = (System.nanoTime() - start) / 1e6;
+
+        for (Job job : afterConfigure) {
+            run(job);
+        }
+
+        double totalMs = (System.nanoTime() - start) / 1e6;
+
+        report(jobs, afterConfigure, configureMs, totalMs);
+    }
+
+    private void run(Job job) {
+        long start = System.nanoTime();
+        if (job.mTask != null) {
+            job.mTask.run();
+        } else {
+            configure(job);
+        }
+        job.mElapsedMs = (System.nanoTime() - start) / 1e6;
+    }
+
+    private void configure(Job job) {
+        BaseMotorController device = job.mDevice;
+        int timeoutMs = Constants.CAN.kConfigTimeoutMs;
+
+        device.clearStickyFaults(timeoutMs);
+
+        for (Setting setting : buildSettings(device, job.mConfig)) {
+            job.mChecked++;
+            double current = setting.mReader.read(device, timeoutMs);
+            if (device.getLastError() == ErrorCode.OK && matches(current, setting.mValue)) {
+                continue;
+            }
+
+            ErrorCode error = setting.mWriter.write(device, timeoutMs);
+            job.mWritten++;
+
+            double readBack = setting.mReader.read(device, timeoutMs);
+            if (error != ErrorCode.OK || device.getLastError() != ErrorCode.OK || !matches(readBack, setting.mValue)) {
+                job.mMismatches.add(setting.mName + ": wanted " + setting.mValue + ", read back " + readBack
+                        + " (" + error + ")");
+            }
+        }
+
+        applyRuntimeSettings(device, job.mConfig);
+    }
+
+    /**
+     * Values come back from the device in fixed point, so allow a small
+     * relative error
+     */
+    private static boolean matches(double actual, double desired) {
+        return Math.abs(actual - desired) <= Math.max(1e-6, Math.abs(desired) * 0.005);
+    }
+
+    private static Setting param(String name, ParamEnum param, int ordinal, double value, Writer writer) {
+        return new Setting(name, value, (device, timeoutMs) -> device.configGetParameter(param, ordinal, timeoutMs), writer);
+    }
+
+    private static List<Setting> buildSettings(BaseMotorController device, Configuration c) {
+        boolean isTalon = device instanceof TalonSRX;
+        List<Setting> settings = new ArrayList<>();
+
+        if (isTalon) {
+            LimitSwitchNormal normal = c.mLimitSwitchNormallyOpen ? LimitSwitchNormal.NormallyOpen
+                    : LimitSwitchNormal.NormallyClosed;
+            settings.add(param("Forward limit switch source", ParamEnum.eLimitSwitchSource, 0,
+                    LimitSwitchSource.FeedbackConnector.value,
+                    (d, t) -> d.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, normal, t)));
+            settings.add(param("Forward limit switch normal", ParamEnum.eLimitSwitchNormClosedAndDis, 0, normal.value,
+                    (d, t) -> d.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, normal, t)));
+            settings.add(param("Reverse limit switch source", ParamEnum.eLimitSwitchSource, 1,
+                    LimitSwitchSource.FeedbackConnector.value,
+                    (d, t) -> d.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector, normal, t)));
+            settings.add(param("Reverse limit switch normal", ParamEnum.eLimitSwitchNormClosedAndDis, 1, normal.value,
+                    (d, t) -> d.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector, normal, t)));
+            settings.add(param("Continuous current limit", ParamEnum.eContinuousCurrentLimitAmps, 0, c.mCurrentLimit,
+                    (d, t) -> ((TalonSRX) d).configContinuousCurrentLimit(c.mCurrentLimit, t)));
+        }
+
+        settings.add(param("Peak output forward", ParamEnum.ePeakPosOutput, 0, c.mPeakVoltagePct,
+                (d, t) -> d.configPeakOutputForward(c.mPeakVoltagePct, t)));
+        settings.add(param("Peak output reverse", ParamEnum.ePeakNegOutput, 0, -c.mPeakVoltagePct,
+                (d, t) -> d.configPeakOutputReverse(-c.mPeakVoltagePct, t)));
+        settings.add(param("Nominal output forward", ParamEnum.eNominalPosOutput, 0, c.mNominalVoltagePct,
+                (d, t) -> d.configNominalOutputForward(c.mNominalVoltagePct, t)));
+        settings.add(param("Nominal output reverse", ParamEnum.eNominalNegOutput, 0, -c.mNominalVoltagePct,
+                (d, t) -> d.configNominalOutputReverse(-c.mNominalVoltagePct, t)));
+
+        settings.add(param("Forward soft limit enable", ParamEnum.eForwardSoftLimitEnable, 0, c.mEnableSoftLimit ? 1 : 0,
+                (d, t) -> d.configForwardSoftLimitEnable(c.mEnableSoftLimit, t)));
+        settings.add(param("Reverse soft limit enable", ParamEnum.eReverseSoftLimitEnable, 0, c.mEnableSoftLimit ? 1 : 0,
+                (d, t) -> d.configReverseSoftLimitEnable(c.mEnableSoftLimit, t)));
+        settings.add(param("Forward soft limit", ParamEnum.eForwardSoftLimitThreshold, 0, c.mForwardSoftLimit,
+                (d, t) -> d.configForwardSoftLimitThreshold(c.mForwardSoftLimit, t)));
+        settings.add(param("Reverse soft limit", ParamEnum.eReverseSoftLimitThreshold, 0, c.mReverseSoftLimit,
+                (d, t) -> d.configReverseSoftLimitThreshold(c.mReverseSoftLimit, t)));
+
+        settings.add(param("Velocity measurement period", ParamEnum.eSampleVelocityPeriod, 0,
+                c.mVelocityMeasurementPeriod.value,
+                (d, t) -> d.configVelocityMeasurementPeriod(c.mVelocityMeasurementPeriod, t)));
+        settings.add(param("Velocity measurement window", ParamEnum.eSampleVelocityWindow, 0,
+                c.mVelocityMeasurementRollingAverageWindow,
+                (d, t) -> d.configVelocityMeasurementWindow(c.mVelocityMeasurementRollingAverageWindow, t)));
+        settings.add(param("Closed loop ramp", ParamEnum.eClosedloopRamp, 0, c.mVoltageCompensationRampRate,
+                (d, t) -> d.configClosedloopRamp(c.mVoltageCompensationRampRate, t)));
+        settings.add(param("Open loop ramp", ParamEnum.eOpenloopRamp, 0, c.mVoltageRampRate,
+                (d, t) -> d.configOpenloopRamp(c.mVoltageRampRate, t)));
+        settings.add(param("Voltage compensation saturation", ParamEnum.eNominalBatteryVoltage, 0,
+                c.mVoltageCompSaturation, (d, t) -> d.configVoltageCompSaturation(c.mVoltageCompSaturation, t)));
+        settings.add(param("Voltage measurement filter", ParamEnum.eBatteryVoltageFilterSize, 0,
+                c.mVoltageMeasurementFilter, (d, t) -> d.configVoltageMeasurementFilter(c.mVoltageMeasurementFilter, t)));
+
+        // Sensor and closed loop settings only matter for devices running closed loop
+        if (c.mFeedbackDevice != null) {
+            int slot = c.mProfileSlot;
+            settings.add(param("Feedback sensor", ParamEnum.eFeedbackSensorType, 0, c.mFeedbackDevice.value,
+                    (d, t) -> d.configSelectedFeedbackSensor(c.mFeedbackDevice, 0, t)));
+            settings.add(param("kP", ParamEnum.eProfileParamSlot_P, slot, c.mKp, (d, t) -> d.config_kP(slot, c.mKp, t)));
+            settings.add(param("kI", ParamEnum.eProfileParamSlot_I, slot, c.mKi, (d, t) -> d.config_kI(slot, c.mKi, t)));
+            settings.add(param("kD", ParamEnum.eProfileParamSlot_D, slot, c.mKd, (d, t) -> d.config_kD(slot, c.mKd, t)));
+            settings.add(param("kF", ParamEnum.eProfileParamSlot_F, slot, c.mKf, (d, t) -> d.config_kF(slot, c.mKf, t)));
+            settings.add(param("Integral zone", ParamEnum.eProfileParamSlot_IZone, slot, c.mIntegralZone,
+                    (d, t) -> d.config_IntegralZone(slot, c.mIntegralZone, t)));
+            settings.add(param("Motion Magic cruise velocity", ParamEnum.eMotMag_VelCruise, 0, c.mMotionCruiseVelocity,
+                    (d, t) -> d.configMotionCruiseVelocity(c.mMotionCruiseVelocity, t)));
+            settings.add(param("Motion Magic acceleration", ParamEnum.eMotMag_Accel, 0, c.mMotionAcceleration,
+                    (d, t) -> d.configMotionAcceleration(c.mMotionAcceleration, t)));
+        }
+
+        for (Map.Entry<StatusFrameEnhanced, Integer> frame : c.mStatusFramePeriodsMs.entrySet()) {
+            if (!isTalon && isTalonOnly(frame.getKey())) {
+                continue;
+            }
+            int frameId = frame.getKey().value;
+            int periodMs = frame.getValue();
+            settings.add(new Setting(frame.getKey().name() + " period", periodMs,
+                    (d, t) -> d.getStatusFramePeriod(frameId, t),
+                    (d, t) -> d.setStatusFramePeriod(frameId, periodMs, t)));
+        }
+
+        return settings;
+    }
+
+    /**
+     * Frames that only a Talon SRX sends
+     */
+    private static boolean isTalonOnly(StatusFrameEnhanced frame) {
+        switch (frame) {
+            case Status_3_Quadrature:
+            case Status_8_PulseWidth:
+            case Status_11_UartGadgeteer:
+            case Status_Brushless_Current:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Settings that can't be read back. None of these wait on the device.
+     */
+    private static void applyRuntimeSettings(BaseMotorController device, Configuration c) {
+        device.setNeutralMode(c.mEnableBrake ? NeutralMode.Brake : NeutralMode.Coast);
+        device.setInverted(c.mInverted);
+        device.setSensorPhase(c.mSensorPhase);
+        device.overrideLimitSwitchesEnable(c.mEnableLimitSwitch);
+        device.enableVoltageCompensation(c.mEnableVoltageCompensation);
+        device.selectProfileSlot(c.mProfileSlot, 0);
+        device.changeMotionControlFramePeriod(c.mMotionControlFramePeriodMs);
+
+        if (device instanceof TalonSRX) {
+            ((TalonSRX) device).enableCurrentLimit(c.mEnableCurrentLimit);
+        }
+    }
+
+    private static void report(List<Job> jobs, List<Job> afterConfigure, double configureMs, double totalMs) {
+        System.out.println(String.format("Device configuration took %.1f ms (%.1f ms configuring, in parallel)",
+                totalMs, configureMs));
+
+        for (Job job : jobs) {
+            if (job.mTask != null) {
+                System.out.println(String.format("  %-24s %7.1f ms", job.mName, job.mElapsedMs));
+            } else {
+                System.out.println(String.format("  %-24s %7.1f ms  %d/%d settings written, %d mismatched",
+                        job.mName, job.mElapsedMs, job.mWritten, job.mChecked, job.mMismatches.size()));
+            }
+            for (String mismatch : job.mMismatches) {
+                DriverStation.reportWarning(job.mName + " " + mismatch, false);
+            }
+        }
+
+        for (Job job : afterConfigure) {
+            System.out.println(String.format("  %-24s %7.1f ms (after configure)", job.mName, job.mElapsedMs));
+        }
+
+        SmartDashboard.putNumber("Device Config ms", totalMs);
+    }
+}
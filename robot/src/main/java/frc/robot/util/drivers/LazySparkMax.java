@@ -0,0 +1,97 @@
+package frc.robot.util.drivers;
+
+import com.revrobotics.CANError;
+import com.revrobotics.CANSparkMax;
+
+import frc.robot.util.Util;
+
+/**
+ * A CANSparkMax that remembers the last setpoint and ramp rates it sent, and
+ * skips sending them again when they haven't changed.
+ *
+ * Only successful config writes are remembered, so a failed write will be
+ * retried next time. If the SPARK MAX loses its settings (e.g. it browns
+ * out), call invalidate() so everything gets sent again.
+ */
+public class LazySparkMax extends CANSparkMax {
+    private final WriteCounter mWrites = new WriteCounter();
+
+    private double mLastSpeed = Double.NaN;
+    private double mOpenLoopRampRate = Double.NaN;
+    private double mClosedLoopRampRate = Double.NaN;
+
+    public LazySparkMax(int deviceID, MotorType type) {
+        super(deviceID, type);
+    }
+
+    /**
+     * Forget everything that has been sent, so the next write of each value
+     * goes out on the bus
+     */
+    public void invalidate() {
+        mLastSpeed = Double.NaN;
+        mOpenLoopRampRate = Double.NaN;
+        mClosedLoopRampRate = Double.NaN;
+    }
+
+    public WriteCounter getWriteCounter() {
+        return mWrites;
+    }
+
+    /**
+     * @return The last speed sent with set(), or NaN if it isn't known
+     */
+    public double getLastSpeed() {
+        return mLastSpeed;
+    }
+
+    @Override
+    public void set(double speed) {
+        if (Util.epsilonEquals(speed, mLastSpeed)) {
+            mWrites.elided();
+            return;
+        }
+        super.set(speed);
+        mLastSpeed = speed;
+        mWrites.sent();
+    }
+
+    @Override
+    public void stopMotor() {
+        // May not go through set(), so don't trust the last setpoint anymore
+        super.stopMotor();
+        mLastSpeed = Double.NaN;
+        mWrites.sent();
+    }
+
+    @Override
+    public void disable() {
+        super.disable();
+        mLastSpeed = Double.NaN;
+        mWrites.sent();
+    }
+
+    @Override
+    public CANError setOpenLoopRampRate(double rate) {
+        if (Util.epsilonEquals(rate, mOpenLoopRampRate)) {
+            mWrites.elided();
+            return CANError.kOK;
+        }
+        CANError error = super.setOpenLoopRampRate(rate);
+        mOpenLoopRampRate = error == CANError.kOK ? rate : Double.NaN;
+        mWrites.sent();
+        return error;
+    }
+
+    @Override
+    public CANError setClosedLoopRampRate(double rate) {
+        if (Util.epsilonEquals(rate, mClosedLoopRampRate)) {
+            mWrites.elided();
+            return CANError.kOK;
+        }
+        CANError error = super.setClosedLoopRampRate(rate);
+        mClosedLoopRampRate = error == CANError.kOK ? rate : Double.NaN;
+        mWrites.sent();
+        return error;
+    }
+}
@@ -0,0 +1,170 @@
+package frc.robot.util.drivers;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+
+import frc.robot.util.Util;
+
+/**
+ * A TalonSRX that remembers the last setpoint and closed-loop configuration it
+ * sent, and skips sending them again when they haven't changed.
+ *
+ * Config calls block for up to their timeout, so re-sending the same values
+ * every loop is expensive. Only successful writes are remembered, so a failed
+ * write will be retried next time. If the Talon loses its settings (e.g. it
+ * browns out), call invalidate() so everything gets sent again.
+ */
+public class LazyTalonSRX extends TalonSRX {
+    private static final int kSlotCount = 4;
+
+    private final WriteCounter mWrites = new WriteCounter();
+
+    private ControlMode mLastMode = null;
+    private double mLastValue = Double.NaN;
+    private DemandType mLastDemandType = null;
+    private double mLastDemand1 = Double.NaN;
+
+    private int mCruiseVelocity;
+    private boolean mCruiseVelocityValid = false;
+    private int mAcceleration;
+    private boolean mAccelerationValid = false;
+
+    private final double[] mKP = new double[kSlotCount];
+    private final double[] mKI = new double[kSlotCount];
+    private final double[] mKD = new double[kSlotCount];
+    private final double[] mKF = new double[kSlotCount];
+
+    public LazyTalonSRX(int deviceNumber) {
+        super(deviceNumber);
+        invalidate();
+    }
+
+    /**
+     * Forget everything that has been sent, so the next write of each value
+     * goes out on the bus
+     */
+    public void invalidate() {
+        mLastMode = null;
+        mLastValue = Double.NaN;
+        mLastDemandType = null;
+        mLastDemand1 = Double.NaN;
+        mCruiseVelocityValid = false;
+        mAccelerationValid = false;
+        for (int i = 0; i < kSlotCount; i++) {
+            mKP[i] = Double.NaN;
+            mKI[i] = Double.NaN;
+            mKD[i] = Double.NaN;
+            mKF[i] = Double.NaN;
+        }
+    }
+
+    public WriteCounter getWriteCounter() {
+        return mWrites;
+    }
+
+    @Override
+    public void set(ControlMode mode, double value) {
+        // Phoenix's two argument set() is the four argument one with no
+        // demand1, and would call back into the override below. Go there
+        // directly, so each write is checked and counted once
+        set(mode, value, DemandType.Neutral, 0);
+    }
+
+    @Override
+    public void set(ControlMode mode, double demand0, DemandType demand1Type, double demand1) {
+        if (mode == mLastMode && demand1Type == mLastDemandType && Util.epsilonEquals(demand0, mLastValue)
+                && Util.epsilonEquals(demand1, mLastDemand1)) {
+            mWrites.elided();
+            return;
+        }
+        super.set(mode, demand0, demand1Type, demand1);
+        mLastMode = mode;
+        mLastValue = demand0;
+        mLastDemandType = demand1Type;
+        mLastDemand1 = demand1;
+        mWrites.sent();
+    }
+
+    @Override
+    public void neutralOutput() {
+        super.neutralOutput();
+        mLastMode = null;
+        mWrites.sent();
+    }
+
+    @Override
+    public ErrorCode configMotionCruiseVelocity(int sensorUnitsPer100ms, int timeoutMs) {
+        if (mCruiseVelocityValid && mCruiseVelocity == sensorUnitsPer100ms) {
+            mWrites.elided();
+            return ErrorCode.OK;
+        }
+        ErrorCode error = super.configMotionCruiseVelocity(sensorUnitsPer100ms, timeoutMs);
+        mCruiseVelocity = sensorUnitsPer100ms;
+        mCruiseVelocityValid = error == ErrorCode.OK;
+        mWrites.sent();
+        return error;
+    }
+
+    @Override
+    public ErrorCode configMotionAcceleration(int sensorUnitsPer100msPerSec, int timeoutMs) {
+        if (mAccelerationValid && mAcceleration == sensorUnitsPer100msPerSec) {
+            mWrites.elided();
+            return ErrorCode.OK;
+        }
+        ErrorCode error = super.configMotionAcceleration(sensorUnitsPer100msPerSec, timeoutMs);
+        mAcceleration = sensorUnitsPer100msPerSec;
+        mAccelerationValid = error == ErrorCode.OK;
+        mWrites.sent();
+        return error;
+    }
+
+    @Override
+    public ErrorCode config_kP(int slotIdx, double value, int timeoutMs) {
+        if (isSameGain(mKP, slotIdx, value)) {
+            return ErrorCode.OK;
+        }
+        return rememberGain(mKP, slotIdx, value, super.config_kP(slotIdx, value, timeoutMs));
+    }
+
+    @Override
+    public ErrorCode config_kI(int slotIdx, double value, int timeoutMs) {
+        if (isSameGain(mKI, slotIdx, value)) {
+            return ErrorCode.OK;
+        }
+        return rememberGain(mKI, slotIdx, value, super.config_kI(slotIdx, value, timeoutMs));
+    }
+
+    @Override
+    public ErrorCode config_kD(int slotIdx, double value, int timeoutMs) {
+        if (isSameGain(mKD, slotIdx, value)) {
+            return ErrorCode.OK;
+        }
+        return rememberGain(mKD, slotIdx, value, super.config_kD(slotIdx, value, timeoutMs));
+    }
+
+    @Override
+    public ErrorCode config_kF(int slotIdx, double value, int timeoutMs) {
+        if (isSameGain(mKF, slotIdx, value)) {
+            return ErrorCode.OK;
+        }
+        return rememberGain(mKF, slotIdx, value, super.config_kF(slotIdx, value, timeoutMs));
+    }
+
+    private boolean isSameGain(double[] gains, int slotIdx, double value) {
+        if (slotIdx < 0 || slotIdx >= kSlotCount || !Util.epsilonEquals(gains[slotIdx], value)) {
+            return false;
+        }
+        mWrites.elided();
+        return true;
+    }
+
+    private ErrorCode rememberGain(double[] gains, int slotIdx, double value, ErrorCode error) {
+        if (slotIdx >= 0 && slotIdx < kSlotCount) {
+            gains[slotIdx] = error == ErrorCode.OK ? value : Double.NaN;
+        }
+        mWrites.sent();
+        return error;
+    }
+}
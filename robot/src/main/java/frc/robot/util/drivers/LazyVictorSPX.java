@@ -0,0 +1,52 @@
+package frc.robot.util.drivers;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.can.VictorSPX;
+
+import frc.robot.util.Util;
+
+/**
+ * A VictorSPX that remembers the last setpoint it sent, and skips sending it
+ * again when it hasn't changed.
+ */
+public class LazyVictorSPX extends VictorSPX {
+    private final WriteCounter mWrites = new WriteCounter();
+
+    private ControlMode mLastMode = null;
+    private double mLastValue = Double.NaN;
+
+    public LazyVictorSPX(int deviceNumber) {
+        super(deviceNumber);
+    }
+
+    /**
+     * Forget the last setpoint, so the next one goes out on the bus
+     */
+    public void invalidate() {
+        mLastMode = null;
+        mLastValue = Double.NaN;
+    }
+
+    public WriteCounter getWriteCounter() {
+        return mWrites;
+    }
+
+    @Override
+    public void set(ControlMode mode, double value) {
+        if (mode == mLastMode && Util.epsilonEquals(value, mLastValue)) {
+            mWrites.elided();
+            return;
+        }
+        super.set(mode, value);
+        mLastMode = mode;
+        mLastValue = value;
+        mWrites.sent();
+    }
+
+    @Override
+    public void neutralOutput() {
+        super.neutralOutput();
+        invalidate();
+        mWrites.sent();
+    }
+}
@@ -24,27 +24,43 @@ package frc.robot.util.drivers;
  *  
  */
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants;
+import frc.robot.util.Clock;
+import frc.robot.util.LatencyCompensator;
+import frc.robot.util.MotionHistory;
+import frc.robot.util.SignalLogger;
+import frc.robot.util.TelemetryPublisher;
+import frc.robot.util.TripleBuffer;
+import frc.robot.util.replay.LoggableInputs;
 
 /**
  * Class representing a configured Limelight camera
+ *
+ * NetworkTables entries are looked up once, when the Limelight is created.
+ * An entry listener refreshes a snapshot whenever the camera sends new
+ * values, and hands it to the main loop through a TripleBuffer.
+ * readPeriodicInputs() picks up the latest snapshot once per loop, so
+ * reading the values is just reading fields, with no garbage created.
  */
-public class Limelight {
+public class Limelight implements TelemetryPublisher.Source {
 
     private static Limelight sInstance;
 
-    private static Map<String, PipelineType> sPipelineTypes = new HashMap<>();
+    private static Map<Pipeline, PipelineType> sPipelineTypes = new EnumMap<>(Pipeline.class);
 
     static {
-        sPipelineTypes.put(Pipeline.DRIVE_TO_TARGET.name(), 
+        sPipelineTypes.put(Pipeline.DRIVE_TO_TARGET, 
                            new PipelineType(Pipeline.DRIVE_TO_TARGET.name(), false));
     }
 
@@ -55,12 +71,106 @@ public class Limelight {
         return sInstance;
     }
 
-    private Limelight() {}
+    // Entries the camera writes
+    private final NetworkTableEntry mTv, mTx, mTy, mTa, mTl, mCamtran;
+
+    // Entries we write
+    private final NetworkTableEntry mPipeline, mLedMode, mStream;
+
+    // Written by the NetworkTables listener thread, read by the main loop
+    private final TripleBuffer<Values> mListenerValues = new TripleBuffer<>(Values::new);
+
+    // The main loop's copy, refreshed by readPeriodicInputs()
+    private final Values mValues = new Values();
+
+    // mValues projected to the start of this loop, see LatencyCompensator
+    private final Values mCompensatedValues = new Values();
+    private LatencyCompensator mCompensator;
+
+    // Frame tracking. The listener fields are only touched by the listener thread
+    private static final long kFrameGapUs = (long) (Constants.Limelight.kFrameGapMs * 1000);
+    private long mFrameValueTimeUs = 0;
+    private long mListenerFrameNumber = 0;
+    private double mLastFrameReceivedSec = Double.NaN;
+    private double mFrameIntervalMs = 0;
+    private double mFrameJitterMs = 0;
+
+    private long mLastFrameNumber = 0;
+    private boolean mNewFrame = false;
+    private double mStaleThresholdMs = Constants.Limelight.kStaleThresholdMs;
+    private Runnable[] mFrameListeners = new Runnable[0];
+
+    // Dashboard values, handed off to the TelemetryPublisher thread
+    private final TripleBuffer<Values> mTelemetry = new TripleBuffer<>(Values::new);
+    private final NetworkTableEntry mHasTargetEntry = SmartDashboard.getEntry("Limelight Has Target");
+    private final NetworkTableEntry mXOffsetEntry = SmartDashboard.getEntry("Limelight X Offets");
+    private final NetworkTableEntry mYOffsetEntry = SmartDashboard.getEntry("Limelight Y Offets");
+    private final NetworkTableEntry mAreaEntry = SmartDashboard.getEntry("Limelight Area");
+    private final NetworkTableEntry mLatencyEntry = SmartDashboard.getEntry("Limelight Latency ms");
+    private final NetworkTableEntry mAgeEntry = SmartDashboard.getEntry("Limelight Age ms");
+    private final NetworkTableEntry mStaleEntry = SmartDashboard.getEntry("Limelight Stale");
+    private final NetworkTableEntry mFrameRateEntry = SmartDashboard.getEntry("Limelight Frame Rate");
+    private final NetworkTableEntry mJitterEntry = SmartDashboard.getEntry("Limelight Jitter ms");
+    private final NetworkTableEntry mIs3dEntry = SmartDashboard.getEntry("Limelight is3d");
+    private final NetworkTableEntry mTransXEntry = SmartDashboard.getEntry("Limelight 3D transX");
+    private final NetworkTableEntry mTransYEntry = SmartDashboard.getEntry("Limelight 3D transY");
+    private final NetworkTableEntry mTransZEntry = SmartDashboard.getEntry("Limelight 3D transZ");
+    private final NetworkTableEntry mPitchEntry = SmartDashboard.getEntry("Limelight 3D pitch");
+    private final NetworkTableEntry mYawEntry = SmartDashboard.getEntry("Limelight 3D yaw");
+    private final NetworkTableEntry mRollEntry = SmartDashboard.getEntry("Limelight 3D roll");
+
+    private Limelight() {
+        NetworkTable table = getNetworkTableInstance();
+        mTv = table.getEntry("tv");
+        mTx = table.getEntry("tx");
+        mTy = table.getEntry("ty");
+        mTa = table.getEntry("ta");
+        mTl = table.getEntry("tl");
+        mPipeline = table.getEntry("pipeline");
+        mCamtran = table.getEntry("camtran");
+        mLedMode = table.getEntry("ledMode");
+        mStream = table.getEntry("stream");
+
+        // The camera writes all of its values each frame, and we can't tell
+        // which one will arrive last, so refresh on any of them. Values left
+        // over from before we started aren't a frame
+        int flags = EntryListenerFlags.kNew | EntryListenerFlags.kUpdate;
+        for (NetworkTableEntry entry : new NetworkTableEntry[] { mTv, mTx, mTy, mTa, mTl, mCamtran }) {
+            entry.addListener(this::onCameraUpdate, flags);
+        }
+
+        SignalLogger logger = SignalLogger.getInstance();
+        logger.register("Limelight Target In Sight", () -> mValues.targetInSight ? 1 : 0);
+        logger.register("Limelight tx", () -> mValues.horizontalOffset);
+        logger.register("Limelight ty", () -> mValues.verticalOffset);
+        logger.register("Limelight ta", () -> mValues.targetAreaInCamera);
+        logger.register("Limelight Compensated tx", () -> mCompensatedValues.horizontalOffset);
+        logger.register("Limelight Latency ms", () -> mValues.latencyMs);
+        logger.register("Limelight Frame Number", () -> mValues.frameNumber);
+        logger.register("Limelight Age ms", () -> mValues.ageMs);
+
+        // When replaying, nothing arrives over NetworkTables, and these are
+        // loaded from the log before each loop instead
+        logger.registerInputs("Limelight", mValues);
+    }
 
     public static enum Pipeline {
         // See pipeline documentation above
         DRIVE_TO_TARGET(0);
 
+        private static final Pipeline[] sByValue;
+
+        static {
+            int maxValue = 0;
+            for (Pipeline pipeline : values()) {
+                maxValue = Math.max(maxValue, pipeline.value);
+            }
+            sByValue = new Pipeline[maxValue + 1];
+            for (Pipeline pipeline : values()) {
+                sByValue[pipeline.value] = pipeline;
+            }
+        }
+
         private final int value;
 
         private Pipeline(int val) {
@@ -71,10 +181,15 @@ public class Limelight {
             return value;
         }
 
+        /**
+         * @return The pipeline with the given ID, or null if there isn't one
+         */
+        public static Pipeline fromValue(int value) {
+            return value >= 0 && value < sByValue.length ? sByValue[value] : null;
+        }
+
         public static Optional<Pipeline> valueOf(int value) {
-            return Arrays.stream(values())
-                .filter(pipeline -> pipeline.value == value)
-                .findFirst();
+            return Optional.ofNullable(fromValue(value));
         }
     }
 
@@ -90,6 +205,9 @@ public class Limelight {
         BLINK(2),
         ON(3);
 
+        // Indexed by value + 1, so UNK fits
+        private static final LedMode[] sByValue = values();
+
         private final int value;
 
         private LedMode(int val) {
@@ -101,9 +219,7 @@ public class Limelight {
         }
 
         public static Optional<LedMode> valueOf(int value) {
-            return Arrays.stream(values())
-                .filter(ledMode -> ledMode.value == value)
-                .findFirst();
+            return Optional.ofNullable(value >= -1 && value < sByValue.length - 1 ? sByValue[value + 1] : null);
         }
     }
 
@@ -119,6 +235,9 @@ public class Limelight {
         PIP_MAIN(1),
         PIP_SECONDARY(2);
 
+        // Indexed by value + 1, so UNK fits
+        private static final StreamingMode[] sByValue = values();
+
         private final int value;
 
         private StreamingMode(int val) {
@@ -130,9 +249,7 @@ public class Limelight {
         }
 
         public static Optional<StreamingMode> valueOf(int value) {
-            return Arrays.stream(values())
-                .filter(streamingMode -> streamingMode.value == value)
-                .findFirst();
+            return Optional.ofNullable(value >= -1 && value < sByValue.length - 1 ? sByValue[value + 1] : null);
         }
     }
 
@@ -148,8 +265,11 @@ public class Limelight {
 
     /**
      * Helper class that encapsulates a snapshot of values from Limelight
+     *
+     * Only what came from the camera is logged for replay. The age and
+     * staleness are worked out again each loop
      */
-    public class Values {
+    public static class Values implements LoggableInputs {
         /**
          * Whether or not a target is visible
          */
@@ -167,46 +287,49 @@ public class Limelight {
         /**
          * Pipeline identifier
          */
-        public int pipelineNum;
+        public int pipelineNum = -1;
 
         /**
          * Timestamp of this set of values
          */
-        public long timestampMs = System.currentTimeMillis();
+        public long timestampMs;
+
+        /**
+         * Pipeline latency reported by the camera, plus image capture time
+         */
+        public double latencyMs;
+
+        /**
+         * FPGA time the image was captured at, in seconds
+         */
+        public double captureTimeSec;
+
+        /**
+         * Increases by one for each frame received. 0 until the first frame.
+         */
+        public long frameNumber;
+
+        /**
+         * FPGA time the frame arrived over NetworkTables, in seconds
+         */
+        public double receivedTimeSec;
+
+        /**
+         * Smoothed time between frames arriving, and how much it varies
+         */
+        public double frameIntervalMs, frameJitterMs;
+
+        /**
+         * Age of the frame at the start of this loop, and whether that's too
+         * old to act on. Filled in by readPeriodicInputs()
+         */
+        public double ageMs;
+        public boolean stale = true;
 
         /**
-         * Loads the values from the Network table
+         * Empty values, with no target in sight
          */
         public Values() {
-            NetworkTable table = Limelight.getNetworkTableInstance();
-            NetworkTableEntry tv = table.getEntry("tv"), 
-                              tx = table.getEntry("tx"),
-                              ty = table.getEntry("ty"),
-                              ta = table.getEntry("ta"),
-                              pipeline = table.getEntry("pipeline"),
-                              camtran = table.getEntry("camtran");
-            this.targetInSight = tv.getDouble(0.0) > 0;
-            this.horizontalOffset = tx.getDouble(0.0);
-            this.verticalOffset = ty.getDouble(0);
-            this.targetAreaInCamera = ta.getDouble(0);
-            this.pipelineNum = pipeline.getNumber(-1).intValue();
-
-            Optional<Pipeline> pipelineVal = Pipeline.valueOf(this.pipelineNum);
-            if (pipelineVal.isPresent()) {
-                PipelineType pType = sPipelineTypes.get(pipelineVal.get().name());
-                if (pType != null && pType.is3d) {
-                    double[] camtranArray = camtran.getDoubleArray(new double[0]);
-            
-                    this.is3d = true;
-                    this.transX = camtranArray[0];
-                    this.transY = camtranArray[1];
-                    this.transZ = camtranArray[2];
-                    this.pitch = camtranArray[3];
-                    this.yaw = camtranArray[4];
-                    this.roll = camtranArray[5];
-                }
-            }
-            
         }
 
         /**
@@ -217,6 +340,101 @@ public class Limelight {
             this.horizontalOffset = horizontalOffset;
             this.verticalOffset = verticalOffset;
             this.targetAreaInCamera = targetAreaInCamera;
+            this.timestampMs = System.currentTimeMillis();
+            this.captureTimeSec = Clock.getTime();
+        }
+
+        /**
+         * Fill in the 3D pose from the camtran array (x, y, z, pitch, yaw,
+         * roll). Left alone if the array is too short
+         */
+        public void setCameraTransform(double[] camtran) {
+            if (camtran.length >= 6) {
+                this.transX = camtran[0];
+                this.transY = camtran[1];
+                this.transZ = camtran[2];
+                this.pitch = camtran[3];
+                this.yaw = camtran[4];
+                this.roll = camtran[5];
+            }
+        }
+
+        /**
+         * Overwrite these values with a copy of another set
+         */
+        public void copyFrom(Values other) {
+            this.targetInSight = other.targetInSight;
+            this.horizontalOffset = other.horizontalOffset;
+            this.verticalOffset = other.verticalOffset;
+            this.targetAreaInCamera = other.targetAreaInCamera;
+            this.is3d = other.is3d;
+            this.transX = other.transX;
+            this.transY = other.transY;
+            this.transZ = other.transZ;
+            this.pitch = other.pitch;
+            this.yaw = other.yaw;
+            this.roll = other.roll;
+            this.pipelineNum = other.pipelineNum;
+            this.timestampMs = other.timestampMs;
+            this.latencyMs = other.latencyMs;
+            this.captureTimeSec = other.captureTimeSec;
+            this.frameNumber = other.frameNumber;
+            this.receivedTimeSec = other.receivedTimeSec;
+            this.frameIntervalMs = other.frameIntervalMs;
+            this.frameJitterMs = other.frameJitterMs;
+            this.ageMs = other.ageMs;
+            this.stale = other.stale;
+        }
+
+        @Override
+        public int getLogSize() {
+            return 2 + 14 * 8 + 4 + 2 * 8;
+        }
+
+        @Override
+        public void toLog(ByteBuffer buffer) {
+            buffer.put((byte) (targetInSight ? 1 : 0));
+            buffer.put((byte) (is3d ? 1 : 0));
+            buffer.putDouble(horizontalOffset);
+            buffer.putDouble(verticalOffset);
+            buffer.putDouble(targetAreaInCamera);
+            buffer.putDouble(transX);
+            buffer.putDouble(transY);
+            buffer.putDouble(transZ);
+            buffer.putDouble(pitch);
+            buffer.putDouble(yaw);
+            buffer.putDouble(roll);
+            buffer.putDouble(latencyMs);
+            buffer.putDouble(captureTimeSec);
+            buffer.putDouble(receivedTimeSec);
+            buffer.putDouble(frameIntervalMs);
+            buffer.putDouble(frameJitterMs);
+            buffer.putInt(pipelineNum);
+            buffer.putLong(timestampMs);
+            buffer.putLong(frameNumber);
+        }
+
+        @Override
+        public void fromLog(ByteBuffer buffer) {
+            targetInSight = buffer.get() != 0;
+            is3d = buffer.get() != 0;
+            horizontalOffset = buffer.getDouble();
+            verticalOffset = buffer.getDouble();
+            targetAreaInCamera = buffer.getDouble();
+            transX = buffer.getDouble();
+            transY = buffer.getDouble();
+            transZ = buffer.getDouble();
+            pitch = buffer.getDouble();
+            yaw = buffer.getDouble();
+            roll = buffer.getDouble();
+            latencyMs = buffer.getDouble();
+            captureTimeSec = buffer.getDouble();
+            receivedTimeSec = buffer.getDouble();
+            frameIntervalMs = buffer.getDouble();
+            frameJitterMs = buffer.getDouble();
+            pipelineNum = buffer.getInt();
+            timestampMs = buffer.getLong();
+            frameNumber = buffer.getLong();
         }
 
         public String toString() {
@@ -239,11 +457,182 @@ public class Limelight {
     }
 
     /**
-     * Return a raw Limelight.Values object decoded
-     * from the network tables
+     * Called on the NetworkTables listener thread whenever the camera sends a
+     * new value. Fills in the next snapshot and hands it off.
+     *
+     * NetworkTables only notifies when a value changes, so no one entry is
+     * sure to change every frame (tl often repeats). A frame's values arrive
+     * together, though, so anything arriving well after the start of the
+     * last frame starts a new one. The value's own timestamp is used, so
+     * delays on the listener thread don't matter
+     */
+    private void onCameraUpdate(EntryNotification notification) {
+        long valueTimeUs = notification.value.getTime();
+        if (mListenerFrameNumber == 0 || valueTimeUs - mFrameValueTimeUs > kFrameGapUs) {
+            mFrameValueTimeUs = valueTimeUs;
+            onNewFrame();
+        }
+
+        Values values = mListenerValues.getWriteBuffer();
+        values.frameNumber = mListenerFrameNumber;
+        values.receivedTimeSec = mLastFrameReceivedSec;
+        values.frameIntervalMs = mFrameIntervalMs;
+        values.frameJitterMs = mFrameJitterMs;
+        values.targetInSight = mTv.getDouble(0.0) > 0;
+        values.horizontalOffset = mTx.getDouble(0.0);
+        values.verticalOffset = mTy.getDouble(0);
+        values.targetAreaInCamera = mTa.getDouble(0);
+        values.pipelineNum = (int) mPipeline.getDouble(-1);
+        values.timestampMs = System.currentTimeMillis();
+
+        // Back-date the frame to when the image was actually taken. tl may
+        // arrive after other values of the same frame, so this is redone
+        // for each, but always from when the frame arrived
+        values.latencyMs = mTl.getDouble(0) + Constants.Limelight.kImageCaptureLatencyMs;
+        values.captureTimeSec = mLastFrameReceivedSec - values.latencyMs / 1000.0;
+
+        PipelineType pType = null;
+        Pipeline pipeline = Pipeline.fromValue(values.pipelineNum);
+        if (pipeline != null) {
+            pType = sPipelineTypes.get(pipeline);
+        }
+
+        values.is3d = pType != null && pType.is3d;
+        if (values.is3d) {
+            // NetworkTables hands back a new array here, but this is only for
+            // 3D pipelines, and off the main loop
+            values.setCameraTransform(mCamtran.getDoubleArray(new double[0]));
+        }
+
+        mListenerValues.publish();
+    }
+
+    /**
+     * Update the frame rate and jitter with the arrival of a new frame
+     */
+    private void onNewFrame() {
+        double now = Clock.getTime();
+        if (!Double.isNaN(mLastFrameReceivedSec)) {
+            double intervalMs = (now - mLastFrameReceivedSec) * 1000.0;
+            double alpha = Constants.Limelight.kFrameStatsSmoothing;
+            if (mListenerFrameNumber == 1) {
+                mFrameIntervalMs = intervalMs;
+            }
+            mFrameJitterMs += alpha * (Math.abs(intervalMs - mFrameIntervalMs) - mFrameJitterMs);
+            mFrameIntervalMs += alpha * (intervalMs - mFrameIntervalMs);
+        }
+        mLastFrameReceivedSec = now;
+        mListenerFrameNumber++;
+    }
+
+    /**
+     * Pick up the latest values from the camera. Called once at the start of
+     * every loop.
+     */
+    public void readPeriodicInputs() {
+        if (mListenerValues.update()) {
+            mValues.copyFrom(mListenerValues.getReadBuffer());
+        }
+
+        mValues.ageMs = (Clock.getTime() - mValues.captureTimeSec) * 1000.0;
+        mValues.stale = mValues.frameNumber == 0 || mValues.ageMs > mStaleThresholdMs;
+
+        mNewFrame = mValues.frameNumber != mLastFrameNumber;
+        mLastFrameNumber = mValues.frameNumber;
+
+        // The robot keeps moving between frames, so this is redone every loop
+        if (mCompensator != null) {
+            mCompensator.compensate(mValues, Clock.getTime(), mCompensatedValues);
+        } else {
+            mCompensatedValues.copyFrom(mValues);
+        }
+
+        if (mNewFrame) {
+            Runnable[] listeners = mFrameListeners;
+            for (int i = 0; i < listeners.length; i++) {
+                listeners[i].run();
+            }
+        }
+    }
+
+    /**
+     * @return true if a frame arrived since the last loop. Controllers that
+     *         should only act on fresh measurements can skip loops without one
+     */
+    public boolean hasNewFrame() {
+        return mNewFrame;
+    }
+
+    /**
+     * @return true if there's no frame, or the latest one is older than the
+     *         staleness threshold
+     */
+    public boolean isStale() {
+        return mValues.stale;
+    }
+
+    /**
+     * @return Age of the latest frame at the start of this loop, including
+     *         the camera's own latency
+     */
+    public double getFrameAgeMs() {
+        return mValues.ageMs;
+    }
+
+    /**
+     * @return Frames per second arriving from the camera
+     */
+    public double getFrameRate() {
+        return mValues.frameIntervalMs > 0 ? 1000.0 / mValues.frameIntervalMs : 0;
+    }
+
+    /**
+     * Set how old a frame can be before it's considered stale
+     * @param thresholdMs Age in milliseconds, including camera latency
+     */
+    public void setStaleThreshold(double thresholdMs) {
+        mStaleThresholdMs = thresholdMs;
+    }
+
+    /**
+     * Run something on the main loop, from readPeriodicInputs(), each time a
+     * new frame arrives
+     */
+    public void addFrameListener(Runnable listener) {
+        Runnable[] listeners = new Runnable[mFrameListeners.length + 1];
+        System.arraycopy(mFrameListeners, 0, listeners, 0, mFrameListeners.length);
+        listeners[mFrameListeners.length] = listener;
+        mFrameListeners = listeners;
+    }
+
+    /**
+     * Compensate for camera latency using the robot's recent motion
+     * @param history Heading and distance history, updated before
+     *                readPeriodicInputs() each loop
+     */
+    public void setMotionHistory(MotionHistory history) {
+        mCompensator = new LatencyCompensator(history);
+    }
+
+    /**
+     * Return the Limelight values as of the start of this loop
+     *
+     * The same Values object is returned every time, and is overwritten by
+     * readPeriodicInputs(). Copy it if it needs to be kept across loops.
      */
     public Values getRawValues() {
-        return new Values();
+        return mValues;
+    }
+
+    /**
+     * Return the Limelight values as of the start of this loop, with tx and
+     * ty projected forward from when the frame was captured to now. Falls
+     * back to the raw values if no motion history has been set.
+     *
+     * Like getRawValues(), the same object is returned every time.
+     */
+    public Values getCompensatedValues() {
+        return mCompensatedValues;
     }
 
     /**
@@ -251,7 +640,7 @@ public class Limelight {
      * @param mode Requested LED Mode
      */
     public void setLeds(LedMode mode) {
-        getNetworkTableInstance().getEntry("ledMode").setNumber(mode.getValue());
+        mLedMode.setNumber(mode.getValue());
     }
 
     /**
@@ -259,7 +648,7 @@ public class Limelight {
      * @return Current LED mode
      */
     public LedMode getLeds() {
-        return LedMode.valueOf(getNetworkTableInstance().getEntry("ledMode").getNumber(-1).intValue()).get();
+        return LedMode.valueOf((int) mLedMode.getDouble(-1)).get();
     }
 
     /**
@@ -267,7 +656,7 @@ public class Limelight {
      * @param mode Requested streaming mode
      */
     public void setStreamingMode(StreamingMode mode) {
-        getNetworkTableInstance().getEntry("stream").setNumber(mode.getValue());
+        mStream.setNumber(mode.getValue());
     }
 
     /**
@@ -275,7 +664,7 @@ public class Limelight {
      * @return Current streaming mode
      */
     public StreamingMode getStreamingMode() {
-        return StreamingMode.valueOf(getNetworkTableInstance().getEntry("stream").getNumber(-1).intValue()).get();
+        return StreamingMode.valueOf((int) mStream.getDouble(-1)).get();
     }
 
     /**
@@ -284,7 +673,7 @@ public class Limelight {
      * @param pipelineNum
      */
     public void setActivePipeline(Pipeline pipeline) {
-        getNetworkTableInstance().getEntry("pipeline").setNumber(pipeline.getValue());
+        mPipeline.setNumber(pipeline.getValue());
     }
 
     /**
@@ -292,25 +681,40 @@ public class Limelight {
      * @return ID of the currently active pipeline
      */
     public Pipeline getActivePipeline() {
-        return Pipeline.valueOf(getNetworkTableInstance().getEntry("pipeline").getNumber(-1).intValue()).get();
+        return Pipeline.fromValue((int) mPipeline.getDouble(-1));
+    }
+
+    @Override
+    public void captureTelemetry() {
+        mTelemetry.getWriteBuffer().copyFrom(mValues);
+        mTelemetry.publish();
     }
 
     /**
      * Output the values to the SmartDashboard / Shuffleboard
      */
-    public void outputToDashboard() {
-        Values values = this.getRawValues();
-        SmartDashboard.putBoolean("Limelight Has Target", values.targetInSight);
-        SmartDashboard.putNumber("Limelight X Offets", values.horizontalOffset);
-        SmartDashboard.putNumber("Limelight Y Offets", values.verticalOffset);
-        SmartDashboard.putNumber("Limelight Area", values.targetAreaInCamera);
-
-        SmartDashboard.putBoolean("Limelight is3d", values.is3d);
-        SmartDashboard.putNumber("Limelight 3D transX", values.transX);
-        SmartDashboard.putNumber("Limelight 3D transY", values.transY);
-        SmartDashboard.putNumber("Limelight 3D transZ", values.transZ);
-        SmartDashboard.putNumber("Limelight 3D pitch", values.pitch);
-        SmartDashboard.putNumber("Limelight 3D yaw", values.yaw);
-        SmartDashboard.putNumber("Limelight 3D roll", values.roll);
+    @Override
+    public void publishTelemetry() {
+        if (!mTelemetry.update()) {
+            return;
+        }
+        Values values = mTelemetry.getReadBuffer();
+        mHasTargetEntry.setBoolean(values.targetInSight);
+        mXOffsetEntry.setDouble(values.horizontalOffset);
+        mYOffsetEntry.setDouble(values.verticalOffset);
+        mAreaEntry.setDouble(values.targetAreaInCamera);
+        mLatencyEntry.setDouble(values.latencyMs);
+        mAgeEntry.setDouble(values.ageMs);
+        mStaleEntry.setBoolean(values.stale);
+        mFrameRateEntry.setDouble(values.frameIntervalMs > 0 ? 1000.0 / values.frameIntervalMs : 0);
+        mJitterEntry.setDouble(values.frameJitterMs);
+
+        mIs3dEntry.setBoolean(values.is3d);
+        mTransXEntry.setDouble(values.transX);
+        mTransYEntry.setDouble(values.transY);
+        mTransZEntry.setDouble(values.transZ);
+        mPitchEntry.setDouble(values.pitch);
+        mYawEntry.setDouble(values.yaw);
+        mRollEntry.setDouble(values.roll);
     }
-}
\ No newline at end of file
+}
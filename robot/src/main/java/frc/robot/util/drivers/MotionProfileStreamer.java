@@ -0,0 +1,217 @@
+package frc.robot.util.drivers;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.util.TripleBuffer;
+
+/**
+ * Streams a motion profile into a CTRE motor controller's trajectory buffer
+ *
+ * The whole profile is worked out up front on the main thread and handed
+ * over with publish(). A Notifier then keeps the Talon's buffer topped up,
+ * and the Talon runs the profile itself, interpolating between points on
+ * its 1ms loop, so the main loop only has to say when to run it.
+ *
+ * Only the main thread sets the control mode: it should send
+ * ControlMode.MotionProfile with getOutput() every loop, which tells the
+ * Talon to wait (Disable or Hold) until enough points are buffered, run the
+ * profile (Enable), then hold the last point (Hold).
+ */
+public class MotionProfileStreamer {
+
+    /**
+     * Points to stream, allocated up front and filled in place
+     */
+    public static class Profile {
+        private final TrajectoryPoint[] mPoints;
+        private int mLength = 0;
+
+        Profile(int capacity, int pointDurationMs) {
+            mPoints = new TrajectoryPoint[capacity];
+            for (int i = 0; i < capacity; i++) {
+                mPoints[i] = new TrajectoryPoint();
+                mPoints[i].timeDur = pointDurationMs;
+            }
+        }
+
+        public void clear() {
+            mLength = 0;
+        }
+
+        /**
+         * @return The next point to fill in, or null if the profile is full.
+         *         Only position, velocity, arbFeedFwd and profileSlotSelect0
+         *         need setting; the last point is marked by publish()
+         */
+        public TrajectoryPoint add() {
+            if (mLength == mPoints.length) {
+                return null;
+            }
+            TrajectoryPoint point = mPoints[mLength++];
+            point.arbFeedFwd = 0;
+            point.isLastPoint = false;
+            point.zeroPos = false;
+            return point;
+        }
+
+        public int length() {
+            return mLength;
+        }
+
+        public boolean isFull() {
+            return mLength == mPoints.length;
+        }
+    }
+
+    private final BaseMotorController mMotor;
+    private final int mMinBufferedPoints;
+    private final TripleBuffer<Profile> mProfiles;
+    private final Notifier mNotifier;
+    private boolean mStarted = false;
+
+    private volatile SetValueMotionProfile mOutput = SetValueMotionProfile.Disable;
+    private volatile boolean mStopRequested = false;
+    private volatile boolean mFinished = false;
+    private volatile int mUnderruns = 0;
+
+    // Only touched by the streaming thread
+    private final MotionProfileStatus mStatus = new MotionProfileStatus();
+    private Profile mProfile;
+    private int mNextPoint;
+    private boolean mStreaming = false;
+
+    /**
+     * @param motor             Device to stream to
+     * @param pointDurationMs   Time the device spends on each point
+     * @param capacity          Most points a profile can have
+     * @param minBufferedPoints Points the device must have before the
+     *                          profile is started, so it can't run dry
+     */
+    public MotionProfileStreamer(BaseMotorController motor, int pointDurationMs, int capacity,
+            int minBufferedPoints) {
+        mMotor = motor;
+        mMinBufferedPoints = minBufferedPoints;
+        mProfiles = new TripleBuffer<>(() -> new Profile(capacity, pointDurationMs));
+        mNotifier = new Notifier(this::update);
+    }
+
+    /**
+     * Start the streaming thread. Profiles published before this is called
+     * aren't streamed until it is.
+     * @param periodSec How often to top up the buffer. Should be well under
+     *                  the point duration
+     */
+    public synchronized void start(double periodSec) {
+        if (!mStarted) {
+            mNotifier.startPeriodic(periodSec);
+            mStarted = true;
+        }
+    }
+
+    /**
+     * Main thread: the profile to fill in before calling publish()
+     */
+    public Profile getWriteBuffer() {
+        Profile profile = mProfiles.getWriteBuffer();
+        profile.clear();
+        return profile;
+    }
+
+    /**
+     * Main thread: replace whatever is being streamed with the profile from
+     * getWriteBuffer()
+     */
+    public void publish() {
+        Profile profile = mProfiles.getWriteBuffer();
+        if (profile.length() == 0) {
+            return;
+        }
+        profile.mPoints[profile.length() - 1].isLastPoint = true;
+
+        mStopRequested = false;
+        mFinished = false;
+        mProfiles.publish();
+    }
+
+    /**
+     * Main thread: stop streaming and empty the device's buffer. Call before
+     * switching the device to another control mode.
+     */
+    public void stop() {
+        mStopRequested = true;
+        mOutput = SetValueMotionProfile.Disable;
+    }
+
+    /**
+     * @return What to send with ControlMode.MotionProfile
+     */
+    public SetValueMotionProfile getOutput() {
+        return mOutput;
+    }
+
+    /**
+     * @return true once the last point of the profile has been reached
+     */
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    /**
+     * @return Number of times the device ran out of points mid-profile
+     */
+    public int getUnderruns() {
+        return mUnderruns;
+    }
+
+    private void update() {
+        if (mStopRequested) {
+            mStopRequested = false;
+            mStreaming = false;
+            mOutput = SetValueMotionProfile.Disable;
+            mMotor.clearMotionProfileTrajectories();
+            return;
+        }
+
+        if (mProfiles.update()) {
+            // Hold wherever the old profile got to while the new one buffers
+            mMotor.clearMotionProfileTrajectories();
+            mMotor.clearMotionProfileHasUnderrun(0);
+            if (mOutput == SetValueMotionProfile.Enable) {
+                mOutput = SetValueMotionProfile.Hold;
+            }
+            mProfile = mProfiles.getReadBuffer();
+            mNextPoint = 0;
+            mStreaming = true;
+        }
+
+        if (!mStreaming) {
+            return;
+        }
+
+        while (mNextPoint < mProfile.length() && !mMotor.isMotionProfileTopLevelBufferFull()) {
+            mMotor.pushMotionProfileTrajectory(mProfile.mPoints[mNextPoint]);
+            mNextPoint++;
+        }
+        mMotor.processMotionProfileBuffer();
+        mMotor.getMotionProfileStatus(mStatus);
+
+        if (mStatus.hasUnderrun) {
+            mUnderruns++;
+            mMotor.clearMotionProfileHasUnderrun(0);
+        }
+
+        if (mOutput == SetValueMotionProfile.Enable) {
+            if (mStatus.activePointValid && mStatus.isLast) {
+                mOutput = SetValueMotionProfile.Hold;
+                mFinished = true;
+                mStreaming = false;
+            }
+        } else if (mStatus.btmBufferCnt >= mMinBufferedPoints || mNextPoint == mProfile.length()) {
+            mOutput = SetValueMotionProfile.Enable;
+        }
+    }
+}
@@ -2,11 +2,15 @@ package frc.robot.util.drivers;
 
 import com.ctre.phoenix.motorcontrol.IMotorController;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.VictorSPX;
 
+import frc.robot.Constants;
+
 /**
  * A VictorSPX that will be slaved to another Victor or a TalonSRX.
+ *
+ * Persistent settings are applied by the DeviceConfigurator along with
+ * everything else at boot.
  */
 public class SlaveVictor {
 
@@ -15,6 +19,11 @@ public class SlaveVictor {
    */
   private final VictorSPX victorSPX;
 
+  /**
+   * The desired configuration of the Victor.
+   */
+  private final TalonSRXFactory.Configuration config = new TalonSRXFactory.Configuration();
+
   /**
    * Default constructor.
    *
@@ -24,21 +33,17 @@ public class SlaveVictor {
    */
   public SlaveVictor(int port, boolean inverted) {
     victorSPX = new VictorSPX(port);
-    victorSPX.setInverted(inverted);
-    victorSPX.configPeakOutputForward(1, 0);
-    victorSPX.configPeakOutputReverse(-1, 0);
-    victorSPX.enableVoltageCompensation(true);
-    victorSPX.configVoltageCompSaturation(12, 0);
-    victorSPX.configVoltageMeasurementFilter(32, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_1_General, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_2_Feedback0, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_6_Misc, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_7_CommStatus, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_9_MotProfBuffer, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_10_MotionMagic, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_12_Feedback1, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, 100, 0);
-    victorSPX.setStatusFramePeriod(StatusFrame.Status_14_Turn_PIDF1, 100, 0);
+
+    config.mInverted = inverted;
+    config.mPeakVoltagePct = 1;
+    config.mEnableVoltageCompensation = true;
+    config.mVoltageCompSaturation = 12;
+    config.mVoltageMeasurementFilter = 32;
+    // Only the general frame is worth anything on a follower, for its faults
+    config.mSignalFreshnessMs.clear();
+    config.mSignalFreshnessMs.put(CanBusPlanner.Signal.GENERAL, Constants.CAN.kTelemetryFreshnessMs);
+
+    DeviceConfigurator.getInstance().register("Victor " + port, victorSPX, config);
   }
 
   /**
@@ -52,16 +57,18 @@ public class SlaveVictor {
    */
   public void setMaster(IMotorController toFollow, boolean brakeMode, Integer voltageCompSamples) {
     // Brake mode doesn't automatically follow master
+    config.mEnableBrake = brakeMode;
     victorSPX.setNeutralMode(brakeMode ? NeutralMode.Brake : NeutralMode.Coast);
 
-    // Voltage comp might not follow master either
+    // Voltage comp might not follow master either. The sample count is
+    // persistent, so it's left to the DeviceConfigurator
     if (voltageCompSamples != null) {
-      victorSPX.enableVoltageCompensation(true);
-      victorSPX.configVoltageCompSaturation(12, 0);
-      victorSPX.configVoltageMeasurementFilter(voltageCompSamples, 0);
+      config.mEnableVoltageCompensation = true;
+      config.mVoltageMeasurementFilter = voltageCompSamples;
     } else {
-      victorSPX.enableVoltageCompensation(false);
+      config.mEnableVoltageCompensation = false;
     }
+    victorSPX.enableVoltageCompensation(config.mEnableVoltageCompensation);
 
     // Follow the leader
     victorSPX.follow(toFollow);
@@ -70,4 +77,4 @@ public class SlaveVictor {
   public VictorSPX getMotor() {
     return this.victorSPX;
   }
-}
\ No newline at end of file
+}
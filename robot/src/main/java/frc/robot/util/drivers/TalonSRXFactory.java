@@ -1,25 +1,36 @@
 package frc.robot.util.drivers;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.LimitSwitchNormal;
-import com.ctre.phoenix.motorcontrol.LimitSwitchSource;
-import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
-import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+
+import frc.robot.Constants;
 
 /**
  * Creates CTRE TalonSRX objects and resets parameters to default settings. We
  * don't set closed loop and sensor params here. Individual robot code can set
  * it up.
  *
+ * The Talons created are LazyTalonSRX-s, so repeated setpoints and closed loop
+ * config writes are skipped.
+ *
+ * Configuration isn't sent right away. The Talon is registered with the
+ * DeviceConfigurator, which applies every registered device's Configuration
+ * in parallel during robotInit().
+ *
  */
 public class TalonSRXFactory {
   /**
    * Configuration object for a TalonSRX. Pre-populated with default values but
    * can be changed.
    *
+   * This describes the whole desired state of the device. See
+   * DeviceConfigurator for how it gets applied.
+   *
    */
   public static class Configuration {
     public boolean mLimitSwitchNormallyOpen = true;
@@ -38,17 +49,44 @@ public class TalonSRXFactory {
 
     public int mControlFramePeriodMs = 5;
     public int mMotionControlFramePeriodMs = 100;
-    public int mGeneralStatusFrameRateMs = 5;
-    public int mFeedbackStatusFrameRateMs = 100;
-    public int mQuadEncoderStatusFrameRateMs = 100;
-    public int mAnalogTempVbatStatusFrameRateMs = 100;
-    public int mPulseWidthStatusFrameRateMs = 100;
+
+    // How old each signal is allowed to be when we read it, in ms. Signals
+    // not listed aren't read, and their frames are sent as slowly as possible
+    public final Map<CanBusPlanner.Signal, Integer> mSignalFreshnessMs = new EnumMap<>(CanBusPlanner.Signal.class);
+
+    // Status frame periods to set. Filled in by the CanBusPlanner from
+    // mSignalFreshnessMs
+    public final Map<StatusFrameEnhanced, Integer> mStatusFramePeriodsMs = new EnumMap<>(StatusFrameEnhanced.class);
 
     public VelocityMeasPeriod mVelocityMeasurementPeriod = VelocityMeasPeriod.Period_100Ms;
     public int mVelocityMeasurementRollingAverageWindow = 64;
 
     public double mVoltageCompensationRampRate = 0;
     public double mVoltageRampRate = 0;
+
+    public boolean mEnableVoltageCompensation = false;
+    public double mVoltageCompSaturation = 12.0;
+    public int mVoltageMeasurementFilter = 32;
+
+    // Sensor and closed loop settings. A null feedback device leaves the
+    // selected sensor alone
+    public FeedbackDevice mFeedbackDevice = null;
+    public boolean mSensorPhase = false;
+    public int mProfileSlot = 0;
+    public double mKp = 0.0;
+    public double mKi = 0.0;
+    public double mKd = 0.0;
+    public double mKf = 0.0;
+    public int mIntegralZone = 0;
+    public int mMotionCruiseVelocity = 0;
+    public int mMotionAcceleration = 0;
+
+    public Configuration() {
+      mSignalFreshnessMs.put(CanBusPlanner.Signal.GENERAL, Constants.CAN.kLoopFreshnessMs);
+      mSignalFreshnessMs.put(CanBusPlanner.Signal.SELECTED_SENSOR, Constants.CAN.kTelemetryFreshnessMs);
+      mSignalFreshnessMs.put(CanBusPlanner.Signal.QUADRATURE, Constants.CAN.kTelemetryFreshnessMs);
+      mSignalFreshnessMs.put(CanBusPlanner.Signal.ANALOG_TEMP_VBAT, Constants.CAN.kTelemetryFreshnessMs);
+    }
   }
 
   private static final Configuration kDefaultConfig = new Configuration();
@@ -58,70 +96,34 @@ public class TalonSRXFactory {
     // Prepopulate slave values
     kSlaveConfig.mControlFramePeriodMs = 1000;
     kSlaveConfig.mMotionControlFramePeriodMs = 1000;
-    kSlaveConfig.mGeneralStatusFrameRateMs = 1000;
-    kSlaveConfig.mFeedbackStatusFrameRateMs = 1000;
-    kSlaveConfig.mQuadEncoderStatusFrameRateMs = 1000;
-    kSlaveConfig.mAnalogTempVbatStatusFrameRateMs = 1000;
-    kSlaveConfig.mPulseWidthStatusFrameRateMs = 1000;
+    kSlaveConfig.mSignalFreshnessMs.clear();
   }
 
-  public static TalonSRX createDefaultTalonSRX(int canId) {
+  public static LazyTalonSRX createDefaultTalonSRX(int canId) {
     return createTalonSRX(canId, kDefaultConfig);
   }
 
-  public static TalonSRX createSlaveTalonSRX(int canId, int masterId) {
-    TalonSRX talon = createTalonSRX(canId, kSlaveConfig);
+  public static LazyTalonSRX createSlaveTalonSRX(int canId, int masterId) {
+    LazyTalonSRX talon = createTalonSRX(canId, kSlaveConfig);
     talon.set(ControlMode.Follower, masterId);
     return talon;
   }
 
-  public static TalonSRX createTalonSRX(int canId, Configuration config) {
-    TalonSRX talon = new TalonSRX(canId);
+  public static LazyTalonSRX createTalonSRX(int canId, Configuration config) {
+    LazyTalonSRX talon = new LazyTalonSRX(canId);
+
+    // These don't wait on the Talon, so they can go out right away
     talon.set(ControlMode.PercentOutput, 0);
     talon.setIntegralAccumulator(0, 0, 0);
 
     talon.clearMotionProfileHasUnderrun(0);
     talon.clearMotionProfileTrajectories();
-    talon.clearStickyFaults(10);
-
-    talon.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
-        (config.mLimitSwitchNormallyOpen ? LimitSwitchNormal.NormallyOpen : LimitSwitchNormal.NormallyClosed), 10);
-    talon.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
-        (config.mLimitSwitchNormallyOpen ? LimitSwitchNormal.NormallyOpen : LimitSwitchNormal.NormallyClosed), 10);
-    talon.configPeakOutputForward(config.mPeakVoltagePct, 0);
-    talon.configPeakOutputReverse(-config.mPeakVoltagePct, 0);
-    talon.configNominalOutputForward(config.mNominalVoltagePct, 0);
-    talon.configNominalOutputReverse(-config.mNominalVoltagePct, 0);
-
-    talon.setNeutralMode((config.mEnableBrake ? NeutralMode.Brake : NeutralMode.Coast));
-    talon.enableCurrentLimit(config.mEnableCurrentLimit);
-    talon.configForwardSoftLimitEnable(config.mEnableSoftLimit, 0);
-    talon.configReverseSoftLimitEnable(config.mEnableSoftLimit, 0);
-
-    talon.overrideLimitSwitchesEnable(config.mEnableLimitSwitch);
-
-    talon.setInverted(config.mInverted);
-    talon.setSensorPhase(false);
-    talon.getSensorCollection().setAnalogPosition(0, 0);
-
-    talon.configContinuousCurrentLimit(config.mCurrentLimit, 0);
-
-    talon.configForwardSoftLimitThreshold(config.mForwardSoftLimit, 0);
-    talon.configReverseSoftLimitThreshold(config.mReverseSoftLimit, 0);
 
+    talon.getSensorCollection().setAnalogPosition(0, 0);
     talon.setSelectedSensorPosition(0, 0, 0);
-    talon.selectProfileSlot(0, 0);
     talon.getSensorCollection().setPulseWidthPosition(0, 0);
 
-    talon.configVelocityMeasurementPeriod(config.mVelocityMeasurementPeriod, 0);
-    talon.configVelocityMeasurementWindow(config.mVelocityMeasurementRollingAverageWindow, 0);
-    talon.configClosedloopRamp(config.mVoltageCompensationRampRate, 0);
-    talon.configOpenloopRamp(config.mVoltageRampRate, 0);
-
-    talon.setStatusFramePeriod(StatusFrame.Status_2_Feedback0, config.mFeedbackStatusFrameRateMs, 0);
-    talon.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, config.mQuadEncoderStatusFrameRateMs, 0);
-    talon.setStatusFramePeriod(StatusFrame.Status_4_AinTempVbat, config.mAnalogTempVbatStatusFrameRateMs, 0);
-    talon.setStatusFramePeriod(StatusFrame.Status_1_General, config.mGeneralStatusFrameRateMs, 0);
+    DeviceConfigurator.getInstance().register("Talon " + canId, talon, config);
     return talon;
   }
-}
\ No newline at end of file
+}
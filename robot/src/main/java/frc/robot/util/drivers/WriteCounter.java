@@ -0,0 +1,26 @@
+package frc.robot.util.drivers;
+
+/**
+ * Tracks how many writes a Lazy* motor controller wrapper actually sent over
+ * CAN, and how many it skipped because nothing had changed
+ */
+public class WriteCounter {
+    private volatile long mSent = 0;
+    private volatile long mElided = 0;
+
+    void sent() {
+        mSent++;
+    }
+
+    void elided() {
+        mElided++;
+    }
+
+    public long getSent() {
+        return mSent;
+    }
+
+    public long getElided() {
+        return mElided;
+    }
+}
@@ -0,0 +1,39 @@
+package frc.robot.util.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * When each cycle ran, and what mode the robot was in
+ */
+public class CycleInputs implements LoggableInputs {
+
+    public enum Mode {
+        DISABLED,
+        AUTONOMOUS,
+        TELEOP,
+        TEST,
+    }
+
+    private static final Mode[] kModes = Mode.values();
+
+    // FPGA time at the start of the cycle, in seconds
+    public double timestamp;
+    public Mode mode = Mode.DISABLED;
+
+    @Override
+    public int getLogSize() {
+        return 8 + 1;
+    }
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+        buffer.putDouble(timestamp);
+        buffer.put((byte) mode.ordinal());
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+        timestamp = buffer.getDouble();
+        mode = kModes[buffer.get()];
+    }
+}
@@ -0,0 +1,121 @@
+package frc.robot.util.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import frc.robot.util.SignalLogger;
+
+/**
+ * Reads a log written by SignalLogger. See there for the layout
+ */
+public class LogReader {
+
+    private final MappedByteBuffer mBuffer;
+    private final int mHeaderBytes;
+    private final int mRecordBytes;
+    private final int mRecordCount;
+    private final List<String> mSignalNames = new ArrayList<>();
+    private final List<String> mInputNames = new ArrayList<>();
+    private final List<Integer> mInputSizes = new ArrayList<>();
+    private final int[] mInputOffsets;
+
+    private LogReader(MappedByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mBuffer.getInt() != SignalLogger.kMagic) {
+            throw new IOException("Not a signal log");
+        }
+        int version = mBuffer.getInt();
+        if (version != SignalLogger.kVersion) {
+            throw new IOException("Signal log version " + version + ", expected " + SignalLogger.kVersion);
+        }
+        mHeaderBytes = mBuffer.getInt();
+        int signalCount = mBuffer.getInt();
+        int inputCount = mBuffer.getInt();
+        mRecordBytes = mBuffer.getInt();
+        long records = mBuffer.getLong();
+
+        for (int i = 0; i < signalCount; i++) {
+            mSignalNames.add(getName());
+        }
+        mInputOffsets = new int[inputCount];
+        int offset = 8 + 4 * signalCount;
+        for (int i = 0; i < inputCount; i++) {
+            mInputNames.add(getName());
+            int size = mBuffer.getInt();
+            mInputSizes.add(size);
+            mInputOffsets[i] = offset;
+            offset += size;
+        }
+        if (offset != mRecordBytes || mBuffer.position() != mHeaderBytes) {
+            throw new IOException("Corrupt signal log header");
+        }
+
+        // The count is only updated after each record is written, but the
+        // file may have been cut short some other way
+        long fit = (mBuffer.capacity() - mHeaderBytes) / mRecordBytes;
+        mRecordCount = (int) Math.min(records, fit);
+    }
+
+    private String getName() {
+        byte[] bytes = new byte[mBuffer.getShort()];
+        mBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static LogReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new LogReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    public List<String> getSignalNames() {
+        return Collections.unmodifiableList(mSignalNames);
+    }
+
+    public List<String> getInputNames() {
+        return Collections.unmodifiableList(mInputNames);
+    }
+
+    public int getInputSize(int input) {
+        return mInputSizes.get(input);
+    }
+
+    private int recordStart(int record) {
+        return mHeaderBytes + record * mRecordBytes;
+    }
+
+    /**
+     * @return The time the record was written, in seconds
+     */
+    public double getTime(int record) {
+        return mBuffer.getDouble(recordStart(record));
+    }
+
+    public float getSignal(int record, int signal) {
+        return mBuffer.getFloat(recordStart(record) + 8 + 4 * signal);
+    }
+
+    /**
+     * @return The log, positioned at the start of one input in one record.
+     *         The same buffer is returned every time
+     */
+    public ByteBuffer getInput(int record, int input) {
+        mBuffer.position(recordStart(record) + mInputOffsets[input]);
+        return mBuffer;
+    }
+}
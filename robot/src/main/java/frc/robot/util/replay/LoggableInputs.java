@@ -0,0 +1,29 @@
+package frc.robot.util.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A snapshot of some hardware inputs that can be recorded each cycle and
+ * loaded back in when replaying
+ *
+ * Each snapshot is written as a fixed number of bytes, so every record in
+ * the log is the same size. Only raw readings belong here, not anything
+ * worked out from them, since the code being replayed works those out again.
+ */
+public interface LoggableInputs {
+
+    /**
+     * @return How many bytes toLog() writes. Must never change
+     */
+    int getLogSize();
+
+    /**
+     * Write the snapshot at the buffer's position, advancing it by getLogSize()
+     */
+    void toLog(ByteBuffer buffer);
+
+    /**
+     * Read back what toLog() wrote, advancing the buffer by getLogSize()
+     */
+    void fromLog(ByteBuffer buffer);
+}
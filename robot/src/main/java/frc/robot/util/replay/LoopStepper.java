@@ -0,0 +1,74 @@
+package frc.robot.util.replay;
+
+import edu.wpi.first.hal.sim.DriverStationSim;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Robot;
+
+/**
+ * Runs the robot one loop at a time, the way IterativeRobotBase does, for
+ * running the robot code faster than real time on a laptop
+ *
+ * The simulated driver station is kept in the mode being run, since commands
+ * check whether the robot is enabled. Used by ReplayRunner, and by the
+ * lock-step simulation.
+ */
+public class LoopStepper {
+
+    private final Robot mRobot;
+    private final DriverStationSim mDriverStation = new DriverStationSim();
+    private CycleInputs.Mode mLastMode = null;
+
+    public LoopStepper(Robot robot) {
+        mRobot = robot;
+    }
+
+    /**
+     * Run one loop: the mode's init if the mode has changed, then its
+     * periodic function, then robotPeriodic()
+     */
+    public void step(CycleInputs.Mode mode) {
+        if (mode != mLastMode) {
+            setDriverStationMode(mode);
+            switch (mode) {
+                case DISABLED:
+                    mRobot.disabledInit();
+                    break;
+                case AUTONOMOUS:
+                    mRobot.autonomousInit();
+                    break;
+                case TELEOP:
+                    mRobot.teleopInit();
+                    break;
+                case TEST:
+                    mRobot.testInit();
+                    break;
+            }
+            mLastMode = mode;
+        }
+
+        switch (mode) {
+            case DISABLED:
+                mRobot.disabledPeriodic();
+                break;
+            case AUTONOMOUS:
+                mRobot.autonomousPeriodic();
+                break;
+            case TELEOP:
+                mRobot.teleopPeriodic();
+                break;
+            case TEST:
+                mRobot.testPeriodic();
+                break;
+        }
+        mRobot.robotPeriodic();
+    }
+
+    private void setDriverStationMode(CycleInputs.Mode mode) {
+        mDriverStation.setDsAttached(true);
+        mDriverStation.setEnabled(mode != CycleInputs.Mode.DISABLED);
+        mDriverStation.setAutonomous(mode == CycleInputs.Mode.AUTONOMOUS);
+        mDriverStation.setTest(mode == CycleInputs.Mode.TEST);
+        mDriverStation.notifyNewData();
+        DriverStation.getInstance().waitForData(0.1);
+    }
+}
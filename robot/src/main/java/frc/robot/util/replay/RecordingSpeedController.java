@@ -0,0 +1,47 @@
+package frc.robot.util.replay;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * A stand-in for a motor controller that just remembers what it was told
+ */
+public class RecordingSpeedController implements SpeedController {
+
+    private volatile double mSpeed;
+    private boolean mInverted;
+
+    @Override
+    public void set(double speed) {
+        mSpeed = speed;
+    }
+
+    @Override
+    public double get() {
+        return mSpeed;
+    }
+
+    @Override
+    public void setInverted(boolean isInverted) {
+        mInverted = isInverted;
+    }
+
+    @Override
+    public boolean getInverted() {
+        return mInverted;
+    }
+
+    @Override
+    public void disable() {
+        mSpeed = 0;
+    }
+
+    @Override
+    public void stopMotor() {
+        mSpeed = 0;
+    }
+
+    @Override
+    public void pidWrite(double output) {
+        set(output);
+    }
+}
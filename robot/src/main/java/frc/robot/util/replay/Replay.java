@@ -0,0 +1,39 @@
+package frc.robot.util.replay;
+
+import frc.robot.util.Clock;
+
+/**
+ * Whether the robot code is running for real, or replaying a log
+ *
+ * When replaying, the subsystems are built with IO that doesn't touch any
+ * hardware (see frc.robot.subsystems.io), and nothing reads the driver
+ * station, the CAN bus or the camera. Every input is loaded from the log
+ * instead, before each cycle runs, and the clock is stopped at the time the
+ * cycle was recorded. See ReplayRunner.
+ */
+public final class Replay {
+
+    private static boolean sActive = false;
+    private static final CycleInputs sCycle = new CycleInputs();
+
+    private Replay() {}
+
+    /**
+     * Switch to replaying. Must be called before anything is built
+     */
+    public static void enable() {
+        sActive = true;
+        Clock.setSource(() -> sCycle.timestamp);
+    }
+
+    public static boolean isActive() {
+        return sActive;
+    }
+
+    /**
+     * @return The cycle being replayed. Its timestamp is the replay clock
+     */
+    public static CycleInputs getCycle() {
+        return sCycle;
+    }
+}
@@ -0,0 +1,186 @@
+package frc.robot.util.replay;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Robot;
+import frc.robot.util.SignalLogger;
+
+/**
+ * Replays a signal log through the robot code, on a laptop, as fast as it
+ * will go
+ *
+ * The robot is built with stand-in hardware (see Replay), and each recorded
+ * cycle is run the same way TimedRobot would run it: the logged inputs are
+ * loaded, the clock is set to when the cycle ran, then the mode's init (if
+ * the mode changed) and periodic functions are called, followed by
+ * robotPeriodic(). Every signal the robot code registers is then compared
+ * against what was logged, and written out as CSV for a closer look.
+ *
+ * Run with ./gradlew replay -Plog=signals-0000.bin
+ *
+ * Not replayed: the autonomous path picked on the dashboard, commands started
+ * from dashboard buttons, and motion profile streaming, which the stand-in
+ * arm doesn't support.
+ */
+public class ReplayRunner {
+
+    // Recorded and replayed values closer than this are the same
+    private static final double kTolerance = 1e-4;
+
+    private final LogReader mLog;
+    private final LoopStepper mStepper;
+
+    // Registered inputs, lined up with the inputs in the log
+    private final LoggableInputs[] mInputs;
+
+    // Registered signals, lined up with the signals in the log, or -1 if the
+    // log doesn't have it
+    private final List<String> mSignalNames;
+    private final DoubleSupplier[] mSignals;
+    private final int[] mLogSignals;
+
+    private final double[] mMaxError;
+    private final int[] mMismatches;
+    private final int[] mFirstMismatch;
+
+    private ReplayRunner(LogReader log) throws IOException {
+        mLog = log;
+        Robot robot = new Robot();
+        robot.robotInit();
+        mStepper = new LoopStepper(robot);
+
+        SignalLogger logger = SignalLogger.getInstance();
+        List<String> inputNames = logger.getInputNames();
+        List<LoggableInputs> inputs = logger.getInputs();
+        mInputs = new LoggableInputs[log.getInputNames().size()];
+        for (int i = 0; i < mInputs.length; i++) {
+            String name = log.getInputNames().get(i);
+            int index = inputNames.indexOf(name);
+            if (index < 0) {
+                throw new IOException("Logged inputs " + name + " aren't registered any more");
+            }
+            if (inputs.get(index).getLogSize() != log.getInputSize(i)) {
+                throw new IOException("Logged inputs " + name + " have changed size");
+            }
+            mInputs[i] = inputs.get(index);
+        }
+        for (String name : inputNames) {
+            if (!log.getInputNames().contains(name)) {
+                System.out.println("Inputs " + name + " aren't in the log, they'll stay at their defaults");
+            }
+        }
+
+        mSignalNames = logger.getSignalNames();
+        mSignals = logger.getSignals().toArray(new DoubleSupplier[0]);
+        mLogSignals = new int[mSignals.length];
+        for (int i = 0; i < mSignals.length; i++) {
+            mLogSignals[i] = log.getSignalNames().indexOf(mSignalNames.get(i));
+        }
+
+        mMaxError = new double[mSignals.length];
+        mMismatches = new int[mSignals.length];
+        mFirstMismatch = new int[mSignals.length];
+    }
+
+    private void run(BufferedWriter csv) throws IOException {
+        csv.write("Time");
+        for (String name : mSignalNames) {
+            csv.write("," + name);
+        }
+        csv.newLine();
+
+        CycleInputs cycle = Replay.getCycle();
+        for (int record = 0; record < mLog.getRecordCount(); record++) {
+            for (int i = 0; i < mInputs.length; i++) {
+                mInputs[i].fromLog(mLog.getInput(record, i));
+            }
+            mStepper.step(cycle.mode);
+            compare(record);
+
+            csv.write(Double.toString(mLog.getTime(record)));
+            for (DoubleSupplier signal : mSignals) {
+                csv.write(",");
+                csv.write(Float.toString((float) signal.getAsDouble()));
+            }
+            csv.newLine();
+        }
+    }
+
+    private void compare(int record) {
+        for (int i = 0; i < mSignals.length; i++) {
+            if (mLogSignals[i] < 0) {
+                continue;
+            }
+            float logged = mLog.getSignal(record, mLogSignals[i]);
+            float replayed = (float) mSignals[i].getAsDouble();
+            if (Float.isNaN(logged) && Float.isNaN(replayed)) {
+                continue;
+            }
+            double error = Math.abs(logged - replayed);
+            if (!(error <= kTolerance)) {
+                if (mMismatches[i] == 0) {
+                    mFirstMismatch[i] = record;
+                }
+                mMismatches[i]++;
+                mMaxError[i] = Double.isNaN(error) ? Double.POSITIVE_INFINITY : Math.max(mMaxError[i], error);
+            }
+        }
+    }
+
+    private boolean report() {
+        boolean matched = true;
+        for (int i = 0; i < mSignals.length; i++) {
+            if (mLogSignals[i] < 0) {
+                System.out.println(String.format("  %-30s not in the log", mSignalNames.get(i)));
+            } else if (mMismatches[i] > 0) {
+                matched = false;
+                System.out.println(String.format("  %-30s %6d cycles differ, first at %.3fs, max error %.4g",
+                        mSignalNames.get(i), mMismatches[i], mLog.getTime(mFirstMismatch[i]), mMaxError[i]));
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @param args Log file, and optionally where to write the replayed
+     *             signals (replay.csv by default)
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <signal log> [output csv]");
+            System.exit(2);
+        }
+        Path logPath = Paths.get(args[0]);
+        Path csvPath = Paths.get(args.length > 1 ? args[1] : "replay.csv");
+
+        // Everything has to know it's replaying before it's built
+        Replay.enable();
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Could not initialize the HAL");
+        }
+
+        LogReader log = LogReader.open(logPath);
+        ReplayRunner runner = new ReplayRunner(log);
+
+        long start = System.nanoTime();
+        try (BufferedWriter csv = Files.newBufferedWriter(csvPath)) {
+            runner.run(csv);
+        }
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        int records = log.getRecordCount();
+        double matchSec = records > 0 ? log.getTime(records - 1) - log.getTime(0) : 0;
+        System.out.println(String.format("Replayed %d cycles (%.1fs) in %.2fs, %.0fx real time", records,
+                matchSec, elapsedSec, matchSec / elapsedSec));
+        boolean matched = runner.report();
+        System.out.println(matched ? "Every signal matched the log" : "Replayed signals written to " + csvPath);
+        System.exit(matched ? 0 : 1);
+    }
+}
@@ -0,0 +1,72 @@
+package frc.robot.util.sim;
+
+/**
+ * A single-jointed arm, lifted against gravity by a geared motor
+ *
+ * The arm is a uniform rod pivoting at one end, so gravity pulls hardest
+ * when it's level. It stops dead at either hard stop.
+ *
+ * Angles are in radians above level.
+ */
+public class ArmModel {
+
+    private static final double kGravity = 9.81;
+
+    private final DCMotor mMotor;
+    private final double mGearing;
+    private final double mGravityTorque;
+    private final double mMomentOfInertia;
+    private final double mMinAngle, mMaxAngle;
+
+    private double mAngle, mVelocity;
+
+    /**
+     * @param motor    The motors driving the arm
+     * @param gearing  Motor turns per arm turn
+     * @param mass     kg
+     * @param length   Metres from the pivot to the end of the arm
+     * @param minAngle Lower hard stop
+     * @param maxAngle Upper hard stop
+     */
+    public ArmModel(DCMotor motor, double gearing, double mass, double length, double minAngle, double maxAngle) {
+        mMotor = motor;
+        mGearing = gearing;
+        mGravityTorque = mass * kGravity * length / 2;
+        mMomentOfInertia = mass * length * length / 3;
+        mMinAngle = minAngle;
+        mMaxAngle = maxAngle;
+        mAngle = minAngle;
+    }
+
+    /**
+     * Advance the model
+     * @param dt    Seconds
+     * @param volts Voltage across the motors, positive lifts the arm
+     */
+    public void step(double dt, double volts) {
+        double current = mMotor.getCurrent(mVelocity * mGearing, volts);
+        double torque = mMotor.getTorque(current) * mGearing - mGravityTorque * Math.cos(mAngle);
+
+        mVelocity += torque / mMomentOfInertia * dt;
+        mAngle += mVelocity * dt;
+
+        if (mAngle <= mMinAngle) {
+            mAngle = mMinAngle;
+            mVelocity = Math.max(mVelocity, 0);
+        } else if (mAngle >= mMaxAngle) {
+            mAngle = mMaxAngle;
+            mVelocity = Math.min(mVelocity, 0);
+        }
+    }
+
+    public double getAngle() {
+        return mAngle;
+    }
+
+    /**
+     * @return Radians per second
+     */
+    public double getVelocity() {
+        return mVelocity;
+    }
+}
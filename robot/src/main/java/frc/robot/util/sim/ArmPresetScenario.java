@@ -0,0 +1,98 @@
+package frc.robot.util.sim;
+
+import frc.robot.Constants;
+import frc.robot.Robot;
+import frc.robot.controllers.XboxController;
+import frc.robot.util.replay.CycleInputs;
+
+/**
+ * Step the operator's dpad to each of a list of arm presets in turn, send
+ * the arm there with the bumper, and check it settles at the preset
+ */
+public class ArmPresetScenario extends Scenario {
+
+    private static final Constants.TargetHeight[] kPresets = {
+        Constants.TargetHeight.LOW,
+        Constants.TargetHeight.R2_CARGO_SCORE,
+        Constants.TargetHeight.CS_CARGO_SCORE,
+        Constants.TargetHeight.GROUND,
+    };
+
+    private static final double kSettleSec = 3.0;
+    private static final double kMoveSec = kSettleSec + 0.5;
+
+    // Ticks, and ticks per 100ms
+    private static final int kPositionTolerance = 20;
+    private static final int kVelocityTolerance = 5;
+
+    private enum Step {
+        SELECT,
+        SEND,
+        SETTLE,
+        DONE,
+    }
+
+    private Step mStep = Step.SELECT;
+    private int mPreset = 0;
+    private double mSentTime;
+    private boolean mReleased = true;
+
+    public ArmPresetScenario() {
+        super("Arm presets", kPresets.length * kMoveSec);
+    }
+
+    @Override
+    public CycleInputs.Mode update(double time) {
+        XboxController operator = getOperator();
+
+        // Buttons trigger when pressed, so let go after each press
+        if (!mReleased) {
+            operator.setPOV(-1);
+            operator.setRawButton(5, false);
+            mReleased = true;
+            return CycleInputs.Mode.TELEOP;
+        }
+
+        Constants.TargetHeight preset = mStep == Step.DONE ? null : kPresets[mPreset];
+        switch (mStep) {
+            case SELECT:
+                Constants.TargetHeight selected = Robot.arm.getTargetHeight();
+                if (selected == preset) {
+                    mStep = Step.SEND;
+                } else {
+                    operator.setPOV(preset.ordinal() > selected.ordinal() ? 90 : 270);
+                    mReleased = false;
+                }
+                break;
+            case SEND:
+                operator.setRawButton(5, true);
+                mReleased = false;
+                mSentTime = time;
+                mStep = Step.SETTLE;
+                break;
+            case SETTLE:
+                if (time - mSentTime >= kSettleSec) {
+                    checkSettled(preset);
+                    mPreset++;
+                    mStep = mPreset < kPresets.length ? Step.SELECT : Step.DONE;
+                }
+                break;
+            case DONE:
+                break;
+        }
+        return CycleInputs.Mode.TELEOP;
+    }
+
+    private void checkSettled(Constants.TargetHeight preset) {
+        int error = Robot.arm.getPosition() - Constants.getPresetHeight(preset);
+        expect(Math.abs(error) <= kPositionTolerance,
+                String.format("Arm finished %d ticks from %s", error, preset));
+        expect(Math.abs(Robot.arm.getVelocity()) <= kVelocityTolerance,
+                String.format("Arm still moving at %s", preset));
+    }
+
+    @Override
+    public void finish() {
+        expect(mStep == Step.DONE, "Only reached " + mPreset + " of " + kPresets.length + " presets");
+    }
+}
@@ -0,0 +1,76 @@
+package frc.robot.util.sim;
+
+import edu.wpi.first.wpilibj.command.Command;
+import frc.robot.Constants;
+import frc.robot.Robot;
+import frc.robot.commands.auto.FollowTrajectory;
+import frc.robot.util.MotionHistory;
+import frc.robot.util.replay.CycleInputs;
+import frc.robot.util.trajectory.Trajectory;
+
+/**
+ * Run autonomous with a trajectory, and check the robot ends up where the
+ * trajectory does, with the arm at the collect height
+ */
+public class AutoPathScenario extends Scenario {
+
+    private static final double kDisabledSec = 0.5;
+    private static final double kSettleSec = 1.0;
+
+    // How close the robot has to finish to the end of the trajectory
+    private static final double kPositionToleranceInches = 6.0;
+    private static final double kHeadingToleranceRad = Math.toRadians(5);
+    private static final int kArmTolerance = 20;
+
+    private final Trajectory mTrajectory;
+    private final MotionHistory.Pose mStartPose = new MotionHistory.Pose();
+    private final MotionHistory.Pose mPose = new MotionHistory.Pose();
+    private Command mCommand;
+
+    public AutoPathScenario(Trajectory trajectory) {
+        super("Auto " + trajectory.getName(), kDisabledSec + trajectory.getDuration() + kSettleSec);
+        mTrajectory = trajectory;
+    }
+
+    @Override
+    public CycleInputs.Mode update(double time) {
+        if (time < kDisabledSec) {
+            return CycleInputs.Mode.DISABLED;
+        }
+        // The dashboard chooser isn't there to pick the path, so start it here
+        if (mCommand == null) {
+            Robot.m_drivetrain.getPose(mStartPose);
+            mCommand = new FollowTrajectory(mTrajectory);
+            mCommand.start();
+        }
+        return CycleInputs.Mode.AUTONOMOUS;
+    }
+
+    @Override
+    public void finish() {
+        expect(mCommand != null && !mCommand.isRunning(), "Trajectory didn't finish");
+
+        // The trajectory is relative to where the robot started, facing +x
+        Robot.m_drivetrain.getPose(mPose);
+        double dx = mPose.x - mStartPose.x;
+        double dy = mPose.y - mStartPose.y;
+        double cos = Math.cos(-mStartPose.headingRad);
+        double sin = Math.sin(-mStartPose.headingRad);
+        double x = dx * cos - dy * sin;
+        double y = dx * sin + dy * cos;
+
+        int last = mTrajectory.length() - 1;
+        double positionError = Math.hypot(x - mTrajectory.getX(last), y - mTrajectory.getY(last));
+        double headingError = mPose.headingRad - mStartPose.headingRad - mTrajectory.getHeading(last);
+        headingError = Math.atan2(Math.sin(headingError), Math.cos(headingError));
+
+        expect(positionError <= kPositionToleranceInches,
+                String.format("Finished %.1f in from the end of the trajectory", positionError));
+        expect(Math.abs(headingError) <= kHeadingToleranceRad,
+                String.format("Finished %.1f deg off the final heading", Math.toDegrees(headingError)));
+
+        int armError = Robot.arm.getPosition() - Constants.getPresetHeight(Constants.TargetHeight.COLLECT);
+        expect(Math.abs(armError) <= kArmTolerance,
+                String.format("Arm finished %d ticks from the collect height", armError));
+    }
+}
@@ -0,0 +1,50 @@
+package frc.robot.util.sim;
+
+import frc.robot.subsystems.Claw;
+import frc.robot.util.replay.CycleInputs;
+
+/**
+ * Switch the claw to cargo, hold the intake button until the sensors see the
+ * cargo and the claw holds on to it, then spit it back out
+ */
+public class CargoIntakeScenario extends Scenario {
+
+    // Operator buttons, see OI
+    private static final int kButtonA = 1;
+    private static final int kButtonX = 3;
+    private static final int kButtonY = 4;
+
+    private static final double kSelectSec = 0.2;
+    private static final double kIntakeEndSec = 1.5;
+    private static final double kCheckHoldSec = 2.0;
+    private static final double kExhaustStartSec = 2.5;
+    private static final double kExhaustEndSec = 3.5;
+
+    private boolean mHeld = false;
+
+    public CargoIntakeScenario() {
+        super("Cargo intake", 4.0);
+    }
+
+    @Override
+    public CycleInputs.Mode update(double time) {
+        getOperator().setRawButton(kButtonX, time < kSelectSec);
+        getOperator().setRawButton(kButtonA, time >= kSelectSec && time < kIntakeEndSec);
+        getOperator().setRawButton(kButtonY, time >= kExhaustStartSec && time < kExhaustEndSec);
+
+        Claw claw = Claw.getInstance();
+        if (!mHeld && time >= kCheckHoldSec) {
+            mHeld = true;
+            expect(claw.getTargetMode() == Claw.TargetMode.CARGO, "Claw isn't in cargo mode");
+            expect(claw.isCargo(), "Claw didn't pick up the cargo");
+            expect(claw.getSpinMode() == Claw.SpinMode.HOLD,
+                    "Claw is " + claw.getSpinMode() + " with the cargo, not HOLD");
+        }
+        return CycleInputs.Mode.TELEOP;
+    }
+
+    @Override
+    public void finish() {
+        expect(!Claw.getInstance().isCargo(), "Claw didn't let go of the cargo");
+    }
+}
@@ -0,0 +1,58 @@
+package frc.robot.util.sim;
+
+/**
+ * One or more identical DC motors geared together, from their datasheet
+ * numbers
+ *
+ * Torque is proportional to current, and the back EMF to speed, so the
+ * current drawn at a given speed and voltage is (V - speed / Kv) / R. The
+ * motor's inductance is ignored; current settles far faster than anything
+ * else we simulate.
+ */
+public class DCMotor {
+
+    private final double mResistance;
+    private final double mKv;
+    private final double mKt;
+
+    /**
+     * @param nominalVoltage Voltage the datasheet numbers were measured at
+     * @param stallTorque    Nm, per motor
+     * @param stallCurrent   Amps, per motor
+     * @param freeCurrent    Amps, per motor
+     * @param freeSpeedRpm   Unloaded speed at the nominal voltage
+     * @param count          Number of motors
+     */
+    public DCMotor(double nominalVoltage, double stallTorque, double stallCurrent, double freeCurrent,
+            double freeSpeedRpm, int count) {
+        double freeSpeed = freeSpeedRpm * 2 * Math.PI / 60;
+        mResistance = nominalVoltage / (stallCurrent * count);
+        mKv = freeSpeed / (nominalVoltage - mResistance * freeCurrent * count);
+        mKt = stallTorque / stallCurrent;
+    }
+
+    public static DCMotor getNEO(int count) {
+        return new DCMotor(12, 2.6, 105, 1.8, 5676, count);
+    }
+
+    public static DCMotor getVex775Pro(int count) {
+        return new DCMotor(12, 0.71, 134, 0.7, 18730, count);
+    }
+
+    /**
+     * @param speed Motor shaft speed in radians per second
+     * @param volts Applied voltage
+     * @return Total current drawn, in amps
+     */
+    public double getCurrent(double speed, double volts) {
+        return (volts - speed / mKv) / mResistance;
+    }
+
+    /**
+     * @param current Total current, in amps
+     * @return Total torque at the motor shafts, in Nm
+     */
+    public double getTorque(double current) {
+        return current * mKt;
+    }
+}
@@ -0,0 +1,93 @@
+package frc.robot.util.sim;
+
+/**
+ * A differential drive chassis, driven by a gearbox on each side
+ *
+ * The robot is a rigid body that can only move along its heading: each
+ * side's motors push the wheels along the floor, which both accelerates the
+ * robot and turns it. The wheels don't slip, and there is no friction other
+ * than the motors' back EMF.
+ *
+ * Positions are worked out in metres internally, and reported in inches to
+ * match the encoders.
+ */
+public class DifferentialDriveModel {
+
+    private static final double kMetersPerInch = 0.0254;
+
+    private final DCMotor mMotor;
+    private final double mGearing;
+    private final double mWheelRadius;
+    private final double mHalfTrackWidth;
+    private final double mMass;
+    private final double mMomentOfInertia;
+
+    // Robot velocity along its heading, and turning rate counter-clockwise
+    private double mVelocity, mTurnRate;
+    private double mLeftPosition, mRightPosition;
+
+    /**
+     * @param motor           The motors on one side
+     * @param gearing         Motor turns per wheel turn
+     * @param wheelRadius     Inches
+     * @param trackWidth      Inches between the left and right wheels
+     * @param mass            kg
+     * @param momentOfInertia kg m^2, about the centre of the robot
+     */
+    public DifferentialDriveModel(DCMotor motor, double gearing, double wheelRadius, double trackWidth, double mass,
+            double momentOfInertia) {
+        mMotor = motor;
+        mGearing = gearing;
+        mWheelRadius = wheelRadius * kMetersPerInch;
+        mHalfTrackWidth = trackWidth * kMetersPerInch / 2;
+        mMass = mass;
+        mMomentOfInertia = momentOfInertia;
+    }
+
+    /**
+     * Advance the model
+     * @param dt         Seconds
+     * @param leftVolts  Voltage across the left motors, positive forward
+     * @param rightVolts Voltage across the right motors, positive forward
+     */
+    public void step(double dt, double leftVolts, double rightVolts) {
+        double leftForce = getForce(mVelocity - mTurnRate * mHalfTrackWidth, leftVolts);
+        double rightForce = getForce(mVelocity + mTurnRate * mHalfTrackWidth, rightVolts);
+
+        // Semi-implicit Euler, which is stable at our step size
+        mVelocity += (leftForce + rightForce) / mMass * dt;
+        mTurnRate += (rightForce - leftForce) * mHalfTrackWidth / mMomentOfInertia * dt;
+        mLeftPosition += (mVelocity - mTurnRate * mHalfTrackWidth) * dt;
+        mRightPosition += (mVelocity + mTurnRate * mHalfTrackWidth) * dt;
+    }
+
+    /**
+     * @return Force from one side's wheels on the floor, in N
+     */
+    private double getForce(double sideVelocity, double volts) {
+        double motorSpeed = sideVelocity / mWheelRadius * mGearing;
+        return mMotor.getTorque(mMotor.getCurrent(motorSpeed, volts)) * mGearing / mWheelRadius;
+    }
+
+    /**
+     * @return Inches driven by the left wheels
+     */
+    public double getLeftPosition() {
+        return mLeftPosition / kMetersPerInch;
+    }
+
+    public double getRightPosition() {
+        return mRightPosition / kMetersPerInch;
+    }
+
+    /**
+     * @return Left wheel speed in inches per second
+     */
+    public double getLeftVelocity() {
+        return (mVelocity - mTurnRate * mHalfTrackWidth) / kMetersPerInch;
+    }
+
+    public double getRightVelocity() {
+        return (mVelocity + mTurnRate * mHalfTrackWidth) / kMetersPerInch;
+    }
+}
@@ -0,0 +1,74 @@
+package frc.robot.util.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.Constants;
+
+/**
+ * Steps the physics models behind the simulated subsystems
+ *
+ * Each simulated IO (see frc.robot.subsystems.io) registers a model when
+ * it's built. The models are stepped every kPhysicsStepSec, either from a
+ * Notifier, when the robot code runs in real time on a laptop, or between
+ * loops, when it runs in lock step (see Simulation).
+ */
+public class PhysicsSim {
+
+    private static PhysicsSim sInstance;
+
+    public static PhysicsSim getInstance() {
+        if (sInstance == null) {
+            sInstance = new PhysicsSim();
+        }
+        return sInstance;
+    }
+
+    public interface Model {
+        /**
+         * @param dt      Seconds to advance
+         * @param enabled Whether the robot is enabled. Motor controllers are
+         *                neutral if not
+         */
+        void step(double dt, boolean enabled);
+    }
+
+    private final List<Model> mModels = new ArrayList<>();
+    private Notifier mNotifier;
+    private double mPending = 0;
+
+    private PhysicsSim() {}
+
+    public synchronized void register(Model model) {
+        mModels.add(model);
+    }
+
+    /**
+     * Advance every model, in steps of kPhysicsStepSec. Time that doesn't
+     * make up a whole step is carried over to the next call
+     * @param dt Seconds
+     */
+    public synchronized void step(double dt) {
+        boolean enabled = DriverStation.getInstance().isEnabled();
+        mPending += dt;
+        while (mPending >= Constants.Simulation.kPhysicsStepSec / 2) {
+            for (int i = 0; i < mModels.size(); i++) {
+                mModels.get(i).step(Constants.Simulation.kPhysicsStepSec, enabled);
+            }
+            mPending -= Constants.Simulation.kPhysicsStepSec;
+        }
+    }
+
+    /**
+     * Step the physics in real time, alongside TimedRobot
+     */
+    public synchronized void startRealTime() {
+        if (mNotifier != null) {
+            return;
+        }
+        mNotifier = new Notifier(() -> step(Constants.Simulation.kRealTimePeriodSec));
+        mNotifier.startPeriodic(Constants.Simulation.kRealTimePeriodSec);
+    }
+}
@@ -0,0 +1,69 @@
+package frc.robot.util.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.Robot;
+import frc.robot.controllers.XboxController;
+import frc.robot.util.replay.CycleInputs;
+
+/**
+ * Something to do with the simulated robot, and what should happen, for
+ * SimRunner to play through in lock step
+ *
+ * Before each loop the scenario picks the mode and works the controllers,
+ * and checks on the robot. Anything that isn't right is recorded as a
+ * failure.
+ */
+public abstract class Scenario {
+
+    private final String mName;
+    private final double mDuration;
+    private final List<String> mFailures = new ArrayList<>();
+
+    protected Scenario(String name, double duration) {
+        mName = name;
+        mDuration = duration;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return Seconds to run for
+     */
+    public double getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Called before each loop
+     * @param time Seconds since the scenario started
+     * @return The mode to run the loop in
+     */
+    public abstract CycleInputs.Mode update(double time);
+
+    /**
+     * Called after the last loop
+     */
+    public void finish() {}
+
+    protected void expect(boolean condition, String failure) {
+        if (!condition) {
+            mFailures.add(failure);
+        }
+    }
+
+    public List<String> getFailures() {
+        return mFailures;
+    }
+
+    protected static XboxController getDriver() {
+        return Robot.m_oi.getDriverController();
+    }
+
+    protected static XboxController getOperator() {
+        return Robot.m_oi.getOperatorController();
+    }
+}
@@ -0,0 +1,122 @@
+package frc.robot.util.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Robot;
+import frc.robot.util.replay.LoopStepper;
+import frc.robot.util.trajectory.Trajectory;
+import frc.robot.util.trajectory.TrajectoryFormat;
+import frc.robot.util.trajectory.TrajectoryLibrary;
+
+/**
+ * Plays scenarios through the simulated robot in lock step, as fast as it
+ * will go
+ *
+ * Each loop, the scenario picks the mode and works the controllers, the
+ * robot runs one loop the way TimedRobot would, then the physics and the
+ * clock are advanced by one period. A whole autonomous routine takes well
+ * under a second.
+ *
+ * The subsystems, the scheduler and the HAL are all singletons, so each
+ * scenario is run in a JVM of its own. With no arguments, every scenario is
+ * run and the exit code says whether they all passed, for CI. Run with
+ * ./gradlew simulate, or ./gradlew simulate -Pscenario="Arm presets" for one.
+ */
+public class SimRunner {
+
+    /**
+     * @return Every scenario, by name. One for each deployed trajectory, plus
+     *         the teleop scenarios
+     */
+    private static Map<String, Supplier<Scenario>> getScenarios() {
+        Map<String, Supplier<Scenario>> scenarios = new LinkedHashMap<>();
+        TrajectoryLibrary trajectories = TrajectoryLibrary.load(
+                Filesystem.getDeployDirectory().toPath().resolve(TrajectoryFormat.kFileName));
+        for (Trajectory trajectory : trajectories.getAll()) {
+            Supplier<Scenario> scenario = () -> new AutoPathScenario(trajectory);
+            scenarios.put(scenario.get().getName(), scenario);
+        }
+        scenarios.put("Arm presets", ArmPresetScenario::new);
+        scenarios.put("Cargo intake", CargoIntakeScenario::new);
+        return scenarios;
+    }
+
+    /**
+     * Run a scenario in this JVM
+     * @return Whether it passed
+     */
+    private static boolean run(Scenario scenario) {
+        // Everything has to know it's in lock step before it's built
+        Simulation.enableLockStep();
+        Robot robot = new Robot();
+        robot.robotInit();
+        LoopStepper stepper = new LoopStepper(robot);
+        double period = robot.getPeriod();
+        int loops = (int) Math.ceil(scenario.getDuration() / period);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            stepper.step(scenario.update(i * period));
+            Simulation.advance(period);
+        }
+        scenario.finish();
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%s: %.1fs simulated in %.2fs, %.0fx real time", scenario.getName(),
+                loops * period, elapsedSec, loops * period / elapsedSec));
+        for (String failure : scenario.getFailures()) {
+            System.out.println("  " + failure);
+        }
+        return scenario.getFailures().isEmpty();
+    }
+
+    /**
+     * Run a scenario in a JVM of its own
+     * @return Whether it passed
+     */
+    private static boolean runIsolated(String name) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java,
+                "-Djava.library.path=" + System.getProperty("java.library.path"),
+                "-cp", System.getProperty("java.class.path"),
+                SimRunner.class.getName(), name)
+                .inheritIO()
+                .start();
+        return process.waitFor() == 0;
+    }
+
+    /**
+     * @param args The scenario to run, or nothing to run them all
+     */
+    public static void main(String... args) throws IOException, InterruptedException {
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Could not initialize the HAL");
+        }
+        Map<String, Supplier<Scenario>> scenarios = getScenarios();
+
+        if (args.length > 0) {
+            Supplier<Scenario> scenario = scenarios.get(args[0]);
+            if (scenario == null) {
+                System.err.println("No scenario " + args[0] + ", pick from " + scenarios.keySet());
+                System.exit(2);
+            }
+            System.exit(run(scenario.get()) ? 0 : 1);
+        }
+
+        int failed = 0;
+        for (String name : scenarios.keySet()) {
+            if (!runIsolated(name)) {
+                failed++;
+            }
+        }
+        System.out.println(failed == 0 ? "All " + scenarios.size() + " scenarios passed"
+                : failed + " of " + scenarios.size() + " scenarios failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
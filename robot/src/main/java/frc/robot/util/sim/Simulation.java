@@ -0,0 +1,42 @@
+package frc.robot.util.sim;
+
+import frc.robot.util.Clock;
+
+/**
+ * Whether the simulation runs in lock step with the robot loop
+ *
+ * On a laptop the subsystems drive physics models instead of hardware (see
+ * PhysicsSim). Normally that runs in real time, next to the driver station.
+ * In lock step, nothing waits on the wall clock: whoever is driving the
+ * robot (see SimRunner) runs a loop, advances the physics by one period,
+ * and moves the clock on, as fast as it can. The controllers aren't read
+ * from the driver station either; the scenario sets them.
+ */
+public final class Simulation {
+
+    private static boolean sLockStep = false;
+    private static double sTime = 0;
+
+    private Simulation() {}
+
+    /**
+     * Switch to lock step. Must be called before anything is built
+     */
+    public static void enableLockStep() {
+        sLockStep = true;
+        Clock.setSource(() -> sTime);
+    }
+
+    public static boolean isLockStep() {
+        return sLockStep;
+    }
+
+    /**
+     * Advance the physics, and the clock, in lock step
+     * @param dt Seconds
+     */
+    public static void advance(double dt) {
+        PhysicsSim.getInstance().step(dt);
+        sTime += dt;
+    }
+}
@@ -0,0 +1,137 @@
+package frc.robot.util.sim;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+import frc.robot.util.Util;
+
+/**
+ * What a Talon SRX does with its control mode and demand, run every 1ms like
+ * the Talon's own loop
+ *
+ * Percent output is passed straight through. Motion Magic is emulated the
+ * way the Talon documents it: a trapezoidal trajectory is generated towards
+ * the target from the cruise velocity and acceleration, and the slot's PIDF
+ * gains close the loop on it, in the Talon's units (1023 is full output,
+ * velocities are ticks per 100ms). The integral is cleared outside the
+ * integral zone, and the derivative is the change in error per loop. The
+ * arbitrary feedforward is added on top. Any other mode is neutral.
+ *
+ * The output is a fraction of the voltage compensation saturation.
+ */
+public class TalonSRXModel {
+
+    private double mKp, mKi, mKd, mKf;
+    private final double mIntegralZone;
+
+    private ControlMode mMode = ControlMode.Disabled;
+    private double mDemand, mArbFeedForward;
+
+    // Ticks per second, and per second squared
+    private double mCruiseVelocity, mAcceleration;
+
+    // Motion Magic's trajectory, restarted from the sensor whenever Motion
+    // Magic is entered
+    private boolean mRestartTrajectory = true;
+    private double mTrajectoryPosition, mTrajectoryVelocity;
+
+    private double mIntegral, mLastError;
+    private double mOutput;
+
+    public TalonSRXModel(double kP, double kI, double kD, double kF, int integralZone) {
+        setGains(kP, kI, kD, kF);
+        mIntegralZone = integralZone;
+    }
+
+    public void setGains(double kP, double kI, double kD, double kF) {
+        mKp = kP;
+        mKi = kI;
+        mKd = kD;
+        mKf = kF;
+    }
+
+    public void set(ControlMode mode, double demand, double arbFeedForward) {
+        if (mode != mMode) {
+            mRestartTrajectory = true;
+        }
+        mMode = mode;
+        mDemand = demand;
+        mArbFeedForward = arbFeedForward;
+    }
+
+    /**
+     * @param cruiseVelocity Ticks per 100ms
+     * @param acceleration   Ticks per 100ms per second
+     */
+    public void setMotionMagicLimits(int cruiseVelocity, int acceleration) {
+        mCruiseVelocity = cruiseVelocity * 10.0;
+        mAcceleration = acceleration * 10.0;
+    }
+
+    /**
+     * Run one control loop
+     * @param dt       Seconds since the last loop
+     * @param enabled  Whether the robot is enabled. The Talon is neutral if not
+     * @param position Sensor position in ticks
+     * @param velocity Sensor velocity in ticks per 100ms
+     * @return The output, from -1 to 1
+     */
+    public double update(double dt, boolean enabled, double position, double velocity) {
+        if (!enabled) {
+            mRestartTrajectory = true;
+            mOutput = 0;
+        } else if (mMode == ControlMode.PercentOutput) {
+            mOutput = Util.limit(mDemand, -1, 1);
+        } else if (mMode == ControlMode.MotionMagic) {
+            mOutput = updateMotionMagic(dt, position, velocity);
+        } else {
+            mOutput = 0;
+        }
+        return mOutput;
+    }
+
+    private double updateMotionMagic(double dt, double position, double velocity) {
+        if (mRestartTrajectory) {
+            mTrajectoryPosition = position;
+            mTrajectoryVelocity = velocity * 10;
+            mIntegral = 0;
+            mLastError = 0;
+            mRestartTrajectory = false;
+        }
+
+        // Head for the target as fast as we can while still being able to
+        // stop there
+        double remaining = mDemand - mTrajectoryPosition;
+        double desired = Math.copySign(Math.min(mCruiseVelocity, Math.sqrt(2 * mAcceleration * Math.abs(remaining))),
+                remaining);
+        double maxChange = mAcceleration * dt;
+        mTrajectoryVelocity += Util.limit(desired - mTrajectoryVelocity, -maxChange, maxChange);
+        mTrajectoryPosition += mTrajectoryVelocity * dt;
+        if ((mDemand - mTrajectoryPosition) * remaining <= 0) {
+            mTrajectoryPosition = mDemand;
+            mTrajectoryVelocity = 0;
+        }
+
+        double error = mTrajectoryPosition - position;
+        if (mIntegralZone != 0 && Math.abs(error) > mIntegralZone) {
+            mIntegral = 0;
+        } else {
+            mIntegral += error;
+        }
+        double output = mKp * error + mKi * mIntegral + mKd * (error - mLastError)
+                + mKf * mTrajectoryVelocity / 10;
+        mLastError = error;
+
+        return Util.limit(output / 1023 + mArbFeedForward, -1, 1);
+    }
+
+    public double getOutput() {
+        return mOutput;
+    }
+
+    /**
+     * @return Motion Magic's target velocity, in ticks per 100ms
+     */
+    public int getActiveTrajectoryVelocity() {
+        return mMode == ControlMode.MotionMagic ? (int) (mTrajectoryVelocity / 10) : 0;
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.util.trajectory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A time-parameterized drivetrain trajectory
+ *
+ * This is a view onto the memory-mapped trajectory file. Points are read
+ * straight out of the mapping when asked for, so nothing is copied or
+ * allocated.
+ */
+public class Trajectory {
+    private final String mName;
+    private final ByteBuffer mBuffer;
+    private final int mOffset;
+    private final int mLength;
+    private final double mDtSec;
+
+    Trajectory(String name, ByteBuffer buffer, int offset, int length, double dtSec) {
+        mName = name;
+        mBuffer = buffer;
+        mOffset = offset;
+        mLength = length;
+        mDtSec = dtSec;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return Number of points
+     */
+    public int length() {
+        return mLength;
+    }
+
+    /**
+     * @return Time between points, in seconds
+     */
+    public double getDt() {
+        return mDtSec;
+    }
+
+    /**
+     * @return Time to drive the whole trajectory, in seconds
+     */
+    public double getDuration() {
+        return (mLength - 1) * mDtSec;
+    }
+
+    /**
+     * @return Index of the point to follow at the given time since the start
+     */
+    public int getIndex(double timeSec) {
+        int index = (int) (timeSec / mDtSec);
+        return Math.max(0, Math.min(mLength - 1, index));
+    }
+
+    public double getX(int index) {
+        return get(index, TrajectoryFormat.kX);
+    }
+
+    public double getY(int index) {
+        return get(index, TrajectoryFormat.kY);
+    }
+
+    public double getHeading(int index) {
+        return get(index, TrajectoryFormat.kHeading);
+    }
+
+    public double getDistance(int index) {
+        return get(index, TrajectoryFormat.kDistance);
+    }
+
+    public double getVelocity(int index) {
+        return get(index, TrajectoryFormat.kVelocity);
+    }
+
+    public double getAcceleration(int index) {
+        return get(index, TrajectoryFormat.kAcceleration);
+    }
+
+    public double getCurvature(int index) {
+        return get(index, TrajectoryFormat.kCurvature);
+    }
+
+    public double getLeftVelocity(int index) {
+        return get(index, TrajectoryFormat.kLeftVelocity);
+    }
+
+    public double getRightVelocity(int index) {
+        return get(index, TrajectoryFormat.kRightVelocity);
+    }
+
+    private double get(int index, int field) {
+        return mBuffer.getFloat(mOffset + index * TrajectoryFormat.kPointBytes + field);
+    }
+}
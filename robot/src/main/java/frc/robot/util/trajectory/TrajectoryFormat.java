@@ -0,0 +1,46 @@
+package frc.robot.util.trajectory;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary trajectory file
+ *
+ * Written at build time by the trajgen source set, and read on the robot by
+ * TrajectoryLibrary. Everything is little-endian.
+ *
+ *  Header:     magic, version, trajectory count (3 ints)
+ *  Directory:  one entry per trajectory: name (ASCII, zero padded), byte
+ *              offset of the first point, point count (ints), time between
+ *              points in seconds (float)
+ *  Points:     each trajectory's points, back to back, as floats. See the
+ *              k* offsets below
+ *
+ * Bump kVersion whenever the layout changes.
+ */
+public final class TrajectoryFormat {
+    public static final int kMagic = 0x4A415254; // "TRAJ"
+    public static final int kVersion = 1;
+    public static final ByteOrder kByteOrder = ByteOrder.LITTLE_ENDIAN;
+
+    public static final String kFileName = "trajectories.bin";
+
+    public static final int kHeaderBytes = 12;
+
+    public static final int kNameBytes = 32;
+    public static final int kEntryBytes = kNameBytes + 12;
+
+    // Offsets of each value within a point. Distances in inches, angles in
+    // radians (counter-clockwise positive), times in seconds
+    public static final int kX = 0;
+    public static final int kY = 4;
+    public static final int kHeading = 8;
+    public static final int kDistance = 12;
+    public static final int kVelocity = 16;
+    public static final int kAcceleration = 20;
+    public static final int kCurvature = 24;
+    public static final int kLeftVelocity = 28;
+    public static final int kRightVelocity = 32;
+    public static final int kPointBytes = 36;
+
+    private TrajectoryFormat() {}
+}
@@ -0,0 +1,104 @@
+package frc.robot.util.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Every trajectory generated at build time, read from the deploy directory
+ *
+ * Trajectories are generated on the development machine (see the trajgen
+ * source set and the generateTrajectories task), because generating them on
+ * the roboRIO would take seconds. The file is memory-mapped rather than
+ * read, so loading only parses the directory at the front of it, and the
+ * points are paged in as they're followed.
+ */
+public class TrajectoryLibrary {
+
+    private final Trajectory[] mTrajectories;
+
+    private TrajectoryLibrary(Trajectory[] trajectories) {
+        mTrajectories = trajectories;
+    }
+
+    /**
+     * Map a trajectory file. Reports a warning and returns an empty library if
+     * the file is missing or invalid, so the robot still runs without it.
+     * @param path The trajectory file
+     */
+    public static TrajectoryLibrary load(Path path) {
+        if (!Files.exists(path)) {
+            DriverStation.reportWarning("No trajectory file at " + path, false);
+            return new TrajectoryLibrary(new Trajectory[0]);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(TrajectoryFormat.kByteOrder);
+            return new TrajectoryLibrary(parse(buffer));
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            DriverStation.reportError("Could not load trajectories from " + path + ": " + e, false);
+            return new TrajectoryLibrary(new Trajectory[0]);
+        }
+    }
+
+    private static Trajectory[] parse(ByteBuffer buffer) {
+        if (buffer.getInt(0) != TrajectoryFormat.kMagic) {
+            throw new IllegalArgumentException("not a trajectory file");
+        }
+        int version = buffer.getInt(4);
+        if (version != TrajectoryFormat.kVersion) {
+            throw new IllegalArgumentException("version " + version + ", expected " + TrajectoryFormat.kVersion);
+        }
+
+        int count = buffer.getInt(8);
+        Trajectory[] trajectories = new Trajectory[count];
+        byte[] name = new byte[TrajectoryFormat.kNameBytes];
+
+        for (int i = 0; i < count; i++) {
+            int entry = TrajectoryFormat.kHeaderBytes + i * TrajectoryFormat.kEntryBytes;
+            int nameLength = 0;
+            while (nameLength < name.length && buffer.get(entry + nameLength) != 0) {
+                name[nameLength] = buffer.get(entry + nameLength);
+                nameLength++;
+            }
+
+            int offset = buffer.getInt(entry + TrajectoryFormat.kNameBytes);
+            int length = buffer.getInt(entry + TrajectoryFormat.kNameBytes + 4);
+            float dtSec = buffer.getFloat(entry + TrajectoryFormat.kNameBytes + 8);
+            if (length <= 0 || offset + length * TrajectoryFormat.kPointBytes > buffer.limit()) {
+                throw new IllegalArgumentException("trajectory " + i + " runs past the end of the file");
+            }
+
+            trajectories[i] = new Trajectory(new String(name, 0, nameLength, StandardCharsets.US_ASCII), buffer,
+                    offset, length, dtSec);
+        }
+        return trajectories;
+    }
+
+    /**
+     * @return The trajectory with the given name, or null if there isn't one
+     */
+    public Trajectory get(String name) {
+        for (Trajectory trajectory : mTrajectories) {
+            if (trajectory.getName().equals(name)) {
+                return trajectory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Every trajectory in the library
+     */
+    public Trajectory[] getAll() {
+        return mTrajectories;
+    }
+}
@@ -0,0 +1,157 @@
+package frc.robot.commands.auto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import frc.robot.Constants;
+import frc.robot.util.DriveHelper.SpeedControl;
+import frc.robot.util.LatencyCompensator;
+import frc.robot.util.MotionHistory;
+import frc.robot.util.drivers.Limelight.Values;
+
+/**
+ * Runs AutoDock's phase machine against a scripted camera and drivetrain
+ *
+ * The robot starts a few feet back from the target, off to one side, and
+ * drives with whatever the controller asks for at Trajectory.kV's top speed.
+ * Each loop the camera reports where the target was a frame's latency ago,
+ * and the Limelight's LatencyCompensator projects it to the present, as on
+ * the robot. While ty is in the band the arm covers, there's no target.
+ */
+public class DockControllerTest {
+
+    private static final double kLoopSec = 0.02;
+    private static final double kTimeoutSec = 10;
+    private static final double kFullSpeed = 1 / Constants.Trajectory.kV;
+    private static final double kLatencySec = 0.035;
+
+    // Slowest acceptable approach from the start below, and most it may
+    // still be driving when it reaches the target
+    private static final double kMaxDockSec = 4.0;
+    private static final double kMaxDockingThrottle = 0.1;
+
+    // ty band the arm hides the target in
+    private static final double kOccludedAbove = 3.2;
+    private static final double kOccludedBelow = 12.0;
+
+    // Target at the origin, robot facing it along +x, but offset to the left
+    // and turned slightly away
+    private static final double kStartX = -130;
+    private static final double kStartY = 12;
+    private static final double kStartHeading = Math.toRadians(-3);
+
+    private final MotionHistory mHistory = new MotionHistory(Constants.Drivetrain.kMotionHistorySize);
+    private final LatencyCompensator mCompensator = new LatencyCompensator(mHistory);
+    private final MotionHistory.Pose mCapturePose = new MotionHistory.Pose();
+    private final Values mMeasured = new Values();
+    private final Values mCompensated = new Values();
+
+    private double mX = kStartX, mY = kStartY, mHeading = kStartHeading, mDistance = 0;
+    private double mTime = 0;
+    private double mThrottle = 0;
+
+    @Test
+    public void docksThroughEclipse() {
+        DockController controller = new DockController();
+        double dockTime = run(controller, false);
+
+        assertEquals(DockController.Phase.DONE, controller.getPhase());
+        assertFalse("Gave up on the target", controller.shouldTerminate());
+        assertTrue("Took " + dockTime + "s to dock", dockTime < kMaxDockSec);
+
+        // Slowed down on the way in
+        assertTrue("Reached the target at " + mThrottle, mThrottle < kMaxDockingThrottle);
+
+        // Lined up with the target at the end
+        assertTrue("Finished at tx " + mMeasured.horizontalOffset, Math.abs(mMeasured.horizontalOffset) < 3);
+    }
+
+    @Test
+    public void ignoresCameraInEclipse() {
+        // The arm's edge shows up as a target way off to the side. It
+        // mustn't pull the estimate over
+        DockController controller = new DockController();
+        double dockTime = run(controller, true);
+
+        assertEquals(DockController.Phase.DONE, controller.getPhase());
+        assertTrue("Took " + dockTime + "s to dock", dockTime < kMaxDockSec);
+        assertTrue("Finished at tx " + mMeasured.horizontalOffset, Math.abs(mMeasured.horizontalOffset) < 3);
+    }
+
+    @Test
+    public void givesUpWithoutTarget() {
+        DockController controller = new DockController();
+        Values nothing = new Values();
+        assertFalse(controller.start(0, 0, 0, nothing, true));
+        assertTrue(controller.shouldTerminate());
+    }
+
+    /**
+     * @return Seconds to dock, or NaN if it didn't
+     */
+    private double run(DockController controller, boolean glitchInEclipse) {
+        recordPose();
+        see(false);
+        assertTrue("Couldn't start", controller.start(mTime, mDistance, mHeading, mCompensated, false));
+
+        boolean sawEclipse = false;
+        while (mTime < kTimeoutSec && controller.getPhase() != DockController.Phase.DONE
+                && !controller.shouldTerminate()) {
+            see(glitchInEclipse);
+            sawEclipse |= controller.getPhase() == DockController.Phase.IN_ECLIPSE;
+            SpeedControl speeds = controller.update(mTime, mDistance, mHeading, mCompensated, false, true);
+            if (controller.getPhase() != DockController.Phase.DONE) {
+                mThrottle = (speeds.left + speeds.right) / 2;
+            }
+            drive(speeds.left, speeds.right);
+        }
+        assertTrue("Never went through the eclipse", sawEclipse);
+        return controller.getDockTime();
+    }
+
+    private void recordPose() {
+        mHistory.add(mTime, mX, mY, mHeading, mDistance);
+    }
+
+    /**
+     * Fill in what the camera reports this loop, and compensate it
+     */
+    private void see(boolean glitchInEclipse) {
+        double captureTime = Math.max(0, mTime - kLatencySec);
+        mHistory.getPoseAt(captureTime, mCapturePose);
+
+        double dx = -mCapturePose.x;
+        double dy = -mCapturePose.y;
+        double bearing = Math.atan2(dy, dx) - mCapturePose.headingRad;
+        double ty = LatencyCompensator.getVerticalOffset(Math.hypot(dx, dy));
+        boolean occluded = ty > kOccludedAbove && ty < kOccludedBelow;
+
+        // A glitch is the arm's edge, off to the side and low in the band
+        mMeasured.targetInSight = !occluded || glitchInEclipse;
+        mMeasured.horizontalOffset = occluded ? 20 : -Math.toDegrees(Math.atan2(Math.sin(bearing), Math.cos(bearing)));
+        mMeasured.verticalOffset = occluded ? kOccludedAbove + 1 : ty;
+        mMeasured.captureTimeSec = captureTime;
+        mCompensator.compensate(mMeasured, mTime, mCompensated);
+    }
+
+    /**
+     * Move the robot for one loop
+     */
+    private void drive(double left, double right) {
+        double leftSpeed = Math.max(-1, Math.min(1, left)) * kFullSpeed;
+        double rightSpeed = Math.max(-1, Math.min(1, right)) * kFullSpeed;
+        double speed = (leftSpeed + rightSpeed) / 2;
+        double turnRate = (rightSpeed - leftSpeed) / Constants.Drivetrain.kTrackWidthInches;
+
+        double midHeading = mHeading + turnRate * kLoopSec / 2;
+        mX += speed * kLoopSec * Math.cos(midHeading);
+        mY += speed * kLoopSec * Math.sin(midHeading);
+        mHeading += turnRate * kLoopSec;
+        mDistance += speed * kLoopSec;
+        mTime += kLoopSec;
+        recordPose();
+    }
+}
@@ -0,0 +1,299 @@
+package frc.robot.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+import frc.robot.Constants;
+import frc.robot.util.DriveHelper.SpeedControl;
+
+/**
+ * Checks that the SpeedControl out variants of DriveHelper don't allocate,
+ * and drive exactly like the allocating versions they replaced. Curvature
+ * drive has to match DifferentialDrive.curvatureDrive()
+ */
+public class DriveHelperTest {
+
+  private static final int kWarmupLoops = 20000;
+  private static final int kMeasuredLoops = 10000;
+
+  private final com.sun.management.ThreadMXBean mThreads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final long mThreadId = Thread.currentThread().getId();
+
+  private final DriveHelper mHelper = new DriveHelper();
+  private final SpeedControl mOut = new SpeedControl();
+
+  // Where each result goes. Storing it in a field means a SpeedControl
+  // allocated by the call can't be optimized away by escape analysis
+  private SpeedControl mResult;
+
+  @Test
+  public void arcadeDriveDoesNotAllocate() {
+    assertNoAllocation("arcadeDrive", i -> mHelper.arcadeDrive(input(i), input(i + 1), i % 64 < 16, false, mOut));
+  }
+
+  @Test
+  public void autoDriveDoesNotAllocate() {
+    assertNoAllocation("autoDrive", i -> mHelper.autoDrive(input(i), input(i + 1), mOut));
+  }
+
+  @Test
+  public void curvatureDriveDoesNotAllocate() {
+    assertNoAllocation("curvatureDrive", i -> mHelper.curvatureDrive(input(i), input(i + 1), i % 64 < 16, mOut));
+  }
+
+  @Test
+  public void tankDriveDoesNotAllocate() {
+    assertNoAllocation("tankDrive", i -> mHelper.tankDrive(input(i), input(i + 1), i % 2 == 0, mOut));
+  }
+
+  @Test
+  public void matchesAllocatingDriveHelper() {
+    // Quick turns at low throttle wind up the quick stop accumulator, and
+    // driving or autoDrive afterwards unwinds it, so the accumulator is
+    // carried across every kind of call
+    Random random = new Random(2019);
+    LegacyDriveHelper legacy = new LegacyDriveHelper();
+    WpilibCurvatureDrive wpilib = new WpilibCurvatureDrive();
+    DriveHelper helper = new DriveHelper();
+    SpeedControl out = new SpeedControl();
+
+    for (int i = 0; i < 5000; i++) {
+      double throttle = random.nextDouble() * 2.4 - 1.2;
+      double wheel = random.nextDouble() * 2.4 - 1.2;
+      int phase = (i / 50) % 4;
+
+      if (phase == 0) {
+        // Spin in place, one way for the whole phase, so the accumulator
+        // winds well past 1
+        throttle *= 0.1;
+        wheel = Math.copySign(wheel, (i / 200) % 2 == 0 ? 1 : -1);
+        assertSame(i, legacy.arcadeDrive(throttle, wheel, true, false),
+            helper.arcadeDrive(throttle, wheel, true, false, out));
+      } else if (phase == 1) {
+        boolean quickTurn = random.nextInt(8) == 0;
+        assertSame(i, legacy.arcadeDrive(throttle, wheel, quickTurn, false),
+            helper.arcadeDrive(throttle, wheel, quickTurn, false, out));
+      } else if (phase == 2) {
+        assertSame(i, legacy.autoDrive(throttle, wheel), helper.autoDrive(throttle, wheel, out));
+      } else {
+        // Curvature drive keeps its own accumulator, so it's wound up here.
+        // Small inputs hit the deadband
+        boolean quickTurn = random.nextBoolean();
+        if (random.nextInt(8) == 0) {
+          throttle *= 0.02;
+        }
+        assertSame(i, wpilib.curvatureDrive(throttle, wheel, quickTurn),
+            helper.curvatureDrive(throttle, wheel, quickTurn, out));
+      }
+    }
+  }
+
+  private interface Call {
+    SpeedControl run(int i);
+  }
+
+  private void assertNoAllocation(String name, Call call) {
+    assumeTrue(mThreads.isThreadAllocatedMemorySupported());
+    mThreads.setThreadAllocatedMemoryEnabled(true);
+
+    // Let the JIT compile it, and the allocation counter itself
+    for (int i = 0; i < kWarmupLoops; i++) {
+      mResult = call.run(i);
+    }
+    long overhead = allocatedBytes();
+    overhead = allocatedBytes() - overhead;
+
+    long start = allocatedBytes();
+    for (int i = 0; i < kMeasuredLoops; i++) {
+      mResult = call.run(i);
+    }
+    long allocated = allocatedBytes() - start - overhead;
+
+    assertEquals(name + " allocated", 0, allocated);
+  }
+
+  private long allocatedBytes() {
+    return mThreads.getThreadAllocatedBytes(mThreadId);
+  }
+
+  /**
+   * Inputs that go out of range and into the deadband
+   */
+  private static double input(int i) {
+    return Math.sin(i * 0.37) * 1.2;
+  }
+
+  private static void assertSame(int step, SpeedControl expected, SpeedControl actual) {
+    assertEquals("left at step " + step, Double.doubleToRawLongBits(expected.left),
+        Double.doubleToRawLongBits(actual.left));
+    assertEquals("right at step " + step, Double.doubleToRawLongBits(expected.right),
+        Double.doubleToRawLongBits(actual.right));
+  }
+
+  /**
+   * DriveHelper as it was before the SpeedControl out variants, allocating a
+   * SpeedControl for every call
+   */
+  private static class LegacyDriveHelper {
+    private static final double kQuickStopDeadband = 0.2;
+    private static final double kQuickStopWeight = 0.1;
+    private static final double kQuickStopScalar = 5.0;
+
+    private double mQuickStopAccumulator = 0.0;
+
+    private double mThrottleDeadband = Constants.kDriveControllerDeadband;
+    private double mWheelDeadband = Constants.kDriveControllerDeadband;
+
+    public SpeedControl arcadeDrive(double throttle, double wheel, boolean isQuickTurn, boolean isHighGear) {
+      throttle = Util.limit(throttle, 1.0);
+      throttle = DriveHelper.handleDeadband(throttle, mThrottleDeadband);
+
+      wheel = Util.limit(wheel, 1.0);
+      wheel = DriveHelper.handleDeadband(wheel, mWheelDeadband);
+
+      double angularPower;
+
+      if (isQuickTurn) {
+        if (Math.abs(throttle) < kQuickStopDeadband) {
+          double alpha = kQuickStopWeight;
+          mQuickStopAccumulator = (1 - alpha) * mQuickStopAccumulator + (alpha * wheel * kQuickStopScalar);
+        }
+        angularPower = wheel;
+      } else {
+        angularPower = Math.abs(throttle) * wheel - mQuickStopAccumulator;
+
+        if (mQuickStopAccumulator > 1) {
+          mQuickStopAccumulator -= 1;
+        } else if (mQuickStopAccumulator < -1) {
+          mQuickStopAccumulator += 1;
+        } else {
+          mQuickStopAccumulator = 0.0;
+        }
+      }
+
+      double leftPwm = throttle - angularPower;
+      double rightPwm = throttle + angularPower;
+
+      return new SpeedControl(leftPwm, rightPwm);
+    }
+
+    public SpeedControl autoDrive(double distance, double angle) {
+      distance = Util.limit(distance, 1.0);
+      angle = Util.limit(angle, .4);
+
+      double angularPower = Math.abs(distance) * angle - mQuickStopAccumulator;
+
+      if (mQuickStopAccumulator > 1) {
+        mQuickStopAccumulator -= 1;
+      } else if (mQuickStopAccumulator < -1) {
+        mQuickStopAccumulator += 1;
+      } else {
+        mQuickStopAccumulator = 0.0;
+      }
+
+      double leftPwm = distance - angularPower;
+      double rightPwm = distance + angularPower;
+
+      return new SpeedControl(leftPwm, rightPwm);
+    }
+  }
+
+  /**
+   * DifferentialDrive.curvatureDrive() from WPILib 2019, with the default
+   * deadband and max output, returning what it would set the motors to
+   */
+  private static class WpilibCurvatureDrive {
+    private double m_quickStopThreshold = 0.2;
+    private double m_quickStopAlpha = 0.1;
+    private double m_quickStopAccumulator = 0.0;
+    private double m_deadband = 0.02;
+
+    public SpeedControl curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+      xSpeed = limit(xSpeed);
+      xSpeed = applyDeadband(xSpeed, m_deadband);
+
+      zRotation = limit(zRotation);
+      zRotation = applyDeadband(zRotation, m_deadband);
+
+      double angularPower;
+      boolean overPower;
+
+      if (isQuickTurn) {
+        if (Math.abs(xSpeed) < m_quickStopThreshold) {
+          m_quickStopAccumulator = (1 - m_quickStopAlpha) * m_quickStopAccumulator
+              + m_quickStopAlpha * limit(zRotation) * 2;
+        }
+        overPower = true;
+        angularPower = zRotation;
+      } else {
+        overPower = false;
+        angularPower = Math.abs(xSpeed) * zRotation - m_quickStopAccumulator;
+
+        if (m_quickStopAccumulator > 1) {
+          m_quickStopAccumulator -= 1;
+        } else if (m_quickStopAccumulator < -1) {
+          m_quickStopAccumulator += 1;
+        } else {
+          m_quickStopAccumulator = 0.0;
+        }
+      }
+
+      double leftMotorOutput = xSpeed + angularPower;
+      double rightMotorOutput = xSpeed - angularPower;
+
+      // If rotation is overpowered, reduce both outputs to within acceptable range
+      if (overPower) {
+        if (leftMotorOutput > 1.0) {
+          rightMotorOutput -= leftMotorOutput - 1.0;
+          leftMotorOutput = 1.0;
+        } else if (rightMotorOutput > 1.0) {
+          leftMotorOutput -= rightMotorOutput - 1.0;
+          rightMotorOutput = 1.0;
+        } else if (leftMotorOutput < -1.0) {
+          rightMotorOutput -= leftMotorOutput + 1.0;
+          leftMotorOutput = -1.0;
+        } else if (rightMotorOutput < -1.0) {
+          leftMotorOutput -= rightMotorOutput + 1.0;
+          rightMotorOutput = -1.0;
+        }
+      }
+
+      // Normalize the wheel speeds
+      double maxMagnitude = Math.max(Math.abs(leftMotorOutput), Math.abs(rightMotorOutput));
+      if (maxMagnitude > 1.0) {
+        leftMotorOutput /= maxMagnitude;
+        rightMotorOutput /= maxMagnitude;
+      }
+
+      return new SpeedControl(leftMotorOutput, rightMotorOutput);
+    }
+
+    private static double limit(double value) {
+      if (value > 1.0) {
+        return 1.0;
+      }
+      if (value < -1.0) {
+        return -1.0;
+      }
+      return value;
+    }
+
+    private static double applyDeadband(double value, double deadband) {
+      if (Math.abs(value) > deadband) {
+        if (value > 0.0) {
+          return (value - deadband) / (1.0 - deadband);
+        } else {
+          return (value + deadband) / (1.0 - deadband);
+        }
+      } else {
+        return 0.0;
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package frc.trajgen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.Constants;
+
+/**
+ * The paths to generate trajectories for
+ *
+ * Waypoints are in inches and degrees, relative to where the robot is when it
+ * starts following the path, facing along +x. Add a path here, rebuild and
+ * deploy, and it shows up in the Auto Path chooser.
+ */
+public final class PathDefinitions {
+
+    public static class Waypoint {
+        public final double x, y, headingDeg;
+
+        public Waypoint(double x, double y, double headingDeg) {
+            this.x = x;
+            this.y = y;
+            this.headingDeg = headingDeg;
+        }
+    }
+
+    public static class Path {
+        public final String name;
+        public final Waypoint[] waypoints;
+
+        public Path(String name, Waypoint... waypoints) {
+            this.name = name;
+            this.waypoints = waypoints;
+        }
+    }
+
+    // Limits every path is generated with, in inches and seconds. Top speed
+    // leaves headroom under the drive's free speed for the feedback to use
+    public static final double kMaxVelocity = 0.9 * Constants.Drivetrain.kFreeSpeedInchesPerSec;
+    public static final double kMaxAcceleration = 80;
+    public static final double kMaxCentripetalAcceleration = 60;
+
+    public static final double kDtSec = 0.01;
+
+    public static List<Path> all() {
+        List<Path> paths = new ArrayList<>();
+
+        paths.add(new Path("Straight10ft",
+                new Waypoint(0, 0, 0),
+                new Waypoint(120, 0, 0)));
+
+        paths.add(new Path("SCurveLeft",
+                new Waypoint(0, 0, 0),
+                new Waypoint(100, 40, 0)));
+
+        paths.add(new Path("SCurveRight",
+                new Waypoint(0, 0, 0),
+                new Waypoint(100, -40, 0)));
+
+        return paths;
+    }
+
+    private PathDefinitions() {}
+}
@@ -0,0 +1,267 @@
+package frc.trajgen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.Constants;
+import frc.robot.util.trajectory.TrajectoryFormat;
+
+/**
+ * Turns the PathDefinitions into time-parameterized trajectories, and writes them in
+ * the TrajectoryFormat layout
+ *
+ * Runs on the development machine as part of the build (the
+ * generateTrajectories task). Each path is a quintic Hermite spline through
+ * its waypoints. The spline is sampled finely, each sample gets the fastest
+ * velocity its curvature allows, and forward and backward passes then hold
+ * acceleration within limits, starting and ending at rest. The result is
+ * resampled at a fixed time step, so the robot can index points by time.
+ *
+ * Usage: TrajectoryGenerator <output file>
+ */
+public class TrajectoryGenerator {
+
+    // Spline samples per segment
+    private static final int kSamplesPerSegment = 1000;
+
+    // Length of the tangent at each waypoint, as a multiple of the distance
+    // to the next waypoint
+    private static final double kTangentScale = 1.2;
+
+    private static final int kFloatsPerPoint = TrajectoryFormat.kPointBytes / 4;
+
+    private static class Sample {
+        double x, y, heading, curvature, distance;
+        double velocity, time;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TrajectoryGenerator <output file>");
+            System.exit(1);
+        }
+
+        List<PathDefinitions.Path> paths = PathDefinitions.all();
+        List<float[]> trajectories = new ArrayList<>();
+        for (PathDefinitions.Path path : paths) {
+            float[] points = generate(path);
+            trajectories.add(points);
+            int length = points.length / kFloatsPerPoint;
+            System.out.println(String.format("%-32s %5d points, %.2fs", path.name, length,
+                    (length - 1) * PathDefinitions.kDtSec));
+        }
+
+        write(Paths.get(args[0]), paths, trajectories);
+    }
+
+    private static float[] generate(PathDefinitions.Path path) {
+        if (path.waypoints.length < 2) {
+            throw new IllegalArgumentException(path.name + " needs at least two waypoints");
+        }
+        if (path.name.length() >= TrajectoryFormat.kNameBytes) {
+            throw new IllegalArgumentException(path.name + " is too long a name");
+        }
+
+        Sample[] samples = sample(path.waypoints);
+        limitVelocity(samples);
+        return resample(samples);
+    }
+
+    /**
+     * Sample the spline through the waypoints, with the heading, curvature and
+     * distance travelled at each sample
+     */
+    private static Sample[] sample(PathDefinitions.Waypoint[] waypoints) {
+        int segments = waypoints.length - 1;
+        Sample[] samples = new Sample[segments * kSamplesPerSegment + 1];
+        int n = 0;
+
+        for (int segment = 0; segment < segments; segment++) {
+            PathDefinitions.Waypoint a = waypoints[segment];
+            PathDefinitions.Waypoint b = waypoints[segment + 1];
+            double scale = kTangentScale * Math.hypot(b.x - a.x, b.y - a.y);
+            double ax = scale * Math.cos(Math.toRadians(a.headingDeg));
+            double ay = scale * Math.sin(Math.toRadians(a.headingDeg));
+            double bx = scale * Math.cos(Math.toRadians(b.headingDeg));
+            double by = scale * Math.sin(Math.toRadians(b.headingDeg));
+
+            // Every segment after the first starts where the last one ended
+            for (int i = segment == 0 ? 0 : 1; i <= kSamplesPerSegment; i++) {
+                double t = (double) i / kSamplesPerSegment;
+                double t2 = t * t, t3 = t2 * t, t4 = t3 * t, t5 = t4 * t;
+
+                // Quintic Hermite basis, with zero second derivative at both ends
+                double h0 = 1 - 10 * t3 + 15 * t4 - 6 * t5;
+                double h1 = t - 6 * t3 + 8 * t4 - 3 * t5;
+                double h2 = -4 * t3 + 7 * t4 - 3 * t5;
+                double h3 = 10 * t3 - 15 * t4 + 6 * t5;
+
+                double dh0 = -30 * t2 + 60 * t3 - 30 * t4;
+                double dh1 = 1 - 18 * t2 + 32 * t3 - 15 * t4;
+                double dh2 = -12 * t2 + 28 * t3 - 15 * t4;
+                double dh3 = 30 * t2 - 60 * t3 + 30 * t4;
+
+                double ddh0 = -60 * t + 180 * t2 - 120 * t3;
+                double ddh1 = -36 * t + 96 * t2 - 60 * t3;
+                double ddh2 = -24 * t + 84 * t2 - 60 * t3;
+                double ddh3 = 60 * t - 180 * t2 + 120 * t3;
+
+                double x = h0 * a.x + h1 * ax + h2 * bx + h3 * b.x;
+                double y = h0 * a.y + h1 * ay + h2 * by + h3 * b.y;
+                double dx = dh0 * a.x + dh1 * ax + dh2 * bx + dh3 * b.x;
+                double dy = dh0 * a.y + dh1 * ay + dh2 * by + dh3 * b.y;
+                double ddx = ddh0 * a.x + ddh1 * ax + ddh2 * bx + ddh3 * b.x;
+                double ddy = ddh0 * a.y + ddh1 * ay + ddh2 * by + ddh3 * b.y;
+
+                Sample sample = new Sample();
+                sample.x = x;
+                sample.y = y;
+                sample.heading = Math.atan2(dy, dx);
+                sample.curvature = (dx * ddy - dy * ddx) / Math.pow(dx * dx + dy * dy, 1.5);
+
+                if (n > 0) {
+                    Sample last = samples[n - 1];
+                    sample.distance = last.distance + Math.hypot(x - last.x, y - last.y);
+
+                    // Keep the heading continuous, so it can be interpolated
+                    double turn = sample.heading - last.heading;
+                    sample.heading = last.heading + Math.atan2(Math.sin(turn), Math.cos(turn));
+                }
+                samples[n++] = sample;
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Give each sample the fastest velocity that keeps the centripetal
+     * acceleration, the outside wheel's speed and the acceleration along the
+     * path within limits, then work out when the robot reaches each sample
+     */
+    private static void limitVelocity(Sample[] samples) {
+        double halfTrack = Constants.Drivetrain.kTrackWidthInches / 2.0;
+
+        for (Sample sample : samples) {
+            double curvature = Math.abs(sample.curvature);
+            double velocity = PathDefinitions.kMaxVelocity / (1 + curvature * halfTrack);
+            if (curvature > 1e-9) {
+                velocity = Math.min(velocity, Math.sqrt(PathDefinitions.kMaxCentripetalAcceleration / curvature));
+            }
+            sample.velocity = velocity;
+        }
+
+        samples[0].velocity = 0;
+        for (int i = 1; i < samples.length; i++) {
+            double ds = samples[i].distance - samples[i - 1].distance;
+            double reachable = Math.sqrt(samples[i - 1].velocity * samples[i - 1].velocity
+                    + 2 * PathDefinitions.kMaxAcceleration * ds);
+            samples[i].velocity = Math.min(samples[i].velocity, reachable);
+        }
+
+        samples[samples.length - 1].velocity = 0;
+        for (int i = samples.length - 2; i >= 0; i--) {
+            double ds = samples[i + 1].distance - samples[i].distance;
+            double reachable = Math.sqrt(samples[i + 1].velocity * samples[i + 1].velocity
+                    + 2 * PathDefinitions.kMaxAcceleration * ds);
+            samples[i].velocity = Math.min(samples[i].velocity, reachable);
+        }
+
+        samples[0].time = 0;
+        for (int i = 1; i < samples.length; i++) {
+            double ds = samples[i].distance - samples[i - 1].distance;
+            double averageVelocity = (samples[i].velocity + samples[i - 1].velocity) / 2;
+            samples[i].time = samples[i - 1].time + (averageVelocity > 0 ? ds / averageVelocity : 0);
+        }
+    }
+
+    /**
+     * Interpolate the samples at a fixed time step
+     * @return The points, kFloatsPerPoint floats each, laid out as in
+     *         TrajectoryFormat
+     */
+    private static float[] resample(Sample[] samples) {
+        double duration = samples[samples.length - 1].time;
+        int length = (int) Math.ceil(duration / PathDefinitions.kDtSec) + 1;
+        float[] points = new float[length * kFloatsPerPoint];
+        double halfTrack = Constants.Drivetrain.kTrackWidthInches / 2.0;
+
+        int i = 1;
+        for (int point = 0; point < length; point++) {
+            double time = Math.min(point * PathDefinitions.kDtSec, duration);
+            while (i < samples.length - 1 && samples[i].time < time) {
+                i++;
+            }
+            Sample a = samples[i - 1];
+            Sample b = samples[i];
+            double span = b.time - a.time;
+            double f = span > 0 ? (time - a.time) / span : 1;
+
+            double velocity = lerp(a.velocity, b.velocity, f);
+            double curvature = lerp(a.curvature, b.curvature, f);
+            double acceleration = span > 0 ? (b.velocity - a.velocity) / span : 0;
+
+            int base = point * kFloatsPerPoint;
+            points[base + TrajectoryFormat.kX / 4] = (float) lerp(a.x, b.x, f);
+            points[base + TrajectoryFormat.kY / 4] = (float) lerp(a.y, b.y, f);
+            points[base + TrajectoryFormat.kHeading / 4] = (float) lerp(a.heading, b.heading, f);
+            points[base + TrajectoryFormat.kDistance / 4] = (float) lerp(a.distance, b.distance, f);
+            points[base + TrajectoryFormat.kVelocity / 4] = (float) velocity;
+            points[base + TrajectoryFormat.kAcceleration / 4] = (float) acceleration;
+            points[base + TrajectoryFormat.kCurvature / 4] = (float) curvature;
+            points[base + TrajectoryFormat.kLeftVelocity / 4] = (float) (velocity * (1 - curvature * halfTrack));
+            points[base + TrajectoryFormat.kRightVelocity / 4] = (float) (velocity * (1 + curvature * halfTrack));
+        }
+        return points;
+    }
+
+    private static double lerp(double a, double b, double f) {
+        return a + (b - a) * f;
+    }
+
+    private static void write(Path file, List<PathDefinitions.Path> paths, List<float[]> trajectories)
+            throws IOException {
+        int size = TrajectoryFormat.kHeaderBytes + paths.size() * TrajectoryFormat.kEntryBytes;
+        for (float[] points : trajectories) {
+            size += points.length * 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(TrajectoryFormat.kByteOrder);
+        buffer.putInt(TrajectoryFormat.kMagic);
+        buffer.putInt(TrajectoryFormat.kVersion);
+        buffer.putInt(paths.size());
+
+        int offset = TrajectoryFormat.kHeaderBytes + paths.size() * TrajectoryFormat.kEntryBytes;
+        for (int i = 0; i < paths.size(); i++) {
+            byte[] name = paths.get(i).name.getBytes(StandardCharsets.US_ASCII);
+            buffer.put(name);
+            buffer.put(new byte[TrajectoryFormat.kNameBytes - name.length]);
+            buffer.putInt(offset);
+            buffer.putInt(trajectories.get(i).length / kFloatsPerPoint);
+            buffer.putFloat((float) PathDefinitions.kDtSec);
+            offset += trajectories.get(i).length * 4;
+        }
+
+        for (float[] points : trajectories) {
+            for (float value : points) {
+                buffer.putFloat(value);
+            }
+        }
+        buffer.flip();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}